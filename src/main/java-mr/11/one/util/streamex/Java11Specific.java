@@ -0,0 +1,32 @@
+/*
+ * Copyright 2015, 2019 StreamEx contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package one.util.streamex;
+
+import jdk.jfr.FlightRecorder;
+
+/**
+ * @author Tagir Valeev
+ */
+/* package */ class Java11Specific extends Java9Specific {
+    // the jdk.jfr module may be absent in the custom runtime image, and the VM may not support JFR
+    private static final boolean JFR_AVAILABLE = ModuleLayer.boot().findModule("jdk.jfr").isPresent()
+        && FlightRecorder.isAvailable();
+
+    @Override
+    OperationRecorder startOperation(BaseStreamEx<?, ?, ?, ?> stream, boolean sequential) {
+        return JFR_AVAILABLE && JfrRecorder.isEnabled() ? new JfrRecorder(stream, sequential) : null;
+    }
+}
@@ -0,0 +1,206 @@
+/*
+ * Copyright 2015, 2019 StreamEx contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package one.util.streamex;
+
+import java.util.concurrent.ForkJoinPool;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.EventType;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Records the terminal operation of the stream, its source splits and
+ * short-circuit cancellations as JFR events. The events are disabled by
+ * default and should be enabled in the recording settings, for example:
+ *
+ * <pre>{@code
+ * jfr configure one.util.streamex.TerminalOperation#enabled=true
+ * }</pre>
+ *
+ * While all the events are disabled, the terminal operations are not
+ * recorded at all. This class must not be used unless JFR is available (see
+ * {@link Java11Specific}).
+ *
+ * @author Tagir Valeev
+ */
+/* package */ final class JfrRecorder extends OperationRecorder {
+    private static final StackWalker WALKER = StackWalker.getInstance(StackWalker.Option.RETAIN_CLASS_REFERENCE);
+
+    @Name("one.util.streamex.TerminalOperation")
+    @Label("Stream Terminal Operation")
+    @Category("StreamEx")
+    @Description("Terminal operation of the stream")
+    @Enabled(false)
+    static final class TerminalOperationEvent extends Event {
+        @Label("Stream Type")
+        String streamType;
+
+        @Label("Operation")
+        String operation;
+
+        @Label("Parallel")
+        boolean parallel;
+
+        @Label("Parallelism")
+        int parallelism;
+
+        @Label("Element Count")
+        @Description("Number of the elements passed to the terminal operation")
+        long elementCount;
+
+        @Label("Fork-Join Pool")
+        String forkJoinPool;
+
+        @Label("Executor")
+        String executor;
+
+        @Label("Short-Circuited")
+        boolean shortCircuited;
+    }
+
+    @Name("one.util.streamex.Split")
+    @Label("Stream Source Split")
+    @Category("StreamEx")
+    @Description("Split of the stream source")
+    @Enabled(false)
+    @StackTrace(false)
+    static final class SplitEvent extends Event {
+        @Label("Operation")
+        String operation;
+
+        @Label("Path")
+        @Description("Path of the split in the split tree: 0 is prefix, 1 is suffix")
+        String path;
+
+        @Label("Prefix Size")
+        long prefixSize;
+
+        @Label("Suffix Size")
+        long suffixSize;
+    }
+
+    @Name("one.util.streamex.Cancellation")
+    @Label("Stream Short-Circuit Cancellation")
+    @Category("StreamEx")
+    @Description("Traversal of the stream source stopped as the result is already known")
+    @Enabled(false)
+    @StackTrace(false)
+    static final class CancellationEvent extends Event {
+        @Label("Operation")
+        String operation;
+
+        @Label("Path")
+        @Description("Path of the stopped split in the split tree, empty if the whole operation is stopped")
+        String path;
+
+        @Label("Element Count")
+        long elementCount;
+    }
+
+    private static final EventType TERMINAL_OPERATION = EventType.getEventType(TerminalOperationEvent.class);
+    private static final EventType SPLIT = EventType.getEventType(SplitEvent.class);
+    private static final EventType CANCELLATION = EventType.getEventType(CancellationEvent.class);
+
+    private final TerminalOperationEvent event = new TerminalOperationEvent();
+    private final String operation;
+    private volatile boolean shortCircuited;
+
+    JfrRecorder(BaseStreamEx<?, ?, ?, ?> stream, boolean sequential) {
+        this.operation = operation();
+        StreamContext context = stream.context;
+        event.streamType = stream.getClass().getSimpleName();
+        event.operation = operation;
+        event.parallel = !sequential;
+        if (sequential) {
+            event.parallelism = 1;
+        } else if (context.executor != null) {
+            event.parallelism = context.parallelism;
+            event.executor = context.executor.getClass().getName();
+        } else {
+            ForkJoinPool pool = context.fjp == null ? ForkJoinPool.commonPool() : context.fjp;
+            event.parallelism = pool.getParallelism();
+            event.forkJoinPool = pool == ForkJoinPool.commonPool() ? "commonPool" : pool.getClass().getName() + '@'
+                + Integer.toHexString(System.identityHashCode(pool));
+        }
+        event.begin();
+    }
+
+    static boolean isEnabled() {
+        return TERMINAL_OPERATION.isEnabled() || SPLIT.isEnabled() || CANCELLATION.isEnabled();
+    }
+
+    /**
+     * Returns the name of the outermost stream method on the stack, that is,
+     * the terminal operation called by the user.
+     */
+    private static String operation() {
+        String name = WALKER.walk(frames -> {
+            String last = null;
+            for (StackWalker.StackFrame frame : (Iterable<StackWalker.StackFrame>) frames::iterator) {
+                if (BaseStreamEx.class.isAssignableFrom(frame.getDeclaringClass()))
+                    last = frame.getMethodName();
+                else if (last != null)
+                    break;
+            }
+            return last;
+        });
+        if (name != null && name.startsWith("lambda$")) {
+            // like lambda$toListAndThen$3
+            int end = name.indexOf('$', "lambda$".length());
+            name = name.substring("lambda$".length(), end < 0 ? name.length() : end);
+        }
+        return name;
+    }
+
+    @Override
+    void split(String path, long prefixSize, long suffixSize) {
+        if (SPLIT.isEnabled()) {
+            SplitEvent split = new SplitEvent();
+            split.operation = operation;
+            split.path = path;
+            split.prefixSize = prefixSize;
+            split.suffixSize = suffixSize;
+            split.commit();
+        }
+    }
+
+    @Override
+    void cancelled(String path, long elements) {
+        shortCircuited = true;
+        if (CANCELLATION.isEnabled()) {
+            CancellationEvent cancellation = new CancellationEvent();
+            cancellation.operation = operation;
+            cancellation.path = path;
+            cancellation.elementCount = elements;
+            cancellation.commit();
+        }
+    }
+
+    @Override
+    void finish() {
+        event.end();
+        if (event.shouldCommit()) {
+            event.elementCount = getElementCount();
+            event.shortCircuited = shortCircuited;
+            event.commit();
+        }
+    }
+}
@@ -0,0 +1,47 @@
+/*
+ * Copyright 2015, 2020 StreamEx contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package one.util.streamex;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * @author Tagir Valeev
+ */
+/* package */ class Java21Specific extends Java11Specific {
+    private static final ThreadFactory VIRTUAL_THREADS = Thread.ofVirtual().name("StreamEx-virtual-", 0).factory();
+
+    @Override
+    Executor sharedExecutor() {
+        return task -> VIRTUAL_THREADS.newThread(task).start();
+    }
+
+    @Override
+    Executor virtualExecutor(int maxConcurrency) {
+        Semaphore permits = new Semaphore(maxConcurrency);
+        // the task waits for a permit in its own virtual thread, so the
+        // submitter never blocks
+        return task -> VIRTUAL_THREADS.newThread(() -> {
+            permits.acquireUninterruptibly();
+            try {
+                task.run();
+            } finally {
+                permits.release();
+            }
+        }).start();
+    }
+}
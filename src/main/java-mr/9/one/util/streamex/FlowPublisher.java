@@ -0,0 +1,75 @@
+/*
+ * Copyright 2015, 2020 StreamEx contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package one.util.streamex;
+
+import java.util.Objects;
+import java.util.Spliterator;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * A {@link Flow.Publisher} over the stream spliterator which accepts a single
+ * subscriber, as the stream can be traversed only once. The elements are
+ * pulled by {@link DemandDriver}.
+ *
+ * @author Tagir Valeev
+ */
+/* package */ final class FlowPublisher<T> implements Flow.Publisher<T> {
+    private final Spliterator<T> spliterator;
+    private final Runnable closeHandler;
+    private final Executor executor;
+    private final AtomicBoolean subscribed = new AtomicBoolean();
+
+    FlowPublisher(Spliterator<T> spliterator, Runnable closeHandler, Executor executor) {
+        this.spliterator = spliterator;
+        this.closeHandler = closeHandler;
+        this.executor = executor;
+    }
+
+    @Override
+    public void subscribe(Flow.Subscriber<? super T> subscriber) {
+        Objects.requireNonNull(subscriber);
+        if (!subscribed.compareAndSet(false, true)) {
+            subscriber.onSubscribe(new Flow.Subscription() {
+                @Override
+                public void request(long n) {
+                    // nothing to emit
+                }
+
+                @Override
+                public void cancel() {
+                    // nothing to cancel
+                }
+            });
+            subscriber.onError(new IllegalStateException("The stream publisher allows only one subscriber"));
+            return;
+        }
+        DemandDriver<T> driver = new DemandDriver<>(spliterator, closeHandler, executor, subscriber::onNext,
+                subscriber::onError, subscriber::onComplete);
+        subscriber.onSubscribe(new Flow.Subscription() {
+            @Override
+            public void request(long n) {
+                driver.request(n);
+            }
+
+            @Override
+            public void cancel() {
+                driver.cancel();
+            }
+        });
+    }
+}
@@ -0,0 +1,54 @@
+/*
+ * Copyright 2015, 2020 StreamEx contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package one.util.streamex;
+
+import java.util.Objects;
+import java.util.concurrent.Flow;
+
+/**
+ * A {@link Flow.Subscriber} which forwards the signals to
+ * {@link SubscriberSpliterator}.
+ *
+ * @author Tagir Valeev
+ */
+/* package */ final class FlowSubscriber<T> implements Flow.Subscriber<T> {
+    private final SubscriberSpliterator<T> spliterator;
+
+    FlowSubscriber(SubscriberSpliterator<T> spliterator) {
+        this.spliterator = spliterator;
+    }
+
+    @Override
+    public void onSubscribe(Flow.Subscription subscription) {
+        Objects.requireNonNull(subscription);
+        spliterator.onSubscribe(subscription::request, subscription::cancel);
+    }
+
+    @Override
+    public void onNext(T item) {
+        spliterator.onNext(Objects.requireNonNull(item));
+    }
+
+    @Override
+    public void onError(Throwable throwable) {
+        spliterator.onError(Objects.requireNonNull(throwable));
+    }
+
+    @Override
+    public void onComplete() {
+        spliterator.onComplete();
+    }
+}
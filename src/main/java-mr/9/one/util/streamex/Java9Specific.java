@@ -15,6 +15,8 @@
  */
 package one.util.streamex;
 
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
 import java.util.function.DoublePredicate;
 import java.util.function.IntPredicate;
 import java.util.function.LongPredicate;
@@ -52,6 +54,23 @@ import java.util.stream.Stream;
         return new DoubleStreamEx(drop ? upStream.dropWhile(predicate) : upStream.takeWhile(predicate), stream.context);
     }
 
+    @Override
+    final Object toPublisher(Stream<?> stream, Executor executor) {
+        return new FlowPublisher<>(stream.spliterator(), stream::close, executor);
+    }
+
+    @Override
+    final <T> StreamEx<T> ofPublisher(Object publisher, int prefetch) {
+        if (!(publisher instanceof Flow.Publisher))
+            throw new IllegalArgumentException("publisher must be a Flow.Publisher: " + publisher.getClass()
+                    .getName());
+        @SuppressWarnings("unchecked")
+        Flow.Publisher<? extends T> flowPublisher = (Flow.Publisher<? extends T>) publisher;
+        SubscriberSpliterator<T> spliterator = new SubscriberSpliterator<>(prefetch, s -> flowPublisher.subscribe(
+            new FlowSubscriber<>(s)));
+        return StreamEx.of(spliterator).onClose(spliterator::close);
+    }
+
     @Override
     IntStream ofChars(CharSequence seq) {
         return seq.chars();
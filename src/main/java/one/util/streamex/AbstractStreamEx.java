@@ -15,6 +15,8 @@
  */
 package one.util.streamex;
 
+import java.time.Clock;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
@@ -29,6 +31,9 @@ import java.util.OptionalLong;
 import java.util.Set;
 import java.util.Spliterator;
 import java.util.Spliterators;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Executor;
 import java.util.concurrent.ForkJoinPool;
 import java.util.function.BiConsumer;
 import java.util.function.BiFunction;
@@ -85,7 +90,16 @@ public abstract class AbstractStreamEx<T, S extends AbstractStreamEx<T, S>> exte
 
     @Override
     final Stream<T> createStream() {
-        return StreamSupport.stream(spliterator, context.parallel);
+        if (!context.parallel || context.isSmall(spliterator))
+            return StreamSupport.stream(spliterator, false);
+        if (context.splitPolicy != null)
+            return StreamSupport.stream(PolicySpliterator.wrap(spliterator, context.splitPolicy), true);
+        return StreamSupport.stream(spliterator, true);
+    }
+
+    @Override
+    final Stream<T> leafStream(Spliterator<T> spliterator) {
+        return StreamSupport.stream(spliterator, false);
     }
 
     final <K, V, M extends Map<K, V>> M toMapThrowing(Function<? super T, ? extends K> keyMapper,
@@ -103,9 +117,16 @@ public abstract class AbstractStreamEx<T, S extends AbstractStreamEx<T, S>> exte
     }
 
     <R, A> R rawCollect(Collector<? super T, A, R> collector) {
-        if (context.fjp != null)
-            return context.terminate(collector, stream()::collect);
-        return stream().collect(collector);
+        if (context.executor != null && !runsSequentially()) {
+            Supplier<A> supplier = collector.supplier();
+            BiConsumer<A, ? super T> accumulator = collector.accumulator();
+            return collector.finisher().apply(terminate(s -> {
+                A container = supplier.get();
+                s.forEach(t -> accumulator.accept(container, t));
+                return container;
+            }, collector.combiner()));
+        }
+        return terminate(s -> s.collect(collector), null);
     }
 
     @SuppressWarnings("unchecked")
@@ -177,6 +198,80 @@ public abstract class AbstractStreamEx<T, S extends AbstractStreamEx<T, S>> exte
         return (S) super.parallel(fjp);
     }
 
+    @Override
+    @SuppressWarnings("unchecked")
+    public S parallel(ForkJoinPool fjp, SplitPolicy splitPolicy) {
+        return (S) super.parallel(fjp, splitPolicy);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public S parallel(Executor executor) {
+        return (S) super.parallel(executor);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public S sequentialThreshold(long threshold) {
+        return (S) super.sequentialThreshold(threshold);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public S instrument(StageStatistics statistics) {
+        return (S) super.instrument(statistics);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public S checkpoint(String name) {
+        return (S) super.checkpoint(name);
+    }
+
+    /**
+     * Returns an equivalent stream that is parallel and runs its terminal
+     * operation in virtual threads, at most {@code maxConcurrency} splits at
+     * once.
+     *
+     * <p>
+     * This is an <a href="package-summary.html#StreamOps">intermediate</a>
+     * operation.
+     *
+     * <p>
+     * The terminal operation of this stream or any derived stream (except the
+     * streams created via {@link #parallel()}, {@link #parallel(ForkJoinPool)}
+     * or {@link #sequential()} methods) splits the stream into about
+     * {@code 4*maxConcurrency} parts and processes each part in its own
+     * virtual thread, so the blocking calls in the stream pipeline (like
+     * remote requests in {@code map}) don't occupy the {@link ForkJoinPool}
+     * workers. The calling thread waits till calculation finishes. The results
+     * of the parts are combined in encounter order, so the result is the same
+     * as for the usual parallel stream.
+     *
+     * <p>
+     * Virtual threads are available since Java 21. On older Java versions the
+     * parts are processed by at most {@code maxConcurrency} platform daemon
+     * threads which terminate when idle.
+     *
+     * <p>
+     * Note that only the terminal operation is performed in virtual threads.
+     * The stateful intermediate operations like {@link #sorted()} which need
+     * to process the whole input before the terminal operation still use
+     * common {@code ForkJoinPool}.
+     *
+     * @param maxConcurrency the maximal number of parts processed at once
+     * @return a parallel stream bound to the virtual threads
+     * @throws IllegalArgumentException if {@code maxConcurrency} is not
+     *         positive
+     * @since 0.7.4
+     */
+    @SuppressWarnings("unchecked")
+    public S parallelVirtual(int maxConcurrency) {
+        if (maxConcurrency <= 0)
+            throw new IllegalArgumentException("maxConcurrency must be positive: " + maxConcurrency);
+        return (S) parallel(VerSpec.VER_SPEC.virtualExecutor(maxConcurrency), maxConcurrency);
+    }
+
     @SuppressWarnings("unchecked")
     @Override
     public S unordered() {
@@ -320,6 +415,112 @@ public abstract class AbstractStreamEx<T, S extends AbstractStreamEx<T, S>> exte
         return supply(result);
     }
 
+    /**
+     * Returns a stream consisting of the elements of this stream skipping the
+     * elements which are equal to any of the last {@code windowSize} emitted
+     * elements.
+     *
+     * <p>
+     * This is a <a href="package-summary.html#StreamOps">stateful
+     * quasi-intermediate</a> operation. Unlike {@link #distinct()} it stores
+     * at most {@code windowSize} elements, so it can be used to remove the
+     * repeating elements from the infinite stream (like
+     * {@link StreamEx#generate(java.util.function.Supplier)} or
+     * {@link StreamEx#ofQueue(java.util.concurrent.BlockingQueue, java.util.function.Predicate)})
+     * with bounded memory. The element equal to the one emitted earlier is
+     * emitted again once the earlier one leaves the window. Every element is
+     * processed in constant time.
+     *
+     * <p>
+     * The result depends on the encounter order, so the stream is not split
+     * by this operation: the parallel stream is processed sequentially.
+     *
+     * @param windowSize the number of the last emitted elements to remember,
+     *        must be positive
+     * @return the new stream
+     * @throws IllegalArgumentException if {@code windowSize} is not positive
+     * @see #distinctWithin(Function, int)
+     * @since 0.7.4
+     */
+    public S distinctWithin(int windowSize) {
+        return distinctWithin(Function.identity(), windowSize);
+    }
+
+    /**
+     * Returns a stream consisting of the elements of this stream skipping the
+     * elements which key (the result of applying the given function) is equal
+     * to the key of any of the last {@code windowSize} emitted elements.
+     *
+     * <p>
+     * This is a <a href="package-summary.html#StreamOps">stateful
+     * quasi-intermediate</a> operation. Unlike
+     * {@link #distinct(Function)} it stores at most {@code windowSize} keys in
+     * the ring buffer indexed by the hash set, so it can be used to remove the
+     * repeating elements from the infinite stream with bounded memory. Every
+     * element is processed in constant time.
+     *
+     * <p>
+     * The result depends on the encounter order, so the stream is not split
+     * by this operation: the parallel stream is processed sequentially.
+     *
+     * @param keyExtractor a non-interfering, stateless function which
+     *        classifies input elements.
+     * @param windowSize the number of the keys of the last emitted elements to
+     *        remember, must be positive
+     * @return the new stream
+     * @throws IllegalArgumentException if {@code windowSize} is not positive
+     * @see #distinctWithin(Function, Duration, Clock)
+     * @since 0.7.4
+     */
+    public S distinctWithin(Function<? super T, ?> keyExtractor, int windowSize) {
+        Objects.requireNonNull(keyExtractor);
+        if (windowSize <= 0)
+            throw new IllegalArgumentException("windowSize must be positive: " + windowSize);
+        return supply(new WindowDistinctSpliterator.OfCount<T, Object>(spliterator(), keyExtractor, windowSize));
+    }
+
+    /**
+     * Returns a stream consisting of the elements of this stream skipping the
+     * elements which key (the result of applying the given function) is equal
+     * to the key of any element emitted less than {@code horizon} ago
+     * according to the given clock.
+     *
+     * <p>
+     * This is a <a href="package-summary.html#StreamOps">stateful
+     * quasi-intermediate</a> operation. The time is taken from the clock when
+     * the element is processed (with millisecond precision), and the key is
+     * forgotten once the horizon passes, so the memory is bounded by the
+     * number of distinct keys emitted within the horizon. Every element is
+     * processed in amortized constant time.
+     *
+     * <p>
+     * The result depends on the encounter order, so the stream is not split
+     * by this operation: the parallel stream is processed sequentially.
+     *
+     * @param keyExtractor a non-interfering, stateless function which
+     *        classifies input elements.
+     * @param horizon the time to remember the key of the emitted element, must
+     *        be positive
+     * @param clock the clock to get the current time from
+     * @return the new stream
+     * @throws IllegalArgumentException if {@code horizon} is zero or negative
+     * @see #distinctWithin(Function, int)
+     * @since 0.7.4
+     */
+    public S distinctWithin(Function<? super T, ?> keyExtractor, Duration horizon, Clock clock) {
+        Objects.requireNonNull(keyExtractor);
+        Objects.requireNonNull(clock);
+        if (horizon.isNegative() || horizon.isZero())
+            throw new IllegalArgumentException("horizon must be positive: " + horizon);
+        long millis;
+        try {
+            millis = Math.max(1, horizon.toMillis());
+        } catch (ArithmeticException e) {
+            millis = Long.MAX_VALUE;
+        }
+        return supply(new WindowDistinctSpliterator.OfTime<T, Object>(spliterator(), keyExtractor, millis, clock));
+    }
+
     @Override
     public S sorted() {
         return supply(stream().sorted());
@@ -347,32 +548,39 @@ public abstract class AbstractStreamEx<T, S extends AbstractStreamEx<T, S>> exte
 
     @Override
     public void forEach(Consumer<? super T> action) {
-        if (spliterator != null && !isParallel()) {
-            spliterator().forEachRemaining(action);
+        if (spliterator != null && runsSequentially()) {
+            traverse(s -> s.forEachRemaining(action));
         } else {
-            if (context.fjp != null)
-                context.terminate(() -> {
-                    stream().forEach(action);
-                    return null;
-                });
-            else {
-                stream().forEach(action);
-            }
+            terminate(s -> {
+                s.forEach(action);
+                return null;
+            }, (a, b) -> null);
         }
     }
 
     @Override
     public void forEachOrdered(Consumer<? super T> action) {
-        if (spliterator != null && !isParallel()) {
-            spliterator().forEachRemaining(action);
+        if (spliterator != null && runsSequentially()) {
+            traverse(s -> s.forEachRemaining(action));
         } else {
-            if (context.fjp != null)
-                context.terminate(() -> {
-                    stream().forEachOrdered(action);
-                    return null;
+            if (context.executor != null && !runsSequentially()) {
+                ExecutorDriver.forEachOrdered(context, spliterator(), (spltr, head) -> {
+                    List<T> buf = new ArrayList<>();
+                    Consumer<T> add = buf::add;
+                    while (!head.getAsBoolean()) {
+                        if (!spltr.tryAdvance(add))
+                            return () -> buf.forEach(action);
+                    }
+                    return () -> {
+                        buf.forEach(action);
+                        spltr.forEachRemaining(action);
+                    };
                 });
-            else {
-                stream().forEachOrdered(action);
+            } else {
+                terminate(s -> {
+                    s.forEachOrdered(action);
+                    return null;
+                }, null);
             }
         }
     }
@@ -384,30 +592,23 @@ public abstract class AbstractStreamEx<T, S extends AbstractStreamEx<T, S>> exte
 
     @Override
     public <A> A[] toArray(IntFunction<A[]> generator) {
-        if (context.fjp != null)
-            return context.terminate(generator, stream()::toArray);
-        return stream().toArray(generator);
+        return terminate(s -> s.toArray(generator), Internals::concat);
     }
 
     @Override
     public T reduce(T identity, BinaryOperator<T> accumulator) {
-        if (context.fjp != null)
-            return context.terminate(() -> stream().reduce(identity, accumulator));
-        return stream().reduce(identity, accumulator);
+        return terminate(s -> s.reduce(identity, accumulator), accumulator);
     }
 
     @Override
     public Optional<T> reduce(BinaryOperator<T> accumulator) {
-        if (context.fjp != null)
-            return context.terminate(accumulator, stream()::reduce);
-        return stream().reduce(accumulator);
+        return terminate(s -> s.reduce(accumulator), (a, b) -> a.isPresent() ? b.isPresent() ? Optional.of(
+            accumulator.apply(a.get(), b.get())) : a : b);
     }
 
     @Override
     public <U> U reduce(U identity, BiFunction<U, ? super T, U> accumulator, BinaryOperator<U> combiner) {
-        if (context.fjp != null)
-            return context.terminate(() -> stream().reduce(identity, accumulator, combiner));
-        return stream().reduce(identity, accumulator, combiner);
+        return terminate(s -> s.reduce(identity, accumulator, combiner), combiner);
     }
 
     /**
@@ -466,9 +667,10 @@ public abstract class AbstractStreamEx<T, S extends AbstractStreamEx<T, S>> exte
 
     @Override
     public <R> R collect(Supplier<R> supplier, BiConsumer<R, ? super T> accumulator, BiConsumer<R, R> combiner) {
-        if (context.fjp != null)
-            return context.terminate(() -> stream().collect(supplier, accumulator, combiner));
-        return stream().collect(supplier, accumulator, combiner);
+        return terminate(s -> s.collect(supplier, accumulator, combiner), (a, b) -> {
+            combiner.accept(a, b);
+            return a;
+        });
     }
 
     /**
@@ -482,11 +684,20 @@ public abstract class AbstractStreamEx<T, S extends AbstractStreamEx<T, S>> exte
     @Override
     public <R, A> R collect(Collector<? super T, A, R> collector) {
         Predicate<A> finished = finished(collector);
+        if (collector instanceof Joining.Appending && (finished == null || runsSequentially())) {
+            // write the pieces as they arrive instead of accumulating them
+            @SuppressWarnings("unchecked")
+            AbstractStreamEx<? extends CharSequence, ?> stream = (AbstractStreamEx<? extends CharSequence, ?>) this;
+            @SuppressWarnings("unchecked")
+            R result = (R) ((Joining.Appending<?>) collector).drain(stream);
+            return result;
+        }
         if (finished != null) {
             BiConsumer<A, ? super T> acc = collector.accumulator();
             BinaryOperator<A> combiner = collector.combiner();
+            boolean sequential = runsSequentially();
             Spliterator<T> spliterator = spliterator();
-            if (!isParallel()) {
+            if (sequential) {
                 A a = collector.supplier().get();
                 if (!finished.test(a)) {
                     try {
@@ -504,9 +715,28 @@ public abstract class AbstractStreamEx<T, S extends AbstractStreamEx<T, S>> exte
                 }
                 return collector.finisher().apply(a);
             }
+            boolean unordered = !spliterator.hasCharacteristics(Spliterator.ORDERED)
+                || collector.characteristics().contains(Characteristics.UNORDERED);
+            if (context.executor != null) {
+                Supplier<A> supplier = collector.supplier();
+                return collector.finisher().apply(ExecutorDriver.evaluate(context, spliterator, spltr -> {
+                    A a = supplier.get();
+                    if (!finished.test(a)) {
+                        try {
+                            spltr.forEachRemaining(e -> {
+                                acc.accept(a, e);
+                                if (finished.test(a))
+                                    throw new CancelException();
+                            });
+                        } catch (CancelException ex) {
+                            // ignore
+                        }
+                    }
+                    return a;
+                }, combiner, finished, !unordered));
+            }
             Spliterator<A> spltr;
-            if (!spliterator.hasCharacteristics(Spliterator.ORDERED)
-                || collector.characteristics().contains(Characteristics.UNORDERED)) {
+            if (unordered) {
                 spltr = new UnorderedCancellableSpliterator<>(spliterator, collector.supplier(), acc, combiner,
                         finished);
             } else {
@@ -518,6 +748,135 @@ public abstract class AbstractStreamEx<T, S extends AbstractStreamEx<T, S>> exte
         return rawCollect(collector);
     }
 
+    /**
+     * Performs a <a href="package-summary.html#MutableReduction">mutable
+     * reduction</a> operation on the elements of this stream asynchronously
+     * using a {@code Collector}.
+     *
+     * <p>
+     * This is an asynchronous <a
+     * href="package-summary.html#StreamOps">terminal</a> operation: it returns
+     * immediately and the operation is performed in the executor or the
+     * {@link ForkJoinPool} this stream is bound to (see
+     * {@link #parallel(Executor)} and {@link #parallel(ForkJoinPool)}) or in
+     * the default asynchronous pool of {@link CompletableFuture}. The
+     * returned future is completed with the result or with the exception
+     * thrown by the operation.
+     *
+     * <p>
+     * If the returned future is completed before the operation finishes (for
+     * example, cancelled), the operation stops traversing the stream source as
+     * soon as possible and its result is discarded.
+     *
+     * <p>
+     * Unlike {@link #collect(Collector)} this method never short-circuits.
+     *
+     * @param <R> the type of the result
+     * @param <A> the intermediate accumulation type of the {@code Collector}
+     * @param collector the {@code Collector} describing the reduction
+     * @return the future result of the reduction
+     * @see #collect(Collector)
+     * @since 0.7.4
+     */
+    public <R, A> CompletableFuture<R> collectAsync(Collector<? super T, A, R> collector) {
+        if (context.executor != null && !runsSequentially()) {
+            Supplier<A> supplier = collector.supplier();
+            BiConsumer<A, ? super T> accumulator = collector.accumulator();
+            return terminateAsync(s -> {
+                A container = supplier.get();
+                s.forEach(t -> accumulator.accept(container, t));
+                return container;
+            }, collector.combiner(), collector.finisher());
+        }
+        return terminateAsync(s -> s.collect(collector), null, Function.identity());
+    }
+
+    /**
+     * Returns a {@link CompletableFuture} which is completed with the
+     * {@link List} containing the elements of this stream. The list is
+     * guaranteed to be mutable, but there are no guarantees on the type,
+     * serializability, or thread-safety.
+     *
+     * <p>
+     * This is an asynchronous <a
+     * href="package-summary.html#StreamOps">terminal</a> operation which is
+     * performed like {@link #collectAsync(Collector)}.
+     *
+     * @return the future list of the stream elements
+     * @see #toList()
+     * @since 0.7.4
+     */
+    @SuppressWarnings("unchecked")
+    public CompletableFuture<List<T>> toListAsync() {
+        return terminateAsync(s -> s.toArray(Object[]::new), Internals::concat,
+            array -> new ArrayList<>((Collection<T>) new ArrayCollection(array)));
+    }
+
+    /**
+     * Performs an action for each element of this stream asynchronously.
+     *
+     * <p>
+     * This is an asynchronous <a
+     * href="package-summary.html#StreamOps">terminal</a> operation which is
+     * performed like {@link #collectAsync(Collector)}. The action is performed
+     * like in {@link #forEach(Consumer)}: for parallel stream the order is not
+     * respected.
+     *
+     * @param action a non-interfering action to perform on the elements
+     * @return the future which is completed when the action is performed for
+     *         all the elements
+     * @see #forEach(Consumer)
+     * @since 0.7.4
+     */
+    public CompletableFuture<Void> forEachAsync(Consumer<? super T> action) {
+        return terminateAsync(s -> {
+            s.forEach(action);
+            return null;
+        }, (a, b) -> null, Function.identity());
+    }
+
+    /**
+     * Performs a reduction on the elements of this stream asynchronously,
+     * using the provided identity value and an associative accumulation
+     * function.
+     *
+     * <p>
+     * This is an asynchronous <a
+     * href="package-summary.html#StreamOps">terminal</a> operation which is
+     * performed like {@link #collectAsync(Collector)}.
+     *
+     * @param identity the identity value for the accumulating function
+     * @param accumulator an associative, non-interfering, stateless function
+     *        for combining two values
+     * @return the future result of the reduction
+     * @see #reduce(Object, BinaryOperator)
+     * @since 0.7.4
+     */
+    public CompletableFuture<T> reduceAsync(T identity, BinaryOperator<T> accumulator) {
+        return terminateAsync(s -> s.reduce(identity, accumulator), accumulator, Function.identity());
+    }
+
+    /**
+     * Performs a reduction on the elements of this stream asynchronously,
+     * using an associative accumulation function.
+     *
+     * <p>
+     * This is an asynchronous <a
+     * href="package-summary.html#StreamOps">terminal</a> operation which is
+     * performed like {@link #collectAsync(Collector)}.
+     *
+     * @param accumulator an associative, non-interfering, stateless function
+     *        for combining two values
+     * @return the future {@link Optional} describing the result of the
+     *         reduction or an empty {@code Optional} if the stream is empty
+     * @see #reduce(BinaryOperator)
+     * @since 0.7.4
+     */
+    public CompletableFuture<Optional<T>> reduceAsync(BinaryOperator<T> accumulator) {
+        return terminateAsync(s -> s.reduce(accumulator), (a, b) -> a.isPresent() ? b.isPresent() ? Optional.of(
+            accumulator.apply(a.get(), b.get())) : a : b, Function.identity());
+    }
+
     @Override
     public Optional<T> min(Comparator<? super T> comparator) {
         return reduce(BinaryOperator.minBy(comparator));
@@ -530,23 +889,17 @@ public abstract class AbstractStreamEx<T, S extends AbstractStreamEx<T, S>> exte
 
     @Override
     public long count() {
-        if (context.fjp != null)
-            return context.terminate(stream()::count);
-        return stream().count();
+        return terminate(Stream::count, Long::sum);
     }
 
     @Override
     public boolean anyMatch(Predicate<? super T> predicate) {
-        if (context.fjp != null)
-            return context.terminate(predicate, stream()::anyMatch);
-        return stream().anyMatch(predicate);
+        return terminate(s -> s.anyMatch(predicate), Boolean::logicalOr, Boolean::booleanValue, false);
     }
 
     @Override
     public boolean allMatch(Predicate<? super T> predicate) {
-        if (context.fjp != null)
-            return context.terminate(predicate, stream()::allMatch);
-        return stream().allMatch(predicate);
+        return terminate(s -> s.allMatch(predicate), Boolean::logicalAnd, match -> !match, false);
     }
 
     @Override
@@ -556,16 +909,12 @@ public abstract class AbstractStreamEx<T, S extends AbstractStreamEx<T, S>> exte
 
     @Override
     public Optional<T> findFirst() {
-        if (context.fjp != null)
-            return context.terminate(stream()::findFirst);
-        return stream().findFirst();
+        return terminate(Stream::findFirst, Internals::firstPresent, Optional::isPresent, true);
     }
 
     @Override
     public Optional<T> findAny() {
-        if (context.fjp != null)
-            return context.terminate(stream()::findAny);
-        return stream().findAny();
+        return terminate(Stream::findAny, Internals::firstPresent, Optional::isPresent, false);
     }
 
     /**
@@ -720,6 +1069,391 @@ public abstract class AbstractStreamEx<T, S extends AbstractStreamEx<T, S>> exte
                 context);
     }
 
+    /**
+     * Returns a stream consisting of the results of the asynchronous calls
+     * started by the given function for the elements of this stream. At most
+     * {@code maxInFlight} calls are incomplete at any time and the results are
+     * emitted in the encounter order of the original elements.
+     *
+     * <p>
+     * This is an <a href="package-summary.html#StreamOps">intermediate
+     * operation</a>. The calls are started lazily when the resulting stream is
+     * traversed, up to {@code maxInFlight} elements ahead of the consumer. If
+     * the call fails, its exception is rethrown by the terminal operation
+     * (unwrapping {@link java.util.concurrent.CompletionException}).
+     *
+     * <p>
+     * Closing the resulting stream cancels the calls which are not complete
+     * yet, so use try-with-resources statement if the stream may be not
+     * traversed completely (for example, due to short-circuiting terminal
+     * operation).
+     *
+     * <p>
+     * For parallel stream every split keeps its own window of calls, while
+     * {@code maxInFlight} still limits the number of the incomplete calls in
+     * total. The stream can be split only before the traversal starts.
+     *
+     * @param <R> The element type of the new stream
+     * @param mapper a <a
+     *        href="package-summary.html#NonInterference">non-interfering </a>,
+     *        <a href="package-summary.html#Statelessness">stateless</a>
+     *        function which starts the call for the element and returns the
+     *        stage which completes with its result
+     * @param maxInFlight the maximal number of incomplete calls, must be
+     *        positive
+     * @return the new stream
+     * @throws IllegalArgumentException if {@code maxInFlight} is not positive
+     * @see #mapAsync(Function, int, Executor)
+     * @since 0.7.4
+     */
+    public <R> StreamEx<R> mapAsync(Function<? super T, ? extends CompletionStage<? extends R>> mapper,
+            int maxInFlight) {
+        Objects.requireNonNull(mapper);
+        if (maxInFlight <= 0)
+            throw new IllegalArgumentException("maxInFlight must be positive: " + maxInFlight);
+        AsyncMapSpliterator<T, R> spliterator = new AsyncMapSpliterator<>(spliterator(), mapper, maxInFlight);
+        return new StreamEx<>(spliterator, context.onClose(spliterator::cancel));
+    }
+
+    /**
+     * Returns a stream consisting of the results of applying the given
+     * function to the elements of this stream, where the function is called
+     * asynchronously in the supplied executor. At most {@code maxInFlight}
+     * calls are submitted to the executor and not complete at any time and the
+     * results are emitted in the encounter order of the original elements.
+     *
+     * <p>
+     * This is an <a href="package-summary.html#StreamOps">intermediate
+     * operation</a> which behaves like {@link #mapAsync(Function, int)}. It's
+     * suitable for the blocking functions like remote calls: they run in the
+     * supplied executor instead of occupying the threads which traverse the
+     * stream. Closing the resulting stream cancels the calls which are not
+     * started yet.
+     *
+     * @param <R> The element type of the new stream
+     * @param mapper a <a
+     *        href="package-summary.html#NonInterference">non-interfering </a>,
+     *        <a href="package-summary.html#Statelessness">stateless</a>
+     *        function to apply to each element
+     * @param maxInFlight the maximal number of incomplete calls, must be
+     *        positive
+     * @param executor the executor to run the function in
+     * @return the new stream
+     * @throws IllegalArgumentException if {@code maxInFlight} is not positive
+     * @since 0.7.4
+     */
+    public <R> StreamEx<R> mapAsync(Function<? super T, ? extends R> mapper, int maxInFlight, Executor executor) {
+        Objects.requireNonNull(mapper);
+        Objects.requireNonNull(executor);
+        return mapAsync(t -> CompletableFuture.supplyAsync(() -> mapper.apply(t), executor), maxInFlight);
+    }
+
+    /**
+     * Returns a stream consisting of the elements of this stream, where this
+     * stream (including its source and the intermediate operations added so
+     * far) is traversed in the background thread ahead of the consumer.
+     *
+     * <p>
+     * This is an <a href="package-summary.html#StreamOps">intermediate
+     * operation</a>. The background thread is started when the resulting
+     * stream traversal starts. It puts the elements into the buffer of the
+     * specified size and waits while the buffer is full, so the slow source
+     * (like {@link StreamEx#ofLines(java.io.Reader)} or the iterator over the
+     * database rows) is read while the consumer processes the previous
+     * elements. The exception thrown by this stream is rethrown by the
+     * terminal operation. The background thread is a virtual thread on Java
+     * 21 and a daemon platform thread from the shared pool on the earlier
+     * versions. If the thread which traverses the resulting stream is
+     * interrupted while it waits for the next element, the traversal ends and
+     * the interrupted status is preserved.
+     *
+     * <p>
+     * Closing the resulting stream stops the background thread, so use
+     * try-with-resources statement if the stream may be not traversed
+     * completely (for example, due to short-circuiting terminal operation).
+     *
+     * <p>
+     * The resulting stream cannot be split, so the following operations of
+     * the parallel stream are performed by a single task.
+     *
+     * @param bufferSize the maximal number of elements read ahead, must be
+     *        positive
+     * @return the new stream
+     * @throws IllegalArgumentException if {@code bufferSize} is not positive
+     * @since 0.7.4
+     */
+    public S prefetch(int bufferSize) {
+        if (bufferSize <= 0)
+            throw new IllegalArgumentException("bufferSize must be positive: " + bufferSize);
+        PrefetchSpliterator<T> spliterator = new PrefetchSpliterator<>(spliterator(), bufferSize);
+        context = context.onClose(spliterator::close);
+        return supply(spliterator);
+    }
+
+    /**
+     * Returns a stream consisting of the results of applying the given bulk
+     * function to the batches of consecutive elements of this stream.
+     *
+     * <p>
+     * This is an <a href="package-summary.html#StreamOps">intermediate
+     * operation</a>. The elements are collected into the lists of
+     * {@code batchSize} elements (the last list of every split may be
+     * shorter), the function is called once per list and must return the
+     * list of the same size where every result corresponds to the element
+     * at the same position. The results are emitted in the encounter order.
+     * This is useful when the function performs a round trip to the remote
+     * store or cache which supports the bulk requests: the stream of
+     * {@code n} elements costs about {@code n / batchSize} round trips rather
+     * than {@code n}.
+     *
+     * <p>
+     * For parallel stream every split collects its own batches, so the
+     * batches never span the splits and may be shorter than
+     * {@code batchSize}. The stream size is preserved.
+     *
+     * @param <R> The element type of the new stream
+     * @param mapper a <a
+     *        href="package-summary.html#NonInterference">non-interfering </a>,
+     *        <a href="package-summary.html#Statelessness">stateless</a>
+     *        function which maps the list of elements to the list of results
+     * @param batchSize the maximal number of elements in the batch, must be
+     *        positive
+     * @return the new stream
+     * @throws IllegalArgumentException if {@code batchSize} is not positive
+     * @see #flatMapBatched(Function, int)
+     * @since 0.7.4
+     */
+    public <R> StreamEx<R> mapBatched(Function<? super List<T>, ? extends List<? extends R>> mapper, int batchSize) {
+        return batched(mapper, batchSize, true);
+    }
+
+    /**
+     * Returns a stream consisting of the results of applying the given bulk
+     * function to the batches of consecutive elements of this stream, where
+     * every batch may produce any number of results.
+     *
+     * <p>
+     * This is an <a href="package-summary.html#StreamOps">intermediate
+     * operation</a> which behaves like {@link #mapBatched(Function, int)},
+     * but the size of the returned collection may differ from the batch
+     * size. For example, the function may look up the stored records for
+     * the batch of keys skipping the missing ones. The results of every batch
+     * are emitted in the iteration order of the returned collection.
+     *
+     * @param <R> The element type of the new stream
+     * @param mapper a <a
+     *        href="package-summary.html#NonInterference">non-interfering </a>,
+     *        <a href="package-summary.html#Statelessness">stateless</a>
+     *        function which maps the list of elements to the collection of
+     *        results
+     * @param batchSize the maximal number of elements in the batch, must be
+     *        positive
+     * @return the new stream
+     * @throws IllegalArgumentException if {@code batchSize} is not positive
+     * @see #mapBatched(Function, int)
+     * @since 0.7.4
+     */
+    public <R> StreamEx<R> flatMapBatched(Function<? super List<T>, ? extends Collection<? extends R>> mapper,
+            int batchSize) {
+        return batched(mapper, batchSize, false);
+    }
+
+    private <R> StreamEx<R> batched(Function<? super List<T>, ? extends Collection<? extends R>> mapper,
+            int batchSize, boolean sameSize) {
+        Objects.requireNonNull(mapper);
+        if (batchSize <= 0)
+            throw new IllegalArgumentException("batchSize must be positive: " + batchSize);
+        return new StreamEx<>(new BatchMapSpliterator<>(spliterator(), mapper, batchSize, sameSize), context);
+    }
+
+    /**
+     * Returns a stream consisting of the results of applying the given
+     * function to the elements of this stream, reusing the results for the
+     * equal elements while they are in the cache of limited size.
+     *
+     * <p>
+     * This is an <a href="package-summary.html#StreamOps">intermediate
+     * operation</a>. This is useful when the function is expensive and the
+     * stream contains many repeating elements. The function is called at most
+     * once for the element while it stays in the cache. The least recently
+     * used element is evicted from the full cache. For parallel stream every
+     * split has its own cache, so the function may be called several times
+     * for the same element.
+     *
+     * @param <R> The element type of the new stream
+     * @param mapper a <a
+     *        href="package-summary.html#NonInterference">non-interfering </a>,
+     *        <a href="package-summary.html#Statelessness">stateless</a>
+     *        function to apply to each distinct element
+     * @param maxEntries the maximal number of the cached results per split,
+     *        must be positive
+     * @return the new stream
+     * @throws IllegalArgumentException if {@code maxEntries} is not positive
+     * @see #mapCached(Function, int, boolean, CacheStatistics)
+     * @since 0.7.4
+     */
+    public <R> StreamEx<R> mapCached(Function<? super T, ? extends R> mapper, int maxEntries) {
+        return cached(mapper, maxEntries, false, null);
+    }
+
+    /**
+     * Returns a stream consisting of the results of applying the given
+     * function to the elements of this stream, reusing the results for the
+     * equal elements while they are in the cache of limited size, and counts
+     * the cache hits and misses.
+     *
+     * <p>
+     * This is an <a href="package-summary.html#StreamOps">intermediate
+     * operation</a>. The least recently used element is evicted from the full
+     * cache. If the cache is not shared, every split of the parallel stream
+     * has its own cache, so it needs no synchronization. The shared cache is
+     * used by all the splits: it consists of several independently
+     * synchronized stripes, each holding the part of {@code maxEntries}
+     * entries. Two splits may call the function for the same element
+     * concurrently.
+     *
+     * @param <R> The element type of the new stream
+     * @param mapper a <a
+     *        href="package-summary.html#NonInterference">non-interfering </a>,
+     *        <a href="package-summary.html#Statelessness">stateless</a>
+     *        function to apply to each distinct element
+     * @param maxEntries the maximal number of the cached results (per split
+     *        unless the cache is shared), must be positive
+     * @param shared whether all the splits of the parallel stream share the
+     *        same cache
+     * @param statistics the counters to update, may be read after the terminal
+     *        operation is complete
+     * @return the new stream
+     * @throws IllegalArgumentException if {@code maxEntries} is not positive
+     * @see #mapCached(Function, int)
+     * @since 0.7.4
+     */
+    public <R> StreamEx<R> mapCached(Function<? super T, ? extends R> mapper, int maxEntries, boolean shared,
+            CacheStatistics statistics) {
+        return cached(mapper, maxEntries, shared, Objects.requireNonNull(statistics));
+    }
+
+    private <R> StreamEx<R> cached(Function<? super T, ? extends R> mapper, int maxEntries, boolean shared,
+            CacheStatistics statistics) {
+        Objects.requireNonNull(mapper);
+        if (maxEntries <= 0)
+            throw new IllegalArgumentException("maxEntries must be positive: " + maxEntries);
+        return new StreamEx<>(new CacheMapSpliterator.OfRef<>(spliterator(), mapper, CacheMapSpliterator.objCache(
+            maxEntries, shared), statistics), context);
+    }
+
+    /**
+     * Returns a stream consisting of the results of applying the given
+     * blocking function to the elements of this stream.
+     *
+     * <p>
+     * This is an <a href="package-summary.html#StreamOps">intermediate</a>
+     * operation which behaves like {@link #map(Function)}, but every call of
+     * the function is performed via
+     * {@link ForkJoinPool#managedBlock(ForkJoinPool.ManagedBlocker)}. Thus
+     * when the parallel stream is processed in the {@link ForkJoinPool} (the
+     * common one or the one supplied to {@link #parallel(ForkJoinPool)}), the
+     * pool may start spare threads while the function is blocked (e.g.
+     * waiting for I/O), so the blocked calls don't starve the pool. Outside of
+     * the {@code ForkJoinPool} the function is called as usual.
+     *
+     * @param <R> The element type of the new stream
+     * @param mapper a <a
+     *        href="package-summary.html#NonInterference">non-interfering </a>,
+     *        <a href="package-summary.html#Statelessness">stateless</a>
+     *        function to apply to each element
+     * @return the new stream
+     * @see #mapBlocking(Function, int)
+     * @since 0.7.4
+     */
+    public <R> StreamEx<R> mapBlocking(Function<? super T, ? extends R> mapper) {
+        return mapBlocking(mapper, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Returns a stream consisting of the results of applying the given
+     * blocking function to the elements of this stream, allowing the
+     * {@link ForkJoinPool} to compensate at most {@code maxCompensation}
+     * concurrently blocked calls.
+     *
+     * <p>
+     * This is an <a href="package-summary.html#StreamOps">intermediate</a>
+     * operation which behaves like {@link #mapBlocking(Function)}. When
+     * {@code maxCompensation} calls are already blocked, the subsequent calls
+     * block the worker thread without compensation until some of them
+     * finish, so the number of the spare threads started because of this
+     * stream is bounded.
+     *
+     * @param <R> The element type of the new stream
+     * @param mapper a <a
+     *        href="package-summary.html#NonInterference">non-interfering </a>,
+     *        <a href="package-summary.html#Statelessness">stateless</a>
+     *        function to apply to each element
+     * @param maxCompensation the maximal number of concurrently blocked calls
+     *        the pool may compensate, must be positive
+     * @return the new stream
+     * @throws IllegalArgumentException if {@code maxCompensation} is not
+     *         positive
+     * @since 0.7.4
+     */
+    public <R> StreamEx<R> mapBlocking(Function<? super T, ? extends R> mapper, int maxCompensation) {
+        Objects.requireNonNull(mapper);
+        if (maxCompensation <= 0)
+            throw new IllegalArgumentException("maxCompensation must be positive: " + maxCompensation);
+        return new StreamEx<>(stream().map(BlockingCall.function(mapper, maxCompensation)), context);
+    }
+
+    /**
+     * Returns a stream consisting of the elements of this stream, additionally
+     * performing the provided blocking action on each element as elements are
+     * consumed from the resulting stream.
+     *
+     * <p>
+     * This is an <a href="package-summary.html#StreamOps">intermediate</a>
+     * operation which behaves like {@link #peek(Consumer)}, but every call of
+     * the action is performed via
+     * {@link ForkJoinPool#managedBlock(ForkJoinPool.ManagedBlocker)} like in
+     * {@link #mapBlocking(Function)}.
+     *
+     * @param action a <a href="package-summary.html#NonInterference">
+     *        non-interfering</a> action to perform on the elements as they are
+     *        consumed from the stream
+     * @return the new stream
+     * @see #peekBlocking(Consumer, int)
+     * @since 0.7.4
+     */
+    public S peekBlocking(Consumer<? super T> action) {
+        return peekBlocking(action, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Returns a stream consisting of the elements of this stream, additionally
+     * performing the provided blocking action on each element, allowing the
+     * {@link ForkJoinPool} to compensate at most {@code maxCompensation}
+     * concurrently blocked calls.
+     *
+     * <p>
+     * This is an <a href="package-summary.html#StreamOps">intermediate</a>
+     * operation which behaves like {@link #peekBlocking(Consumer)} limiting
+     * the compensation like {@link #mapBlocking(Function, int)} does.
+     *
+     * @param action a <a href="package-summary.html#NonInterference">
+     *        non-interfering</a> action to perform on the elements as they are
+     *        consumed from the stream
+     * @param maxCompensation the maximal number of concurrently blocked calls
+     *        the pool may compensate, must be positive
+     * @return the new stream
+     * @throws IllegalArgumentException if {@code maxCompensation} is not
+     *         positive
+     * @since 0.7.4
+     */
+    public S peekBlocking(Consumer<? super T> action, int maxCompensation) {
+        Objects.requireNonNull(action);
+        if (maxCompensation <= 0)
+            throw new IllegalArgumentException("maxCompensation must be positive: " + maxCompensation);
+        return peek(BlockingCall.consumer(action, maxCompensation));
+    }
+
     /**
      * Returns a stream consisting of the results of applying the given function
      * to the every adjacent pair of elements of this stream.
@@ -1356,7 +2090,7 @@ public abstract class AbstractStreamEx<T, S extends AbstractStreamEx<T, S>> exte
      * @see #toList()
      */
     public <R> R toListAndThen(Function<? super List<T>, R> finisher) {
-        if (context.fjp != null)
+        if (context.fjp != null && !runsSequentially())
             return context.terminate(() -> finisher.apply(toList()));
         return finisher.apply(toList());
     }
@@ -1416,7 +2150,7 @@ public abstract class AbstractStreamEx<T, S extends AbstractStreamEx<T, S>> exte
      * @see #toSet()
      */
     public <R> R toSetAndThen(Function<? super Set<T>, R> finisher) {
-        if (context.fjp != null)
+        if (context.fjp != null && !runsSequentially())
             return context.terminate(() -> finisher.apply(toSet()));
         return finisher.apply(toSet());
     }
@@ -1441,7 +2175,7 @@ public abstract class AbstractStreamEx<T, S extends AbstractStreamEx<T, S>> exte
      */
     public <C extends Collection<T>, R> R toCollectionAndThen(Supplier<C> collectionFactory, 
                                                               Function<? super C, R> finisher) {
-        if (context.fjp != null)
+        if (context.fjp != null && !runsSequentially())
             return context.terminate(() -> finisher.apply(toCollection(collectionFactory)));
         return finisher.apply(toCollection(collectionFactory));
     }
@@ -1805,6 +2539,70 @@ public abstract class AbstractStreamEx<T, S extends AbstractStreamEx<T, S>> exte
         });
     }
 
+    /**
+     * Returns a stream consisting of the elements of this stream which are
+     * produced before the specified timeout elapses.
+     *
+     * <p>
+     * This is a short-circuiting <a
+     * href="package-summary.html#StreamOps">intermediate operation</a>. The
+     * timeout is counted from the moment the terminal operation starts
+     * traversing or splitting the stream, not from this method call. When it
+     * elapses, every part of the (possibly parallel) stream stops at its next
+     * element, so the terminal operation completes with the result for the
+     * elements processed so far. This is useful when the partial result is
+     * better than no result at all. The short-circuiting terminal operations
+     * like {@code findAny()} or {@code anyMatch()} stop as well.
+     *
+     * <p>
+     * Note that the element being processed when the timeout elapses is
+     * processed to the end: the operation doesn't interrupt the threads. Also
+     * note that the result doesn't tell whether it's complete: use
+     * {@link #withDeadline(Duration, Runnable)} to find it out.
+     *
+     * @param timeout the maximal time to produce the elements, must be
+     *        positive
+     * @return the new stream
+     * @throws IllegalArgumentException if the timeout is zero or negative
+     * @see #withDeadline(Duration, Runnable)
+     * @since 0.7.4
+     */
+    public S withDeadline(Duration timeout) {
+        return withDeadline(timeout, null);
+    }
+
+    /**
+     * Returns a stream consisting of the elements of this stream which are
+     * produced before the specified timeout elapses, and runs the supplied
+     * action if some elements are dropped because of the timeout.
+     *
+     * <p>
+     * This is a short-circuiting <a
+     * href="package-summary.html#StreamOps">intermediate operation</a> which
+     * behaves like {@link #withDeadline(Duration)}. The {@code onExpired}
+     * action is run at most once, in the thread which first encounters the
+     * element after the timeout. If it's not run by the end of the terminal
+     * operation, the result of the terminal operation is complete. For
+     * example:
+     *
+     * <pre>{@code
+     * AtomicBoolean partial = new AtomicBoolean();
+     * List<Result> results = StreamEx.of(requests).withDeadline(Duration.ofMillis(100), () -> partial.set(true))
+     *         .map(this::compute).toList();
+     * }</pre>
+     *
+     * @param timeout the maximal time to produce the elements, must be
+     *        positive
+     * @param onExpired the action to run when the first element is dropped
+     *        because of the timeout, or null if no action is necessary
+     * @return the new stream
+     * @throws IllegalArgumentException if the timeout is zero or negative
+     * @since 0.7.4
+     */
+    public S withDeadline(Duration timeout, Runnable onExpired) {
+        return supply(DeadlineSpliterator.wrap(spliterator(), timeout, onExpired));
+    }
+
     /**
      * Returns a stream consisting of all elements from this stream until the
      * first element which does not match the given predicate is found.
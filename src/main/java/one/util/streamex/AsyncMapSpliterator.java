@@ -0,0 +1,149 @@
+/*
+ * Copyright 2015, 2020 StreamEx contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package one.util.streamex;
+
+import java.util.ArrayDeque;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * A spliterator which starts asynchronous calls for up to {@code maxInFlight}
+ * source elements ahead and emits their results in the source order.
+ *
+ * <p>
+ * The started calls are kept in the window of at most {@code maxInFlight}
+ * futures per split, while the shared semaphore limits the number of
+ * incomplete calls across all the splits. A permit is returned when the call
+ * completes, so waiting for a permit never waits for the consumer.
+ *
+ * @author Tagir Valeev
+ */
+/* package */final class AsyncMapSpliterator<T, R> implements Spliterator<R>, Consumer<T> {
+    private final Spliterator<T> source;
+    private final Function<? super T, ? extends CompletionStage<? extends R>> mapper;
+    private final int maxInFlight;
+    private final Semaphore permits;
+    private final Set<CompletableFuture<?>> pending;
+    private final ArrayDeque<CompletableFuture<? extends R>> window = new ArrayDeque<>();
+    private boolean started, exhausted;
+
+    AsyncMapSpliterator(Spliterator<T> source, Function<? super T, ? extends CompletionStage<? extends R>> mapper,
+            int maxInFlight) {
+        this.source = source;
+        this.mapper = mapper;
+        this.maxInFlight = maxInFlight;
+        this.permits = new Semaphore(maxInFlight);
+        this.pending = ConcurrentHashMap.newKeySet();
+    }
+
+    private AsyncMapSpliterator(Spliterator<T> source, AsyncMapSpliterator<T, R> parent) {
+        this.source = source;
+        this.mapper = parent.mapper;
+        this.maxInFlight = parent.maxInFlight;
+        this.permits = parent.permits;
+        this.pending = parent.pending;
+    }
+
+    /**
+     * Cancels all the incomplete calls started by this spliterator and its
+     * splits.
+     */
+    void cancel() {
+        for (CompletableFuture<?> future : pending) {
+            future.cancel(true);
+        }
+    }
+
+    @Override
+    public void accept(T t) {
+        CompletableFuture<? extends R> future = mapper.apply(t).toCompletableFuture();
+        pending.add(future);
+        window.add(future);
+        started = true;
+        future.whenComplete((r, ex) -> {
+            pending.remove(future);
+            permits.release();
+        });
+    }
+
+    private void fill() {
+        while (!exhausted && window.size() < maxInFlight) {
+            if (window.isEmpty()) {
+                permits.acquireUninterruptibly();
+            } else if (!permits.tryAcquire()) {
+                return;
+            }
+            started = false;
+            try {
+                exhausted = !source.tryAdvance(this);
+            } finally {
+                if (!started)
+                    permits.release();
+            }
+        }
+    }
+
+    private static <R> R join(CompletableFuture<? extends R> future) {
+        try {
+            return future.join();
+        } catch (CompletionException ex) {
+            Throwable cause = ex.getCause();
+            if (cause instanceof RuntimeException)
+                throw (RuntimeException) cause;
+            if (cause instanceof Error)
+                throw (Error) cause;
+            throw ex;
+        }
+    }
+
+    @Override
+    public boolean tryAdvance(Consumer<? super R> action) {
+        fill();
+        CompletableFuture<? extends R> future = window.poll();
+        if (future == null)
+            return false;
+        action.accept(join(future));
+        return true;
+    }
+
+    @Override
+    public Spliterator<R> trySplit() {
+        // the started calls precede the rest of the source, so the prefix
+        // cannot be split off anymore
+        if (!window.isEmpty() || exhausted)
+            return null;
+        Spliterator<T> prefix = source.trySplit();
+        return prefix == null ? null : new AsyncMapSpliterator<>(prefix, this);
+    }
+
+    @Override
+    public long estimateSize() {
+        long size = source.estimateSize();
+        return size == Long.MAX_VALUE ? size : size + window.size();
+    }
+
+    @Override
+    public int characteristics() {
+        return source.characteristics() & (ORDERED | SIZED | SUBSIZED);
+    }
+}
@@ -15,11 +15,22 @@
  */
 package one.util.streamex;
 
+import java.util.Objects;
 import java.util.Spliterator;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
 import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.function.BinaryOperator;
+import java.util.function.Consumer;
 import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
 import java.util.stream.BaseStream;
 
+import static one.util.streamex.VerSpec.VER_SPEC;
+
 /**
  * @author Tagir Valeev
  */
@@ -43,6 +54,148 @@ import java.util.stream.BaseStream;
 
     abstract S createStream();
 
+    /**
+     * Creates a sequential stream over the split of this stream to run the
+     * terminal operation on it.
+     */
+    abstract S leafStream(SPLTR spliterator);
+
+    /**
+     * Performs the terminal operation according to the stream context. If
+     * the stream is bound to an executor, the operation is applied to the
+     * sequential streams over the splits in that executor and the results are
+     * combined by the supplied combiner.
+     */
+    final <R> R terminate(Function<S, R> op, BinaryOperator<R> combiner) {
+        return terminate(op, combiner, null, false);
+    }
+
+    /**
+     * Performs the short-circuiting terminal operation according to the
+     * stream context.
+     *
+     * @param stop the predicate which tells whether the result of the split
+     *        makes the rest of the input irrelevant
+     * @param ordered whether only the splits following the stopped one are
+     *        irrelevant
+     * @see ExecutorDriver
+     */
+    final <R> R terminate(Function<S, R> op, BinaryOperator<R> combiner, Predicate<? super R> stop,
+            boolean ordered) {
+        boolean sequential = runsSequentially();
+        OperationRecorder recorder = VER_SPEC.startOperation(this, sequential);
+        if (recorder == null)
+            return evaluate(sequential, op, combiner, stop, ordered);
+        try {
+            SPLTR current = spliterator();
+            stream = null;
+            spliterator = RecordingSpliterator.wrap(current, recorder);
+            R result = evaluate(sequential, op, combiner, stop, ordered);
+            if (stop != null && stop.test(result))
+                recorder.operationCancelled();
+            return result;
+        } finally {
+            recorder.finish();
+        }
+    }
+
+    /**
+     * Performs the sequential traversal of the whole stream by the terminal
+     * operation like {@code forEach} which needs no stream pipeline. The
+     * traversal is recorded like the other terminal operations.
+     */
+    final void traverse(Consumer<? super SPLTR> traversal) {
+        OperationRecorder recorder = VER_SPEC.startOperation(this, true);
+        if (recorder == null) {
+            traversal.accept(spliterator());
+            return;
+        }
+        try {
+            traversal.accept(RecordingSpliterator.wrap(spliterator(), recorder));
+        } finally {
+            recorder.finish();
+        }
+    }
+
+    private <R> R evaluate(boolean sequential, Function<S, R> op, BinaryOperator<R> combiner,
+            Predicate<? super R> stop, boolean ordered) {
+        if (!sequential) {
+            if (context.executor != null)
+                return ExecutorDriver.evaluate(context, spliterator(), spltr -> op.apply(leafStream(spltr)),
+                    combiner, stop, ordered);
+            if (context.fjp != null)
+                return context.terminate(() -> op.apply(stream()));
+        }
+        return op.apply(stream());
+    }
+
+    /**
+     * Performs the terminal operation asynchronously according to the stream
+     * context: splitting the input in the executor of the stream or running
+     * the operation in its {@code ForkJoinPool}, in its executor (if the
+     * stream runs sequentially) or in the default asynchronous pool of
+     * {@link CompletableFuture}. The source is wrapped, so the traversal stops
+     * as soon as the returned future is completed by other means (e.g.
+     * cancelled).
+     *
+     * @param finisher the function applied to the combined result
+     */
+    final <A, R> CompletableFuture<R> terminateAsync(Function<S, A> op, BinaryOperator<A> combiner,
+            Function<A, R> finisher) {
+        CompletableFuture<R> result = new CompletableFuture<>();
+        boolean sequential = runsSequentially();
+        SPLTR source = StoppableSpliterator.wrap(spliterator(), result);
+        if (!sequential && context.executor != null) {
+            ExecutorDriver.evaluateAsync(context, source, spltr -> op.apply(leafStream(spltr)), combiner, null, false)
+                    .whenComplete((a, ex) -> {
+                        if (ex == null)
+                            complete(result, () -> finisher.apply(a));
+                        else
+                            result.completeExceptionally(ex instanceof CompletionException && ex.getCause() != null
+                                ? ex.getCause() : ex);
+                    });
+            return result;
+        }
+        S s;
+        if (sequential)
+            s = leafStream(source);
+        else {
+            stream = null;
+            spliterator = source;
+            s = stream();
+        }
+        Runnable task = () -> complete(result, () -> finisher.apply(op.apply(s)));
+        Executor executor = context.fjp != null ? context.fjp : context.executor;
+        if (executor == null)
+            CompletableFuture.runAsync(task);
+        else
+            CompletableFuture.runAsync(task, executor);
+        return result;
+    }
+
+    private static <R> void complete(CompletableFuture<R> future, Supplier<R> supplier) {
+        try {
+            future.complete(supplier.get());
+        } catch (Throwable t) {
+            // also catches CancelException thrown when the future is already
+            // completed
+            future.completeExceptionally(t);
+        }
+    }
+
+    /**
+     * Returns true if the terminal operation of this stream runs in the
+     * current thread: either the stream is sequential or its source is
+     * smaller than the sequential threshold.
+     */
+    final boolean runsSequentially() {
+        if (!context.parallel)
+            return true;
+        if (stream != null)
+            return !stream.isParallel();
+        return spliterator != null && context.isSmall(spliterator);
+    }
+
     final S stream() {
         if (stream != null)
             return stream;
@@ -92,8 +245,7 @@ import java.util.stream.BaseStream;
     @Override
     public S parallel() {
         context = context.parallel();
-        if (stream != null)
-            stream = stream.parallel();
+        parallelStream();
         return (S) this;
     }
 
@@ -119,11 +271,208 @@ import java.util.stream.BaseStream;
     @SuppressWarnings("unchecked")
     public S parallel(ForkJoinPool fjp) {
         context = context.parallel(fjp);
-        if (stream != null)
-            stream = stream.parallel();
+        parallelStream();
+        return (S) this;
+    }
+
+    /**
+     * Returns an equivalent stream that is parallel, bound to the supplied
+     * {@link ForkJoinPool} and splits its input according to the supplied
+     * {@link SplitPolicy}.
+     *
+     * <p>
+     * This is an <a href="package-summary.html#StreamOps">intermediate</a>
+     * operation.
+     *
+     * <p>
+     * The terminal operation is executed inside the supplied
+     * {@code ForkJoinPool} like for {@link #parallel(ForkJoinPool)}. The
+     * input of the stream created so far (including the already added
+     * intermediate operations) is split no further than allowed by the
+     * policy. The policy is forgotten by the streams created via
+     * {@link #parallel()}, {@link #parallel(ForkJoinPool)} or
+     * {@link #sequential()} methods.
+     *
+     * @param fjp a {@code ForkJoinPool} to submit the stream operation to.
+     * @param splitPolicy a policy which limits the splitting of the stream
+     * @return a parallel stream bound to the supplied {@code ForkJoinPool}
+     * @since 0.7.4
+     */
+    @SuppressWarnings("unchecked")
+    public S parallel(ForkJoinPool fjp, SplitPolicy splitPolicy) {
+        Objects.requireNonNull(fjp);
+        Objects.requireNonNull(splitPolicy);
+        if (stream != null) {
+            // re-create the stream, so the policy applies to the current
+            // pipeline
+            SPLTR current = spliterator();
+            stream = null;
+            spliterator = current;
+        }
+        context = context.parallel(fjp, splitPolicy);
         return (S) this;
     }
 
+    /**
+     * Returns an equivalent stream which terminal operation runs sequentially
+     * in the current thread if the stream is parallel, but its source is known
+     * to have less than {@code threshold} elements.
+     *
+     * <p>
+     * This is an <a href="package-summary.html#StreamOps">intermediate</a>
+     * operation.
+     *
+     * <p>
+     * For the small inputs submitting the parallel task and splitting the
+     * input may cost more than the processing itself. The stream may be made
+     * parallel before or after this method call. The size is known only if
+     * the source and the intermediate operations created so far preserve it
+     * (like collection source followed by {@code map}). If the size is
+     * unknown, the parallel stream is always processed in parallel.
+     *
+     * <p>
+     * If this method is not called, the threshold set by
+     * {@code streamex.sequentialThreshold} system property is used. By
+     * default the parallel streams are processed in parallel regardless of
+     * their size.
+     *
+     * @param threshold the minimal number of elements to process the stream
+     *        in parallel. Zero means that the stream is always processed in
+     *        parallel.
+     * @return the stream with the sequential threshold set
+     * @throws IllegalArgumentException if {@code threshold} is negative
+     * @since 0.7.4
+     */
+    @SuppressWarnings("unchecked")
+    public S sequentialThreshold(long threshold) {
+        if (threshold < 0)
+            throw new IllegalArgumentException("threshold must be non-negative: " + threshold);
+        if (stream != null) {
+            // re-create the stream, so the size of the current pipeline can
+            // be checked
+            SPLTR current = spliterator();
+            stream = null;
+            spliterator = current;
+        }
+        context = context.sequentialThreshold(threshold);
+        return (S) this;
+    }
+
+    /**
+     * Returns an equivalent stream which collects the statistics at its
+     * checkpoints into the supplied {@link StageStatistics} object.
+     *
+     * <p>
+     * This is an <a href="package-summary.html#StreamOps">intermediate</a>
+     * operation.
+     *
+     * <p>
+     * The checkpoints are added by the {@link #checkpoint(String)} calls
+     * made after this method call on this stream or any derived stream. The
+     * statistics are complete after the terminal operation is finished.
+     *
+     * @param statistics the object to collect the statistics to
+     * @return the instrumented stream
+     * @see #checkpoint(String)
+     * @since 0.7.4
+     */
+    @SuppressWarnings("unchecked")
+    public S instrument(StageStatistics statistics) {
+        context = context.instrument(Objects.requireNonNull(statistics));
+        return (S) this;
+    }
+
+    /**
+     * Returns an equivalent stream which counts the elements passing through
+     * this point of the pipeline and measures the time spent to produce them
+     * if the stream is instrumented.
+     *
+     * <p>
+     * This is an <a href="package-summary.html#StreamOps">intermediate</a>
+     * operation.
+     *
+     * <p>
+     * If the stream is not instrumented, this method does nothing, so the
+     * checkpoints may be left in the pipeline without the overhead. Several
+     * checkpoints with the same name are reported as the single stage.
+     *
+     * @param name the name of the stage which ends at this checkpoint
+     * @return the stream with the checkpoint added
+     * @see #instrument(StageStatistics)
+     * @see StageStatistics
+     * @since 0.7.4
+     */
+    @SuppressWarnings("unchecked")
+    public S checkpoint(String name) {
+        Objects.requireNonNull(name);
+        if (context.statistics != null) {
+            SPLTR current = spliterator();
+            stream = null;
+            spliterator = CheckpointSpliterator.wrap(current, context.statistics.stage(name));
+        }
+        return (S) this;
+    }
+
+    /**
+     * Returns an equivalent stream that is parallel and bound to the supplied
+     * {@link Executor}.
+     *
+     * <p>
+     * This is an <a href="package-summary.html#StreamOps">intermediate</a>
+     * operation.
+     *
+     * <p>
+     * The terminal operation of this stream or any derived stream (except the
+     * streams created via {@link #parallel()} or {@link #sequential()} methods)
+     * splits the stream and processes the parts as the tasks submitted to the
+     * supplied executor. The results of the parts are combined in encounter
+     * order, so the result is the same as for the usual parallel stream. The
+     * calling thread waits till calculation finishes.
+     *
+     * <p>
+     * The number of parts depends on the parallelism of the executor: the
+     * core pool size for {@link ThreadPoolExecutor}, the parallelism for
+     * {@link ForkJoinPool} or the number of available processors otherwise.
+     * If the supplied executor is a {@code ForkJoinPool}, this method is
+     * equivalent to {@link #parallel(ForkJoinPool)}.
+     *
+     * <p>
+     * Note that the tasks wait for each other only by the means of
+     * {@link java.util.concurrent.CompletableFuture} callbacks, so the
+     * executor with a single thread is enough to complete the operation.
+     * However the executor must not reject the tasks.
+     *
+     * @param executor an {@code Executor} to submit the stream operation to.
+     * @return a parallel stream bound to the supplied {@code Executor}
+     * @since 0.7.4
+     */
+    public S parallel(Executor executor) {
+        if (executor instanceof ForkJoinPool)
+            return parallel((ForkJoinPool) executor);
+        return parallel(executor, StreamContext.parallelism(executor));
+    }
+
+    @SuppressWarnings("unchecked")
+    S parallel(Executor executor, int parallelism) {
+        context = context.parallel(executor, parallelism);
+        parallelStream();
+        return (S) this;
+    }
+
+    private void parallelStream() {
+        if (stream == null)
+            return;
+        if (!stream.isParallel() && context.sequentialThreshold() > 0) {
+            // re-create the stream, so its size is checked against the
+            // threshold
+            SPLTR current = spliterator();
+            stream = null;
+            spliterator = current;
+        } else {
+            stream = stream.parallel();
+        }
+    }
+
     @SuppressWarnings("unchecked")
     @Override
     public S unordered() {
@@ -0,0 +1,152 @@
+/*
+ * Copyright 2015, 2020 StreamEx contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package one.util.streamex;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+import static one.util.streamex.UnknownSizeSpliterator.BATCH_UNIT;
+
+/**
+ * A spliterator which collects the consecutive source elements into the
+ * batches, calls the bulk function once per batch and emits the results in
+ * order. The batches never span the splits. The source is split only while no
+ * results are pending.
+ *
+ * <p>
+ * If every batch must produce exactly one result per element (the
+ * {@code mapBatched} case), the size of the source is preserved.
+ *
+ * @author Tagir Valeev
+ */
+/* package */final class BatchMapSpliterator<T, R> implements Spliterator<R>, Consumer<T> {
+    private final Spliterator<T> source;
+    private final Function<? super List<T>, ? extends Collection<? extends R>> mapper;
+    private final int batchSize;
+    private final boolean sameSize;
+    private List<T> batch;
+    private Iterator<? extends R> results;
+    private long pending;
+    // used by forEachRemaining only
+    private long remaining;
+
+    BatchMapSpliterator(Spliterator<T> source, Function<? super List<T>, ? extends Collection<? extends R>> mapper,
+            int batchSize, boolean sameSize) {
+        this.source = source;
+        this.mapper = mapper;
+        this.batchSize = batchSize;
+        this.sameSize = sameSize;
+    }
+
+    @Override
+    public void accept(T t) {
+        batch.add(t);
+    }
+
+    /**
+     * @param size the number of the remaining source elements or -1 if
+     *        unknown
+     */
+    private void newBatch(long size) {
+        batch = new ArrayList<>(size < 0 ? Math.min(batchSize, BATCH_UNIT) : (int) Math.min(size, batchSize));
+    }
+
+    private Collection<? extends R> apply() {
+        Collection<? extends R> result = mapper.apply(batch);
+        if (sameSize && result.size() != batch.size()) {
+            throw new IllegalStateException("The mapper returned " + result.size() + " results for " + batch.size()
+                + " elements");
+        }
+        return result;
+    }
+
+    private boolean fill() {
+        do {
+            newBatch(source.getExactSizeIfKnown());
+            while (batch.size() < batchSize && source.tryAdvance(this)) {
+                // continue
+            }
+            if (batch.isEmpty()) {
+                batch = null;
+                return false;
+            }
+            Collection<? extends R> result = apply();
+            batch = null;
+            pending = result.size();
+            results = result.iterator();
+        } while (pending == 0);
+        return true;
+    }
+
+    @Override
+    public boolean tryAdvance(Consumer<? super R> action) {
+        if (pending == 0 && !fill())
+            return false;
+        pending--;
+        action.accept(results.next());
+        return true;
+    }
+
+    @Override
+    public void forEachRemaining(Consumer<? super R> action) {
+        while (pending > 0) {
+            pending--;
+            action.accept(results.next());
+        }
+        results = null;
+        remaining = source.getExactSizeIfKnown();
+        newBatch(remaining);
+        source.forEachRemaining(t -> {
+            batch.add(t);
+            if (batch.size() == batchSize) {
+                apply().forEach(action);
+                if (remaining > 0)
+                    remaining -= batchSize;
+                newBatch(remaining);
+            }
+        });
+        if (!batch.isEmpty())
+            apply().forEach(action);
+        batch = null;
+    }
+
+    @Override
+    public Spliterator<R> trySplit() {
+        if (pending > 0)
+            return null;
+        Spliterator<T> prefix = source.trySplit();
+        return prefix == null ? null : new BatchMapSpliterator<>(prefix, mapper, batchSize, sameSize);
+    }
+
+    @Override
+    public long estimateSize() {
+        long size = source.estimateSize();
+        if (!sameSize)
+            return size;
+        size += pending;
+        return size < 0 ? Long.MAX_VALUE : size;
+    }
+
+    @Override
+    public int characteristics() {
+        return source.characteristics() & (ORDERED | (sameSize ? SIZED | SUBSIZED : 0));
+    }
+}
@@ -0,0 +1,96 @@
+/*
+ * Copyright 2015, 2020 StreamEx contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package one.util.streamex;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinPool.ManagedBlocker;
+import java.util.concurrent.Semaphore;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * A single call of the blocking function performed via
+ * {@link ForkJoinPool#managedBlock(ManagedBlocker)}, so the pool of the
+ * current worker thread may start a spare thread while the call is blocked.
+ * Outside of the {@code ForkJoinPool} the function is just called.
+ *
+ * <p>
+ * The number of concurrent calls which may be compensated is limited by the
+ * shared semaphore. When no permits are left, the function is called without
+ * compensation.
+ *
+ * @author Tagir Valeev
+ */
+/* package */final class BlockingCall<T, R> implements ManagedBlocker {
+    private final Function<? super T, ? extends R> fn;
+    private final T arg;
+    private boolean done;
+    private R result;
+
+    private BlockingCall(Function<? super T, ? extends R> fn, T arg) {
+        this.fn = fn;
+        this.arg = arg;
+    }
+
+    @Override
+    public boolean block() {
+        if (!done) {
+            result = fn.apply(arg);
+            done = true;
+        }
+        return true;
+    }
+
+    @Override
+    public boolean isReleasable() {
+        return done;
+    }
+
+    R call(Semaphore permits) {
+        if (permits != null && !permits.tryAcquire()) {
+            block();
+            return result;
+        }
+        try {
+            ForkJoinPool.managedBlock(this);
+        } catch (InterruptedException e) {
+            // our block() never throws it
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        } finally {
+            if (permits != null)
+                permits.release();
+        }
+        return result;
+    }
+
+    /**
+     * @param maxCompensation the maximal number of concurrent calls which may
+     *        be compensated, or {@code Integer.MAX_VALUE} for no limit
+     */
+    static <T, R> Function<T, R> function(Function<? super T, ? extends R> fn, int maxCompensation) {
+        Semaphore permits = maxCompensation == Integer.MAX_VALUE ? null : new Semaphore(maxCompensation);
+        return t -> new BlockingCall<T, R>(fn, t).call(permits);
+    }
+
+    static <T> Consumer<T> consumer(Consumer<? super T> action, int maxCompensation) {
+        Function<T, Void> fn = function(t -> {
+            action.accept(t);
+            return null;
+        }, maxCompensation);
+        return fn::apply;
+    }
+}
@@ -0,0 +1,509 @@
+/*
+ * Copyright 2015, 2020 StreamEx contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package one.util.streamex;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.function.DoubleFunction;
+import java.util.function.Function;
+import java.util.function.IntFunction;
+import java.util.function.LongFunction;
+import java.util.function.Supplier;
+
+import static one.util.streamex.Internals.NONE;
+
+/**
+ * A spliterator which maps the source elements using the bounded cache of
+ * the mapping function results. Every split creates its own cache on the
+ * first traversal unless the cache is shared, so the unshared cache needs no
+ * synchronization. The caches grow as the entries are added, so the cache
+ * capacity may be much bigger than the actual number of distinct elements.
+ *
+ * <p>
+ * The object keys are evicted in LRU order. The primitive keys are stored in
+ * the primitive open-addressing table and evicted by the CLOCK policy, which
+ * approximates LRU without reordering the entries on every hit. The shared
+ * cache consists of several independently synchronized stripes selected by
+ * the key hash.
+ *
+ * @author Tagir Valeev
+ */
+/* package */abstract class CacheMapSpliterator<T, R, S extends Spliterator<T>, C> implements Spliterator<R> {
+    // stored instead of null value
+    private static final Object NULL = new Object();
+
+    final S source;
+    final Supplier<C> cacheSupplier;
+    final CacheStatistics statistics;
+    private C cache;
+
+    CacheMapSpliterator(S source, Supplier<C> cacheSupplier, CacheStatistics statistics) {
+        this.source = source;
+        this.cacheSupplier = cacheSupplier;
+        this.statistics = statistics;
+    }
+
+    /**
+     * Returns the cache creating it on the first call, so the splits which
+     * are not traversed (or traversed by other spliterators) allocate
+     * nothing.
+     */
+    final C cache() {
+        C c = cache;
+        if (c == null)
+            cache = c = cacheSupplier.get();
+        return c;
+    }
+
+    abstract Spliterator<R> wrap(S prefix);
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public Spliterator<R> trySplit() {
+        S prefix = (S) source.trySplit();
+        return prefix == null ? null : wrap(prefix);
+    }
+
+    @Override
+    public long estimateSize() {
+        return source.estimateSize();
+    }
+
+    @Override
+    public long getExactSizeIfKnown() {
+        return source.getExactSizeIfKnown();
+    }
+
+    @Override
+    public int characteristics() {
+        return source.characteristics() & (ORDERED | SIZED | SUBSIZED | IMMUTABLE | CONCURRENT);
+    }
+
+    @SuppressWarnings("unchecked")
+    static <R> R unwrap(Object value) {
+        return value == NULL ? null : (R) value;
+    }
+
+    static Object wrap(Object value) {
+        return value == null ? NULL : value;
+    }
+
+    void count(boolean hit) {
+        if (statistics != null) {
+            if (hit)
+                statistics.hit();
+            else
+                statistics.miss();
+        }
+    }
+
+    /**
+     * Returns the number of stripes of the shared cache: enough to avoid the
+     * contention, but no more than the cache capacity.
+     */
+    static int stripes(int maxEntries) {
+        int stripes = Integer.highestOneBit(Runtime.getRuntime().availableProcessors() * 4 - 1) * 2;
+        return Math.max(1, Math.min(stripes, Integer.highestOneBit(maxEntries)));
+    }
+
+    static Supplier<ObjCache> objCache(int maxEntries, boolean shared) {
+        if (!shared)
+            return () -> new LruCache(maxEntries);
+        SharedObjCache cache = new SharedObjCache(maxEntries);
+        return () -> cache;
+    }
+
+    static Supplier<LongKeyCache> longKeyCache(int maxEntries, boolean shared) {
+        if (!shared)
+            return () -> new ClockCache(maxEntries);
+        SharedLongKeyCache cache = new SharedLongKeyCache(maxEntries);
+        return () -> cache;
+    }
+
+    interface ObjCache {
+        /**
+         * @return the cached value (possibly wrapped null) or {@code NONE}
+         */
+        Object lookup(Object key);
+
+        void store(Object key, Object value);
+    }
+
+    interface LongKeyCache {
+        /**
+         * @return the cached value (possibly wrapped null) or {@code NONE}
+         */
+        Object lookup(long key);
+
+        void store(long key, Object value);
+    }
+
+    static final class LruCache extends LinkedHashMap<Object, Object> implements ObjCache {
+        private static final long serialVersionUID = 1L;
+        private final int maxEntries;
+
+        LruCache(int maxEntries) {
+            super(16, 0.75f, true);
+            this.maxEntries = maxEntries;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Object, Object> eldest) {
+            return size() > maxEntries;
+        }
+
+        @Override
+        public Object lookup(Object key) {
+            Object value = get(key);
+            return value == null ? NONE : value;
+        }
+
+        @Override
+        public void store(Object key, Object value) {
+            put(key, value);
+        }
+    }
+
+    static final class SharedObjCache implements ObjCache {
+        private final LruCache[] stripes;
+
+        SharedObjCache(int maxEntries) {
+            stripes = new LruCache[stripes(maxEntries)];
+            for (int i = 0; i < stripes.length; i++) {
+                stripes[i] = new LruCache(maxEntries / stripes.length);
+            }
+        }
+
+        private LruCache stripe(Object key) {
+            int h = key == null ? 0 : key.hashCode();
+            return stripes[(h ^ (h >>> 16)) & (stripes.length - 1)];
+        }
+
+        @Override
+        public Object lookup(Object key) {
+            LruCache stripe = stripe(key);
+            synchronized (stripe) {
+                return stripe.lookup(key);
+            }
+        }
+
+        @Override
+        public void store(Object key, Object value) {
+            LruCache stripe = stripe(key);
+            synchronized (stripe) {
+                stripe.store(key, value);
+            }
+        }
+    }
+
+    /**
+     * The cache with the primitive keys. The entries are stored in the slots
+     * which are reused in the circular order skipping (and unmarking) the
+     * entries accessed since the previous pass. The index maps the keys to
+     * the slots using the linear probing. The slots are added as the cache
+     * grows until {@code maxEntries} is reached.
+     */
+    static final class ClockCache implements LongKeyCache {
+        private static final int INITIAL_CAPACITY = 16;
+
+        private final int maxEntries;
+        private long[] keys;
+        private Object[] values;
+        private boolean[] referenced;
+        // slot + 1, zero means empty
+        private int[] index;
+        private int mask;
+        private int size;
+        private int hand;
+
+        ClockCache(int maxEntries) {
+            this.maxEntries = maxEntries;
+            allocate(Math.min(maxEntries, INITIAL_CAPACITY));
+        }
+
+        private void allocate(int length) {
+            keys = new long[length];
+            values = new Object[length];
+            referenced = new boolean[length];
+            int capacity = Integer.highestOneBit(Math.min(length, 1 << 29) * 2 - 1) * 2;
+            index = new int[capacity];
+            mask = capacity - 1;
+        }
+
+        private void grow() {
+            long[] oldKeys = keys;
+            Object[] oldValues = values;
+            boolean[] oldReferenced = referenced;
+            allocate((int) Math.min((long) oldKeys.length * 2, maxEntries));
+            System.arraycopy(oldKeys, 0, keys, 0, size);
+            System.arraycopy(oldValues, 0, values, 0, size);
+            System.arraycopy(oldReferenced, 0, referenced, 0, size);
+            for (int slot = 0; slot < size; slot++) {
+                index[find(keys[slot])] = slot + 1;
+            }
+        }
+
+        static int hash(long key) {
+            long h = key * 0x9E3779B97F4A7C15L;
+            return (int) (h ^ (h >>> 32));
+        }
+
+        private int find(long key) {
+            for (int i = hash(key) & mask;; i = (i + 1) & mask) {
+                int slot = index[i] - 1;
+                if (slot < 0 || keys[slot] == key)
+                    return i;
+            }
+        }
+
+        @Override
+        public Object lookup(long key) {
+            int slot = index[find(key)] - 1;
+            if (slot < 0)
+                return NONE;
+            referenced[slot] = true;
+            return values[slot];
+        }
+
+        @Override
+        public void store(long key, Object value) {
+            int pos = find(key);
+            int slot = index[pos] - 1;
+            if (slot < 0) {
+                if (size < maxEntries) {
+                    if (size == keys.length) {
+                        grow();
+                        pos = find(key);
+                    }
+                    slot = size++;
+                } else {
+                    while (referenced[hand]) {
+                        referenced[hand] = false;
+                        hand = hand == keys.length - 1 ? 0 : hand + 1;
+                    }
+                    slot = hand;
+                    hand = hand == keys.length - 1 ? 0 : hand + 1;
+                    remove(find(keys[slot]));
+                    pos = find(key);
+                }
+                index[pos] = slot + 1;
+                keys[slot] = key;
+            }
+            values[slot] = value;
+            referenced[slot] = false;
+        }
+
+        /**
+         * Removes the index entry shifting the following entries of the probe
+         * sequence back, so no tombstones are necessary.
+         */
+        private void remove(int pos) {
+            int i = pos;
+            for (int j = (i + 1) & mask;; j = (j + 1) & mask) {
+                int slot = index[j] - 1;
+                if (slot < 0)
+                    break;
+                int home = hash(keys[slot]) & mask;
+                // move the entry unless its home position is cyclically in (i, j]
+                if (i <= j ? (home <= i || home > j) : (home <= i && home > j)) {
+                    index[i] = index[j];
+                    i = j;
+                }
+            }
+            index[i] = 0;
+        }
+    }
+
+    static final class SharedLongKeyCache implements LongKeyCache {
+        private final ClockCache[] stripes;
+
+        SharedLongKeyCache(int maxEntries) {
+            stripes = new ClockCache[stripes(maxEntries)];
+            for (int i = 0; i < stripes.length; i++) {
+                stripes[i] = new ClockCache(maxEntries / stripes.length);
+            }
+        }
+
+        private ClockCache stripe(long key) {
+            // the high bits of the hash, as the low ones select the index position
+            return stripes[(ClockCache.hash(key) >>> 24) & (stripes.length - 1)];
+        }
+
+        @Override
+        public Object lookup(long key) {
+            ClockCache stripe = stripe(key);
+            synchronized (stripe) {
+                return stripe.lookup(key);
+            }
+        }
+
+        @Override
+        public void store(long key, Object value) {
+            ClockCache stripe = stripe(key);
+            synchronized (stripe) {
+                stripe.store(key, value);
+            }
+        }
+    }
+
+    static final class OfRef<T, R> extends CacheMapSpliterator<T, R, Spliterator<T>, ObjCache> {
+        private final Function<? super T, ? extends R> mapper;
+
+        OfRef(Spliterator<T> source, Function<? super T, ? extends R> mapper, Supplier<ObjCache> cacheSupplier,
+                CacheStatistics statistics) {
+            super(source, cacheSupplier, statistics);
+            this.mapper = mapper;
+        }
+
+        @Override
+        Spliterator<R> wrap(Spliterator<T> prefix) {
+            return new OfRef<>(prefix, mapper, cacheSupplier, statistics);
+        }
+
+        R map(T t) {
+            ObjCache cache = cache();
+            Object value = cache.lookup(t);
+            count(value != NONE);
+            if (value == NONE) {
+                value = wrap(mapper.apply(t));
+                cache.store(t, value);
+            }
+            return unwrap(value);
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super R> action) {
+            return source.tryAdvance(t -> action.accept(map(t)));
+        }
+
+        @Override
+        public void forEachRemaining(Consumer<? super R> action) {
+            source.forEachRemaining(t -> action.accept(map(t)));
+        }
+    }
+
+    static final class OfInt<R> extends CacheMapSpliterator<Integer, R, Spliterator.OfInt, LongKeyCache> {
+        private final IntFunction<? extends R> mapper;
+
+        OfInt(Spliterator.OfInt source, IntFunction<? extends R> mapper, Supplier<LongKeyCache> cacheSupplier,
+                CacheStatistics statistics) {
+            super(source, cacheSupplier, statistics);
+            this.mapper = mapper;
+        }
+
+        @Override
+        Spliterator<R> wrap(Spliterator.OfInt prefix) {
+            return new OfInt<>(prefix, mapper, cacheSupplier, statistics);
+        }
+
+        R map(int t) {
+            LongKeyCache cache = cache();
+            Object value = cache.lookup(t);
+            count(value != NONE);
+            if (value == NONE) {
+                value = wrap(mapper.apply(t));
+                cache.store(t, value);
+            }
+            return unwrap(value);
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super R> action) {
+            return source.tryAdvance((int t) -> action.accept(map(t)));
+        }
+
+        @Override
+        public void forEachRemaining(Consumer<? super R> action) {
+            source.forEachRemaining((int t) -> action.accept(map(t)));
+        }
+    }
+
+    static final class OfLong<R> extends CacheMapSpliterator<Long, R, Spliterator.OfLong, LongKeyCache> {
+        private final LongFunction<? extends R> mapper;
+
+        OfLong(Spliterator.OfLong source, LongFunction<? extends R> mapper, Supplier<LongKeyCache> cacheSupplier,
+                CacheStatistics statistics) {
+            super(source, cacheSupplier, statistics);
+            this.mapper = mapper;
+        }
+
+        @Override
+        Spliterator<R> wrap(Spliterator.OfLong prefix) {
+            return new OfLong<>(prefix, mapper, cacheSupplier, statistics);
+        }
+
+        R map(long t) {
+            LongKeyCache cache = cache();
+            Object value = cache.lookup(t);
+            count(value != NONE);
+            if (value == NONE) {
+                value = wrap(mapper.apply(t));
+                cache.store(t, value);
+            }
+            return unwrap(value);
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super R> action) {
+            return source.tryAdvance((long t) -> action.accept(map(t)));
+        }
+
+        @Override
+        public void forEachRemaining(Consumer<? super R> action) {
+            source.forEachRemaining((long t) -> action.accept(map(t)));
+        }
+    }
+
+    static final class OfDouble<R> extends CacheMapSpliterator<Double, R, Spliterator.OfDouble, LongKeyCache> {
+        private final DoubleFunction<? extends R> mapper;
+
+        OfDouble(Spliterator.OfDouble source, DoubleFunction<? extends R> mapper,
+                Supplier<LongKeyCache> cacheSupplier, CacheStatistics statistics) {
+            super(source, cacheSupplier, statistics);
+            this.mapper = mapper;
+        }
+
+        @Override
+        Spliterator<R> wrap(Spliterator.OfDouble prefix) {
+            return new OfDouble<>(prefix, mapper, cacheSupplier, statistics);
+        }
+
+        R map(double t) {
+            // the same bits mean the same value (but 0.0 and -0.0 are distinct)
+            long key = Double.doubleToLongBits(t);
+            LongKeyCache cache = cache();
+            Object value = cache.lookup(key);
+            count(value != NONE);
+            if (value == NONE) {
+                value = wrap(mapper.apply(t));
+                cache.store(key, value);
+            }
+            return unwrap(value);
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super R> action) {
+            return source.tryAdvance((double t) -> action.accept(map(t)));
+        }
+
+        @Override
+        public void forEachRemaining(Consumer<? super R> action) {
+            source.forEachRemaining((double t) -> action.accept(map(t)));
+        }
+    }
+}
@@ -0,0 +1,78 @@
+/*
+ * Copyright 2015, 2020 StreamEx contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package one.util.streamex;
+
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * The counters of the cache used by the {@code mapCached} operations (like
+ * {@link StreamEx#mapCached(Function, int, boolean, CacheStatistics)}).
+ * Create the new object, pass it to the stream operation and read the
+ * counters after the terminal operation is complete:
+ *
+ * <pre>{@code
+ * CacheStatistics stats = new CacheStatistics();
+ * List<Price> prices = StreamEx.of(orders).map(Order::getProductId)
+ *         .mapCached(catalog::lookupPrice, 10_000, true, stats).toList();
+ * System.out.println(stats); // CacheStatistics[hits=..., misses=...]
+ * }</pre>
+ *
+ * <p>
+ * The counters are thread-safe and cheap to update from the parallel
+ * stream. If the same object is passed to several operations, it
+ * accumulates their counters.
+ *
+ * @author Tagir Valeev
+ * @since 0.7.4
+ */
+public final class CacheStatistics {
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    void hit() {
+        hits.increment();
+    }
+
+    void miss() {
+        misses.increment();
+    }
+
+    /**
+     * Returns the number of the elements which were mapped using the cached
+     * value.
+     *
+     * @return the number of cache hits
+     */
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    /**
+     * Returns the number of the elements for which the mapping function was
+     * called as the cache had no value for them.
+     *
+     * @return the number of cache misses
+     */
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    @Override
+    public String toString() {
+        return "CacheStatistics[hits=" + getHitCount() + ", misses=" + getMissCount() + "]";
+    }
+}
@@ -0,0 +1,500 @@
+/*
+ * Copyright 2015, 2020 StreamEx contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package one.util.streamex;
+
+import java.util.Arrays;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.function.DoubleConsumer;
+import java.util.function.IntConsumer;
+import java.util.function.LongConsumer;
+import java.util.function.Supplier;
+
+/**
+ * A replayable source which stores the elements of the stream and supplies
+ * any number of new streams over them.
+ *
+ * <p>
+ * The elements are read when any of the supplied streams is traversed for
+ * the first time. They are stored in the fixed-size segments, so growing the
+ * storage never copies the elements, and the supplied streams read the
+ * segments directly. Once all the elements are stored or the traversal
+ * fails, the original stream is closed.
+ *
+ * <p>
+ * The supplied streams are created over the {@link Lazy} spliterators like
+ * any other spliterator-based stream, so the copied settings like the
+ * sequential threshold and the split policy are applied to them. The lazy
+ * spliterator reads the elements only when it's traversed, split or its size
+ * is requested.
+ *
+ * @author Tagir Valeev
+ */
+/* package */abstract class CachedSource<S extends Spliterator<?>, A> {
+    static final int SEGMENT_SHIFT = 10;
+    static final int SEGMENT_SIZE = 1 << SEGMENT_SHIFT;
+    static final int SEGMENT_MASK = SEGMENT_SIZE - 1;
+    static final int CHARACTERISTICS = Spliterator.ORDERED | Spliterator.SIZED | Spliterator.SUBSIZED;
+
+    private S source;
+    private StreamContext context;
+    // the settings of the supplied streams
+    private final StreamContext settings;
+    // whether the size of the original stream is known in advance
+    final boolean sized;
+    // the segment arrays
+    Object[] segments = new Object[1];
+    // the segment being filled
+    A current;
+    int size;
+    private long expectedSize;
+    private Throwable failure;
+
+    CachedSource(S source, StreamContext context) {
+        this.source = source;
+        this.context = context;
+        this.settings = context.copySettings();
+        this.sized = source.hasCharacteristics(Spliterator.SIZED);
+    }
+
+    abstract A newSegment(int length);
+
+    abstract void fill(S source);
+
+    abstract S spliterator();
+
+    /**
+     * Returns the context of the new supplied stream: the original stream
+     * settings like the custom pool are preserved, but the original close
+     * handlers are not, as the original stream is closed by this source.
+     */
+    final StreamContext newContext() {
+        return settings.copySettings();
+    }
+
+    /**
+     * Must be called before the next element is stored
+     *
+     * @return the index in the current segment
+     */
+    final int next() {
+        if (size == Integer.MAX_VALUE)
+            throw new IllegalStateException("The stream is too long to be cached");
+        int index = size & SEGMENT_MASK;
+        if (index == 0) {
+            int segment = size >>> SEGMENT_SHIFT;
+            if (segment == segments.length)
+                segments = Arrays.copyOf(segments, segment * 2);
+            long remaining = expectedSize - size;
+            current = newSegment(remaining > 0 && remaining < SEGMENT_SIZE ? (int) remaining : SEGMENT_SIZE);
+            segments[segment] = current;
+        }
+        size++;
+        return index;
+    }
+
+    final synchronized S cached() {
+        if (source != null) {
+            S s = source;
+            source = null;
+            expectedSize = s.getExactSizeIfKnown();
+            try {
+                fill(s);
+            } catch (Throwable t) {
+                failure = t;
+                segments = null;
+                throw t;
+            } finally {
+                current = null;
+                StreamContext ctx = context;
+                context = null;
+                ctx.close();
+            }
+        }
+        if (failure != null)
+            throw new IllegalStateException("The cached stream has failed", failure);
+        return spliterator();
+    }
+
+    static final class OfRef<T> extends CachedSource<Spliterator<T>, Object[]> implements Supplier<StreamEx<T>> {
+        OfRef(Spliterator<T> source, StreamContext context) {
+            super(source, context);
+        }
+
+        @Override
+        Object[] newSegment(int length) {
+            return new Object[length];
+        }
+
+        @Override
+        void fill(Spliterator<T> source) {
+            source.forEachRemaining(t -> {
+                int index = next();
+                current[index] = t;
+            });
+        }
+
+        @Override
+        Spliterator<T> spliterator() {
+            return new SegmentSpliterator<>(segments, size);
+        }
+
+        @Override
+        public StreamEx<T> get() {
+            return new StreamEx<>(new Lazy<>(this), newContext());
+        }
+    }
+
+    static final class OfInt extends CachedSource<Spliterator.OfInt, int[]> implements Supplier<IntStreamEx> {
+        OfInt(Spliterator.OfInt source, StreamContext context) {
+            super(source, context);
+        }
+
+        @Override
+        int[] newSegment(int length) {
+            return new int[length];
+        }
+
+        @Override
+        void fill(Spliterator.OfInt source) {
+            source.forEachRemaining((int t) -> {
+                int index = next();
+                current[index] = t;
+            });
+        }
+
+        @Override
+        Spliterator.OfInt spliterator() {
+            return new IntSegmentSpliterator(segments, size);
+        }
+
+        @Override
+        public IntStreamEx get() {
+            return new IntStreamEx(new Lazy.OfInt(this), newContext());
+        }
+    }
+
+    static final class OfLong extends CachedSource<Spliterator.OfLong, long[]> implements Supplier<LongStreamEx> {
+        OfLong(Spliterator.OfLong source, StreamContext context) {
+            super(source, context);
+        }
+
+        @Override
+        long[] newSegment(int length) {
+            return new long[length];
+        }
+
+        @Override
+        void fill(Spliterator.OfLong source) {
+            source.forEachRemaining((long t) -> {
+                int index = next();
+                current[index] = t;
+            });
+        }
+
+        @Override
+        Spliterator.OfLong spliterator() {
+            return new LongSegmentSpliterator(segments, size);
+        }
+
+        @Override
+        public LongStreamEx get() {
+            return new LongStreamEx(new Lazy.OfLong(this), newContext());
+        }
+    }
+
+    static final class OfDouble extends CachedSource<Spliterator.OfDouble, double[]> implements
+            Supplier<DoubleStreamEx> {
+        OfDouble(Spliterator.OfDouble source, StreamContext context) {
+            super(source, context);
+        }
+
+        @Override
+        double[] newSegment(int length) {
+            return new double[length];
+        }
+
+        @Override
+        void fill(Spliterator.OfDouble source) {
+            source.forEachRemaining((double t) -> {
+                int index = next();
+                current[index] = t;
+            });
+        }
+
+        @Override
+        Spliterator.OfDouble spliterator() {
+            return new DoubleSegmentSpliterator(segments, size);
+        }
+
+        @Override
+        public DoubleStreamEx get() {
+            return new DoubleStreamEx(new Lazy.OfDouble(this), newContext());
+        }
+    }
+
+    /**
+     * A spliterator which binds to the cached elements on the first
+     * traversal, split or size request. Before that it only reports whether
+     * the size of the original stream is known, so creating the stream over
+     * it doesn't read the original stream.
+     */
+    static class Lazy<T, S extends Spliterator<T>> implements Spliterator<T> {
+        private final CachedSource<S, ?> cache;
+        private S spliterator;
+
+        Lazy(CachedSource<S, ?> cache) {
+            this.cache = cache;
+        }
+
+        final S bind() {
+            if (spliterator == null)
+                spliterator = cache.cached();
+            return spliterator;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super T> action) {
+            return bind().tryAdvance(action);
+        }
+
+        @Override
+        public void forEachRemaining(Consumer<? super T> action) {
+            bind().forEachRemaining(action);
+        }
+
+        @Override
+        public Spliterator<T> trySplit() {
+            return bind().trySplit();
+        }
+
+        @Override
+        public long estimateSize() {
+            return bind().estimateSize();
+        }
+
+        @Override
+        public int characteristics() {
+            if (spliterator != null)
+                return spliterator.characteristics();
+            return cache.sized ? CHARACTERISTICS : Spliterator.ORDERED;
+        }
+
+        static final class OfInt extends Lazy<Integer, Spliterator.OfInt> implements Spliterator.OfInt {
+            OfInt(CachedSource<Spliterator.OfInt, ?> cache) {
+                super(cache);
+            }
+
+            @Override
+            public boolean tryAdvance(IntConsumer action) {
+                return bind().tryAdvance(action);
+            }
+
+            @Override
+            public void forEachRemaining(IntConsumer action) {
+                bind().forEachRemaining(action);
+            }
+
+            @Override
+            public Spliterator.OfInt trySplit() {
+                return bind().trySplit();
+            }
+        }
+
+        static final class OfLong extends Lazy<Long, Spliterator.OfLong> implements Spliterator.OfLong {
+            OfLong(CachedSource<Spliterator.OfLong, ?> cache) {
+                super(cache);
+            }
+
+            @Override
+            public boolean tryAdvance(LongConsumer action) {
+                return bind().tryAdvance(action);
+            }
+
+            @Override
+            public void forEachRemaining(LongConsumer action) {
+                bind().forEachRemaining(action);
+            }
+
+            @Override
+            public Spliterator.OfLong trySplit() {
+                return bind().trySplit();
+            }
+        }
+
+        static final class OfDouble extends Lazy<Double, Spliterator.OfDouble> implements Spliterator.OfDouble {
+            OfDouble(CachedSource<Spliterator.OfDouble, ?> cache) {
+                super(cache);
+            }
+
+            @Override
+            public boolean tryAdvance(DoubleConsumer action) {
+                return bind().tryAdvance(action);
+            }
+
+            @Override
+            public void forEachRemaining(DoubleConsumer action) {
+                bind().forEachRemaining(action);
+            }
+
+            @Override
+            public Spliterator.OfDouble trySplit() {
+                return bind().trySplit();
+            }
+        }
+    }
+
+    static final class SegmentSpliterator<T> extends RangeBasedSpliterator<T, SegmentSpliterator<T>> {
+        private final Object[] segments;
+
+        SegmentSpliterator(Object[] segments, int size) {
+            super(0, size);
+            this.segments = segments;
+        }
+
+        @SuppressWarnings("unchecked")
+        @Override
+        public boolean tryAdvance(Consumer<? super T> action) {
+            if (cur < limit) {
+                action.accept((T) ((Object[]) segments[cur >>> SEGMENT_SHIFT])[cur & SEGMENT_MASK]);
+                cur++;
+                return true;
+            }
+            return false;
+        }
+
+        @SuppressWarnings("unchecked")
+        @Override
+        public void forEachRemaining(Consumer<? super T> action) {
+            int c = cur, l = limit;
+            cur = l;
+            while (c < l) {
+                Object[] segment = (Object[]) segments[c >>> SEGMENT_SHIFT];
+                int from = c & SEGMENT_MASK;
+                int to = Math.min(segment.length, from + (l - c));
+                for (int i = from; i < to; i++) {
+                    action.accept((T) segment[i]);
+                }
+                c += to - from;
+            }
+        }
+    }
+
+    static final class IntSegmentSpliterator extends RangeBasedSpliterator<Integer, IntSegmentSpliterator> implements
+            Spliterator.OfInt {
+        private final Object[] segments;
+
+        IntSegmentSpliterator(Object[] segments, int size) {
+            super(0, size);
+            this.segments = segments;
+        }
+
+        @Override
+        public boolean tryAdvance(IntConsumer action) {
+            if (cur < limit) {
+                action.accept(((int[]) segments[cur >>> SEGMENT_SHIFT])[cur & SEGMENT_MASK]);
+                cur++;
+                return true;
+            }
+            return false;
+        }
+
+        @Override
+        public void forEachRemaining(IntConsumer action) {
+            int c = cur, l = limit;
+            cur = l;
+            while (c < l) {
+                int[] segment = (int[]) segments[c >>> SEGMENT_SHIFT];
+                int from = c & SEGMENT_MASK;
+                int to = Math.min(segment.length, from + (l - c));
+                for (int i = from; i < to; i++) {
+                    action.accept(segment[i]);
+                }
+                c += to - from;
+            }
+        }
+    }
+
+    static final class LongSegmentSpliterator extends RangeBasedSpliterator<Long, LongSegmentSpliterator> implements
+            Spliterator.OfLong {
+        private final Object[] segments;
+
+        LongSegmentSpliterator(Object[] segments, int size) {
+            super(0, size);
+            this.segments = segments;
+        }
+
+        @Override
+        public boolean tryAdvance(LongConsumer action) {
+            if (cur < limit) {
+                action.accept(((long[]) segments[cur >>> SEGMENT_SHIFT])[cur & SEGMENT_MASK]);
+                cur++;
+                return true;
+            }
+            return false;
+        }
+
+        @Override
+        public void forEachRemaining(LongConsumer action) {
+            int c = cur, l = limit;
+            cur = l;
+            while (c < l) {
+                long[] segment = (long[]) segments[c >>> SEGMENT_SHIFT];
+                int from = c & SEGMENT_MASK;
+                int to = Math.min(segment.length, from + (l - c));
+                for (int i = from; i < to; i++) {
+                    action.accept(segment[i]);
+                }
+                c += to - from;
+            }
+        }
+    }
+
+    static final class DoubleSegmentSpliterator extends RangeBasedSpliterator<Double, DoubleSegmentSpliterator>
+            implements Spliterator.OfDouble {
+        private final Object[] segments;
+
+        DoubleSegmentSpliterator(Object[] segments, int size) {
+            super(0, size);
+            this.segments = segments;
+        }
+
+        @Override
+        public boolean tryAdvance(DoubleConsumer action) {
+            if (cur < limit) {
+                action.accept(((double[]) segments[cur >>> SEGMENT_SHIFT])[cur & SEGMENT_MASK]);
+                cur++;
+                return true;
+            }
+            return false;
+        }
+
+        @Override
+        public void forEachRemaining(DoubleConsumer action) {
+            int c = cur, l = limit;
+            cur = l;
+            while (c < l) {
+                double[] segment = (double[]) segments[c >>> SEGMENT_SHIFT];
+                int from = c & SEGMENT_MASK;
+                int to = Math.min(segment.length, from + (l - c));
+                for (int i = from; i < to; i++) {
+                    action.accept(segment[i]);
+                }
+                c += to - from;
+            }
+        }
+    }
+}
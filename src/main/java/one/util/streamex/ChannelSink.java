@@ -0,0 +1,89 @@
+/*
+ * Copyright 2015, 2020 StreamEx contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package one.util.streamex;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.WritableByteChannel;
+import java.util.Objects;
+import java.util.function.DoubleConsumer;
+import java.util.function.IntConsumer;
+import java.util.function.LongConsumer;
+
+/**
+ * A primitive consumer which encodes the numbers into a single reusable
+ * direct buffer and writes it to the channel every time the buffer is full.
+ *
+ * <p>
+ * Must be fed sequentially (e.g. via {@code forEachOrdered}) and
+ * {@link #flush() flushed} after the last element.
+ *
+ * @author Tagir Valeev
+ */
+/* package */final class ChannelSink implements IntConsumer, LongConsumer, DoubleConsumer {
+    private final WritableByteChannel channel;
+    private final ByteBuffer buf;
+
+    ChannelSink(WritableByteChannel channel, ByteOrder order, int bufferSize, int elementSize) {
+        Objects.requireNonNull(channel);
+        Objects.requireNonNull(order);
+        if (bufferSize < elementSize) {
+            throw new IllegalArgumentException("bufferSize must be at least " + elementSize + ": " + bufferSize);
+        }
+        this.channel = channel;
+        // round down to the whole number of elements, so the buffer is always
+        // flushed completely filled
+        this.buf = ByteBuffer.allocateDirect(bufferSize - bufferSize % elementSize).order(order);
+    }
+
+    @Override
+    public void accept(int value) {
+        if (!buf.hasRemaining())
+            flush();
+        buf.putInt(value);
+    }
+
+    @Override
+    public void accept(long value) {
+        if (!buf.hasRemaining())
+            flush();
+        buf.putLong(value);
+    }
+
+    @Override
+    public void accept(double value) {
+        if (!buf.hasRemaining())
+            flush();
+        buf.putDouble(value);
+    }
+
+    void flush() {
+        // Buffer casts keep the bytecode compatible with Java 8 where
+        // ByteBuffer does not override these methods covariantly
+        ((Buffer) buf).flip();
+        try {
+            while (buf.hasRemaining()) {
+                channel.write(buf);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        ((Buffer) buf).clear();
+    }
+}
@@ -0,0 +1,281 @@
+/*
+ * Copyright 2015, 2020 StreamEx contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package one.util.streamex;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.ReadableByteChannel;
+import java.util.Objects;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.function.DoubleConsumer;
+import java.util.function.Function;
+import java.util.function.IntConsumer;
+import java.util.function.LongConsumer;
+
+import static one.util.streamex.UnknownSizeSpliterator.BATCH_UNIT;
+import static one.util.streamex.UnknownSizeSpliterator.MAX_BATCH;
+
+/**
+ * Spliterators which decode fixed-width elements from a
+ * {@link ReadableByteChannel} through a single reusable buffer. Splitting
+ * decodes the next batch of elements into an array like
+ * {@link UnknownSizeSpliterator} does.
+ *
+ * <p>
+ * Buffer methods which became covariant in Java 9 are called via
+ * {@link Buffer} to stay compatible with Java 8.
+ *
+ * @author Tagir Valeev
+ */
+/* package */abstract class ChannelSpliterator {
+    static final int BUFFER_SIZE = 1 << 13;
+
+    private final ReadableByteChannel channel;
+    final ByteBuffer buf;
+    final int width;
+    private int batch;
+
+    ChannelSpliterator(ReadableByteChannel channel, ByteOrder order, int width) {
+        this.channel = Objects.requireNonNull(channel);
+        this.width = width;
+        this.buf = ByteBuffer.allocate(Math.max(BUFFER_SIZE, width)).order(order);
+        ((Buffer) this.buf).flip();
+    }
+
+    /**
+     * Makes sure that at least one element is available in the buffer.
+     *
+     * @return false if the channel is exhausted
+     */
+    final boolean fill() {
+        if (buf.remaining() >= width)
+            return true;
+        buf.compact();
+        try {
+            do {
+                if (channel.read(buf) < 0) {
+                    if (buf.position() > 0) {
+                        throw new EOFException("Unexpected end of channel: " + buf.position() + " trailing byte(s)");
+                    }
+                    ((Buffer) buf).flip();
+                    return false;
+                }
+            } while (buf.position() < width);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        ((Buffer) buf).flip();
+        return true;
+    }
+
+    final int nextBatch() {
+        return batch = Math.min(batch + BATCH_UNIT, MAX_BATCH);
+    }
+
+    public long estimateSize() {
+        return Long.MAX_VALUE;
+    }
+
+    public int characteristics() {
+        return Spliterator.ORDERED | Spliterator.NONNULL;
+    }
+
+    static Runnable closer(Closeable closeable) {
+        return () -> {
+            try {
+                closeable.close();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        };
+    }
+
+    static final class OfInt extends ChannelSpliterator implements Spliterator.OfInt {
+        OfInt(ReadableByteChannel channel, ByteOrder order, int width) {
+            super(channel, order, width);
+        }
+
+        private int next() {
+            // bytes are unsigned like in IntStreamEx.of(InputStream)
+            return width == Byte.BYTES ? buf.get() & 0xFF : buf.getInt();
+        }
+
+        @Override
+        public boolean tryAdvance(IntConsumer action) {
+            if (!fill())
+                return false;
+            action.accept(next());
+            return true;
+        }
+
+        @Override
+        public void forEachRemaining(IntConsumer action) {
+            while (fill()) {
+                do {
+                    action.accept(next());
+                } while (buf.remaining() >= width);
+            }
+        }
+
+        @Override
+        public Spliterator.OfInt trySplit() {
+            if (!fill())
+                return null;
+            int[] array = new int[nextBatch()];
+            int n = 0;
+            while (n < array.length && fill()) {
+                do {
+                    array[n++] = next();
+                } while (n < array.length && buf.remaining() >= width);
+            }
+            return Spliterators.spliterator(array, 0, n, characteristics());
+        }
+    }
+
+    static final class OfLong extends ChannelSpliterator implements Spliterator.OfLong {
+        OfLong(ReadableByteChannel channel, ByteOrder order) {
+            super(channel, order, Long.BYTES);
+        }
+
+        @Override
+        public boolean tryAdvance(LongConsumer action) {
+            if (!fill())
+                return false;
+            action.accept(buf.getLong());
+            return true;
+        }
+
+        @Override
+        public void forEachRemaining(LongConsumer action) {
+            while (fill()) {
+                do {
+                    action.accept(buf.getLong());
+                } while (buf.remaining() >= width);
+            }
+        }
+
+        @Override
+        public Spliterator.OfLong trySplit() {
+            if (!fill())
+                return null;
+            long[] array = new long[nextBatch()];
+            int n = 0;
+            while (n < array.length && fill()) {
+                do {
+                    array[n++] = buf.getLong();
+                } while (n < array.length && buf.remaining() >= width);
+            }
+            return Spliterators.spliterator(array, 0, n, characteristics());
+        }
+    }
+
+    static final class OfDouble extends ChannelSpliterator implements Spliterator.OfDouble {
+        OfDouble(ReadableByteChannel channel, ByteOrder order) {
+            super(channel, order, Double.BYTES);
+        }
+
+        @Override
+        public boolean tryAdvance(DoubleConsumer action) {
+            if (!fill())
+                return false;
+            action.accept(buf.getDouble());
+            return true;
+        }
+
+        @Override
+        public void forEachRemaining(DoubleConsumer action) {
+            while (fill()) {
+                do {
+                    action.accept(buf.getDouble());
+                } while (buf.remaining() >= width);
+            }
+        }
+
+        @Override
+        public Spliterator.OfDouble trySplit() {
+            if (!fill())
+                return null;
+            double[] array = new double[nextBatch()];
+            int n = 0;
+            while (n < array.length && fill()) {
+                do {
+                    array[n++] = buf.getDouble();
+                } while (n < array.length && buf.remaining() >= width);
+            }
+            return Spliterators.spliterator(array, 0, n, characteristics());
+        }
+    }
+
+    static final class OfRecords<T> extends ChannelSpliterator implements Spliterator<T> {
+        private final Function<? super ByteBuffer, ? extends T> decoder;
+
+        OfRecords(ReadableByteChannel channel, int recordSize, Function<? super ByteBuffer, ? extends T> decoder) {
+            super(channel, ByteOrder.BIG_ENDIAN, recordSize);
+            this.decoder = Objects.requireNonNull(decoder);
+        }
+
+        private T next() {
+            int pos = buf.position(), limit = buf.limit();
+            ((Buffer) buf).limit(pos + width);
+            T t = decoder.apply(buf);
+            ((Buffer) buf).limit(limit).position(pos + width);
+            return t;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super T> action) {
+            if (!fill())
+                return false;
+            action.accept(next());
+            return true;
+        }
+
+        @Override
+        public void forEachRemaining(Consumer<? super T> action) {
+            while (fill()) {
+                do {
+                    action.accept(next());
+                } while (buf.remaining() >= width);
+            }
+        }
+
+        @Override
+        public Spliterator<T> trySplit() {
+            if (!fill())
+                return null;
+            Object[] array = new Object[nextBatch()];
+            int n = 0;
+            while (n < array.length && fill()) {
+                do {
+                    array[n++] = next();
+                } while (n < array.length && buf.remaining() >= width);
+            }
+            return Spliterators.spliterator(array, 0, n, Spliterator.ORDERED);
+        }
+
+        @Override
+        public int characteristics() {
+            return Spliterator.ORDERED;
+        }
+    }
+}
@@ -0,0 +1,78 @@
+/*
+ * Copyright 2015, 2020 StreamEx contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package one.util.streamex;
+
+import java.util.Spliterator;
+
+import static one.util.streamex.StageStatistics.Split;
+import static one.util.streamex.StageStatistics.Stage;
+
+/**
+ * The hooks of the spliterator which delegates to the source counting the
+ * elements and measuring the time spent by the source, excluding the time
+ * spent by the downstream action. Every split has its own hooks which report
+ * to their own {@link Split} object, created when the split is traversed for
+ * the first time.
+ *
+ * @author Tagir Valeev
+ */
+/* package */final class CheckpointSpliterator extends DelegatingSpliterator.Hooks {
+    private final Stage stage;
+    private Split split;
+    private long startNanos;
+    private long elementNanos;
+    // the time spent by the downstream action during the current traversal
+    private long downstreamNanos;
+
+    private CheckpointSpliterator(Stage stage) {
+        this.stage = stage;
+    }
+
+    static <T, S extends Spliterator<T>> S wrap(S source, Stage stage) {
+        return DelegatingSpliterator.wrap(source, new CheckpointSpliterator(stage));
+    }
+
+    @Override
+    DelegatingSpliterator.Hooks split(String path, Spliterator<?> prefix, Spliterator<?> source) {
+        // the elements following the split are reported separately
+        split = null;
+        return new CheckpointSpliterator(stage);
+    }
+
+    @Override
+    void start(String path) {
+        if (split == null)
+            split = stage.split(path);
+        downstreamNanos = 0;
+        startNanos = System.nanoTime();
+    }
+
+    @Override
+    void before() {
+        split.elements++;
+        elementNanos = System.nanoTime();
+    }
+
+    @Override
+    void after() {
+        downstreamNanos += System.nanoTime() - elementNanos;
+    }
+
+    @Override
+    void finish() {
+        split.nanos += System.nanoTime() - startNanos - downstreamNanos;
+    }
+}
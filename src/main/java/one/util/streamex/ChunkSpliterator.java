@@ -0,0 +1,300 @@
+/*
+ * Copyright 2015, 2020 StreamEx contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package one.util.streamex;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.function.DoubleConsumer;
+import java.util.function.IntConsumer;
+import java.util.function.LongConsumer;
+
+import static one.util.streamex.UnknownSizeSpliterator.BATCH_UNIT;
+import static one.util.streamex.UnknownSizeSpliterator.MAX_BATCH;
+
+/**
+ * A spliterator which groups the source elements into the consecutive arrays
+ * (chunks) of the given size; only the last chunk may be shorter.
+ *
+ * <p>
+ * If the source is {@code SIZED} and {@code SUBSIZED}, every chunk is
+ * allocated with its exact size and the source is split only at the chunk
+ * boundaries: when the prefix size is not a multiple of the chunk size, the
+ * missing elements are moved from the suffix to the tail of the prefix. So
+ * the parallel stream produces exactly the same chunks as the sequential one.
+ * Otherwise the split copies the next batch of chunks into an array like
+ * {@link UnknownSizeSpliterator} does.
+ *
+ * @author Tagir Valeev
+ */
+/* package */abstract class ChunkSpliterator<S extends Spliterator<?>, C> implements Spliterator<C> {
+    final S source;
+    // elements which follow the source (may be null)
+    final S tail;
+    final int chunkSize;
+    private final boolean sized;
+    private int batch;
+    // number of elements in the chunk being filled
+    int index;
+
+    ChunkSpliterator(S source, S tail, int chunkSize) {
+        this.source = source;
+        this.tail = tail;
+        this.chunkSize = chunkSize;
+        this.sized = source.hasCharacteristics(SIZED | SUBSIZED);
+    }
+
+    /**
+     * Allocates the new chunk array of given length
+     */
+    abstract void start(int length);
+
+    /**
+     * Moves the next element of given spliterator into the chunk array
+     */
+    abstract boolean advance(S spliterator);
+
+    /**
+     * @return the filled chunk trimmed to its actual size
+     */
+    abstract C finish();
+
+    /**
+     * @return the spliterator over the filled chunk
+     */
+    abstract S drain();
+
+    abstract ChunkSpliterator<S, C> wrap(S prefix, S tail);
+
+    private long remaining() {
+        long size = source.estimateSize();
+        return tail == null ? size : size + tail.estimateSize();
+    }
+
+    private boolean fill(int length) {
+        start(length);
+        index = 0;
+        while (index < length && advance(source)) {
+            // continue
+        }
+        if (tail != null) {
+            while (index < length && advance(tail)) {
+                // continue
+            }
+        }
+        return index > 0;
+    }
+
+    @Override
+    public boolean tryAdvance(Consumer<? super C> action) {
+        int length = sized ? (int) Math.min(chunkSize, remaining()) : chunkSize;
+        if (length == 0 || !fill(length))
+            return false;
+        action.accept(finish());
+        return true;
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public Spliterator<C> trySplit() {
+        if (!sized) {
+            batch = Math.min(batch + BATCH_UNIT, MAX_BATCH);
+            Object[] chunks = new Object[Math.max(1, batch / chunkSize)];
+            int n = 0;
+            while (n < chunks.length && fill(chunkSize)) {
+                chunks[n++] = finish();
+            }
+            return n == 0 ? null : Spliterators.spliterator(chunks, 0, n, ORDERED | NONNULL);
+        }
+        if (remaining() <= chunkSize)
+            return null;
+        S prefix = (S) source.trySplit();
+        if (prefix == null)
+            return null;
+        int rem = (int) (prefix.estimateSize() % chunkSize);
+        if (rem == 0)
+            return wrap(prefix, null);
+        fill(chunkSize - rem);
+        return wrap(prefix, drain());
+    }
+
+    @Override
+    public long estimateSize() {
+        long size = sized ? remaining() : source.estimateSize();
+        return size == 0 || size == Long.MAX_VALUE ? size : (size - 1) / chunkSize + 1;
+    }
+
+    @Override
+    public int characteristics() {
+        return (source.characteristics() & ORDERED) | NONNULL | (sized ? SIZED | SUBSIZED : 0);
+    }
+
+    static final class OfRef<T> extends ChunkSpliterator<Spliterator<T>, List<T>> implements Consumer<T> {
+        private Object[] buf;
+
+        OfRef(Spliterator<T> source, Spliterator<T> tail, int chunkSize) {
+            super(source, tail, chunkSize);
+        }
+
+        @Override
+        public void accept(T t) {
+            buf[index++] = t;
+        }
+
+        @Override
+        void start(int length) {
+            buf = new Object[length];
+        }
+
+        @Override
+        boolean advance(Spliterator<T> spliterator) {
+            return spliterator.tryAdvance(this);
+        }
+
+        @SuppressWarnings("unchecked")
+        @Override
+        List<T> finish() {
+            return (List<T>) Arrays.asList(index == buf.length ? buf : Arrays.copyOf(buf, index));
+        }
+
+        @Override
+        Spliterator<T> drain() {
+            return Spliterators.spliterator(buf, 0, index, ORDERED);
+        }
+
+        @Override
+        ChunkSpliterator<Spliterator<T>, List<T>> wrap(Spliterator<T> prefix, Spliterator<T> tail) {
+            return new OfRef<>(prefix, tail, chunkSize);
+        }
+    }
+
+    static final class OfInt extends ChunkSpliterator<Spliterator.OfInt, int[]> implements IntConsumer {
+        private int[] buf;
+
+        OfInt(Spliterator.OfInt source, Spliterator.OfInt tail, int chunkSize) {
+            super(source, tail, chunkSize);
+        }
+
+        @Override
+        public void accept(int t) {
+            buf[index++] = t;
+        }
+
+        @Override
+        void start(int length) {
+            buf = new int[length];
+        }
+
+        @Override
+        boolean advance(Spliterator.OfInt spliterator) {
+            return spliterator.tryAdvance(this);
+        }
+
+        @Override
+        int[] finish() {
+            return index == buf.length ? buf : Arrays.copyOf(buf, index);
+        }
+
+        @Override
+        Spliterator.OfInt drain() {
+            return Spliterators.spliterator(buf, 0, index, ORDERED);
+        }
+
+        @Override
+        ChunkSpliterator<Spliterator.OfInt, int[]> wrap(Spliterator.OfInt prefix, Spliterator.OfInt tail) {
+            return new OfInt(prefix, tail, chunkSize);
+        }
+    }
+
+    static final class OfLong extends ChunkSpliterator<Spliterator.OfLong, long[]> implements LongConsumer {
+        private long[] buf;
+
+        OfLong(Spliterator.OfLong source, Spliterator.OfLong tail, int chunkSize) {
+            super(source, tail, chunkSize);
+        }
+
+        @Override
+        public void accept(long t) {
+            buf[index++] = t;
+        }
+
+        @Override
+        void start(int length) {
+            buf = new long[length];
+        }
+
+        @Override
+        boolean advance(Spliterator.OfLong spliterator) {
+            return spliterator.tryAdvance(this);
+        }
+
+        @Override
+        long[] finish() {
+            return index == buf.length ? buf : Arrays.copyOf(buf, index);
+        }
+
+        @Override
+        Spliterator.OfLong drain() {
+            return Spliterators.spliterator(buf, 0, index, ORDERED);
+        }
+
+        @Override
+        ChunkSpliterator<Spliterator.OfLong, long[]> wrap(Spliterator.OfLong prefix, Spliterator.OfLong tail) {
+            return new OfLong(prefix, tail, chunkSize);
+        }
+    }
+
+    static final class OfDouble extends ChunkSpliterator<Spliterator.OfDouble, double[]> implements DoubleConsumer {
+        private double[] buf;
+
+        OfDouble(Spliterator.OfDouble source, Spliterator.OfDouble tail, int chunkSize) {
+            super(source, tail, chunkSize);
+        }
+
+        @Override
+        public void accept(double t) {
+            buf[index++] = t;
+        }
+
+        @Override
+        void start(int length) {
+            buf = new double[length];
+        }
+
+        @Override
+        boolean advance(Spliterator.OfDouble spliterator) {
+            return spliterator.tryAdvance(this);
+        }
+
+        @Override
+        double[] finish() {
+            return index == buf.length ? buf : Arrays.copyOf(buf, index);
+        }
+
+        @Override
+        Spliterator.OfDouble drain() {
+            return Spliterators.spliterator(buf, 0, index, ORDERED);
+        }
+
+        @Override
+        ChunkSpliterator<Spliterator.OfDouble, double[]> wrap(Spliterator.OfDouble prefix,
+                Spliterator.OfDouble tail) {
+            return new OfDouble(prefix, tail, chunkSize);
+        }
+    }
+}
@@ -0,0 +1,117 @@
+/*
+ * Copyright 2015, 2020 StreamEx contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package one.util.streamex;
+
+import java.time.Duration;
+import java.util.Spliterator;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static one.util.streamex.Internals.CancelException;
+
+/**
+ * The hooks of the spliterator which delegates to the source until the
+ * deadline passes. The clock starts when the spliterator is traversed or split
+ * for the first time, so the time spent between the pipeline construction and
+ * the terminal operation is not counted. All the splits share the same hooks,
+ * so once the deadline is passed, every split stops at its next element and
+ * refuses to split further.
+ *
+ * @author Tagir Valeev
+ */
+/* package */final class DeadlineSpliterator extends DelegatingSpliterator.Hooks {
+    private final long timeout;
+    private final Runnable onExpired;
+    private final AtomicBoolean expired = new AtomicBoolean();
+    private volatile boolean started;
+    private long deadline;
+
+    private DeadlineSpliterator(Duration timeout, Runnable onExpired) {
+        if (timeout.isNegative() || timeout.isZero())
+            throw new IllegalArgumentException("timeout must be positive: " + timeout);
+        long nanos;
+        try {
+            nanos = timeout.toNanos();
+        } catch (ArithmeticException e) {
+            nanos = Long.MAX_VALUE;
+        }
+        // keep the difference with System.nanoTime() from overflow
+        this.timeout = Math.min(nanos, Long.MAX_VALUE / 2);
+        this.onExpired = onExpired;
+    }
+
+    static <T, S extends Spliterator<T>> S wrap(S source, Duration timeout, Runnable onExpired) {
+        return DelegatingSpliterator.wrap(source, new DeadlineSpliterator(timeout, onExpired));
+    }
+
+    private void startClock() {
+        if (!started) {
+            synchronized (this) {
+                if (!started) {
+                    deadline = System.nanoTime() + timeout;
+                    started = true;
+                }
+            }
+        }
+    }
+
+    @Override
+    boolean canSplit(Spliterator<?> source, int depth) {
+        startClock();
+        return !expired.get();
+    }
+
+    @Override
+    boolean isDone() {
+        return expired.get();
+    }
+
+    @Override
+    void start(String path) {
+        startClock();
+    }
+
+    /**
+     * Checks the time before the next element is processed. Runs the
+     * callback once when the element is dropped for the first time.
+     */
+    @Override
+    void before() {
+        if (expired.get())
+            throw new CancelException();
+        if (System.nanoTime() - deadline >= 0) {
+            if (expired.compareAndSet(false, true) && onExpired != null)
+                onExpired.run();
+            throw new CancelException();
+        }
+    }
+
+    @Override
+    boolean cancelled(String path) {
+        // otherwise thrown by the downstream short-circuiting operation
+        return expired.get();
+    }
+
+    @Override
+    long estimateSize(long size) {
+        return expired.get() ? 0 : size;
+    }
+
+    @Override
+    int characteristics(int characteristics) {
+        // the input may be truncated at any point
+        return characteristics & ~(Spliterator.SIZED | Spliterator.SUBSIZED);
+    }
+}
@@ -0,0 +1,392 @@
+/*
+ * Copyright 2015, 2020 StreamEx contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package one.util.streamex;
+
+import java.util.Comparator;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.function.DoubleConsumer;
+import java.util.function.IntConsumer;
+import java.util.function.LongConsumer;
+
+import static one.util.streamex.Internals.CancelException;
+
+/**
+ * A spliterator which delegates to the source adding the behavior defined by
+ * {@link Hooks}. The subclasses for every spliterator kind are created by
+ * the {@link #wrap(Spliterator, Hooks)} method, so the particular behavior is
+ * written once for all the kinds.
+ *
+ * <p>
+ * Every split tracks its path from the root of the split tree: the string of
+ * {@code 0} (prefix) and {@code 1} (suffix) characters, empty for the root.
+ *
+ * <p>
+ * If the hooks don't track the traversal (see {@link Hooks#tracksTraversal()}),
+ * the traversal is passed straight to the source, so such hooks add no cost
+ * per element.
+ *
+ * @author Tagir Valeev
+ */
+/* package */abstract class DelegatingSpliterator<T, S extends Spliterator<T>> {
+    /**
+     * The behavior added to the source. The hooks of the split are called by
+     * the thread which traverses or splits it.
+     */
+    abstract static class Hooks {
+        /**
+         * Returns true if the source may be split.
+         *
+         * @param depth the depth of the split in the split tree
+         */
+        boolean canSplit(Spliterator<?> source, int depth) {
+            return true;
+        }
+
+        /**
+         * Called when the source was split. Returns the hooks of the prefix
+         * (may be this object if the hooks have no per-split state).
+         *
+         * @param path the path of the split before splitting
+         */
+        Hooks split(String path, Spliterator<?> prefix, Spliterator<?> source) {
+            return this;
+        }
+
+        /**
+         * Returns false if the hooks only control the splitting, then the
+         * traversal methods of the source are called directly and the
+         * traversal hooks ({@link #isDone()}, {@link #start(String)},
+         * {@link #before()}, {@link #after()}, {@link #cancelled(String)} and
+         * {@link #finish()}) are never called.
+         */
+        boolean tracksTraversal() {
+            return true;
+        }
+
+        /**
+         * Returns true if the rest of the source should be skipped.
+         */
+        boolean isDone() {
+            return false;
+        }
+
+        /**
+         * Called before the source traversal.
+         */
+        void start(String path) {
+        }
+
+        /**
+         * Called before every element is passed to the action.
+         */
+        void before() {
+        }
+
+        /**
+         * Called after every element was processed by the action.
+         */
+        void after() {
+        }
+
+        /**
+         * Called when the traversal is stopped by the {@link CancelException}.
+         * Returns true if the exception should be suppressed, then the
+         * traversal is considered complete.
+         */
+        boolean cancelled(String path) {
+            return false;
+        }
+
+        /**
+         * Called after the source traversal either normally or abruptly.
+         */
+        void finish() {
+        }
+
+        long estimateSize(long size) {
+            return size;
+        }
+
+        int characteristics(int characteristics) {
+            return characteristics;
+        }
+    }
+
+    final S source;
+    final Hooks hooks;
+    final boolean tracking;
+    String path;
+
+    DelegatingSpliterator(S source, Hooks hooks, String path) {
+        this.source = source;
+        this.hooks = hooks;
+        this.tracking = hooks.tracksTraversal();
+        this.path = path;
+    }
+
+    static <T, S extends Spliterator<T>> S wrap(S source, Hooks hooks) {
+        return wrap(source, hooks, "");
+    }
+
+    @SuppressWarnings("unchecked")
+    static <T, S extends Spliterator<T>> S wrap(S source, Hooks hooks, String path) {
+        if (source instanceof Spliterator.OfInt)
+            return (S) new OfInt((Spliterator.OfInt) source, hooks, path);
+        if (source instanceof Spliterator.OfLong)
+            return (S) new OfLong((Spliterator.OfLong) source, hooks, path);
+        if (source instanceof Spliterator.OfDouble)
+            return (S) new OfDouble((Spliterator.OfDouble) source, hooks, path);
+        return (S) new OfRef<>(source, hooks, path);
+    }
+
+    @SuppressWarnings("unchecked")
+    public S trySplit() {
+        if (!hooks.canSplit(source, path.length()))
+            return null;
+        S prefix = (S) source.trySplit();
+        if (prefix == null)
+            return null;
+        String parent = path;
+        path = parent + '1';
+        return wrap(prefix, hooks.split(parent, prefix, source), parent + '0');
+    }
+
+    public long estimateSize() {
+        return hooks.estimateSize(source.estimateSize());
+    }
+
+    public int characteristics() {
+        return hooks.characteristics(source.characteristics());
+    }
+
+    public Comparator<? super T> getComparator() {
+        return source.getComparator();
+    }
+
+    static final class OfRef<T> extends DelegatingSpliterator<T, Spliterator<T>> implements Spliterator<T> {
+        OfRef(Spliterator<T> source, Hooks hooks, String path) {
+            super(source, hooks, path);
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super T> action) {
+            if (!tracking)
+                return source.tryAdvance(action);
+            Hooks h = hooks;
+            if (h.isDone())
+                return false;
+            h.start(path);
+            try {
+                return source.tryAdvance(t -> {
+                    h.before();
+                    action.accept(t);
+                    h.after();
+                });
+            } catch (CancelException ex) {
+                if (!h.cancelled(path))
+                    throw ex;
+                return false;
+            } finally {
+                h.finish();
+            }
+        }
+
+        @Override
+        public void forEachRemaining(Consumer<? super T> action) {
+            if (!tracking) {
+                source.forEachRemaining(action);
+                return;
+            }
+            Hooks h = hooks;
+            if (h.isDone())
+                return;
+            h.start(path);
+            try {
+                source.forEachRemaining(t -> {
+                    h.before();
+                    action.accept(t);
+                    h.after();
+                });
+            } catch (CancelException ex) {
+                if (!h.cancelled(path))
+                    throw ex;
+            } finally {
+                h.finish();
+            }
+        }
+    }
+
+    static final class OfInt extends DelegatingSpliterator<Integer, Spliterator.OfInt> implements Spliterator.OfInt {
+        OfInt(Spliterator.OfInt source, Hooks hooks, String path) {
+            super(source, hooks, path);
+        }
+
+        @Override
+        public boolean tryAdvance(IntConsumer action) {
+            if (!tracking)
+                return source.tryAdvance(action);
+            Hooks h = hooks;
+            if (h.isDone())
+                return false;
+            h.start(path);
+            try {
+                return source.tryAdvance((int t) -> {
+                    h.before();
+                    action.accept(t);
+                    h.after();
+                });
+            } catch (CancelException ex) {
+                if (!h.cancelled(path))
+                    throw ex;
+                return false;
+            } finally {
+                h.finish();
+            }
+        }
+
+        @Override
+        public void forEachRemaining(IntConsumer action) {
+            if (!tracking) {
+                source.forEachRemaining(action);
+                return;
+            }
+            Hooks h = hooks;
+            if (h.isDone())
+                return;
+            h.start(path);
+            try {
+                source.forEachRemaining((int t) -> {
+                    h.before();
+                    action.accept(t);
+                    h.after();
+                });
+            } catch (CancelException ex) {
+                if (!h.cancelled(path))
+                    throw ex;
+            } finally {
+                h.finish();
+            }
+        }
+    }
+
+    static final class OfLong extends DelegatingSpliterator<Long, Spliterator.OfLong> implements Spliterator.OfLong {
+        OfLong(Spliterator.OfLong source, Hooks hooks, String path) {
+            super(source, hooks, path);
+        }
+
+        @Override
+        public boolean tryAdvance(LongConsumer action) {
+            if (!tracking)
+                return source.tryAdvance(action);
+            Hooks h = hooks;
+            if (h.isDone())
+                return false;
+            h.start(path);
+            try {
+                return source.tryAdvance((long t) -> {
+                    h.before();
+                    action.accept(t);
+                    h.after();
+                });
+            } catch (CancelException ex) {
+                if (!h.cancelled(path))
+                    throw ex;
+                return false;
+            } finally {
+                h.finish();
+            }
+        }
+
+        @Override
+        public void forEachRemaining(LongConsumer action) {
+            if (!tracking) {
+                source.forEachRemaining(action);
+                return;
+            }
+            Hooks h = hooks;
+            if (h.isDone())
+                return;
+            h.start(path);
+            try {
+                source.forEachRemaining((long t) -> {
+                    h.before();
+                    action.accept(t);
+                    h.after();
+                });
+            } catch (CancelException ex) {
+                if (!h.cancelled(path))
+                    throw ex;
+            } finally {
+                h.finish();
+            }
+        }
+    }
+
+    static final class OfDouble extends DelegatingSpliterator<Double, Spliterator.OfDouble> implements
+            Spliterator.OfDouble {
+        OfDouble(Spliterator.OfDouble source, Hooks hooks, String path) {
+            super(source, hooks, path);
+        }
+
+        @Override
+        public boolean tryAdvance(DoubleConsumer action) {
+            if (!tracking)
+                return source.tryAdvance(action);
+            Hooks h = hooks;
+            if (h.isDone())
+                return false;
+            h.start(path);
+            try {
+                return source.tryAdvance((double t) -> {
+                    h.before();
+                    action.accept(t);
+                    h.after();
+                });
+            } catch (CancelException ex) {
+                if (!h.cancelled(path))
+                    throw ex;
+                return false;
+            } finally {
+                h.finish();
+            }
+        }
+
+        @Override
+        public void forEachRemaining(DoubleConsumer action) {
+            if (!tracking) {
+                source.forEachRemaining(action);
+                return;
+            }
+            Hooks h = hooks;
+            if (h.isDone())
+                return;
+            h.start(path);
+            try {
+                source.forEachRemaining((double t) -> {
+                    h.before();
+                    action.accept(t);
+                    h.after();
+                });
+            } catch (CancelException ex) {
+                if (!h.cancelled(path))
+                    throw ex;
+            } finally {
+                h.finish();
+            }
+        }
+    }
+}
@@ -0,0 +1,147 @@
+/*
+ * Copyright 2015, 2020 StreamEx contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package one.util.streamex;
+
+import java.util.Spliterator;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Pulls the elements from the spliterator and emits them to the subscriber
+ * only as far as the requested demand allows. This is the engine of the
+ * reactive publisher which doesn't depend on the publisher API itself.
+ *
+ * <p>
+ * All the signals are emitted in the executor tasks. At most one task drains
+ * the spliterator at a time: the request or cancellation which arrives while
+ * the task is running is picked up by the same task, so the signals are never
+ * emitted concurrently.
+ *
+ * @author Tagir Valeev
+ */
+/* package */final class DemandDriver<T> implements Runnable {
+    private final Spliterator<T> spliterator;
+    private final Runnable closeHandler;
+    private final Executor executor;
+    private final Consumer<? super T> onNext;
+    private final Consumer<? super Throwable> onError;
+    private final Runnable onComplete;
+    private final AtomicLong requested = new AtomicLong();
+    // number of the signals not processed by the drain task yet
+    private final AtomicInteger pending = new AtomicInteger();
+    private volatile boolean cancelled;
+    private volatile Throwable badRequest;
+    // accessed by the drain task only
+    private boolean done;
+
+    DemandDriver(Spliterator<T> spliterator, Runnable closeHandler, Executor executor, Consumer<? super T> onNext,
+            Consumer<? super Throwable> onError, Runnable onComplete) {
+        this.spliterator = spliterator;
+        this.closeHandler = closeHandler;
+        this.executor = executor;
+        this.onNext = onNext;
+        this.onError = onError;
+        this.onComplete = onComplete;
+    }
+
+    void request(long n) {
+        if (n <= 0) {
+            badRequest = new IllegalArgumentException("n must be positive: " + n);
+        } else {
+            requested.getAndAccumulate(n, (a, b) -> a + b < 0 ? Long.MAX_VALUE : a + b);
+        }
+        schedule();
+    }
+
+    void cancel() {
+        cancelled = true;
+        schedule();
+    }
+
+    private void schedule() {
+        if (pending.getAndIncrement() == 0) {
+            try {
+                executor.execute(this);
+            } catch (RejectedExecutionException ex) {
+                // pending stays positive, so no other task will be started
+                finish(ex);
+            }
+        }
+    }
+
+    @Override
+    public void run() {
+        int missed = 1;
+        do {
+            drain();
+            missed = pending.addAndGet(-missed);
+        } while (missed != 0);
+    }
+
+    private void drain() {
+        if (done)
+            return;
+        if (cancelled) {
+            finish(null);
+            return;
+        }
+        if (badRequest != null) {
+            finish(badRequest);
+            return;
+        }
+        long n = requested.get();
+        long emitted = 0;
+        try {
+            while (emitted < n) {
+                if (cancelled) {
+                    finish(null);
+                    return;
+                }
+                if (!spliterator.tryAdvance(onNext)) {
+                    finish(null);
+                    return;
+                }
+                emitted++;
+            }
+        } catch (Throwable t) {
+            finish(t);
+            return;
+        }
+        if (n != Long.MAX_VALUE)
+            requested.addAndGet(-emitted);
+    }
+
+    private void finish(Throwable error) {
+        done = true;
+        try {
+            closeHandler.run();
+        } catch (Throwable t) {
+            if (error == null)
+                error = t;
+            else
+                error.addSuppressed(t);
+        }
+        if (cancelled)
+            return;
+        if (error == null)
+            onComplete.run();
+        else
+            onError.accept(error);
+    }
+}
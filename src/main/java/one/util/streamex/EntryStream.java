@@ -1316,7 +1316,7 @@ public class EntryStream<K, V> extends AbstractStreamEx<Entry<K, V>, EntryStream
      * @since 0.5.5
      */
     public <R> R toMapAndThen(Function<? super Map<K, V>, R> finisher) {
-        if (context.fjp != null)
+        if (context.fjp != null && !runsSequentially())
             return context.terminate(() -> finisher.apply(toMap()));
         return finisher.apply(toMap());
     }
@@ -0,0 +1,249 @@
+/*
+ * Copyright 2015, 2020 StreamEx contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package one.util.streamex;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.function.BiFunction;
+import java.util.function.BinaryOperator;
+import java.util.function.BooleanSupplier;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+import static one.util.streamex.Internals.NONE;
+
+/**
+ * Evaluates the terminal operation by splitting the spliterator and running
+ * the leaf tasks in an arbitrary {@link Executor}. The results of the leaves
+ * are combined in encounter order as soon as both sides are ready.
+ *
+ * <p>
+ * Like in the JDK, the splitting continues while the split is bigger than
+ * {@code 1/(4*parallelism)} of the whole input. The thread which splits the
+ * spliterator submits the prefixes and keeps the suffix to itself, so the
+ * caller thread only waits for the result.
+ *
+ * <p>
+ * The short-circuiting operations supply the stop predicate: when the leaf
+ * result satisfies it, the leaves which cannot affect the result anymore (all
+ * other leaves or, if the operation is ordered, the following leaves) are
+ * skipped if not started yet and their results are discarded.
+ *
+ * @author Tagir Valeev
+ */
+/* package */final class ExecutorDriver<SP extends Spliterator<?>, R> {
+    private static final int LEAVES_PER_THREAD = 4;
+
+    private static final class Node {
+        final Node parent;
+        Node left, right;
+        volatile boolean cancelled;
+
+        Node(Node parent) {
+            this.parent = parent;
+        }
+
+        boolean isCancelled() {
+            for (Node node = this; node != null; node = node.parent) {
+                if (node.cancelled)
+                    return true;
+            }
+            return false;
+        }
+
+        Node split() {
+            left = new Node(this);
+            right = new Node(this);
+            return left;
+        }
+    }
+
+    private final Executor executor;
+    private final long threshold;
+    private final Function<? super SP, ? extends R> leaf;
+    private final BinaryOperator<R> combiner;
+    private final Predicate<? super R> stop;
+    private final boolean ordered;
+    private final Node root = new Node(null);
+
+    private ExecutorDriver(StreamContext context, long size, Function<? super SP, ? extends R> leaf,
+            BinaryOperator<R> combiner, Predicate<? super R> stop, boolean ordered) {
+        this.executor = context.executor;
+        this.threshold = Math.max(size / ((long) context.parallelism * LEAVES_PER_THREAD), 1);
+        this.leaf = leaf;
+        this.combiner = combiner;
+        this.stop = stop;
+        this.ordered = ordered;
+    }
+
+    /**
+     * Applies the leaf function to the splits of given spliterator in the
+     * executor of given context and combines the results.
+     *
+     * @param stop the predicate which tells whether the leaf result makes the
+     *        rest of the input irrelevant, or null if the operation is not
+     *        short-circuiting
+     * @param ordered whether only the leaves following the stopped one are
+     *        irrelevant
+     */
+    static <SP extends Spliterator<?>, R> R evaluate(StreamContext context, SP spliterator,
+            Function<? super SP, ? extends R> leaf, BinaryOperator<R> combiner, Predicate<? super R> stop,
+            boolean ordered) {
+        @SuppressWarnings("unchecked")
+        R result = (R) join(evaluateAsync(context, spliterator, leaf, combiner, stop, ordered));
+        return result;
+    }
+
+    /**
+     * Like {@link #evaluate(StreamContext, Spliterator, Function, BinaryOperator, Predicate, boolean)},
+     * but returns the future result instead of waiting for it. Nothing is run
+     * in the calling thread.
+     */
+    static <SP extends Spliterator<?>, R> CompletableFuture<R> evaluateAsync(StreamContext context, SP spliterator,
+            Function<? super SP, ? extends R> leaf, BinaryOperator<R> combiner, Predicate<? super R> stop,
+            boolean ordered) {
+        ExecutorDriver<SP, R> driver = new ExecutorDriver<>(context, spliterator.estimateSize(), leaf, combiner, stop,
+                ordered);
+        @SuppressWarnings("unchecked")
+        CompletableFuture<R> result = (CompletableFuture<R>) (CompletableFuture<?>) driver.submit(driver.root,
+            spliterator);
+        return result;
+    }
+
+    /**
+     * Applies the leaf function to the splits of given spliterator in the
+     * executor of given context and runs the returned actions one after
+     * another in encounter order. The action of the leaf is run as soon as all
+     * the preceding actions are complete.
+     *
+     * <p>
+     * The leaf function also receives the condition which tells whether all
+     * the preceding actions are complete, that is, the leaf is at the head of
+     * the order. The leaf is expected to buffer the elements only while it's
+     * not, and to pass the rest of the elements straight to the action from
+     * the returned runnable, so only the leaves which run ahead of their turn
+     * hold their elements in memory.
+     */
+    static <SP extends Spliterator<?>> void forEachOrdered(StreamContext context, SP spliterator,
+            BiFunction<? super SP, BooleanSupplier, ? extends Runnable> leaf) {
+        ExecutorDriver<SP, Runnable> driver = new ExecutorDriver<>(context, spliterator.estimateSize(), null, null,
+                null, true);
+        join(driver.submitOrdered(spliterator, CompletableFuture.completedFuture(null), leaf));
+    }
+
+    static Object join(CompletableFuture<?> future) {
+        try {
+            return future.join();
+        } catch (CompletionException ex) {
+            Throwable cause = ex.getCause();
+            if (cause instanceof RuntimeException)
+                throw (RuntimeException) cause;
+            if (cause instanceof Error)
+                throw (Error) cause;
+            throw ex;
+        }
+    }
+
+    private <T> CompletableFuture<T> async(Supplier<CompletableFuture<T>> task) {
+        CompletableFuture<T> future = CompletableFuture.supplyAsync(task, executor).thenCompose(Function.identity());
+        // stop the remaining leaves as the result is exceptional anyway
+        future.whenComplete((r, ex) -> {
+            if (ex != null)
+                root.cancelled = true;
+        });
+        return future;
+    }
+
+    private CompletableFuture<Object> submit(Node node, SP spliterator) {
+        return async(() -> compute(node, spliterator));
+    }
+
+    @SuppressWarnings("unchecked")
+    private SP trySplit(Node node, SP spliterator) {
+        if (node.isCancelled() || spliterator.estimateSize() <= threshold)
+            return null;
+        return (SP) spliterator.trySplit();
+    }
+
+    private CompletableFuture<Object> compute(Node node, SP spliterator) {
+        List<CompletableFuture<Object>> prefixes = null;
+        for (SP prefix = trySplit(node, spliterator); prefix != null; prefix = trySplit(node, spliterator)) {
+            if (prefixes == null)
+                prefixes = new ArrayList<>();
+            prefixes.add(submit(node.split(), prefix));
+            node = node.right;
+        }
+        CompletableFuture<Object> result = CompletableFuture.completedFuture(evaluateLeaf(node, spliterator));
+        if (prefixes != null) {
+            for (int i = prefixes.size() - 1; i >= 0; i--) {
+                result = prefixes.get(i).thenCombine(result, this::combine);
+            }
+        }
+        return result;
+    }
+
+    private Object evaluateLeaf(Node node, SP spliterator) {
+        if (node.isCancelled())
+            return NONE;
+        R result = leaf.apply(spliterator);
+        if (stop != null && stop.test(result)) {
+            if (!ordered) {
+                root.cancelled = true;
+            } else {
+                for (Node parent = node.parent; parent != null; node = parent, parent = node.parent) {
+                    if (parent.left == node)
+                        parent.right.cancelled = true;
+                }
+            }
+            // the stopping result is never discarded: some other leaf may
+            // have cancelled this one concurrently
+            return result;
+        }
+        return node.isCancelled() ? NONE : result;
+    }
+
+    @SuppressWarnings("unchecked")
+    private Object combine(Object a, Object b) {
+        if (a == NONE)
+            return b;
+        if (b == NONE)
+            return a;
+        return combiner.apply((R) a, (R) b);
+    }
+
+    private CompletableFuture<Void> submitOrdered(SP spliterator, CompletableFuture<Void> before,
+            BiFunction<? super SP, BooleanSupplier, ? extends Runnable> leaf) {
+        return async(() -> computeOrdered(spliterator, before, leaf));
+    }
+
+    private CompletableFuture<Void> computeOrdered(SP spliterator, CompletableFuture<Void> before,
+            BiFunction<? super SP, BooleanSupplier, ? extends Runnable> leaf) {
+        for (SP prefix = trySplit(root, spliterator); prefix != null; prefix = trySplit(root, spliterator)) {
+            before = submitOrdered(prefix, before, leaf);
+        }
+        CompletableFuture<Void> preceding = before;
+        // after the failure the leaf never becomes the head, so its action
+        // is not run
+        Runnable action = leaf.apply(spliterator, () -> preceding.isDone() && !preceding
+                .isCompletedExceptionally());
+        return preceding.thenRun(action);
+    }
+}
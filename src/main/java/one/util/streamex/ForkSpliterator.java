@@ -0,0 +1,266 @@
+/*
+ * Copyright 2015, 2020 StreamEx contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package one.util.streamex;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
+
+import static one.util.streamex.Internals.CancelException;
+import static one.util.streamex.VerSpec.VER_SPEC;
+
+/**
+ * A spliterator which reads the elements of one branch of the forked stream
+ * from the bounded buffer. The forked stream is traversed by the caller
+ * thread which hands the batches of elements to every branch buffer and
+ * waits while any buffer is full, so the slowest branch limits the
+ * traversal speed and the memory used. The batches are shared between the
+ * branches and never modified after they are handed over.
+ *
+ * <p>
+ * The branch which finishes before the input is exhausted no longer gets the
+ * elements; the traversal stops as soon as all the branches are finished.
+ *
+ * @author Tagir Valeev
+ */
+/* package */final class ForkSpliterator<T> implements Spliterator<T> {
+    static final int BATCH_SIZE = UnknownSizeSpliterator.BATCH_UNIT;
+    static final int BUFFER_BATCHES = 4;
+    private static final Object[] END = new Object[0];
+    private static final Object[] FAILED = new Object[0];
+
+    private final BlockingQueue<Object[]> buffer = new ArrayBlockingQueue<>(BUFFER_BATCHES);
+    private volatile boolean closed;
+    private volatile Throwable error;
+    private Object[] batch;
+    private int index;
+
+    /**
+     * Traverses the source and feeds every branch consumer with the stream
+     * over its own {@code ForkSpliterator}. The branch consumers are run in
+     * separate threads; this method returns when all of them are finished.
+     */
+    static <T> void fork(Spliterator<T> source, List<? extends Consumer<? super StreamEx<T>>> branches) {
+        branches.forEach(Objects::requireNonNull);
+        int n = branches.size();
+        if (n == 0)
+            return;
+        List<ForkSpliterator<T>> forks = new ArrayList<>(n);
+        CountDownLatch finished = new CountDownLatch(n);
+        Executor executor = VER_SPEC.virtualExecutor(n);
+        for (Consumer<? super StreamEx<T>> branch : branches) {
+            ForkSpliterator<T> fork = new ForkSpliterator<>();
+            forks.add(fork);
+            executor.execute(() -> {
+                try {
+                    branch.accept(new StreamEx<>(fork, StreamContext.SEQUENTIAL));
+                } catch (Throwable t) {
+                    fork.error = t;
+                } finally {
+                    fork.close();
+                    finished.countDown();
+                }
+            });
+        }
+        Feeder<T> feeder = new Feeder<>(forks);
+        Throwable failure = null;
+        try {
+            source.forEachRemaining(feeder);
+            feeder.finish();
+        } catch (CancelException ex) {
+            // all the branches are finished, one of them failed or the
+            // caller is interrupted
+            if (feeder.interrupted != null)
+                failure = new IllegalStateException("Interrupted while feeding the branches", feeder.interrupted);
+        } catch (Throwable t) {
+            failure = t;
+        }
+        boolean interrupted = feeder.interrupted != null;
+        if (failure != null || feeder.failed()) {
+            for (ForkSpliterator<T> fork : forks) {
+                fork.cancel();
+            }
+        }
+        while (true) {
+            try {
+                finished.await();
+                break;
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted)
+            Thread.currentThread().interrupt();
+        // the branches cancelled because of the other branch failure record
+        // CancelException, so the real errors are preferred regardless of the
+        // branch order
+        boolean cancelled = false;
+        for (ForkSpliterator<T> fork : forks) {
+            Throwable t = fork.error;
+            if (t instanceof CancelException)
+                cancelled = true;
+            else if (t != null) {
+                if (failure == null)
+                    failure = t;
+                else if (failure != t)
+                    failure.addSuppressed(t);
+            }
+        }
+        if (failure == null && cancelled)
+            failure = new IllegalStateException("The branch was interrupted");
+        if (failure instanceof RuntimeException)
+            throw (RuntimeException) failure;
+        if (failure instanceof Error)
+            throw (Error) failure;
+        if (failure != null)
+            throw new IllegalStateException(failure);
+    }
+
+    private static final class Feeder<T> implements Consumer<T> {
+        private final List<ForkSpliterator<T>> forks;
+        private Object[] batch = new Object[BATCH_SIZE];
+        private int size;
+        InterruptedException interrupted;
+
+        Feeder(List<ForkSpliterator<T>> forks) {
+            this.forks = forks;
+        }
+
+        @Override
+        public void accept(T t) {
+            batch[size++] = t;
+            if (size == BATCH_SIZE) {
+                publish(batch);
+                batch = new Object[BATCH_SIZE];
+                size = 0;
+            }
+        }
+
+        boolean failed() {
+            for (ForkSpliterator<T> fork : forks) {
+                if (fork.error != null)
+                    return true;
+            }
+            return false;
+        }
+
+        void finish() {
+            if (size > 0)
+                publish(Arrays.copyOf(batch, size));
+            publish(END);
+        }
+
+        private void publish(Object[] elements) {
+            boolean alive = false;
+            for (ForkSpliterator<T> fork : forks) {
+                if (fork.error != null)
+                    throw new CancelException();
+                if (fork.closed)
+                    continue;
+                try {
+                    fork.buffer.put(elements);
+                } catch (InterruptedException e) {
+                    interrupted = e;
+                    throw new CancelException();
+                }
+                alive = true;
+            }
+            if (!alive)
+                throw new CancelException();
+        }
+    }
+
+    private void close() {
+        closed = true;
+        // releases the feeder if it waits for the buffer space
+        buffer.clear();
+    }
+
+    private void cancel() {
+        // only the feeder puts to the buffer, so there's a space after clear
+        buffer.clear();
+        buffer.offer(FAILED);
+    }
+
+    private boolean next() {
+        while (batch == null || index == batch.length) {
+            if (batch == END)
+                return false;
+            Object[] b;
+            try {
+                b = buffer.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new CancelException();
+            }
+            // the input is incomplete, the branch result must be discarded
+            if (b == FAILED)
+                throw new CancelException();
+            batch = b;
+            index = 0;
+        }
+        return true;
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public boolean tryAdvance(Consumer<? super T> action) {
+        if (!next())
+            return false;
+        action.accept((T) batch[index++]);
+        return true;
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public void forEachRemaining(Consumer<? super T> action) {
+        while (next()) {
+            Object[] b = batch;
+            int i = index, length = b.length;
+            index = length;
+            for (; i < length; i++) {
+                action.accept((T) b[i]);
+            }
+        }
+    }
+
+    @Override
+    public Spliterator<T> trySplit() {
+        if (!next())
+            return null;
+        Spliterator<T> prefix = Spliterators.spliterator(batch, index, batch.length, ORDERED);
+        index = batch.length;
+        return prefix;
+    }
+
+    @Override
+    public long estimateSize() {
+        return Long.MAX_VALUE;
+    }
+
+    @Override
+    public int characteristics() {
+        return ORDERED;
+    }
+}
@@ -19,6 +19,11 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.UncheckedIOException;
 import java.nio.Buffer;
+import java.nio.ByteOrder;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.time.Duration;
 import java.util.AbstractMap;
 import java.util.Arrays;
 import java.util.BitSet;
@@ -37,6 +42,9 @@ import java.util.Random;
 import java.util.Spliterator;
 import java.util.Spliterators;
 import java.util.Spliterators.AbstractIntSpliterator;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 import java.util.concurrent.ForkJoinPool;
 import java.util.function.BiConsumer;
 import java.util.function.DoublePredicate;
@@ -69,6 +77,7 @@ import static one.util.streamex.Internals.ObjIntBox;
 import static one.util.streamex.Internals.PrimitiveBox;
 import static one.util.streamex.Internals.ShortBuffer;
 import static one.util.streamex.Internals.checkLength;
+import static one.util.streamex.Internals.checkNonNegative;
 import static one.util.streamex.Internals.intSize;
 import static one.util.streamex.Internals.rangeCheck;
 
@@ -88,7 +97,16 @@ public class IntStreamEx extends BaseStreamEx<Integer, IntStream, Spliterator.Of
 
     @Override
     IntStream createStream() {
-        return StreamSupport.intStream(spliterator, context.parallel);
+        if (!context.parallel || context.isSmall(spliterator))
+            return StreamSupport.intStream(spliterator, false);
+        if (context.splitPolicy != null)
+            return StreamSupport.intStream(PolicySpliterator.wrap(spliterator, context.splitPolicy), true);
+        return StreamSupport.intStream(spliterator, true);
+    }
+
+    @Override
+    IntStream leafStream(Spliterator.OfInt spliterator) {
+        return StreamSupport.intStream(spliterator, false);
     }
 
     private static IntStreamEx seq(IntStream stream) {
@@ -284,6 +302,73 @@ public class IntStreamEx extends BaseStreamEx<Integer, IntStream, Spliterator.Of
         return new StreamEx<>(stream().mapToObj(mapper), context);
     }
 
+    /**
+     * Returns a {@link StreamEx} consisting of the results of applying the
+     * given function to the elements of this stream, reusing the results for
+     * the equal elements while they are in the cache of limited size.
+     *
+     * <p>
+     * This is an <a href="package-summary.html#StreamOps">intermediate
+     * operation</a>. The cache stores the primitive keys without boxing and
+     * evicts the entries by the CLOCK policy approximating the least recently
+     * used order. For parallel stream every split has its own cache, so the
+     * function may be called several times for the same element.
+     *
+     * @param <U> The element type of the new stream
+     * @param mapper a non-interfering, stateless function to apply to each
+     *        distinct element
+     * @param maxEntries the maximal number of the cached results per split,
+     *        must be positive
+     * @return the new stream
+     * @throws IllegalArgumentException if {@code maxEntries} is not positive
+     * @see StreamEx#mapCached(Function, int)
+     * @since 0.7.4
+     */
+    public <U> StreamEx<U> mapToObjCached(IntFunction<? extends U> mapper, int maxEntries) {
+        return cached(mapper, maxEntries, false, null);
+    }
+
+    /**
+     * Returns a {@link StreamEx} consisting of the results of applying the
+     * given function to the elements of this stream, reusing the results for
+     * the equal elements while they are in the cache of limited size, and
+     * counts the cache hits and misses.
+     *
+     * <p>
+     * This is an <a href="package-summary.html#StreamOps">intermediate
+     * operation</a>. If the cache is not shared, every split of the parallel
+     * stream has its own cache. The shared cache is used by all the splits:
+     * it consists of several independently synchronized stripes, each holding
+     * the part of {@code maxEntries} entries.
+     *
+     * @param <U> The element type of the new stream
+     * @param mapper a non-interfering, stateless function to apply to each
+     *        distinct element
+     * @param maxEntries the maximal number of the cached results (per split
+     *        unless the cache is shared), must be positive
+     * @param shared whether all the splits of the parallel stream share the
+     *        same cache
+     * @param statistics the counters to update, may be read after the terminal
+     *        operation is complete
+     * @return the new stream
+     * @throws IllegalArgumentException if {@code maxEntries} is not positive
+     * @see StreamEx#mapCached(Function, int, boolean, CacheStatistics)
+     * @since 0.7.4
+     */
+    public <U> StreamEx<U> mapToObjCached(IntFunction<? extends U> mapper, int maxEntries, boolean shared,
+            CacheStatistics statistics) {
+        return cached(mapper, maxEntries, shared, Objects.requireNonNull(statistics));
+    }
+
+    private <U> StreamEx<U> cached(IntFunction<? extends U> mapper, int maxEntries, boolean shared,
+            CacheStatistics statistics) {
+        Objects.requireNonNull(mapper);
+        if (maxEntries <= 0)
+            throw new IllegalArgumentException("maxEntries must be positive: " + maxEntries);
+        return new StreamEx<>(new CacheMapSpliterator.OfInt<>(spliterator(), mapper, CacheMapSpliterator
+                .longKeyCache(maxEntries, shared), statistics), context);
+    }
+
     @Override
     public LongStreamEx mapToLong(IntToLongFunction mapper) {
         return new LongStreamEx(stream().mapToLong(mapper), context);
@@ -628,41 +713,46 @@ public class IntStreamEx extends BaseStreamEx<Integer, IntStream, Spliterator.Of
 
     @Override
     public void forEach(IntConsumer action) {
-        if (spliterator != null && !isParallel()) {
-            spliterator().forEachRemaining(action);
+        if (spliterator != null && runsSequentially()) {
+            traverse(s -> s.forEachRemaining(action));
         } else {
-            if (context.fjp != null)
-                context.terminate(() -> {
-                    stream().forEach(action);
-                    return null;
-                });
-            else {
-                stream().forEach(action);
-            }
+            terminate(s -> {
+                s.forEach(action);
+                return null;
+            }, (a, b) -> null);
         }
     }
 
     @Override
     public void forEachOrdered(IntConsumer action) {
-        if (spliterator != null && !isParallel()) {
-            spliterator().forEachRemaining(action);
+        if (spliterator != null && runsSequentially()) {
+            traverse(s -> s.forEachRemaining(action));
         } else {
-            if (context.fjp != null)
-                context.terminate(() -> {
-                    stream().forEachOrdered(action);
-                    return null;
+            if (context.executor != null && !runsSequentially()) {
+                ExecutorDriver.forEachOrdered(context, spliterator(), (spltr, head) -> {
+                    IntBuffer buf = new IntBuffer();
+                    IntConsumer add = buf::add;
+                    while (!head.getAsBoolean()) {
+                        if (!spltr.tryAdvance(add))
+                            return () -> buf.forEach(action);
+                    }
+                    return () -> {
+                        buf.forEach(action);
+                        spltr.forEachRemaining(action);
+                    };
                 });
-            else {
-                stream().forEachOrdered(action);
+            } else {
+                terminate(s -> {
+                    s.forEachOrdered(action);
+                    return null;
+                }, null);
             }
         }
     }
 
     @Override
     public int[] toArray() {
-        if (context.fjp != null)
-            return context.terminate(stream()::toArray);
-        return stream().toArray();
+        return terminate(IntStream::toArray, Internals::concat);
     }
 
     /**
@@ -762,18 +852,158 @@ public class IntStreamEx extends BaseStreamEx<Integer, IntStream, Spliterator.Of
         };
     }
 
+    /**
+     * Writes the elements of this stream to the supplied
+     * {@link WritableByteChannel} as 4-byte values in the specified byte order.
+     *
+     * <p>
+     * The elements are encoded into a single direct buffer of given size which
+     * is written to the channel every time it becomes full, so no intermediate
+     * array of the stream size is created. The elements are written in the
+     * encounter order, even if the stream is parallel: in this case only the
+     * results of the splits which are completed out of order are buffered.
+     *
+     * <p>
+     * If the channel throws an {@link IOException}, it will be rethrown as
+     * {@link UncheckedIOException}. The channel is not closed by this method.
+     *
+     * <p>
+     * This is a terminal operation.
+     *
+     * @param channel the channel to write to
+     * @param order the byte order to encode the numbers with
+     * @param bufferSize the size of the intermediate buffer in bytes, must be
+     *        at least {@link Integer#BYTES}.
+     * @throws IllegalArgumentException if bufferSize is less than
+     *         {@code Integer.BYTES}
+     * @see #ofInts(ReadableByteChannel, ByteOrder)
+     * @since 0.7.4
+     */
+    public void writeTo(WritableByteChannel channel, ByteOrder order, int bufferSize) {
+        ChannelSink sink = new ChannelSink(channel, order, bufferSize, Integer.BYTES);
+        forEachOrdered(sink);
+        sink.flush();
+    }
+
+    /**
+     * Puts the elements of this stream into the supplied
+     * {@link java.nio.IntBuffer} starting from its current position in the
+     * encounter order.
+     *
+     * <p>
+     * This is a terminal operation.
+     *
+     * @param buf the buffer to put the elements into
+     * @return the supplied buffer. Its position is advanced by the number of
+     *         the stream elements.
+     * @throws java.nio.BufferOverflowException if there's insufficient space in
+     *         the buffer
+     * @throws java.nio.ReadOnlyBufferException if the buffer is read-only
+     * @see #of(java.nio.IntBuffer)
+     * @since 0.7.4
+     */
+    public java.nio.IntBuffer into(java.nio.IntBuffer buf) {
+        forEachOrdered(buf::put);
+        return buf;
+    }
+
     @Override
     public int reduce(int identity, IntBinaryOperator op) {
-        if (context.fjp != null)
-            return context.terminate(() -> stream().reduce(identity, op));
-        return stream().reduce(identity, op);
+        return terminate(s -> s.reduce(identity, op), op::applyAsInt);
     }
 
     @Override
     public OptionalInt reduce(IntBinaryOperator op) {
-        if (context.fjp != null)
-            return context.terminate(op, stream()::reduce);
-        return stream().reduce(op);
+        return terminate(s -> s.reduce(op), (a, b) -> a.isPresent() ? b.isPresent() ? OptionalInt.of(op.applyAsInt(a
+                .getAsInt(), b.getAsInt())) : a : b);
+    }
+
+    /**
+     * Performs a reduction on the elements of this stream asynchronously,
+     * using the provided identity value and an associative accumulation
+     * function.
+     *
+     * <p>
+     * This is an asynchronous <a
+     * href="package-summary.html#StreamOps">terminal</a> operation: it returns
+     * immediately and the operation is performed in the executor or the
+     * {@link ForkJoinPool} this stream is bound to (see
+     * {@link #parallel(Executor)} and {@link #parallel(ForkJoinPool)}) or in
+     * the default asynchronous pool of {@link CompletableFuture}. If the
+     * returned future is completed before the operation finishes (for
+     * example, cancelled), the operation stops traversing the stream source as
+     * soon as possible and its result is discarded.
+     *
+     * @param identity the identity value for the accumulating function
+     * @param op an associative, non-interfering, stateless function for
+     *        combining two values
+     * @return the future result of the reduction
+     * @see #reduce(int, IntBinaryOperator)
+     * @since 0.7.4
+     */
+    public CompletableFuture<Integer> reduceAsync(int identity, IntBinaryOperator op) {
+        return terminateAsync(s -> s.reduce(identity, op), op::applyAsInt, Function.identity());
+    }
+
+    /**
+     * Performs a reduction on the elements of this stream asynchronously,
+     * using an associative accumulation function.
+     *
+     * <p>
+     * This is an asynchronous <a
+     * href="package-summary.html#StreamOps">terminal</a> operation which is
+     * performed like {@link #reduceAsync(int, IntBinaryOperator)}.
+     *
+     * @param op an associative, non-interfering, stateless function for
+     *        combining two values
+     * @return the future {@link OptionalInt} describing the result of the
+     *         reduction or an empty {@code OptionalInt} if the stream is empty
+     * @see #reduce(IntBinaryOperator)
+     * @since 0.7.4
+     */
+    public CompletableFuture<OptionalInt> reduceAsync(IntBinaryOperator op) {
+        return terminateAsync(s -> s.reduce(op), (a, b) -> a.isPresent() ? b.isPresent() ? OptionalInt.of(op
+                .applyAsInt(a.getAsInt(), b.getAsInt())) : a : b, Function.identity());
+    }
+
+    /**
+     * Returns a {@link CompletableFuture} which is completed with the array
+     * containing the elements of this stream.
+     *
+     * <p>
+     * This is an asynchronous <a
+     * href="package-summary.html#StreamOps">terminal</a> operation which is
+     * performed like {@link #reduceAsync(int, IntBinaryOperator)}.
+     *
+     * @return the future array of the stream elements
+     * @see #toArray()
+     * @since 0.7.4
+     */
+    public CompletableFuture<int[]> toArrayAsync() {
+        return terminateAsync(IntStream::toArray, Internals::concat, Function.identity());
+    }
+
+    /**
+     * Performs an action for each element of this stream asynchronously.
+     *
+     * <p>
+     * This is an asynchronous <a
+     * href="package-summary.html#StreamOps">terminal</a> operation which is
+     * performed like {@link #reduceAsync(int, IntBinaryOperator)}. The
+     * action is performed like in {@link #forEach(IntConsumer)}: for
+     * parallel stream the order is not respected.
+     *
+     * @param action a non-interfering action to perform on the elements
+     * @return the future which is completed when the action is performed for
+     *         all the elements
+     * @see #forEach(IntConsumer)
+     * @since 0.7.4
+     */
+    public CompletableFuture<Void> forEachAsync(IntConsumer action) {
+        return terminateAsync(s -> {
+            s.forEach(action);
+            return null;
+        }, (a, b) -> null, Function.identity());
     }
 
     /**
@@ -946,9 +1176,10 @@ public class IntStreamEx extends BaseStreamEx<Integer, IntStream, Spliterator.Of
      */
     @Override
     public <R> R collect(Supplier<R> supplier, ObjIntConsumer<R> accumulator, BiConsumer<R, R> combiner) {
-        if (context.fjp != null)
-            return context.terminate(() -> stream().collect(supplier, accumulator, combiner));
-        return stream().collect(supplier, accumulator, combiner);
+        return terminate(s -> s.collect(supplier, accumulator, combiner), (a, b) -> {
+            combiner.accept(a, b);
+            return a;
+        });
     }
 
     /**
@@ -1241,16 +1472,16 @@ public class IntStreamEx extends BaseStreamEx<Integer, IntStream, Spliterator.Of
 
     @Override
     public long count() {
-        if (context.fjp != null)
-            return context.terminate(stream()::count);
-        return stream().count();
+        return terminate(IntStream::count, Long::sum);
     }
 
     @Override
     public OptionalDouble average() {
-        if (context.fjp != null)
-            return context.terminate(stream()::average);
-        return stream().average();
+        if (context.executor != null) {
+            IntSummaryStatistics stats = summaryStatistics();
+            return stats.getCount() == 0 ? OptionalDouble.empty() : OptionalDouble.of(stats.getAverage());
+        }
+        return terminate(IntStream::average, null);
     }
 
     @Override
@@ -1260,16 +1491,12 @@ public class IntStreamEx extends BaseStreamEx<Integer, IntStream, Spliterator.Of
 
     @Override
     public boolean anyMatch(IntPredicate predicate) {
-        if (context.fjp != null)
-            return context.terminate(predicate, stream()::anyMatch);
-        return stream().anyMatch(predicate);
+        return terminate(s -> s.anyMatch(predicate), Boolean::logicalOr, Boolean::booleanValue, false);
     }
 
     @Override
     public boolean allMatch(IntPredicate predicate) {
-        if (context.fjp != null)
-            return context.terminate(predicate, stream()::allMatch);
-        return stream().allMatch(predicate);
+        return terminate(s -> s.allMatch(predicate), Boolean::logicalAnd, match -> !match, false);
     }
 
     @Override
@@ -1279,9 +1506,7 @@ public class IntStreamEx extends BaseStreamEx<Integer, IntStream, Spliterator.Of
 
     @Override
     public OptionalInt findFirst() {
-        if (context.fjp != null)
-            return context.terminate(stream()::findFirst);
-        return stream().findFirst();
+        return terminate(IntStream::findFirst, (a, b) -> a.isPresent() ? a : b, OptionalInt::isPresent, true);
     }
 
     /**
@@ -1307,9 +1532,7 @@ public class IntStreamEx extends BaseStreamEx<Integer, IntStream, Spliterator.Of
 
     @Override
     public OptionalInt findAny() {
-        if (context.fjp != null)
-            return context.terminate(stream()::findAny);
-        return stream().findAny();
+        return terminate(IntStream::findAny, (a, b) -> a.isPresent() ? a : b, OptionalInt::isPresent, false);
     }
 
     /**
@@ -1397,6 +1620,69 @@ public class IntStreamEx extends BaseStreamEx<Integer, IntStream, Spliterator.Of
         return new StreamEx<>(stream().boxed(), context);
     }
 
+    /**
+     * Returns a stream consisting of arrays of consecutive elements of this
+     * stream having the specified length (the last array may be shorter).
+     *
+     * <p>
+     * This is a <a href="package-summary.html#StreamOps">quasi-intermediate</a>
+     * operation.
+     *
+     * <p>
+     * If the stream is {@code SIZED} and {@code SUBSIZED}, every array is
+     * created with its exact length and the parallel stream is split only at
+     * the array boundaries, so it produces the same arrays without additional
+     * merging. Otherwise the parallel stream collects the batches of arrays
+     * sequentially and processes them in parallel.
+     *
+     * @param size the length of every array except the last one, must be
+     *        positive
+     * @return the new stream
+     * @throws IllegalArgumentException if size is zero or negative
+     * @see StreamEx#chunked(int)
+     * @since 0.7.4
+     */
+    public StreamEx<int[]> chunked(int size) {
+        if (size <= 0)
+            throw new IllegalArgumentException("size must be positive: " + size);
+        return new StreamEx<>(new ChunkSpliterator.OfInt(spliterator(), null, size), context);
+    }
+
+    /**
+     * Returns a supplier of the new streams which replay the elements of this
+     * stream.
+     *
+     * <p>
+     * This is a <a href="package-summary.html#StreamOps">terminal</a>
+     * operation, though the elements are not read immediately: this stream is
+     * traversed once, when any of the supplied streams is traversed for the
+     * first time. The elements are stored in the fixed-size segments, so no
+     * element is copied after it's read, and every supplied stream reads the
+     * same storage. Once all the elements are stored, this stream is closed.
+     *
+     * <p>
+     * The supplied streams are {@code SIZED} and {@code SUBSIZED} and split
+     * evenly, so they may be efficiently processed in parallel. They are
+     * parallel if this stream is parallel and keep its parallel settings like
+     * the custom {@link java.util.concurrent.ForkJoinPool}, but not its close
+     * handlers. The supplier is thread-safe: the supplied streams may be
+     * traversed concurrently, this stream is traversed only once.
+     *
+     * <p>
+     * If the traversal of this stream fails, the exception is thrown from the
+     * supplied stream, this stream is closed and every supplied stream throws
+     * {@link IllegalStateException} caused by that exception afterwards.
+     *
+     * @return the supplier of the new streams over the elements of this stream
+     * @throws IllegalStateException from the supplied stream if this stream has
+     *         more than {@code Integer.MAX_VALUE} elements
+     * @see StreamEx#cache()
+     * @since 0.7.4
+     */
+    public Supplier<IntStreamEx> cache() {
+        return new CachedSource.OfInt(spliterator(), context);
+    }
+
     @Override
     public IntStreamEx sequential() {
         return (IntStreamEx) super.sequential();
@@ -1412,6 +1698,31 @@ public class IntStreamEx extends BaseStreamEx<Integer, IntStream, Spliterator.Of
         return (IntStreamEx) super.parallel(fjp);
     }
 
+    @Override
+    public IntStreamEx parallel(ForkJoinPool fjp, SplitPolicy splitPolicy) {
+        return (IntStreamEx) super.parallel(fjp, splitPolicy);
+    }
+
+    @Override
+    public IntStreamEx parallel(Executor executor) {
+        return (IntStreamEx) super.parallel(executor);
+    }
+
+    @Override
+    public IntStreamEx sequentialThreshold(long threshold) {
+        return (IntStreamEx) super.sequentialThreshold(threshold);
+    }
+
+    @Override
+    public IntStreamEx instrument(StageStatistics statistics) {
+        return (IntStreamEx) super.instrument(statistics);
+    }
+
+    @Override
+    public IntStreamEx checkpoint(String name) {
+        return (IntStreamEx) super.checkpoint(name);
+    }
+
     @Override
     public OfInt iterator() {
         return Spliterators.iterator(spliterator());
@@ -1654,6 +1965,70 @@ public class IntStreamEx extends BaseStreamEx<Integer, IntStream, Spliterator.Of
         return collect(IntCollector.joining(delimiter, prefix, suffix));
     }
 
+    /**
+     * Returns a stream consisting of the elements of this stream which are
+     * produced before the specified timeout elapses.
+     *
+     * <p>
+     * This is a short-circuiting <a
+     * href="package-summary.html#StreamOps">intermediate operation</a>. The
+     * timeout is counted from the moment the terminal operation starts
+     * traversing or splitting the stream, not from this method call. When it
+     * elapses, every part of the (possibly parallel) stream stops at its next
+     * element, so the terminal operation completes with the result for the
+     * elements processed so far. This is useful when the partial result is
+     * better than no result at all. The short-circuiting terminal operations
+     * like {@code findAny()} or {@code anyMatch()} stop as well.
+     *
+     * <p>
+     * Note that the element being processed when the timeout elapses is
+     * processed to the end: the operation doesn't interrupt the threads. Also
+     * note that the result doesn't tell whether it's complete: use
+     * {@link #withDeadline(Duration, Runnable)} to find it out.
+     *
+     * @param timeout the maximal time to produce the elements, must be
+     *        positive
+     * @return the new stream
+     * @throws IllegalArgumentException if the timeout is zero or negative
+     * @see #withDeadline(Duration, Runnable)
+     * @since 0.7.4
+     */
+    public IntStreamEx withDeadline(Duration timeout) {
+        return withDeadline(timeout, null);
+    }
+
+    /**
+     * Returns a stream consisting of the elements of this stream which are
+     * produced before the specified timeout elapses, and runs the supplied
+     * action if some elements are dropped because of the timeout.
+     *
+     * <p>
+     * This is a short-circuiting <a
+     * href="package-summary.html#StreamOps">intermediate operation</a> which
+     * behaves like {@link #withDeadline(Duration)}. The {@code onExpired}
+     * action is run at most once, in the thread which first encounters the
+     * element after the timeout. If it's not run by the end of the terminal
+     * operation, the result of the terminal operation is complete. For
+     * example:
+     *
+     * <pre>{@code
+     * AtomicBoolean partial = new AtomicBoolean();
+     * List<Result> results = IntStreamEx.of(ids).withDeadline(Duration.ofMillis(100), () -> partial.set(true))
+     *         .map(this::compute).toList();
+     * }</pre>
+     *
+     * @param timeout the maximal time to produce the elements, must be
+     *        positive
+     * @param onExpired the action to run when the first element is dropped
+     *        because of the timeout, or null if no action is necessary
+     * @return the new stream
+     * @throws IllegalArgumentException if the timeout is zero or negative
+     * @since 0.7.4
+     */
+    public IntStreamEx withDeadline(Duration timeout, Runnable onExpired) {
+        return delegate(DeadlineSpliterator.wrap(spliterator(), timeout, onExpired));
+    }
+
     /**
      * Returns a stream consisting of all elements from this stream until the
      * first element which does not match the given predicate is found.
@@ -1980,6 +2355,7 @@ public class IntStreamEx extends BaseStreamEx<Integer, IntStream, Spliterator.Of
      * @param is an {@code InputStream} to create an {@code IntStreamEx} on.
      * @return the new stream
      * @see #asByteInputStream()
+     * @see #ofBytes(InputStream)
      * @since 0.6.1
      */
     public static IntStreamEx of(InputStream is) {
@@ -2007,6 +2383,105 @@ public class IntStreamEx extends BaseStreamEx<Integer, IntStream, Spliterator.Of
         });
     }
 
+    /**
+     * Returns a sequential ordered {@code IntStreamEx} of the bytes read from
+     * the given {@link InputStream} through an intermediate buffer.
+     *
+     * <p>
+     * Like {@link #of(InputStream)}, the resulting stream contains int values
+     * between 0 and 255 (0xFF) inclusive. If you want to get <code>byte</code>
+     * values (e.g. -1 instead of 255), simply cast the stream elements like
+     * <code>.map(b -&gt; (byte)b)</code>. Unlike {@link #of(InputStream)}, the
+     * input is read in chunks rather than byte by byte, though it's never
+     * stored in memory completely. When the stream is parallel, the input is
+     * split into batches of increasing size.
+     *
+     * <p>
+     * If the underlying {@code InputStream} throws an {@link IOException}
+     * during the stream traversal, it will be rethrown as
+     * {@link UncheckedIOException}.
+     *
+     * <p>
+     * When the returned {@code IntStreamEx} is closed the original
+     * {@code InputStream} is closed as well. If {@link InputStream#close()}
+     * method throws an {@code IOException}, it will be rethrown as
+     * {@link UncheckedIOException}.
+     *
+     * @param is an {@code InputStream} to create an {@code IntStreamEx} on.
+     * @return the new stream
+     * @see #of(InputStream)
+     * @see #ofBytes(ReadableByteChannel)
+     * @since 0.7.4
+     */
+    public static IntStreamEx ofBytes(InputStream is) {
+        return ofBytes(Channels.newChannel(is));
+    }
+
+    /**
+     * Returns a sequential ordered {@code IntStreamEx} of the bytes read from
+     * the given {@link ReadableByteChannel} through an intermediate buffer.
+     *
+     * <p>
+     * The resulting stream contains int values between 0 and 255 (0xFF)
+     * inclusive like {@link #of(InputStream)} does. The channel is read lazily
+     * in chunks, so its content is never stored in memory completely.
+     * The channel must be in blocking mode. When the stream is parallel, the
+     * input is split into batches of increasing size.
+     *
+     * <p>
+     * If the underlying channel throws an {@link IOException} during the
+     * stream traversal, it will be rethrown as {@link UncheckedIOException}.
+     *
+     * <p>
+     * When the returned {@code IntStreamEx} is closed the channel is closed as
+     * well. If the channel {@code close()} method throws an
+     * {@code IOException}, it will be rethrown as {@link UncheckedIOException}.
+     *
+     * @param channel a channel to create an {@code IntStreamEx} on.
+     * @return the new stream
+     * @see #ofInts(ReadableByteChannel, ByteOrder)
+     * @since 0.7.4
+     */
+    public static IntStreamEx ofBytes(ReadableByteChannel channel) {
+        return of(new ChannelSpliterator.OfInt(channel, ByteOrder.BIG_ENDIAN, Byte.BYTES)).onClose(
+            ChannelSpliterator.closer(channel));
+    }
+
+    /**
+     * Returns a sequential ordered {@code IntStreamEx} of the {@code int}
+     * values decoded from the given {@link ReadableByteChannel}. Every four
+     * bytes of the channel are decoded as a single value using the specified
+     * byte order.
+     *
+     * <p>
+     * The channel is read lazily in chunks through a single reusable buffer,
+     * so its content is never stored in memory completely. The channel must
+     * be in blocking mode. When the stream is parallel, the input is split
+     * into batches of increasing size.
+     *
+     * <p>
+     * If the underlying channel throws an {@link IOException} during the
+     * stream traversal, it will be rethrown as {@link UncheckedIOException}.
+     * The channel content length must be divisible by four, otherwise an
+     * {@code UncheckedIOException} wrapping an {@link java.io.EOFException}
+     * is thrown when the incomplete value is reached.
+     *
+     * <p>
+     * When the returned {@code IntStreamEx} is closed the channel is closed as
+     * well. If the channel {@code close()} method throws an
+     * {@code IOException}, it will be rethrown as {@link UncheckedIOException}.
+     *
+     * @param channel a channel to create an {@code IntStreamEx} on.
+     * @param order the byte order to decode the values with
+     * @return the new stream
+     * @see #writeTo(WritableByteChannel, ByteOrder, int)
+     * @since 0.7.4
+     */
+    public static IntStreamEx ofInts(ReadableByteChannel channel, ByteOrder order) {
+        return of(new ChannelSpliterator.OfInt(channel, order, Integer.BYTES)).onClose(
+            ChannelSpliterator.closer(channel));
+    }
+
     /**
      * Returns a sequential ordered {@code IntStreamEx} whose elements are the
      * unboxed elements of supplied array.
@@ -2230,6 +2705,102 @@ public class IntStreamEx extends BaseStreamEx<Integer, IntStream, Spliterator.Of
         return of(new UnknownSizeSpliterator.USOfInt(iterator));
     }
 
+    /**
+     * Returns a sequential, ordered, sized {@link IntStreamEx} created from given
+     * {@link java.util.PrimitiveIterator.OfInt} which is known to produce exactly {@code size}
+     * elements.
+     *
+     * <p>
+     * Unlike {@link #of(PrimitiveIterator.OfInt)} the resulting stream reports its size,
+     * so operations like {@code toArray()} or {@code count()} may work faster
+     * and the parallel stream is split evenly.
+     *
+     * <p>
+     * The behavior is undefined if the iterator produces a different number
+     * of elements.
+     * @param iterator an iterator to create the stream from.
+     * @param size the exact number of elements the iterator produces
+     * @return the new stream
+     * @throws IllegalArgumentException if size is negative
+     * @see #of(PrimitiveIterator.OfInt)
+     * @since 0.7.4
+     */
+    public static IntStreamEx ofSized(PrimitiveIterator.OfInt iterator, long size) {
+        checkNonNegative("size", size);
+        return of(Spliterators.spliterator(iterator, size, Spliterator.ORDERED));
+    }
+
+    /**
+     * Returns a sequential, ordered {@link IntStreamEx} created from given
+     * {@link java.util.PrimitiveIterator.OfInt} which adapts the size of the parallel batches to the
+     * cost of the stream pipeline.
+     *
+     * <p>
+     * Like {@link #of(PrimitiveIterator.OfInt)} the parallel stream copies the
+     * iterator elements into the batches which are processed by separate
+     * tasks. Instead of growing the batches by a fixed amount, this source
+     * measures the processing time per element of the completed batches and
+     * sizes the following batches so that every batch takes about
+     * {@code batchTime} to process. This works better when the per-element
+     * cost is high or varies a lot from pipeline to pipeline. For sequential
+     * streams it makes no difference.
+     *
+     * @param iterator an iterator to create the stream from.
+     * @param batchTime the desired processing time of a single batch, must be
+     *        positive
+     * @return the new stream
+     * @throws IllegalArgumentException if batchTime is zero or negative
+     * @see #of(PrimitiveIterator.OfInt)
+     * @since 0.7.4
+     */
+    public static IntStreamEx ofAdaptive(PrimitiveIterator.OfInt iterator, Duration batchTime) {
+        return of(new UnknownSizeSpliterator.USOfInt(iterator, UnknownSizeSpliterator.BatchCost.of(batchTime)));
+    }
+
+    /**
+     * Returns a sequential, ordered {@link IntStreamEx} which takes the elements
+     * from given {@link BlockingQueue} until the element matching the
+     * {@code isEnd} predicate is taken. The stream waits for the new elements
+     * as long as necessary.
+     *
+     * <p>
+     * See {@link StreamEx#ofQueue(BlockingQueue, Predicate)} for details.
+     *
+     * @param queue the queue to take the elements from
+     * @param isEnd a predicate which returns true for the end-of-stream
+     *        marker
+     * @return the new stream
+     * @see StreamEx#ofQueue(BlockingQueue, Predicate)
+     * @since 0.7.4
+     */
+    public static IntStreamEx ofQueue(BlockingQueue<Integer> queue, IntPredicate isEnd) {
+        return StreamEx.ofQueue(queue, isEnd::test).mapToInt(Integer::intValue);
+    }
+
+    /**
+     * Returns a sequential, ordered {@link IntStreamEx} which takes the elements
+     * from given {@link BlockingQueue} until the element matching the
+     * {@code isEnd} predicate is taken or no element arrives within the
+     * {@code idleTimeout}.
+     *
+     * <p>
+     * See {@link StreamEx#ofQueue(BlockingQueue, Predicate, Duration)} for
+     * details.
+     *
+     * @param queue the queue to take the elements from
+     * @param isEnd a predicate which returns true for the end-of-stream
+     *        marker
+     * @param idleTimeout the maximal time to wait for the next element, zero
+     *        to end the stream as soon as the queue is empty
+     * @return the new stream
+     * @throws IllegalArgumentException if idleTimeout is negative
+     * @see StreamEx#ofQueue(BlockingQueue, Predicate, Duration)
+     * @since 0.7.4
+     */
+    public static IntStreamEx ofQueue(BlockingQueue<Integer> queue, IntPredicate isEnd, Duration idleTimeout) {
+        return StreamEx.ofQueue(queue, isEnd::test, idleTimeout).mapToInt(Integer::intValue);
+    }
+
     /**
      * Returns a sequential {@code IntStreamEx} containing an
      * {@link OptionalInt} value, if present, otherwise returns an empty
@@ -38,7 +38,10 @@ import java.util.Spliterator;
 import java.util.function.BiConsumer;
 import java.util.function.BinaryOperator;
 import java.util.function.Consumer;
+import java.util.function.DoubleConsumer;
 import java.util.function.Function;
+import java.util.function.IntConsumer;
+import java.util.function.LongConsumer;
 import java.util.function.ObjDoubleConsumer;
 import java.util.function.ObjIntConsumer;
 import java.util.function.ObjLongConsumer;
@@ -65,6 +68,12 @@ import java.util.stream.Collector.Characteristics;
         }
     }
 
+    static void checkNonNegative(String name, long value) {
+        if (value < 0) {
+            throw new IllegalArgumentException(name + " must be non-negative: " + value);
+        }
+    }
+
     final class ByteBuffer {
         int size = 0;
         byte[] data;
@@ -239,6 +248,12 @@ import java.util.stream.Collector.Characteristics;
         int[] toArray() {
             return data.length == size ? data : Arrays.copyOfRange(data, 0, size);
         }
+
+        void forEach(IntConsumer action) {
+            for (int i = 0; i < size; i++) {
+                action.accept(data[i]);
+            }
+        }
     }
 
     final class LongBuffer {
@@ -271,6 +286,12 @@ import java.util.stream.Collector.Characteristics;
         long[] toArray() {
             return data.length == size ? data : Arrays.copyOfRange(data, 0, size);
         }
+
+        void forEach(LongConsumer action) {
+            for (int i = 0; i < size; i++) {
+                action.accept(data[i]);
+            }
+        }
     }
 
     final class DoubleBuffer {
@@ -303,6 +324,12 @@ import java.util.stream.Collector.Characteristics;
         double[] toArray() {
             return data.length == size ? data : Arrays.copyOfRange(data, 0, size);
         }
+
+        void forEach(DoubleConsumer action) {
+            for (int i = 0; i < size; i++) {
+                action.accept(data[i]);
+            }
+        }
     }
 
     final class BooleanMap<T> extends AbstractMap<Boolean, T> {
@@ -477,20 +504,13 @@ import java.util.stream.Collector.Characteristics;
             }, NO_CHARACTERISTICS);
         }
 
-        static PartialCollector<StringBuilder, String> joining(CharSequence delimiter, CharSequence prefix,
+        static PartialCollector<Joining.Accumulator, String> joining(CharSequence delimiter, CharSequence prefix,
                 CharSequence suffix, boolean hasPS) {
-            BiConsumer<StringBuilder, StringBuilder> merger = (sb1, sb2) -> {
-                if (sb2.length() > 0) {
-                    if (sb1.length() > 0)
-                        sb1.append(delimiter);
-                    sb1.append(sb2);
-                }
-            };
-            Supplier<StringBuilder> supplier = StringBuilder::new;
-            if (hasPS)
-                return new PartialCollector<>(supplier, merger, sb -> String.valueOf(prefix) + sb + suffix,
-                        NO_CHARACTERISTICS);
-            return new PartialCollector<>(supplier, merger, StringBuilder::toString, NO_CHARACTERISTICS);
+            String delim = String.valueOf(delimiter);
+            String start = hasPS ? String.valueOf(prefix) : "";
+            String end = hasPS ? String.valueOf(suffix) : "";
+            return new PartialCollector<>(Joining.Accumulator::new, Joining.Accumulator::addAll, acc -> acc.join(
+                delim, start, end), NO_CHARACTERISTICS);
         }
     }
 
@@ -935,16 +955,60 @@ import java.util.stream.Collector.Characteristics;
         }
     }
 
-    static ObjIntConsumer<StringBuilder> joinAccumulatorInt(CharSequence delimiter) {
-        return (sb, i) -> (sb.length() > 0 ? sb.append(delimiter) : sb).append(i);
+    static ObjIntConsumer<Joining.Accumulator> joinAccumulatorInt(CharSequence delimiter) {
+        return (acc, i) -> acc.builder(delimiter).append(i);
+    }
+
+    static ObjLongConsumer<Joining.Accumulator> joinAccumulatorLong(CharSequence delimiter) {
+        return (acc, i) -> acc.builder(delimiter).append(i);
+    }
+
+    static ObjDoubleConsumer<Joining.Accumulator> joinAccumulatorDouble(CharSequence delimiter) {
+        return (acc, i) -> acc.builder(delimiter).append(i);
     }
 
-    static ObjLongConsumer<StringBuilder> joinAccumulatorLong(CharSequence delimiter) {
-        return (sb, i) -> (sb.length() > 0 ? sb.append(delimiter) : sb).append(i);
+    static <T> Optional<T> firstPresent(Optional<T> a, Optional<T> b) {
+        return a.isPresent() ? a : b;
     }
 
-    static ObjDoubleConsumer<StringBuilder> joinAccumulatorDouble(CharSequence delimiter) {
-        return (sb, i) -> (sb.length() > 0 ? sb.append(delimiter) : sb).append(i);
+    static <A> A[] concat(A[] a, A[] b) {
+        if (b.length == 0)
+            return a;
+        if (a.length == 0)
+            return b;
+        A[] result = Arrays.copyOf(a, a.length + b.length);
+        System.arraycopy(b, 0, result, a.length, b.length);
+        return result;
+    }
+
+    static int[] concat(int[] a, int[] b) {
+        if (b.length == 0)
+            return a;
+        if (a.length == 0)
+            return b;
+        int[] result = Arrays.copyOf(a, a.length + b.length);
+        System.arraycopy(b, 0, result, a.length, b.length);
+        return result;
+    }
+
+    static long[] concat(long[] a, long[] b) {
+        if (b.length == 0)
+            return a;
+        if (a.length == 0)
+            return b;
+        long[] result = Arrays.copyOf(a, a.length + b.length);
+        System.arraycopy(b, 0, result, a.length, b.length);
+        return result;
+    }
+
+    static double[] concat(double[] a, double[] b) {
+        if (b.length == 0)
+            return a;
+        if (a.length == 0)
+            return b;
+        double[] result = Arrays.copyOf(a, a.length + b.length);
+        System.arraycopy(b, 0, result, a.length, b.length);
+        return result;
     }
 
     static <T> BinaryOperator<T> selectFirst() {
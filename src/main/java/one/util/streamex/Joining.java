@@ -15,19 +15,27 @@
  */
 package one.util.streamex;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.CharBuffer;
 import java.text.BreakIterator;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Iterator;
 import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Objects;
 import java.util.Set;
 import java.util.function.BiConsumer;
 import java.util.function.BinaryOperator;
+import java.util.function.Consumer;
 import java.util.function.Function;
 import java.util.function.Predicate;
 import java.util.function.Supplier;
 import java.util.stream.Collector;
 import java.util.stream.Collectors;
 
+import static one.util.streamex.Internals.CancelException;
 import static one.util.streamex.Internals.alwaysTrue;
 import static one.util.streamex.Internals.checkNonNegative;
 
@@ -75,9 +83,122 @@ import static one.util.streamex.Internals.checkNonNegative;
  * @since 0.4.1
  */
 public class Joining extends CancellableCollector<CharSequence, Joining.Accumulator, String> {
-    static final class Accumulator {
-        final List<CharSequence> data = new ArrayList<>();
-        int chars = 0, count = 0;
+    /**
+     * A rope of the collected pieces: the pieces are stored in the linked
+     * segments, so two accumulators are merged in constant time and the
+     * characters are copied only once when the result is created.
+     */
+    static final class Accumulator implements Iterable<CharSequence> {
+        private static final int MIN_SEGMENT = 1 << 3;
+        private static final int MAX_SEGMENT = 1 << 10;
+
+        private static final class Segment {
+            final CharSequence[] items;
+            int size;
+            Segment next;
+
+            Segment(int capacity) {
+                items = new CharSequence[capacity];
+            }
+        }
+
+        private Segment head, tail;
+        private StringBuilder builder;
+        int count;
+
+        boolean isEmpty() {
+            return head == null;
+        }
+
+        void add(CharSequence str) {
+            if (tail == null) {
+                head = tail = new Segment(MIN_SEGMENT);
+            } else if (tail.size == tail.items.length) {
+                tail = tail.next = new Segment(Math.min(tail.size * 2, MAX_SEGMENT));
+            }
+            tail.items[tail.size++] = str;
+        }
+
+        /**
+         * Returns the builder to append the next number to: the numbers
+         * collected by the primitive joining collectors are kept in a single
+         * piece per accumulator.
+         */
+        StringBuilder builder(CharSequence delimiter) {
+            if (builder == null) {
+                builder = new StringBuilder();
+                add(builder);
+                return builder;
+            }
+            return builder.append(delimiter);
+        }
+
+        /**
+         * Links the pieces of other accumulator after the pieces of this
+         * one. The other accumulator must not be used afterwards.
+         */
+        void addAll(Accumulator other) {
+            if (other.head == null)
+                return;
+            if (head == null) {
+                head = other.head;
+            } else {
+                tail.next = other.head;
+            }
+            tail = other.tail;
+            builder = other.builder;
+        }
+
+        int length(String delimiter) {
+            int length = 0;
+            for (Segment seg = head; seg != null; seg = seg.next) {
+                for (int i = 0; i < seg.size; i++) {
+                    length += seg.items[i].length();
+                }
+                length += delimiter.length() * seg.size;
+            }
+            return head == null ? 0 : length - delimiter.length();
+        }
+
+        String join(String delimiter, String prefix, String suffix) {
+            char[] buf = new char[length(delimiter) + prefix.length() + suffix.length()];
+            int pos = copy(buf, 0, prefix);
+            for (Segment seg = head; seg != null; seg = seg.next) {
+                for (int i = 0; i < seg.size; i++) {
+                    if (seg != head || i > 0) {
+                        pos = copy(buf, pos, delimiter);
+                    }
+                    pos = copy(buf, pos, seg.items[i]);
+                }
+            }
+            copy(buf, pos, suffix);
+            return new String(buf);
+        }
+
+        @Override
+        public Iterator<CharSequence> iterator() {
+            return new Iterator<CharSequence>() {
+                Segment seg = head;
+                int i;
+
+                @Override
+                public boolean hasNext() {
+                    return seg != null && i < seg.size;
+                }
+
+                @Override
+                public CharSequence next() {
+                    if (!hasNext())
+                        throw new NoSuchElementException();
+                    CharSequence str = seg.items[i++];
+                    if (i == seg.size) {
+                        seg = seg.next;
+                        i = 0;
+                    }
+                    return str;
+                }
+            };
+        }
     }
 
     private static final int CUT_ANYWHERE = 0;
@@ -136,9 +257,18 @@ public class Joining extends CancellableCollector<CharSequence, Joining.Accumula
         }
     }
 
-    private static int copy(char[] buf, int pos, String str) {
-        str.getChars(0, str.length(), buf, pos);
-        return pos + str.length();
+    private static int copy(char[] buf, int pos, CharSequence str) {
+        int length = str.length();
+        if (str instanceof String) {
+            ((String) str).getChars(0, length, buf, pos);
+        } else if (str instanceof StringBuilder) {
+            ((StringBuilder) str).getChars(0, length, buf, pos);
+        } else {
+            for (int i = 0; i < length; i++) {
+                buf[pos + i] = str.charAt(i);
+            }
+        }
+        return pos + length;
     }
 
     private int copyCut(char[] buf, int pos, String str, int limit, int cutStrategy) {
@@ -204,18 +334,68 @@ public class Joining extends CancellableCollector<CharSequence, Joining.Accumula
         return pos + endPos;
     }
 
-    private String finisherNoOverflow(Accumulator acc) {
-        char[] buf = new char[acc.chars + prefix.length() + suffix.length()];
-        int size = acc.data.size();
-        int pos = copy(buf, 0, prefix);
-        for (int i = 0; i < size; i++) {
-            if (i > 0) {
+    /**
+     * Copies the elements with delimiters until the rest of the limit is
+     * exhausted, cutting the last copied piece if necessary.
+     */
+    private int copyLimited(char[] buf, int pos, Iterable<CharSequence> data, int rest, boolean first) {
+        for (CharSequence cs : data) {
+            String s = cs.toString();
+            int count = length(s, true);
+            if (!first) {
+                if (cutStrategy == CUT_BEFORE_DELIMITER && delimCount + count > rest) {
+                    break;
+                }
+                if (delimCount > rest) {
+                    pos = copyCut(buf, pos, delimiter, rest, cutStrategy);
+                    break;
+                }
+                rest -= delimCount;
                 pos = copy(buf, pos, delimiter);
             }
-            pos = copy(buf, pos, acc.data.get(i).toString());
+            first = false;
+            if (cutStrategy == CUT_AFTER_DELIMITER && delimCount + count > rest) {
+                break;
+            }
+            if (count > rest) {
+                pos = copyCut(buf, pos, s, rest, cutStrategy);
+                break;
+            }
+            pos = copy(buf, pos, s);
+            rest -= count;
+        }
+        return pos;
+    }
+
+    /**
+     * Returns the rest of the limit after the element of given length (and
+     * the preceding delimiter unless it's the first element) is copied by
+     * {@link #copyLimited(char[], int, Iterable, int, boolean)} completely, or -1
+     * if it would be cut or skipped.
+     */
+    private int restAfter(int rest, int count, boolean first) {
+        if (!first) {
+            if (delimCount > rest || cutStrategy == CUT_BEFORE_DELIMITER && delimCount + count > rest)
+                return -1;
+            rest -= delimCount;
         }
-        copy(buf, pos, suffix);
-        return new String(buf);
+        if (count > rest || cutStrategy == CUT_AFTER_DELIMITER && delimCount + count > rest)
+            return -1;
+        return rest - count;
+    }
+
+    /**
+     * The result when the prefix and the suffix alone exceed the limit.
+     */
+    private String cutWrapping() {
+        char[] buf = new char[prefix.length() + suffix.length()];
+        int pos = copyCut(buf, 0, prefix, maxLength, cutStrategy);
+        pos = copyCut(buf, pos, suffix, maxLength - length(prefix, false), cutStrategy);
+        return new String(buf, 0, pos);
+    }
+
+    private String finisherNoOverflow(Accumulator acc) {
+        return acc.join(delimiter, prefix, suffix);
     }
 
     private Joining withLimit(int lenStrategy, int maxLength) {
@@ -511,6 +691,36 @@ public class Joining extends CancellableCollector<CharSequence, Joining.Accumula
         return withCut(CUT_AFTER_DELIMITER);
     }
 
+    /**
+     * Returns a {@code Collector} which behaves like this collector, but
+     * writes the result into the supplied {@link Appendable} (for example, a
+     * {@link java.io.Writer}) instead of creating a {@code String}. The
+     * collector returns the supplied {@code Appendable}.
+     * 
+     * <p>
+     * When used with {@link StreamEx#collect(Collector)} and other StreamEx
+     * streams, the pieces are written in chunks as they arrive, so the whole
+     * result is never kept in memory. If the length is limited, only the last
+     * few pieces which might be cut are kept until it's known whether the
+     * limit is exceeded. In parallel unlimited mode only the pieces coming
+     * from the splits completed out of encounter order are kept in memory.
+     * Other streams collect the pieces first and write them in the finisher.
+     * 
+     * <p>
+     * An {@link IOException} thrown by the {@code Appendable} is wrapped into
+     * {@link UncheckedIOException}. The resulting collector must not be
+     * reused, as it writes to the same {@code Appendable} every time.
+     * 
+     * @param <A> the type of the {@code Appendable}
+     * @param appendable the {@code Appendable} to write the result to
+     * @return a new {@code Collector} which writes the result into the
+     *         supplied {@code Appendable}.
+     * @since 0.7.4
+     */
+    public <A extends Appendable> Collector<CharSequence, ?, A> to(A appendable) {
+        return new Appending<>(Objects.requireNonNull(appendable));
+    }
+
     @Override
     public Supplier<Accumulator> supplier() {
         return Accumulator::new;
@@ -519,22 +729,15 @@ public class Joining extends CancellableCollector<CharSequence, Joining.Accumula
     @Override
     public BiConsumer<Accumulator, CharSequence> accumulator() {
         if (maxLength == -1)
-            return (acc, str) -> {
-                if (!acc.data.isEmpty())
-                    acc.chars += delimiter.length();
-                acc.chars += str.length();
-                acc.data.add(str);
-            };
+            return Accumulator::add;
         init();
         return (acc, str) -> {
             if (acc.count <= limit) {
-                if (!acc.data.isEmpty()) {
-                    acc.chars += delimiter.length();
+                if (!acc.isEmpty()) {
                     acc.count += delimCount;
                 }
-                acc.chars += str.length();
                 acc.count += length(str, true);
-                acc.data.add(str);
+                acc.add(str);
             }
         };
     }
@@ -543,33 +746,19 @@ public class Joining extends CancellableCollector<CharSequence, Joining.Accumula
     public BinaryOperator<Accumulator> combiner() {
         if (maxLength == -1)
             return (acc1, acc2) -> {
-                if (acc1.data.isEmpty())
-                    return acc2;
-                if (acc2.data.isEmpty())
-                    return acc1;
-                acc1.chars += delimiter.length() + acc2.chars;
-                acc1.data.addAll(acc2.data);
+                acc1.addAll(acc2);
                 return acc1;
             };
         init();
-        BiConsumer<Accumulator, CharSequence> accumulator = accumulator();
         return (acc1, acc2) -> {
-            if (acc1.data.isEmpty())
+            if (acc1.isEmpty())
                 return acc2;
-            if (acc2.data.isEmpty())
+            if (acc2.isEmpty() || acc1.count > limit)
                 return acc1;
-            int len = acc1.count + acc2.count + delimCount;
-            if (len <= limit) {
-                acc1.count = len;
-                acc1.chars += delimiter.length() + acc2.chars;
-                acc1.data.addAll(acc2.data);
-            } else {
-                for (CharSequence s : acc2.data) {
-                    if (acc1.count > limit)
-                        break;
-                    accumulator.accept(acc1, s);
-                }
-            }
+            // the count may exceed the limit further, but only the overflow
+            // matters for the finisher
+            acc1.count += delimCount + acc2.count;
+            acc1.addAll(acc2);
             return acc1;
         };
     }
@@ -581,47 +770,20 @@ public class Joining extends CancellableCollector<CharSequence, Joining.Accumula
         }
         init();
         if (limit <= 0 && lenStrategy != LENGTH_ELEMENTS) {
-            char[] buf = new char[prefix.length() + suffix.length()];
-            int pos = copyCut(buf, 0, prefix, maxLength, cutStrategy);
-            pos = copyCut(buf, pos, suffix, maxLength - length(prefix, false), cutStrategy);
-            String result = new String(buf, 0, pos);
+            String result = cutWrapping();
             return acc -> result;
         }
         return acc -> {
             if (acc.count <= limit)
                 return finisherNoOverflow(acc);
-            char[] buf = new char[acc.chars + prefix.length() + suffix.length()];
-            int size = acc.data.size();
+            char[] buf = new char[acc.length(delimiter) + prefix.length() + ellipsis.length() + suffix.length()];
             int pos = copy(buf, 0, prefix);
             int ellipsisCount = length(ellipsis, false);
             int rest = limit - ellipsisCount;
             if (rest < 0) {
                 pos = copyCut(buf, pos, ellipsis, limit, CUT_ANYWHERE);
             } else {
-                for (int i = 0; i < size; i++) {
-                    String s = acc.data.get(i).toString();
-                    int count = length(s, true);
-                    if (i > 0) {
-                        if (cutStrategy == CUT_BEFORE_DELIMITER && delimCount + count > rest) {
-                            break;
-                        }
-                        if (delimCount > rest) {
-                            pos = copyCut(buf, pos, delimiter, rest, cutStrategy);
-                            break;
-                        }
-                        rest -= delimCount;
-                        pos = copy(buf, pos, delimiter);
-                    }
-                    if (cutStrategy == CUT_AFTER_DELIMITER && delimCount + count > rest) {
-                        break;
-                    }
-                    if (count > rest) {
-                        pos = copyCut(buf, pos, s, rest, cutStrategy);
-                        break;
-                    }
-                    pos = copy(buf, pos, s);
-                    rest -= count;
-                }
+                pos = copyLimited(buf, pos, acc, rest, true);
                 pos = copy(buf, pos, ellipsis);
             }
             pos = copy(buf, pos, suffix);
@@ -646,4 +808,189 @@ public class Joining extends CancellableCollector<CharSequence, Joining.Accumula
             return alwaysTrue();
         return acc -> acc.count > limit;
     }
+
+    /**
+     * Writes the joined pieces to the {@code Appendable} as they arrive,
+     * keeping back only the pieces which might be cut when the limit is
+     * exceeded.
+     */
+    final class Sink implements Consumer<CharSequence> {
+        private static final int CHUNK_SIZE = 1 << 13;
+
+        private final Appendable out;
+        private final StringBuilder chunk = new StringBuilder();
+        private final boolean cut;
+        private List<CharSequence> held;
+        private int heldChars, count, rest;
+        private boolean empty = true, first = true;
+
+        Sink(Appendable out) {
+            this.out = out;
+            if (maxLength == -1) {
+                cut = false;
+            } else {
+                init();
+                cut = limit <= 0 && lenStrategy != LENGTH_ELEMENTS;
+                rest = limit - length(ellipsis, false);
+            }
+            if (!cut) {
+                write(prefix);
+            }
+        }
+
+        boolean finished() {
+            return cut || maxLength != -1 && count > limit;
+        }
+
+        @Override
+        public void accept(CharSequence str) {
+            if (maxLength == -1) {
+                if (!empty)
+                    write(delimiter);
+                empty = false;
+                write(str);
+                return;
+            }
+            if (finished())
+                return;
+            int len = length(str, true);
+            count += empty ? len : delimCount + len;
+            empty = false;
+            if (held == null) {
+                int r = rest < 0 ? -1 : restAfter(rest, len, first);
+                if (r >= 0) {
+                    if (!first)
+                        write(delimiter);
+                    first = false;
+                    write(str);
+                    rest = r;
+                    return;
+                }
+                held = new ArrayList<>();
+            }
+            if (!held.isEmpty() || !first)
+                heldChars += delimiter.length();
+            heldChars += str.length();
+            held.add(str);
+        }
+
+        void finish() {
+            if (cut) {
+                write(cutWrapping());
+                flush();
+                return;
+            }
+            if (held != null) {
+                if (count <= limit) {
+                    for (CharSequence str : held) {
+                        if (!first)
+                            write(delimiter);
+                        first = false;
+                        write(str);
+                    }
+                } else if (rest < 0) {
+                    char[] buf = new char[ellipsis.length()];
+                    write(CharBuffer.wrap(buf, 0, copyCut(buf, 0, ellipsis, limit, CUT_ANYWHERE)));
+                } else {
+                    char[] buf = new char[heldChars];
+                    write(CharBuffer.wrap(buf, 0, copyLimited(buf, 0, held, rest, first)));
+                    write(ellipsis);
+                }
+            }
+            write(suffix);
+            flush();
+        }
+
+        private void write(CharSequence str) {
+            if (str.length() >= CHUNK_SIZE) {
+                flush();
+                append(str);
+            } else {
+                chunk.append(str);
+                if (chunk.length() >= CHUNK_SIZE)
+                    flush();
+            }
+        }
+
+        private void flush() {
+            if (chunk.length() > 0) {
+                append(chunk);
+                chunk.setLength(0);
+            }
+        }
+
+        private void append(CharSequence str) {
+            try {
+                out.append(str);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    final class Appending<A extends Appendable> extends CancellableCollector<CharSequence, Accumulator, A> {
+        private final A appendable;
+
+        Appending(A appendable) {
+            this.appendable = appendable;
+        }
+
+        A drain(AbstractStreamEx<? extends CharSequence, ?> stream) {
+            Sink sink = new Sink(appendable);
+            if (stream.isParallel()) {
+                stream.forEachOrdered(sink);
+            } else if (!sink.finished()) {
+                try {
+                    stream.spliterator().forEachRemaining(str -> {
+                        sink.accept(str);
+                        if (sink.finished())
+                            throw new CancelException();
+                    });
+                } catch (CancelException ex) {
+                    // ignore
+                }
+            }
+            sink.finish();
+            return appendable;
+        }
+
+        @Override
+        public Supplier<Accumulator> supplier() {
+            return Joining.this.supplier();
+        }
+
+        @Override
+        public BiConsumer<Accumulator, CharSequence> accumulator() {
+            return Joining.this.accumulator();
+        }
+
+        @Override
+        public BinaryOperator<Accumulator> combiner() {
+            return Joining.this.combiner();
+        }
+
+        @Override
+        public Function<Accumulator, A> finisher() {
+            return acc -> {
+                Sink sink = new Sink(appendable);
+                for (CharSequence str : acc) {
+                    if (sink.finished())
+                        break;
+                    sink.accept(str);
+                }
+                sink.finish();
+                return appendable;
+            };
+        }
+
+        @Override
+        public Set<Characteristics> characteristics() {
+            return Joining.this.characteristics();
+        }
+
+        @Override
+        Predicate<Accumulator> finished() {
+            return Joining.this.finished();
+        }
+    }
 }
@@ -15,7 +15,13 @@
  */
 package one.util.streamex;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.nio.Buffer;
+import java.nio.ByteOrder;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.time.Duration;
 import java.util.AbstractMap;
 import java.util.Arrays;
 import java.util.Collection;
@@ -30,6 +36,9 @@ import java.util.PrimitiveIterator.OfLong;
 import java.util.Random;
 import java.util.Spliterator;
 import java.util.Spliterators;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 import java.util.concurrent.ForkJoinPool;
 import java.util.function.BiConsumer;
 import java.util.function.Function;
@@ -57,6 +66,7 @@ import static one.util.streamex.Internals.LongBuffer;
 import static one.util.streamex.Internals.ObjLongBox;
 import static one.util.streamex.Internals.PrimitiveBox;
 import static one.util.streamex.Internals.checkLength;
+import static one.util.streamex.Internals.checkNonNegative;
 import static one.util.streamex.Internals.intSize;
 
 /**
@@ -76,7 +86,16 @@ public class LongStreamEx extends BaseStreamEx<Long, LongStream, Spliterator.OfL
 
     @Override
     LongStream createStream() {
-        return StreamSupport.longStream(spliterator, isParallel());
+        if (!context.parallel || context.isSmall(spliterator))
+            return StreamSupport.longStream(spliterator, false);
+        if (context.splitPolicy != null)
+            return StreamSupport.longStream(PolicySpliterator.wrap(spliterator, context.splitPolicy), true);
+        return StreamSupport.longStream(spliterator, true);
+    }
+
+    @Override
+    LongStream leafStream(Spliterator.OfLong spliterator) {
+        return StreamSupport.longStream(spliterator, false);
     }
 
     private static LongStreamEx seq(LongStream stream) {
@@ -299,6 +318,73 @@ public class LongStreamEx extends BaseStreamEx<Long, LongStream, Spliterator.OfL
         return new StreamEx<>(stream().mapToObj(mapper), context);
     }
 
+    /**
+     * Returns a {@link StreamEx} consisting of the results of applying the
+     * given function to the elements of this stream, reusing the results for
+     * the equal elements while they are in the cache of limited size.
+     *
+     * <p>
+     * This is an <a href="package-summary.html#StreamOps">intermediate
+     * operation</a>. The cache stores the primitive keys without boxing and
+     * evicts the entries by the CLOCK policy approximating the least recently
+     * used order. For parallel stream every split has its own cache, so the
+     * function may be called several times for the same element.
+     *
+     * @param <U> The element type of the new stream
+     * @param mapper a non-interfering, stateless function to apply to each
+     *        distinct element
+     * @param maxEntries the maximal number of the cached results per split,
+     *        must be positive
+     * @return the new stream
+     * @throws IllegalArgumentException if {@code maxEntries} is not positive
+     * @see StreamEx#mapCached(Function, int)
+     * @since 0.7.4
+     */
+    public <U> StreamEx<U> mapToObjCached(LongFunction<? extends U> mapper, int maxEntries) {
+        return cached(mapper, maxEntries, false, null);
+    }
+
+    /**
+     * Returns a {@link StreamEx} consisting of the results of applying the
+     * given function to the elements of this stream, reusing the results for
+     * the equal elements while they are in the cache of limited size, and
+     * counts the cache hits and misses.
+     *
+     * <p>
+     * This is an <a href="package-summary.html#StreamOps">intermediate
+     * operation</a>. If the cache is not shared, every split of the parallel
+     * stream has its own cache. The shared cache is used by all the splits:
+     * it consists of several independently synchronized stripes, each holding
+     * the part of {@code maxEntries} entries.
+     *
+     * @param <U> The element type of the new stream
+     * @param mapper a non-interfering, stateless function to apply to each
+     *        distinct element
+     * @param maxEntries the maximal number of the cached results (per split
+     *        unless the cache is shared), must be positive
+     * @param shared whether all the splits of the parallel stream share the
+     *        same cache
+     * @param statistics the counters to update, may be read after the terminal
+     *        operation is complete
+     * @return the new stream
+     * @throws IllegalArgumentException if {@code maxEntries} is not positive
+     * @see StreamEx#mapCached(Function, int, boolean, CacheStatistics)
+     * @since 0.7.4
+     */
+    public <U> StreamEx<U> mapToObjCached(LongFunction<? extends U> mapper, int maxEntries, boolean shared,
+            CacheStatistics statistics) {
+        return cached(mapper, maxEntries, shared, Objects.requireNonNull(statistics));
+    }
+
+    private <U> StreamEx<U> cached(LongFunction<? extends U> mapper, int maxEntries, boolean shared,
+            CacheStatistics statistics) {
+        Objects.requireNonNull(mapper);
+        if (maxEntries <= 0)
+            throw new IllegalArgumentException("maxEntries must be positive: " + maxEntries);
+        return new StreamEx<>(new CacheMapSpliterator.OfLong<>(spliterator(), mapper, CacheMapSpliterator
+                .longKeyCache(maxEntries, shared), statistics), context);
+    }
+
     @Override
     public IntStreamEx mapToInt(LongToIntFunction mapper) {
         return new IntStreamEx(stream().mapToInt(mapper), context);
@@ -643,55 +729,200 @@ public class LongStreamEx extends BaseStreamEx<Long, LongStream, Spliterator.OfL
 
     @Override
     public void forEach(LongConsumer action) {
-        if (spliterator != null && !isParallel()) {
-            spliterator().forEachRemaining(action);
+        if (spliterator != null && runsSequentially()) {
+            traverse(s -> s.forEachRemaining(action));
         } else {
-            if (context.fjp != null)
-                context.terminate(() -> {
-                    stream().forEach(action);
-                    return null;
-                });
-            else {
-                stream().forEach(action);
-            }
+            terminate(s -> {
+                s.forEach(action);
+                return null;
+            }, (a, b) -> null);
         }
     }
 
     @Override
     public void forEachOrdered(LongConsumer action) {
-        if (spliterator != null && !isParallel()) {
-            spliterator().forEachRemaining(action);
+        if (spliterator != null && runsSequentially()) {
+            traverse(s -> s.forEachRemaining(action));
         } else {
-            if (context.fjp != null)
-                context.terminate(() -> {
-                    stream().forEachOrdered(action);
-                    return null;
+            if (context.executor != null && !runsSequentially()) {
+                ExecutorDriver.forEachOrdered(context, spliterator(), (spltr, head) -> {
+                    LongBuffer buf = new LongBuffer();
+                    LongConsumer add = buf::add;
+                    while (!head.getAsBoolean()) {
+                        if (!spltr.tryAdvance(add))
+                            return () -> buf.forEach(action);
+                    }
+                    return () -> {
+                        buf.forEach(action);
+                        spltr.forEachRemaining(action);
+                    };
                 });
-            else {
-                stream().forEachOrdered(action);
+            } else {
+                terminate(s -> {
+                    s.forEachOrdered(action);
+                    return null;
+                }, null);
             }
         }
     }
 
     @Override
     public long[] toArray() {
-        if (context.fjp != null)
-            return context.terminate(stream()::toArray);
-        return stream().toArray();
+        return terminate(LongStream::toArray, Internals::concat);
+    }
+
+    /**
+     * Writes the elements of this stream to the supplied
+     * {@link WritableByteChannel} as 8-byte values in the specified byte order.
+     *
+     * <p>
+     * The elements are encoded into a single direct buffer of given size which
+     * is written to the channel every time it becomes full, so no intermediate
+     * array of the stream size is created. The elements are written in the
+     * encounter order, even if the stream is parallel: in this case only the
+     * results of the splits which are completed out of order are buffered.
+     *
+     * <p>
+     * If the channel throws an {@link IOException}, it will be rethrown as
+     * {@link UncheckedIOException}. The channel is not closed by this method.
+     *
+     * <p>
+     * This is a terminal operation.
+     *
+     * @param channel the channel to write to
+     * @param order the byte order to encode the numbers with
+     * @param bufferSize the size of the intermediate buffer in bytes, must be
+     *        at least {@link Long#BYTES}.
+     * @throws IllegalArgumentException if bufferSize is less than
+     *         {@code Long.BYTES}
+     * @see #ofLongs(ReadableByteChannel, ByteOrder)
+     * @since 0.7.4
+     */
+    public void writeTo(WritableByteChannel channel, ByteOrder order, int bufferSize) {
+        ChannelSink sink = new ChannelSink(channel, order, bufferSize, Long.BYTES);
+        forEachOrdered(sink);
+        sink.flush();
+    }
+
+    /**
+     * Puts the elements of this stream into the supplied
+     * {@link java.nio.LongBuffer} starting from its current position in the
+     * encounter order.
+     *
+     * <p>
+     * This is a terminal operation.
+     *
+     * @param buf the buffer to put the elements into
+     * @return the supplied buffer. Its position is advanced by the number of
+     *         the stream elements.
+     * @throws java.nio.BufferOverflowException if there's insufficient space in
+     *         the buffer
+     * @throws java.nio.ReadOnlyBufferException if the buffer is read-only
+     * @see #of(java.nio.LongBuffer)
+     * @since 0.7.4
+     */
+    public java.nio.LongBuffer into(java.nio.LongBuffer buf) {
+        forEachOrdered(buf::put);
+        return buf;
     }
 
     @Override
     public long reduce(long identity, LongBinaryOperator op) {
-        if (context.fjp != null)
-            return context.terminate(() -> stream().reduce(identity, op));
-        return stream().reduce(identity, op);
+        return terminate(s -> s.reduce(identity, op), op::applyAsLong);
     }
 
     @Override
     public OptionalLong reduce(LongBinaryOperator op) {
-        if (context.fjp != null)
-            return context.terminate(op, stream()::reduce);
-        return stream().reduce(op);
+        return terminate(s -> s.reduce(op), (a, b) -> a.isPresent() ? b.isPresent() ? OptionalLong.of(op.applyAsLong(a
+                .getAsLong(), b.getAsLong())) : a : b);
+    }
+
+    /**
+     * Performs a reduction on the elements of this stream asynchronously,
+     * using the provided identity value and an associative accumulation
+     * function.
+     *
+     * <p>
+     * This is an asynchronous <a
+     * href="package-summary.html#StreamOps">terminal</a> operation: it returns
+     * immediately and the operation is performed in the executor or the
+     * {@link ForkJoinPool} this stream is bound to (see
+     * {@link #parallel(Executor)} and {@link #parallel(ForkJoinPool)}) or in
+     * the default asynchronous pool of {@link CompletableFuture}. If the
+     * returned future is completed before the operation finishes (for
+     * example, cancelled), the operation stops traversing the stream source as
+     * soon as possible and its result is discarded.
+     *
+     * @param identity the identity value for the accumulating function
+     * @param op an associative, non-interfering, stateless function for
+     *        combining two values
+     * @return the future result of the reduction
+     * @see #reduce(long, LongBinaryOperator)
+     * @since 0.7.4
+     */
+    public CompletableFuture<Long> reduceAsync(long identity, LongBinaryOperator op) {
+        return terminateAsync(s -> s.reduce(identity, op), op::applyAsLong, Function.identity());
+    }
+
+    /**
+     * Performs a reduction on the elements of this stream asynchronously,
+     * using an associative accumulation function.
+     *
+     * <p>
+     * This is an asynchronous <a
+     * href="package-summary.html#StreamOps">terminal</a> operation which is
+     * performed like {@link #reduceAsync(long, LongBinaryOperator)}.
+     *
+     * @param op an associative, non-interfering, stateless function for
+     *        combining two values
+     * @return the future {@link OptionalLong} describing the result of the
+     *         reduction or an empty {@code OptionalLong} if the stream is empty
+     * @see #reduce(LongBinaryOperator)
+     * @since 0.7.4
+     */
+    public CompletableFuture<OptionalLong> reduceAsync(LongBinaryOperator op) {
+        return terminateAsync(s -> s.reduce(op), (a, b) -> a.isPresent() ? b.isPresent() ? OptionalLong.of(op
+                .applyAsLong(a.getAsLong(), b.getAsLong())) : a : b, Function.identity());
+    }
+
+    /**
+     * Returns a {@link CompletableFuture} which is completed with the array
+     * containing the elements of this stream.
+     *
+     * <p>
+     * This is an asynchronous <a
+     * href="package-summary.html#StreamOps">terminal</a> operation which is
+     * performed like {@link #reduceAsync(long, LongBinaryOperator)}.
+     *
+     * @return the future array of the stream elements
+     * @see #toArray()
+     * @since 0.7.4
+     */
+    public CompletableFuture<long[]> toArrayAsync() {
+        return terminateAsync(LongStream::toArray, Internals::concat, Function.identity());
+    }
+
+    /**
+     * Performs an action for each element of this stream asynchronously.
+     *
+     * <p>
+     * This is an asynchronous <a
+     * href="package-summary.html#StreamOps">terminal</a> operation which is
+     * performed like {@link #reduceAsync(long, LongBinaryOperator)}. The
+     * action is performed like in {@link #forEach(LongConsumer)}: for
+     * parallel stream the order is not respected.
+     *
+     * @param action a non-interfering action to perform on the elements
+     * @return the future which is completed when the action is performed for
+     *         all the elements
+     * @see #forEach(LongConsumer)
+     * @since 0.7.4
+     */
+    public CompletableFuture<Void> forEachAsync(LongConsumer action) {
+        return terminateAsync(s -> {
+            s.forEach(action);
+            return null;
+        }, (a, b) -> null, Function.identity());
     }
 
     /**
@@ -864,9 +1095,10 @@ public class LongStreamEx extends BaseStreamEx<Long, LongStream, Spliterator.OfL
      */
     @Override
     public <R> R collect(Supplier<R> supplier, ObjLongConsumer<R> accumulator, BiConsumer<R, R> combiner) {
-        if (context.fjp != null)
-            return context.terminate(() -> stream().collect(supplier, accumulator, combiner));
-        return stream().collect(supplier, accumulator, combiner);
+        return terminate(s -> s.collect(supplier, accumulator, combiner), (a, b) -> {
+            combiner.accept(a, b);
+            return a;
+        });
     }
 
     /**
@@ -1162,16 +1394,16 @@ public class LongStreamEx extends BaseStreamEx<Long, LongStream, Spliterator.OfL
 
     @Override
     public long count() {
-        if (context.fjp != null)
-            return context.terminate(stream()::count);
-        return stream().count();
+        return terminate(LongStream::count, Long::sum);
     }
 
     @Override
     public OptionalDouble average() {
-        if (context.fjp != null)
-            return context.terminate(stream()::average);
-        return stream().average();
+        if (context.executor != null) {
+            LongSummaryStatistics stats = summaryStatistics();
+            return stats.getCount() == 0 ? OptionalDouble.empty() : OptionalDouble.of(stats.getAverage());
+        }
+        return terminate(LongStream::average, null);
     }
 
     @Override
@@ -1181,16 +1413,12 @@ public class LongStreamEx extends BaseStreamEx<Long, LongStream, Spliterator.OfL
 
     @Override
     public boolean anyMatch(LongPredicate predicate) {
-        if (context.fjp != null)
-            return context.terminate(predicate, stream()::anyMatch);
-        return stream().anyMatch(predicate);
+        return terminate(s -> s.anyMatch(predicate), Boolean::logicalOr, Boolean::booleanValue, false);
     }
 
     @Override
     public boolean allMatch(LongPredicate predicate) {
-        if (context.fjp != null)
-            return context.terminate(predicate, stream()::allMatch);
-        return stream().allMatch(predicate);
+        return terminate(s -> s.allMatch(predicate), Boolean::logicalAnd, match -> !match, false);
     }
 
     @Override
@@ -1200,9 +1428,7 @@ public class LongStreamEx extends BaseStreamEx<Long, LongStream, Spliterator.OfL
 
     @Override
     public OptionalLong findFirst() {
-        if (context.fjp != null)
-            return context.terminate(stream()::findFirst);
-        return stream().findFirst();
+        return terminate(LongStream::findFirst, (a, b) -> a.isPresent() ? a : b, OptionalLong::isPresent, true);
     }
 
     /**
@@ -1228,9 +1454,7 @@ public class LongStreamEx extends BaseStreamEx<Long, LongStream, Spliterator.OfL
 
     @Override
     public OptionalLong findAny() {
-        if (context.fjp != null)
-            return context.terminate(stream()::findAny);
-        return stream().findAny();
+        return terminate(LongStream::findAny, (a, b) -> a.isPresent() ? a : b, OptionalLong::isPresent, false);
     }
 
     /**
@@ -1313,6 +1537,69 @@ public class LongStreamEx extends BaseStreamEx<Long, LongStream, Spliterator.OfL
         return new StreamEx<>(stream().boxed(), context);
     }
 
+    /**
+     * Returns a stream consisting of arrays of consecutive elements of this
+     * stream having the specified length (the last array may be shorter).
+     *
+     * <p>
+     * This is a <a href="package-summary.html#StreamOps">quasi-intermediate</a>
+     * operation.
+     *
+     * <p>
+     * If the stream is {@code SIZED} and {@code SUBSIZED}, every array is
+     * created with its exact length and the parallel stream is split only at
+     * the array boundaries, so it produces the same arrays without additional
+     * merging. Otherwise the parallel stream collects the batches of arrays
+     * sequentially and processes them in parallel.
+     *
+     * @param size the length of every array except the last one, must be
+     *        positive
+     * @return the new stream
+     * @throws IllegalArgumentException if size is zero or negative
+     * @see StreamEx#chunked(int)
+     * @since 0.7.4
+     */
+    public StreamEx<long[]> chunked(int size) {
+        if (size <= 0)
+            throw new IllegalArgumentException("size must be positive: " + size);
+        return new StreamEx<>(new ChunkSpliterator.OfLong(spliterator(), null, size), context);
+    }
+
+    /**
+     * Returns a supplier of the new streams which replay the elements of this
+     * stream.
+     *
+     * <p>
+     * This is a <a href="package-summary.html#StreamOps">terminal</a>
+     * operation, though the elements are not read immediately: this stream is
+     * traversed once, when any of the supplied streams is traversed for the
+     * first time. The elements are stored in the fixed-size segments, so no
+     * element is copied after it's read, and every supplied stream reads the
+     * same storage. Once all the elements are stored, this stream is closed.
+     *
+     * <p>
+     * The supplied streams are {@code SIZED} and {@code SUBSIZED} and split
+     * evenly, so they may be efficiently processed in parallel. They are
+     * parallel if this stream is parallel and keep its parallel settings like
+     * the custom {@link java.util.concurrent.ForkJoinPool}, but not its close
+     * handlers. The supplier is thread-safe: the supplied streams may be
+     * traversed concurrently, this stream is traversed only once.
+     *
+     * <p>
+     * If the traversal of this stream fails, the exception is thrown from the
+     * supplied stream, this stream is closed and every supplied stream throws
+     * {@link IllegalStateException} caused by that exception afterwards.
+     *
+     * @return the supplier of the new streams over the elements of this stream
+     * @throws IllegalStateException from the supplied stream if this stream has
+     *         more than {@code Integer.MAX_VALUE} elements
+     * @see StreamEx#cache()
+     * @since 0.7.4
+     */
+    public Supplier<LongStreamEx> cache() {
+        return new CachedSource.OfLong(spliterator(), context);
+    }
+
     @Override
     public LongStreamEx sequential() {
         return (LongStreamEx) super.sequential();
@@ -1328,6 +1615,31 @@ public class LongStreamEx extends BaseStreamEx<Long, LongStream, Spliterator.OfL
         return (LongStreamEx) super.parallel(fjp);
     }
 
+    @Override
+    public LongStreamEx parallel(ForkJoinPool fjp, SplitPolicy splitPolicy) {
+        return (LongStreamEx) super.parallel(fjp, splitPolicy);
+    }
+
+    @Override
+    public LongStreamEx parallel(Executor executor) {
+        return (LongStreamEx) super.parallel(executor);
+    }
+
+    @Override
+    public LongStreamEx sequentialThreshold(long threshold) {
+        return (LongStreamEx) super.sequentialThreshold(threshold);
+    }
+
+    @Override
+    public LongStreamEx instrument(StageStatistics statistics) {
+        return (LongStreamEx) super.instrument(statistics);
+    }
+
+    @Override
+    public LongStreamEx checkpoint(String name) {
+        return (LongStreamEx) super.checkpoint(name);
+    }
+
     @Override
     public OfLong iterator() {
         return Spliterators.iterator(spliterator());
@@ -1457,6 +1769,70 @@ public class LongStreamEx extends BaseStreamEx<Long, LongStream, Spliterator.OfL
         return collect(LongCollector.joining(delimiter, prefix, suffix));
     }
 
+    /**
+     * Returns a stream consisting of the elements of this stream which are
+     * produced before the specified timeout elapses.
+     *
+     * <p>
+     * This is a short-circuiting <a
+     * href="package-summary.html#StreamOps">intermediate operation</a>. The
+     * timeout is counted from the moment the terminal operation starts
+     * traversing or splitting the stream, not from this method call. When it
+     * elapses, every part of the (possibly parallel) stream stops at its next
+     * element, so the terminal operation completes with the result for the
+     * elements processed so far. This is useful when the partial result is
+     * better than no result at all. The short-circuiting terminal operations
+     * like {@code findAny()} or {@code anyMatch()} stop as well.
+     *
+     * <p>
+     * Note that the element being processed when the timeout elapses is
+     * processed to the end: the operation doesn't interrupt the threads. Also
+     * note that the result doesn't tell whether it's complete: use
+     * {@link #withDeadline(Duration, Runnable)} to find it out.
+     *
+     * @param timeout the maximal time to produce the elements, must be
+     *        positive
+     * @return the new stream
+     * @throws IllegalArgumentException if the timeout is zero or negative
+     * @see #withDeadline(Duration, Runnable)
+     * @since 0.7.4
+     */
+    public LongStreamEx withDeadline(Duration timeout) {
+        return withDeadline(timeout, null);
+    }
+
+    /**
+     * Returns a stream consisting of the elements of this stream which are
+     * produced before the specified timeout elapses, and runs the supplied
+     * action if some elements are dropped because of the timeout.
+     *
+     * <p>
+     * This is a short-circuiting <a
+     * href="package-summary.html#StreamOps">intermediate operation</a> which
+     * behaves like {@link #withDeadline(Duration)}. The {@code onExpired}
+     * action is run at most once, in the thread which first encounters the
+     * element after the timeout. If it's not run by the end of the terminal
+     * operation, the result of the terminal operation is complete. For
+     * example:
+     *
+     * <pre>{@code
+     * AtomicBoolean partial = new AtomicBoolean();
+     * List<Result> results = LongStreamEx.of(ids).withDeadline(Duration.ofMillis(100), () -> partial.set(true))
+     *         .map(this::compute).toList();
+     * }</pre>
+     *
+     * @param timeout the maximal time to produce the elements, must be
+     *        positive
+     * @param onExpired the action to run when the first element is dropped
+     *        because of the timeout, or null if no action is necessary
+     * @return the new stream
+     * @throws IllegalArgumentException if the timeout is zero or negative
+     * @since 0.7.4
+     */
+    public LongStreamEx withDeadline(Duration timeout, Runnable onExpired) {
+        return delegate(DeadlineSpliterator.wrap(spliterator(), timeout, onExpired));
+    }
+
     /**
      * Returns a stream consisting of all elements from this stream until the
      * first element which does not match the given predicate is found.
@@ -1635,6 +2011,40 @@ public class LongStreamEx extends BaseStreamEx<Long, LongStream, Spliterator.OfL
         return seq(Arrays.stream(array).mapToLong(Long::longValue));
     }
 
+    /**
+     * Returns a sequential ordered {@code LongStreamEx} of the {@code long}
+     * values decoded from the given {@link ReadableByteChannel}. Every eight
+     * bytes of the channel are decoded as a single value using the specified
+     * byte order.
+     *
+     * <p>
+     * The channel is read lazily in chunks through a single reusable buffer,
+     * so its content is never stored in memory completely. The channel must
+     * be in blocking mode. When the stream is parallel, the input is split
+     * into batches of increasing size.
+     *
+     * <p>
+     * If the underlying channel throws an {@link IOException} during the
+     * stream traversal, it will be rethrown as {@link UncheckedIOException}.
+     * The channel content length must be divisible by eight, otherwise an
+     * {@code UncheckedIOException} wrapping an {@link java.io.EOFException}
+     * is thrown when the incomplete value is reached.
+     *
+     * <p>
+     * When the returned {@code LongStreamEx} is closed the channel is closed as
+     * well. If the channel {@code close()} method throws an
+     * {@code IOException}, it will be rethrown as {@link UncheckedIOException}.
+     *
+     * @param channel a channel to create an {@code LongStreamEx} on.
+     * @param order the byte order to decode the values with
+     * @return the new stream
+     * @see #writeTo(WritableByteChannel, ByteOrder, int)
+     * @since 0.7.4
+     */
+    public static LongStreamEx ofLongs(ReadableByteChannel channel, ByteOrder order) {
+        return of(new ChannelSpliterator.OfLong(channel, order)).onClose(ChannelSpliterator.closer(channel));
+    }
+
     /**
      * Returns a sequential ordered {@code LongStreamEx} whose elements are the
      * values in the supplied {@link java.nio.LongBuffer}.
@@ -1707,6 +2117,102 @@ public class LongStreamEx extends BaseStreamEx<Long, LongStream, Spliterator.OfL
         return of(new UnknownSizeSpliterator.USOfLong(iterator));
     }
 
+    /**
+     * Returns a sequential, ordered, sized {@link LongStreamEx} created from given
+     * {@link java.util.PrimitiveIterator.OfLong} which is known to produce exactly {@code size}
+     * elements.
+     *
+     * <p>
+     * Unlike {@link #of(PrimitiveIterator.OfLong)} the resulting stream reports its size,
+     * so operations like {@code toArray()} or {@code count()} may work faster
+     * and the parallel stream is split evenly.
+     *
+     * <p>
+     * The behavior is undefined if the iterator produces a different number
+     * of elements.
+     * @param iterator an iterator to create the stream from.
+     * @param size the exact number of elements the iterator produces
+     * @return the new stream
+     * @throws IllegalArgumentException if size is negative
+     * @see #of(PrimitiveIterator.OfLong)
+     * @since 0.7.4
+     */
+    public static LongStreamEx ofSized(PrimitiveIterator.OfLong iterator, long size) {
+        checkNonNegative("size", size);
+        return of(Spliterators.spliterator(iterator, size, Spliterator.ORDERED));
+    }
+
+    /**
+     * Returns a sequential, ordered {@link LongStreamEx} created from given
+     * {@link java.util.PrimitiveIterator.OfLong} which adapts the size of the parallel batches to the
+     * cost of the stream pipeline.
+     *
+     * <p>
+     * Like {@link #of(PrimitiveIterator.OfLong)} the parallel stream copies the
+     * iterator elements into the batches which are processed by separate
+     * tasks. Instead of growing the batches by a fixed amount, this source
+     * measures the processing time per element of the completed batches and
+     * sizes the following batches so that every batch takes about
+     * {@code batchTime} to process. This works better when the per-element
+     * cost is high or varies a lot from pipeline to pipeline. For sequential
+     * streams it makes no difference.
+     *
+     * @param iterator an iterator to create the stream from.
+     * @param batchTime the desired processing time of a single batch, must be
+     *        positive
+     * @return the new stream
+     * @throws IllegalArgumentException if batchTime is zero or negative
+     * @see #of(PrimitiveIterator.OfLong)
+     * @since 0.7.4
+     */
+    public static LongStreamEx ofAdaptive(PrimitiveIterator.OfLong iterator, Duration batchTime) {
+        return of(new UnknownSizeSpliterator.USOfLong(iterator, UnknownSizeSpliterator.BatchCost.of(batchTime)));
+    }
+
+    /**
+     * Returns a sequential, ordered {@link LongStreamEx} which takes the elements
+     * from given {@link BlockingQueue} until the element matching the
+     * {@code isEnd} predicate is taken. The stream waits for the new elements
+     * as long as necessary.
+     *
+     * <p>
+     * See {@link StreamEx#ofQueue(BlockingQueue, Predicate)} for details.
+     *
+     * @param queue the queue to take the elements from
+     * @param isEnd a predicate which returns true for the end-of-stream
+     *        marker
+     * @return the new stream
+     * @see StreamEx#ofQueue(BlockingQueue, Predicate)
+     * @since 0.7.4
+     */
+    public static LongStreamEx ofQueue(BlockingQueue<Long> queue, LongPredicate isEnd) {
+        return StreamEx.ofQueue(queue, isEnd::test).mapToLong(Long::longValue);
+    }
+
+    /**
+     * Returns a sequential, ordered {@link LongStreamEx} which takes the elements
+     * from given {@link BlockingQueue} until the element matching the
+     * {@code isEnd} predicate is taken or no element arrives within the
+     * {@code idleTimeout}.
+     *
+     * <p>
+     * See {@link StreamEx#ofQueue(BlockingQueue, Predicate, Duration)} for
+     * details.
+     *
+     * @param queue the queue to take the elements from
+     * @param isEnd a predicate which returns true for the end-of-stream
+     *        marker
+     * @param idleTimeout the maximal time to wait for the next element, zero
+     *        to end the stream as soon as the queue is empty
+     * @return the new stream
+     * @throws IllegalArgumentException if idleTimeout is negative
+     * @see StreamEx#ofQueue(BlockingQueue, Predicate, Duration)
+     * @since 0.7.4
+     */
+    public static LongStreamEx ofQueue(BlockingQueue<Long> queue, LongPredicate isEnd, Duration idleTimeout) {
+        return StreamEx.ofQueue(queue, isEnd::test, idleTimeout).mapToLong(Long::longValue);
+    }
+
     /**
      * Returns a sequential {@code LongStreamEx} containing an
      * {@link OptionalLong} value, if present, otherwise returns an empty
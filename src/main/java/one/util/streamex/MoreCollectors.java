@@ -17,6 +17,7 @@ package one.util.streamex;
 
 import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
@@ -431,6 +432,114 @@ public final class MoreCollectors {
         return Collector.of(supplier, accumulator, combiner, resFinisher, c.toArray(new Characteristics[0]));
     }
 
+    /**
+     * Returns a {@code Collector} which passes every input element to all the
+     * supplied collectors in a single pass and collects their results into the
+     * {@code List} in the order of the collectors.
+     *
+     * <p>
+     * This is the n-way version of
+     * {@link #pairing(Collector, Collector, BiFunction)}. This method returns a
+     * <a href="package-summary.html#ShortCircuitReduction">short-circuiting
+     * collector</a> if all the downstream collectors are short-circuiting. The
+     * collection might stop when all the downstream collectors report that the
+     * collection is complete.
+     *
+     * @param <T> the type of the input elements
+     * @param <R> the common supertype of the downstream results
+     * @param collectors the downstream collectors
+     * @return a {@code Collector} which collects the results of the supplied
+     *         collectors into the {@code List}.
+     * @throws NullPointerException if collectors is null or contains null.
+     * @see #teeing(Collector...)
+     * @since 0.7.4
+     */
+    @SuppressWarnings("unchecked")
+    public static <T, R> Collector<T, ?, List<R>> combining(
+            List<? extends Collector<? super T, ?, ? extends R>> collectors) {
+        Collector<T, Object, R>[] downstream = collectors.toArray(new Collector[0]);
+        int n = downstream.length;
+        EnumSet<Characteristics> c = EnumSet.of(Characteristics.CONCURRENT, Characteristics.UNORDERED);
+        Supplier<Object>[] suppliers = new Supplier[n];
+        BiConsumer<Object, T>[] accumulators = new BiConsumer[n];
+        BinaryOperator<Object>[] combiners = new BinaryOperator[n];
+        Function<Object, R>[] finishers = new Function[n];
+        Predicate<Object>[] finished = new Predicate[n];
+        boolean cancellable = true;
+        for (int i = 0; i < n; i++) {
+            c.retainAll(downstream[i].characteristics());
+            suppliers[i] = downstream[i].supplier();
+            accumulators[i] = downstream[i].accumulator();
+            combiners[i] = downstream[i].combiner();
+            finishers[i] = downstream[i].finisher();
+            finished[i] = finished(downstream[i]);
+            cancellable &= finished[i] != null;
+        }
+
+        Supplier<Object[]> supplier = () -> {
+            Object[] acc = new Object[n];
+            for (int i = 0; i < n; i++) {
+                acc[i] = suppliers[i].get();
+            }
+            return acc;
+        };
+        BiConsumer<Object[], T> accumulator = (acc, t) -> {
+            for (int i = 0; i < n; i++) {
+                accumulators[i].accept(acc[i], t);
+            }
+        };
+        BinaryOperator<Object[]> combiner = (acc1, acc2) -> {
+            for (int i = 0; i < n; i++) {
+                acc1[i] = combiners[i].apply(acc1[i], acc2[i]);
+            }
+            return acc1;
+        };
+        Function<Object[], List<R>> resFinisher = acc -> {
+            List<R> result = new ArrayList<>(n);
+            for (int i = 0; i < n; i++) {
+                result.add(finishers[i].apply(acc[i]));
+            }
+            return result;
+        };
+        if (cancellable) {
+            Predicate<Object[]> allFinished = acc -> {
+                for (int i = 0; i < n; i++) {
+                    if (!finished[i].test(acc[i]))
+                        return false;
+                }
+                return true;
+            };
+            return new CancellableCollectorImpl<>(supplier, accumulator, combiner, resFinisher, allFinished, c);
+        }
+        return Collector.of(supplier, accumulator, combiner, resFinisher, c.toArray(new Characteristics[0]));
+    }
+
+    /**
+     * Returns a {@code Collector} which passes every input element to all the
+     * supplied collectors in a single pass and collects their results into the
+     * {@code List} in the order of the collectors.
+     *
+     * <p>
+     * This method returns a
+     * <a href="package-summary.html#ShortCircuitReduction">short-circuiting
+     * collector</a> if all the downstream collectors are short-circuiting. The
+     * collection might stop when all the downstream collectors report that the
+     * collection is complete.
+     *
+     * @param <T> the type of the input elements
+     * @param <R> the common supertype of the downstream results
+     * @param collectors the downstream collectors
+     * @return a {@code Collector} which collects the results of the supplied
+     *         collectors into the {@code List}.
+     * @throws NullPointerException if collectors is null or contains null.
+     * @see #combining(List)
+     * @since 0.7.4
+     */
+    @SafeVarargs
+    public static <T, R> Collector<T, ?, List<R>> teeing(Collector<? super T, ?, ? extends R>... collectors) {
+        return MoreCollectors.<T, R> combining(Arrays.asList(collectors));
+    }
+
     /**
      * Returns a {@code Collector} which finds the minimal and maximal element
      * according to the supplied comparator, then applies finisher function to
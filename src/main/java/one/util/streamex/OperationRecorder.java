@@ -0,0 +1,88 @@
+/*
+ * Copyright 2015, 2020 StreamEx contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package one.util.streamex;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Receives the notifications about the terminal operation of the stream: the
+ * source splits, the short-circuit cancellations and the completion. The
+ * recorder is created by {@link VersionSpecific#startOperation(BaseStreamEx, boolean)}
+ * only when something is actually recorded, otherwise the terminal operation
+ * runs as usual.
+ *
+ * @author Tagir Valeev
+ */
+/* package */abstract class OperationRecorder {
+    private final LongAdder elements = new LongAdder();
+    private volatile boolean splitCancelled;
+
+    void addElements(long count) {
+        elements.add(count);
+    }
+
+    /**
+     * Returns the number of the elements passed to the terminal operation so far.
+     */
+    long getElementCount() {
+        return elements.sum();
+    }
+
+    /**
+     * Called when the split of the source is split again.
+     *
+     * @param path the path of the split in the split tree (see
+     *        {@link StageStatistics.Split#getPath()})
+     * @param prefixSize the estimated size of the new prefix
+     * @param suffixSize the estimated size of the rest of the split
+     */
+    abstract void split(String path, long prefixSize, long suffixSize);
+
+    /**
+     * Records the cancellation of the split which is stopped by the
+     * short-circuiting terminal operation.
+     */
+    final void splitCancelled(String path, long elements) {
+        splitCancelled = true;
+        cancelled(path, elements);
+    }
+
+    /**
+     * Records the cancellation of the whole operation whose result is known
+     * before the source is exhausted, unless the cancellation of some split
+     * is already recorded.
+     */
+    final void operationCancelled() {
+        if (!splitCancelled)
+            cancelled("", getElementCount());
+    }
+
+    /**
+     * Called when the traversal is stopped before the source is exhausted as
+     * the result is already known.
+     *
+     * @param path the path of the stopped split, or the empty string if the
+     *        whole operation is stopped
+     * @param elements the number of the elements passed by the split
+     */
+    abstract void cancelled(String path, long elements);
+
+    /**
+     * Called once when the terminal operation is complete either normally or
+     * exceptionally.
+     */
+    abstract void finish();
+}
@@ -0,0 +1,47 @@
+/*
+ * Copyright 2015, 2020 StreamEx contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package one.util.streamex;
+
+import java.util.Spliterator;
+
+/**
+ * The hooks of the spliterator which delegates to the source and refuses to
+ * split when the {@link SplitPolicy} doesn't allow it. The traversal is not
+ * tracked, so it's passed straight to the source.
+ *
+ * @author Tagir Valeev
+ */
+/* package */final class PolicySpliterator extends DelegatingSpliterator.Hooks {
+    private final SplitPolicy policy;
+
+    private PolicySpliterator(SplitPolicy policy) {
+        this.policy = policy;
+    }
+
+    static <T, S extends Spliterator<T>> S wrap(S source, SplitPolicy policy) {
+        return DelegatingSpliterator.wrap(source, new PolicySpliterator(policy));
+    }
+
+    @Override
+    boolean tracksTraversal() {
+        return false;
+    }
+
+    @Override
+    boolean canSplit(Spliterator<?> source, int depth) {
+        return policy.canSplit(source, depth);
+    }
+}
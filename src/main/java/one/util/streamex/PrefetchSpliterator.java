@@ -0,0 +1,208 @@
+/*
+ * Copyright 2015, 2020 StreamEx contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package one.util.streamex;
+
+import java.util.Comparator;
+import java.util.Spliterator;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+import static one.util.streamex.Internals.CancelException;
+import static one.util.streamex.VerSpec.VER_SPEC;
+
+/**
+ * A spliterator which traverses the source in the background thread and
+ * hands the elements to the consumer via the bounded single-producer
+ * single-consumer ring buffer. The producer is started on the first
+ * traversal. The producer waits while the buffer is full and the consumer
+ * waits while it's empty; both park and wake each other up, so no locks are
+ * used.
+ *
+ * <p>
+ * The producer stops when the source is exhausted or fails (the exception is
+ * rethrown to the consumer) or when this spliterator is closed. The producer
+ * runs in the shared executor, so no thread pool is created per stream.
+ *
+ * <p>
+ * If the waiting consumer is interrupted, this spliterator is closed and the
+ * traversal ends; if the waiting producer is interrupted, the consumer fails
+ * with {@link IllegalStateException}. In both cases the interrupted status is
+ * preserved.
+ *
+ * @author Tagir Valeev
+ */
+/* package */final class PrefetchSpliterator<T> implements Spliterator<T>, Runnable {
+    private static final Object NULL = new Object();
+    private static final Object END = new Object();
+
+    private final Spliterator<T> source;
+    private final long size;
+    private final Object[] buffer;
+    private final int mask;
+    // index of the next element to take (written by consumer only)
+    private final AtomicLong head = new AtomicLong();
+    // index of the next element to put (written by producer only)
+    private final AtomicLong tail = new AtomicLong();
+    private volatile Thread waitingConsumer;
+    private volatile Thread waitingProducer;
+    private volatile boolean closed;
+    private volatile Throwable error;
+    private boolean started, finished;
+
+    PrefetchSpliterator(Spliterator<T> source, int bufferSize) {
+        this.source = source;
+        this.size = source.estimateSize();
+        int capacity = Integer.highestOneBit(Math.min(Math.max(bufferSize, 1), 1 << 30) * 2 - 1);
+        this.buffer = new Object[capacity];
+        this.mask = capacity - 1;
+    }
+
+    @Override
+    public void run() {
+        try {
+            source.forEachRemaining(t -> put(t == null ? NULL : t));
+        } catch (CancelException ex) {
+            // closed
+            return;
+        } catch (Throwable t) {
+            error = t;
+        }
+        try {
+            put(END);
+        } catch (CancelException ex) {
+            // closed
+        }
+    }
+
+    private void put(Object element) {
+        long t = tail.get();
+        while (t - head.get() >= buffer.length) {
+            if (closed)
+                throw new CancelException();
+            waitingProducer = Thread.currentThread();
+            if (t - head.get() >= buffer.length && !closed)
+                LockSupport.park(this);
+            waitingProducer = null;
+            if (Thread.currentThread().isInterrupted()) {
+                // the interrupted status is preserved
+                error = new IllegalStateException("The prefetching thread was interrupted");
+                close();
+                throw new CancelException();
+            }
+        }
+        if (closed)
+            throw new CancelException();
+        buffer[(int) t & mask] = element;
+        tail.set(t + 1);
+        Thread consumer = waitingConsumer;
+        if (consumer != null)
+            LockSupport.unpark(consumer);
+    }
+
+    private Object take() {
+        long h = head.get();
+        while (h == tail.get()) {
+            if (closed)
+                return END;
+            waitingConsumer = Thread.currentThread();
+            if (h == tail.get() && !closed)
+                LockSupport.park(this);
+            waitingConsumer = null;
+            if (Thread.currentThread().isInterrupted()) {
+                // the interrupted status is preserved
+                close();
+                return END;
+            }
+        }
+        int index = (int) h & mask;
+        Object element = buffer[index];
+        buffer[index] = null;
+        head.set(h + 1);
+        Thread producer = waitingProducer;
+        if (producer != null)
+            LockSupport.unpark(producer);
+        return element;
+    }
+
+    @SuppressWarnings("unchecked")
+    private boolean next(Consumer<? super T> action) {
+        if (finished)
+            return false;
+        if (!started) {
+            started = true;
+            VER_SPEC.sharedExecutor().execute(this);
+        }
+        Object element = take();
+        if (element == END) {
+            finished = true;
+            Throwable t = error;
+            if (t instanceof RuntimeException)
+                throw (RuntimeException) t;
+            if (t instanceof Error)
+                throw (Error) t;
+            if (t != null)
+                throw new IllegalStateException(t);
+            return false;
+        }
+        action.accept(element == NULL ? null : (T) element);
+        return true;
+    }
+
+    void close() {
+        closed = true;
+        Thread producer = waitingProducer;
+        if (producer != null)
+            LockSupport.unpark(producer);
+        Thread consumer = waitingConsumer;
+        if (consumer != null)
+            LockSupport.unpark(consumer);
+    }
+
+    @Override
+    public boolean tryAdvance(Consumer<? super T> action) {
+        return next(action);
+    }
+
+    @Override
+    public void forEachRemaining(Consumer<? super T> action) {
+        while (next(action)) {
+            // continue
+        }
+    }
+
+    @Override
+    public Spliterator<T> trySplit() {
+        return null;
+    }
+
+    @Override
+    public long estimateSize() {
+        if (finished)
+            return 0;
+        return size == Long.MAX_VALUE ? size : Math.max(size - head.get(), 0);
+    }
+
+    @Override
+    public int characteristics() {
+        return source.characteristics() & (ORDERED | DISTINCT | SORTED | NONNULL | SIZED);
+    }
+
+    @Override
+    public Comparator<? super T> getComparator() {
+        return source.getComparator();
+    }
+}
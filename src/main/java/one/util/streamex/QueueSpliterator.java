@@ -0,0 +1,144 @@
+/*
+ * Copyright 2015, 2020 StreamEx contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package one.util.streamex;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Objects;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+import static one.util.streamex.UnknownSizeSpliterator.BATCH_UNIT;
+
+/**
+ * A spliterator which drains the {@link BlockingQueue} in batches: it waits
+ * for the first element only, then moves the already available elements (up
+ * to the batch size) into the reusable buffer by non-blocking
+ * {@link BlockingQueue#poll()} calls, so the consumer doesn't block and wake
+ * up for every element. The batch stops at the end marker, so the elements
+ * put after it remain in the queue (e.g. for the other consumers which wait
+ * for their own markers). Batches are drained only by
+ * {@link #forEachRemaining(Consumer)} and {@link #trySplit()} which consume
+ * the whole batch anyway; {@link #tryAdvance(Consumer)} takes a single
+ * element, so the short-circuiting operation leaves the rest of the elements
+ * in the queue.
+ *
+ * <p>
+ * The traversal ends when the element matching the end predicate is taken
+ * (it's not emitted), when no element arrives within the idle timeout or when
+ * the traversing thread is interrupted (the interrupted status is preserved).
+ *
+ * @author Tagir Valeev
+ */
+/* package */final class QueueSpliterator<T> implements Spliterator<T> {
+    private final BlockingQueue<? extends T> queue;
+    private final Predicate<? super T> isEnd;
+    // negative means no timeout
+    private final long timeoutNanos;
+    private final ArrayList<T> buf = new ArrayList<>();
+    private int pos;
+    private boolean finished;
+
+    QueueSpliterator(BlockingQueue<? extends T> queue, Predicate<? super T> isEnd, Duration idleTimeout) {
+        this.queue = Objects.requireNonNull(queue);
+        this.isEnd = Objects.requireNonNull(isEnd);
+        this.timeoutNanos = idleTimeout == null ? -1 : toNanos(idleTimeout);
+    }
+
+    private static long toNanos(Duration idleTimeout) {
+        if (idleTimeout.isNegative())
+            throw new IllegalArgumentException("idleTimeout must be non-negative: " + idleTimeout);
+        try {
+            return idleTimeout.toNanos();
+        } catch (ArithmeticException e) {
+            return Long.MAX_VALUE;
+        }
+    }
+
+    /**
+     * Makes sure that at least one element is available in the buffer.
+     *
+     * @param batch the maximal number of elements to take from the queue
+     * @return false if the traversal is over
+     */
+    private boolean fill(int batch) {
+        if (pos < buf.size())
+            return true;
+        if (finished)
+            return false;
+        buf.clear();
+        pos = 0;
+        T first;
+        try {
+            first = timeoutNanos < 0 ? queue.take() : queue.poll(timeoutNanos, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            first = null;
+        }
+        if (first == null) {
+            finished = true;
+            return false;
+        }
+        for (T next = first; next != null; next = buf.size() < batch ? queue.poll() : null) {
+            if (isEnd.test(next)) {
+                finished = true;
+                break;
+            }
+            buf.add(next);
+        }
+        return pos < buf.size();
+    }
+
+    @Override
+    public boolean tryAdvance(Consumer<? super T> action) {
+        if (!fill(1))
+            return false;
+        action.accept(buf.get(pos++));
+        return true;
+    }
+
+    @Override
+    public void forEachRemaining(Consumer<? super T> action) {
+        while (fill(BATCH_UNIT)) {
+            do {
+                action.accept(buf.get(pos++));
+            } while (pos < buf.size());
+        }
+    }
+
+    @Override
+    public Spliterator<T> trySplit() {
+        if (!fill(BATCH_UNIT))
+            return null;
+        Object[] array = buf.subList(pos, buf.size()).toArray();
+        pos = buf.size();
+        return Spliterators.spliterator(array, characteristics());
+    }
+
+    @Override
+    public long estimateSize() {
+        return finished && pos == buf.size() ? 0 : Long.MAX_VALUE;
+    }
+
+    @Override
+    public int characteristics() {
+        return ORDERED | NONNULL;
+    }
+}
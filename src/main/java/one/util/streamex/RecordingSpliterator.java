@@ -0,0 +1,72 @@
+/*
+ * Copyright 2015, 2020 StreamEx contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package one.util.streamex;
+
+import java.util.Spliterator;
+
+import static one.util.streamex.Internals.CancelException;
+
+/**
+ * The hooks of the spliterator which delegates to the source and reports the
+ * traversed elements, the splits and the short-circuit cancellations
+ * (signalled by {@link CancelException} thrown by the downstream action) to
+ * the {@link OperationRecorder}. Every split has its own hooks.
+ *
+ * @author Tagir Valeev
+ */
+/* package */final class RecordingSpliterator extends DelegatingSpliterator.Hooks {
+    private final OperationRecorder recorder;
+    // the elements traversed by the current split, updated by the traversing
+    // thread only
+    private long count;
+    private long start;
+
+    private RecordingSpliterator(OperationRecorder recorder) {
+        this.recorder = recorder;
+    }
+
+    static <T, S extends Spliterator<T>> S wrap(S source, OperationRecorder recorder) {
+        return DelegatingSpliterator.wrap(source, new RecordingSpliterator(recorder));
+    }
+
+    @Override
+    DelegatingSpliterator.Hooks split(String path, Spliterator<?> prefix, Spliterator<?> source) {
+        recorder.split(path, prefix.estimateSize(), source.estimateSize());
+        return new RecordingSpliterator(recorder);
+    }
+
+    @Override
+    void start(String path) {
+        start = count;
+    }
+
+    @Override
+    void before() {
+        count++;
+    }
+
+    @Override
+    boolean cancelled(String path) {
+        recorder.splitCancelled(path, count);
+        return false;
+    }
+
+    @Override
+    void finish() {
+        if (count != start)
+            recorder.addElements(count - start);
+    }
+}
@@ -0,0 +1,139 @@
+/*
+ * Copyright 2015, 2020 StreamEx contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package one.util.streamex;
+
+import java.util.Spliterator;
+import java.util.concurrent.ForkJoinPool;
+
+import static one.util.streamex.Internals.checkNonNegative;
+
+/**
+ * A policy which limits the splitting of the parallel stream source. Use it
+ * with {@link StreamEx#parallel(ForkJoinPool, SplitPolicy)} (or the same
+ * method of other stream types) when the default splitting doesn't suit the
+ * per-element cost of the stream pipeline: cheap operations over the large
+ * input may be split into too many small tasks.
+ *
+ * <p>
+ * The policy may only prevent the splits: the stream implementation is still
+ * free to stop splitting earlier. Every specific policy represented by this
+ * class is immutable, so you can share it. To create a policy use one of the
+ * static methods and combine the limits using the instance methods like
+ * this:
+ *
+ * <pre>{@code
+ * StreamEx.of(list).parallel(pool, SplitPolicy.minLeafSize(10_000).withMaxDepth(6))
+ *         .map(...).toList();
+ * }</pre>
+ *
+ * @author Tagir Valeev
+ * @since 0.7.4
+ */
+public final class SplitPolicy {
+    private static final int NO_DEPTH_LIMIT = Integer.MAX_VALUE;
+
+    private final long minLeafSize;
+    private final int maxDepth;
+
+    private SplitPolicy(long minLeafSize, int maxDepth) {
+        this.minLeafSize = minLeafSize;
+        this.maxDepth = maxDepth;
+    }
+
+    /**
+     * Returns a policy which doesn't split the parts having less than
+     * {@code 2*minLeafSize} elements (as estimated by the spliterator), so
+     * every part is processed by a single task unless it's bigger than the
+     * specified size.
+     *
+     * @param minLeafSize the minimal number of elements per task, must be
+     *        positive
+     * @return the new policy
+     * @throws IllegalArgumentException if {@code minLeafSize} is not positive
+     */
+    public static SplitPolicy minLeafSize(long minLeafSize) {
+        return new SplitPolicy(1, NO_DEPTH_LIMIT).withMinLeafSize(minLeafSize);
+    }
+
+    /**
+     * Returns a policy which splits every part at most {@code maxDepth}
+     * times, so the input is split into at most {@code 2^maxDepth} tasks.
+     *
+     * @param maxDepth the maximal depth of the splitting, must be
+     *        non-negative. Zero means no splitting at all.
+     * @return the new policy
+     * @throws IllegalArgumentException if {@code maxDepth} is negative
+     */
+    public static SplitPolicy maxDepth(int maxDepth) {
+        return new SplitPolicy(1, NO_DEPTH_LIMIT).withMaxDepth(maxDepth);
+    }
+
+    /**
+     * Returns a policy which splits the input into at most {@code count}
+     * tasks rounded up to the power of two. The exact number of tasks cannot
+     * be guaranteed as the sources split their input in halves.
+     *
+     * @param count the maximal number of tasks, must be positive
+     * @return the new policy
+     * @throws IllegalArgumentException if {@code count} is not positive
+     */
+    public static SplitPolicy chunks(int count) {
+        if (count <= 0)
+            throw new IllegalArgumentException("count must be positive: " + count);
+        return maxDepth(Integer.SIZE - Integer.numberOfLeadingZeros(count - 1));
+    }
+
+    /**
+     * Returns a policy which additionally doesn't split the parts having less
+     * than {@code 2*minLeafSize} elements.
+     *
+     * @param minLeafSize the minimal number of elements per task, must be
+     *        positive
+     * @return the new policy
+     * @throws IllegalArgumentException if {@code minLeafSize} is not positive
+     * @see #minLeafSize(long)
+     */
+    public SplitPolicy withMinLeafSize(long minLeafSize) {
+        if (minLeafSize <= 0)
+            throw new IllegalArgumentException("minLeafSize must be positive: " + minLeafSize);
+        return new SplitPolicy(minLeafSize, maxDepth);
+    }
+
+    /**
+     * Returns a policy which additionally splits every part at most
+     * {@code maxDepth} times.
+     *
+     * @param maxDepth the maximal depth of the splitting, must be
+     *        non-negative
+     * @return the new policy
+     * @throws IllegalArgumentException if {@code maxDepth} is negative
+     * @see #maxDepth(int)
+     */
+    public SplitPolicy withMaxDepth(int maxDepth) {
+        checkNonNegative("maxDepth", maxDepth);
+        return new SplitPolicy(minLeafSize, maxDepth);
+    }
+
+    boolean canSplit(Spliterator<?> spliterator, int depth) {
+        return depth < maxDepth && (minLeafSize == 1 || spliterator.estimateSize() / 2 >= minLeafSize);
+    }
+
+    @Override
+    public String toString() {
+        return "SplitPolicy[minLeafSize=" + minLeafSize + (maxDepth == NO_DEPTH_LIMIT ? "" : ", maxDepth="
+            + maxDepth) + "]";
+    }
+}
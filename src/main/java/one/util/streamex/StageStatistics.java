@@ -0,0 +1,224 @@
+/*
+ * Copyright 2015, 2020 StreamEx contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package one.util.streamex;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * The element counts and the time measured at the named checkpoints of the
+ * instrumented stream pipeline. Create the new object, pass it to the
+ * {@code instrument} method of the stream (like
+ * {@link StreamEx#instrument(StageStatistics)}), mark the stages using the
+ * {@code checkpoint} method and read the statistics after the terminal
+ * operation is complete:
+ *
+ * <pre>{@code
+ * StageStatistics stats = new StageStatistics();
+ * List<Report> reports = StreamEx.of(files).instrument(stats).checkpoint("files")
+ *         .map(this::parse).checkpoint("parsed")
+ *         .filter(Report::isValid).checkpoint("valid")
+ *         .parallel().toList();
+ * System.out.println(stats);
+ * }</pre>
+ *
+ * <p>
+ * Every checkpoint counts the elements passing through it and measures the
+ * time spent to produce them, that is, the time spent by the source and all
+ * the stages before the checkpoint, excluding the time spent by the stages
+ * after it. So the time of the stage between two checkpoints is the
+ * difference between their times. The elements which leave the previous
+ * checkpoint enter the next stage.
+ *
+ * <p>
+ * The statistics are collected separately for every split of the parallel
+ * stream, so the split tree is also available. The split is identified by
+ * its path from the root of the split tree: the string of {@code 0}
+ * (prefix) and {@code 1} (suffix) characters. The path of the stream which
+ * was not split is empty.
+ *
+ * <p>
+ * The streams which are not instrumented ignore the checkpoints, so they
+ * may be left in the production code. The instrumented checkpoint adds
+ * the cost of two {@link System#nanoTime()} calls per element.
+ *
+ * @author Tagir Valeev
+ * @since 0.7.4
+ */
+public final class StageStatistics {
+    private final Map<String, Stage> stages = new LinkedHashMap<>();
+
+    /**
+     * The statistics of the single split at the single checkpoint.
+     */
+    public static final class Split {
+        private final String path;
+        // updated by the thread traversing the split only
+        long elements;
+        long nanos;
+
+        Split(String path) {
+            this.path = path;
+        }
+
+        /**
+         * Returns the path of this split in the split tree.
+         *
+         * @return the string of {@code 0} (prefix) and {@code 1} (suffix)
+         *         characters, empty for the stream which was not split.
+         */
+        public String getPath() {
+            return path;
+        }
+
+        /**
+         * Returns the number of the elements which passed the checkpoint in
+         * this split.
+         *
+         * @return the number of elements
+         */
+        public long getElementCount() {
+            return elements;
+        }
+
+        /**
+         * Returns the time spent to produce the elements of this split by the
+         * stages before the checkpoint.
+         *
+         * @return the time in nanoseconds
+         */
+        public long getNanos() {
+            return nanos;
+        }
+
+        @Override
+        public String toString() {
+            return "Split[path=" + path + ", elements=" + elements + ", nanos=" + nanos + "]";
+        }
+    }
+
+    static final class Stage {
+        private final Queue<Split> splits = new ConcurrentLinkedQueue<>();
+
+        Split split(String path) {
+            Split split = new Split(path);
+            splits.add(split);
+            return split;
+        }
+    }
+
+    synchronized Stage stage(String name) {
+        return stages.computeIfAbsent(name, k -> new Stage());
+    }
+
+    private synchronized Stage get(String stage) {
+        Stage result = stages.get(stage);
+        if (result == null)
+            throw new IllegalArgumentException("Unknown stage: " + stage);
+        return result;
+    }
+
+    /**
+     * Returns the names of the checkpoints in the order they were added to
+     * the pipeline.
+     *
+     * @return the list of the checkpoint names
+     */
+    public synchronized List<String> getStages() {
+        return new ArrayList<>(stages.keySet());
+    }
+
+    /**
+     * Returns the statistics of all the splits at the given checkpoint.
+     *
+     * @param stage the checkpoint name
+     * @return the list of the split statistics in the order the splits were
+     *         started
+     * @throws IllegalArgumentException if there's no such checkpoint
+     */
+    public List<Split> getSplits(String stage) {
+        return new ArrayList<>(get(stage).splits);
+    }
+
+    /**
+     * Returns the number of elements which passed the given checkpoint.
+     *
+     * @param stage the checkpoint name
+     * @return the number of elements
+     * @throws IllegalArgumentException if there's no such checkpoint
+     */
+    public long getElementCount(String stage) {
+        long count = 0;
+        for (Split split : get(stage).splits) {
+            count += split.elements;
+        }
+        return count;
+    }
+
+    /**
+     * Returns the total time spent in all the splits by the source and the
+     * stages before the given checkpoint.
+     *
+     * @param stage the checkpoint name
+     * @return the time in nanoseconds
+     * @throws IllegalArgumentException if there's no such checkpoint
+     */
+    public long getNanos(String stage) {
+        long nanos = 0;
+        for (Split split : get(stage).splits) {
+            nanos += split.nanos;
+        }
+        return nanos;
+    }
+
+    /**
+     * Returns the total time spent in all the splits by the stages between
+     * the previous checkpoint (or the source if there's no previous one) and
+     * the given checkpoint.
+     *
+     * @param stage the checkpoint name
+     * @return the time in nanoseconds
+     * @throws IllegalArgumentException if there's no such checkpoint
+     */
+    public long getStageNanos(String stage) {
+        List<String> names = getStages();
+        int index = names.indexOf(stage);
+        long nanos = getNanos(stage);
+        return index > 0 ? Math.max(0, nanos - getNanos(names.get(index - 1))) : nanos;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("StageStatistics[");
+        long in = -1;
+        for (String stage : getStages()) {
+            long out = getElementCount(stage);
+            if (in >= 0)
+                sb.append(", ");
+            sb.append(stage).append(": ");
+            if (in >= 0)
+                sb.append("in=").append(in).append(", ");
+            sb.append("out=").append(out).append(", nanos=").append(getStageNanos(stage)).append(", splits=")
+                    .append(get(stage).splits.size());
+            in = out;
+        }
+        return sb.append("]").toString();
+    }
+}
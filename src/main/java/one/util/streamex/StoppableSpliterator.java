@@ -0,0 +1,56 @@
+/*
+ * Copyright 2015, 2020 StreamEx contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package one.util.streamex;
+
+import java.util.Spliterator;
+import java.util.concurrent.CompletableFuture;
+
+import static one.util.streamex.Internals.CancelException;
+
+/**
+ * The hooks of the spliterator which delegates to the source and stops the
+ * traversal by throwing {@link CancelException} as soon as the result future
+ * of the asynchronous terminal operation is completed (usually cancelled), so
+ * the running tasks don't process the rest of the input in vain.
+ *
+ * @author Tagir Valeev
+ */
+/* package */final class StoppableSpliterator extends DelegatingSpliterator.Hooks {
+    private final CompletableFuture<?> future;
+
+    private StoppableSpliterator(CompletableFuture<?> future) {
+        this.future = future;
+    }
+
+    static <T, S extends Spliterator<T>> S wrap(S source, CompletableFuture<?> future) {
+        return DelegatingSpliterator.wrap(source, new StoppableSpliterator(future));
+    }
+
+    private void check() {
+        if (future.isDone())
+            throw new CancelException();
+    }
+
+    @Override
+    void start(String path) {
+        check();
+    }
+
+    @Override
+    void before() {
+        check();
+    }
+}
@@ -15,14 +15,17 @@
  */
 package one.util.streamex;
 
+import java.util.Spliterator;
+import java.util.concurrent.Executor;
 import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.function.Function;
 import java.util.function.Supplier;
 import java.util.stream.BaseStream;
 
 /**
  * This class controls stream execution mode (parallel/sequential), custom FJP
- * and close handlers.
+ * or executor, split policy and close handlers.
  * 
  * Fields are package-private and mutable, but it's forbidden to change them
  * from outside of this class.
@@ -38,9 +41,21 @@ import java.util.stream.BaseStream;
     static final StreamContext SEQUENTIAL = new StreamContext(false);
     static final StreamContext PARALLEL = new StreamContext(true);
 
+    /**
+     * The sequential threshold for the streams which don't specify it, set by
+     * {@code streamex.sequentialThreshold} system property. Zero means that
+     * the parallel streams are always parallel.
+     */
+    static long defaultSequentialThreshold = Long.getLong("streamex.sequentialThreshold", 0);
+
     boolean parallel;
     ForkJoinPool fjp;
+    SplitPolicy splitPolicy;
+    Executor executor;
+    int parallelism;
+    long sequentialThreshold = -1;
     Runnable closeHandler;
+    StageStatistics statistics;
 
     private StreamContext(boolean parallel) {
         this.parallel = parallel;
@@ -59,6 +74,8 @@ import java.util.stream.BaseStream;
             return PARALLEL;
         this.parallel = true;
         this.fjp = null;
+        this.splitPolicy = null;
+        this.executor = null;
         return this;
     }
 
@@ -67,22 +84,94 @@ import java.util.stream.BaseStream;
             return SEQUENTIAL;
         this.parallel = false;
         this.fjp = null;
+        this.splitPolicy = null;
+        this.executor = null;
         return this;
     }
 
     StreamContext parallel(ForkJoinPool fjp) {
+        return parallel(fjp, null);
+    }
+
+    StreamContext parallel(ForkJoinPool fjp, SplitPolicy splitPolicy) {
         StreamContext context = detach();
         context.parallel = true;
         context.fjp = fjp;
+        context.splitPolicy = splitPolicy;
+        context.executor = null;
+        return context;
+    }
+
+    StreamContext parallel(Executor executor, int parallelism) {
+        StreamContext context = detach();
+        context.parallel = true;
+        context.fjp = null;
+        context.splitPolicy = null;
+        context.executor = executor;
+        context.parallelism = parallelism;
         return context;
     }
 
+    long sequentialThreshold() {
+        return sequentialThreshold < 0 ? defaultSequentialThreshold : sequentialThreshold;
+    }
+
+    StreamContext sequentialThreshold(long threshold) {
+        StreamContext context = detach();
+        context.sequentialThreshold = threshold;
+        return context;
+    }
+
+    StreamContext instrument(StageStatistics statistics) {
+        StreamContext context = detach();
+        context.statistics = statistics;
+        return context;
+    }
+
+    /**
+     * Returns true if the parallel stream over the given source should run
+     * sequentially as the source is known to be smaller than the threshold.
+     */
+    boolean isSmall(Spliterator<?> source) {
+        long threshold = sequentialThreshold();
+        if (threshold <= 0)
+            return false;
+        long size = source.getExactSizeIfKnown();
+        return size >= 0 && size < threshold;
+    }
+
+    static int parallelism(Executor executor) {
+        if (executor instanceof ThreadPoolExecutor) {
+            int corePoolSize = ((ThreadPoolExecutor) executor).getCorePoolSize();
+            if (corePoolSize > 0)
+                return corePoolSize;
+        }
+        return Runtime.getRuntime().availableProcessors();
+    }
+
     StreamContext detach() {
         if (this == PARALLEL || this == SEQUENTIAL)
             return new StreamContext(parallel);
         return this;
     }
 
+    /**
+     * Returns the independent copy of this context which has the same
+     * settings but no close handler.
+     */
+    StreamContext copySettings() {
+        if (this == PARALLEL || this == SEQUENTIAL)
+            return this;
+        StreamContext context = new StreamContext(parallel);
+        context.fjp = fjp;
+        context.splitPolicy = splitPolicy;
+        context.executor = executor;
+        context.parallelism = parallelism;
+        context.sequentialThreshold = sequentialThreshold;
+        context.statistics = statistics;
+        return context;
+    }
+
     StreamContext onClose(Runnable r) {
         StreamContext context = detach();
         context.closeHandler = compose(context.closeHandler, r);
@@ -20,10 +20,13 @@ import java.io.IOException;
 import java.io.Reader;
 import java.io.UncheckedIOException;
 import java.lang.reflect.Array;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.time.Duration;
 import java.util.AbstractMap.SimpleImmutableEntry;
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -43,6 +46,7 @@ import java.util.SortedMap;
 import java.util.Spliterator;
 import java.util.Spliterators;
 import java.util.TreeMap;
+import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.ConcurrentSkipListMap;
@@ -776,7 +780,7 @@ public class StreamEx<T> extends AbstractStreamEx<T, StreamEx<T>> {
      *         is returned.
      */
     public String joining() {
-        return map(String::valueOf).rawCollect(Collectors.joining());
+        return map(String::valueOf).rawCollect(Joining.with(""));
     }
 
     /**
@@ -793,7 +797,7 @@ public class StreamEx<T> extends AbstractStreamEx<T, StreamEx<T>> {
      *         is returned.
      */
     public String joining(CharSequence delimiter) {
-        return map(String::valueOf).rawCollect(Collectors.joining(delimiter));
+        return map(String::valueOf).rawCollect(Joining.with(delimiter));
     }
 
     /**
@@ -815,7 +819,34 @@ public class StreamEx<T> extends AbstractStreamEx<T, StreamEx<T>> {
      *         {@code prefix + suffix} is returned.
      */
     public String joining(CharSequence delimiter, CharSequence prefix, CharSequence suffix) {
-        return map(String::valueOf).rawCollect(Collectors.joining(delimiter, prefix, suffix));
+        return map(String::valueOf).rawCollect(Joining.with(delimiter).wrap(prefix, suffix));
+    }
+
+    /**
+     * Writes the results of calling {@link String#valueOf(Object)} on each
+     * element of this stream, separated by the specified delimiter, in
+     * encounter order into the supplied {@link Appendable}.
+     *
+     * <p>
+     * Unlike {@link #joining(CharSequence)} the result is not materialized as
+     * a {@code String}: the elements are written in chunks as they arrive. An
+     * {@link java.io.IOException} thrown by the {@code Appendable} is wrapped
+     * into {@link java.io.UncheckedIOException}.
+     *
+     * <p>
+     * This is a <a href="package-summary.html#StreamOps">terminal</a>
+     * operation.
+     *
+     * @param <A> the type of the {@code Appendable}
+     * @param appendable the {@code Appendable} (for example, a
+     *        {@link java.io.Writer}) to write the result to
+     * @param delimiter the delimiter to be used between each element
+     * @return the supplied {@code Appendable}
+     * @see Joining#to(Appendable)
+     * @since 0.7.4
+     */
+    public <A extends Appendable> A joiningTo(A appendable, CharSequence delimiter) {
+        return map(String::valueOf).collect(Joining.with(delimiter).to(appendable));
     }
 
     /**
@@ -837,7 +868,7 @@ public class StreamEx<T> extends AbstractStreamEx<T, StreamEx<T>> {
      */
     @SuppressWarnings("unchecked")
     public <A> A[] toArray(Class<A> elementClass) {
-        return stream().toArray(size -> (A[]) Array.newInstance(elementClass, size));
+        return toArray(size -> (A[]) Array.newInstance(elementClass, size));
     }
 
     /**
@@ -870,7 +901,7 @@ public class StreamEx<T> extends AbstractStreamEx<T, StreamEx<T>> {
         if (emptyArray.length != 0) {
             throw new IllegalArgumentException("Empty array must be supplied");
         }
-        return stream().toArray(size -> size == 0 ? emptyArray
+        return toArray(size -> size == 0 ? emptyArray
                 : (A[]) Array.newInstance(emptyArray.getClass().getComponentType(), size));
     }
 
@@ -1718,6 +1749,112 @@ public class StreamEx<T> extends AbstractStreamEx<T, StreamEx<T>> {
         });
     }
 
+    /**
+     * Returns a stream consisting of lists of consecutive elements of this
+     * stream having the specified size (the last list may be shorter).
+     *
+     * <p>
+     * This is a <a href="package-summary.html#StreamOps">quasi-intermediate</a>
+     * operation. Unlike {@link #ofSubLists(List, int)} it works with any stream
+     * source.
+     *
+     * <p>
+     * If the stream is {@code SIZED} and {@code SUBSIZED} (for example, created
+     * from a {@code List} or an array and not filtered), every list is created
+     * with its exact size and the parallel stream is split only at the list
+     * boundaries, so it produces the same lists without additional merging.
+     * Otherwise the parallel stream collects the batches of lists sequentially
+     * and processes them in parallel.
+     *
+     * <p>
+     * There are no guarantees on the type, mutability, serializability, or
+     * thread-safety of the {@code List} objects of the resulting stream.
+     *
+     * @param size the number of elements in every list except the last one,
+     *        must be positive
+     * @return the new stream
+     * @throws IllegalArgumentException if size is zero or negative
+     * @see #ofSubLists(List, int)
+     * @since 0.7.4
+     */
+    public StreamEx<List<T>> chunked(int size) {
+        if (size <= 0)
+            throw new IllegalArgumentException("size must be positive: " + size);
+        return new StreamEx<>(new ChunkSpliterator.OfRef<>(spliterator(), null, size), context);
+    }
+
+    /**
+     * Returns a supplier of the new streams which replay the elements of this
+     * stream.
+     *
+     * <p>
+     * This is a <a href="package-summary.html#StreamOps">terminal</a>
+     * operation, though the elements are not read immediately: this stream is
+     * traversed once, when any of the supplied streams is traversed for the
+     * first time. The elements are stored in the fixed-size segments, so no
+     * element is copied after it's read, and every supplied stream reads the
+     * same storage. Once all the elements are stored, this stream is closed.
+     *
+     * <p>
+     * The supplied streams are {@code SIZED} and {@code SUBSIZED} and split
+     * evenly, so they may be efficiently processed in parallel. They are
+     * parallel if this stream is parallel and keep its parallel settings like
+     * the custom {@link java.util.concurrent.ForkJoinPool}, but not its close
+     * handlers. The supplier is thread-safe: the supplied streams may be
+     * traversed concurrently, this stream is traversed only once.
+     *
+     * <p>
+     * If the traversal of this stream fails, the exception is thrown from the
+     * supplied stream, this stream is closed and every supplied stream throws
+     * {@link IllegalStateException} caused by that exception afterwards.
+     *
+     * @return the supplier of the new streams over the elements of this stream
+     * @throws IllegalStateException from the supplied stream if this stream has
+     *         more than {@code Integer.MAX_VALUE} elements
+     * @see IntStreamEx#cache()
+     * @since 0.7.4
+     */
+    public Supplier<StreamEx<T>> cache() {
+        return new CachedSource.OfRef<>(spliterator(), context);
+    }
+
+    /**
+     * Feeds the elements of this stream to several branch pipelines in a
+     * single pass.
+     *
+     * <p>
+     * This is a <a href="package-summary.html#StreamOps">terminal</a>
+     * operation.
+     *
+     * <p>
+     * Every branch consumer is called in a separate thread with the new
+     * sequential stream of the elements of this stream. The consumer is
+     * expected to perform a terminal operation on the supplied stream. This
+     * stream is traversed sequentially by the calling thread which hands the
+     * batches of elements to the bounded buffers of the branches and waits
+     * while any buffer is full, so the slowest branch limits the traversal
+     * speed and the memory used does not depend on the stream length. The
+     * branch which finishes earlier (e.g. due to the short-circuiting
+     * operation) no longer gets the elements. The traversal stops when all
+     * the branches are finished.
+     *
+     * <p>
+     * This method returns when all the branch consumers return. If the
+     * traversal of this stream or any branch fails, the other branches are
+     * stopped and the exception is rethrown to the caller.
+     *
+     * @param branches the consumers of the branch streams
+     * @throws NullPointerException if any of the branches is null
+     * @throws IllegalStateException if the calling thread is interrupted
+     *         while waiting for the buffer space
+     * @see MoreCollectors#teeing(Collector...)
+     * @since 0.7.4
+     */
+    @SafeVarargs
+    public final void fork(Consumer<? super StreamEx<T>>... branches) {
+        ForkSpliterator.fork(spliterator(), Arrays.asList(branches));
+    }
+
     /**
      * Returns a stream consisting of results of applying the given function to
      * the intervals created from the source elements.
@@ -2236,6 +2373,128 @@ public class StreamEx<T> extends AbstractStreamEx<T, StreamEx<T>> {
         return of(new UnknownSizeSpliterator.USOfRef<>(iterator));
     }
 
+    /**
+     * Returns a sequential, ordered, sized {@link StreamEx} created from given
+     * {@link Iterator} which is known to produce exactly {@code size}
+     * elements.
+     *
+     * <p>
+     * Unlike {@link #of(Iterator)} the resulting stream reports its size,
+     * so operations like {@code toArray()} or {@code count()} may work faster
+     * and the parallel stream is split evenly.
+     *
+     * <p>
+     * The behavior is undefined if the iterator produces a different number
+     * of elements.
+     * @param <T> the type of iterator elements
+     * @param iterator an iterator to create the stream from.
+     * @param size the exact number of elements the iterator produces
+     * @return the new stream
+     * @throws IllegalArgumentException if size is negative
+     * @see #of(Iterator)
+     * @since 0.7.4
+     */
+    public static <T> StreamEx<T> ofSized(Iterator<? extends T> iterator, long size) {
+        checkNonNegative("size", size);
+        return of(Spliterators.spliterator(iterator, size, Spliterator.ORDERED));
+    }
+
+    /**
+     * Returns a sequential, ordered {@link StreamEx} created from given
+     * {@link Iterator} which adapts the size of the parallel batches to the
+     * cost of the stream pipeline.
+     *
+     * <p>
+     * Like {@link #of(Iterator)} the parallel stream copies the
+     * iterator elements into the batches which are processed by separate
+     * tasks. Instead of growing the batches by a fixed amount, this source
+     * measures the processing time per element of the completed batches and
+     * sizes the following batches so that every batch takes about
+     * {@code batchTime} to process. This works better when the per-element
+     * cost is high or varies a lot from pipeline to pipeline. For sequential
+     * streams it makes no difference.
+     *
+     * @param <T> the type of iterator elements
+     * @param iterator an iterator to create the stream from.
+     * @param batchTime the desired processing time of a single batch, must be
+     *        positive
+     * @return the new stream
+     * @throws IllegalArgumentException if batchTime is zero or negative
+     * @see #of(Iterator)
+     * @since 0.7.4
+     */
+    public static <T> StreamEx<T> ofAdaptive(Iterator<? extends T> iterator, Duration batchTime) {
+        return of(new UnknownSizeSpliterator.USOfRef<>(iterator, UnknownSizeSpliterator.BatchCost.of(batchTime)));
+    }
+
+    /**
+     * Returns a sequential, ordered {@link StreamEx} which takes the elements
+     * from given {@link BlockingQueue} until the element matching the
+     * {@code isEnd} predicate (usually a "poison pill" object) is taken. The
+     * stream waits for the new elements as long as necessary.
+     *
+     * <p>
+     * Unlike the stream which calls {@link BlockingQueue#take()} for every
+     * element, this stream waits for the first element only and then moves
+     * the already available elements into the buffer by non-blocking
+     * {@link BlockingQueue#poll()} calls, so the consumer doesn't block for
+     * every element. The batches are drained only when the stream is consumed
+     * as a whole: the short-circuiting operations like {@code limit()} or
+     * {@code findFirst()} take the elements one by one, so the elements which
+     * are not consumed remain in the queue. The end-of-stream marker itself
+     * is not included into the stream. The elements which were put into the
+     * queue after the marker are never taken, so several streams may consume
+     * the same queue each until its own marker.
+     *
+     * <p>
+     * If the thread which traverses the stream is interrupted while waiting,
+     * the stream ends and the interrupted status of the thread is preserved.
+     *
+     * <p>
+     * The stream is intended to be consumed by a single thread. The parallel
+     * stream can process the drained batches in parallel, but the queue is
+     * still drained sequentially.
+     *
+     * @param <T> the type of queue elements
+     * @param queue the queue to take the elements from
+     * @param isEnd a predicate which returns true for the end-of-stream
+     *        marker, for example {@code Predicate.isEqual(POISON)}
+     * @return the new stream
+     * @see #ofQueue(BlockingQueue, Predicate, Duration)
+     * @since 0.7.4
+     */
+    public static <T> StreamEx<T> ofQueue(BlockingQueue<? extends T> queue, Predicate<? super T> isEnd) {
+        return of(new QueueSpliterator<>(queue, isEnd, null));
+    }
+
+    /**
+     * Returns a sequential, ordered {@link StreamEx} which takes the elements
+     * from given {@link BlockingQueue} until the element matching the
+     * {@code isEnd} predicate is taken or no element arrives within the
+     * {@code idleTimeout}.
+     *
+     * <p>
+     * The queue is drained in batches like in
+     * {@link #ofQueue(BlockingQueue, Predicate)}. The timeout applies to
+     * waiting for the first element of every batch.
+     *
+     * @param <T> the type of queue elements
+     * @param queue the queue to take the elements from
+     * @param isEnd a predicate which returns true for the end-of-stream
+     *        marker, use {@code x -> false} if the stream should end on
+     *        timeout only
+     * @param idleTimeout the maximal time to wait for the next element, zero
+     *        to end the stream as soon as the queue is empty
+     * @return the new stream
+     * @throws IllegalArgumentException if idleTimeout is negative
+     * @see #ofQueue(BlockingQueue, Predicate)
+     * @since 0.7.4
+     */
+    public static <T> StreamEx<T> ofQueue(BlockingQueue<? extends T> queue, Predicate<? super T> isEnd,
+            Duration idleTimeout) {
+        return of(new QueueSpliterator<>(queue, isEnd, Objects.requireNonNull(idleTimeout)));
+    }
+
     /**
      * Returns a sequential, ordered {@link StreamEx} created from given
      * {@link Enumeration}.
@@ -2422,6 +2681,52 @@ public class StreamEx<T> extends AbstractStreamEx<T, StreamEx<T>> {
         return of(Files.lines(path, charset));
     }
 
+    /**
+     * Returns a sequential ordered {@code StreamEx} of the fixed-size records
+     * read from the given {@link ReadableByteChannel} and converted to the
+     * stream elements by the supplied decoder.
+     *
+     * <p>
+     * The channel is read lazily in chunks through a single reusable buffer,
+     * so its content is never stored in memory completely. The channel must be
+     * in blocking mode. For every record the decoder receives the same
+     * {@link ByteBuffer} whose position points to the record start and whose
+     * limit points to the record end. The decoder may read the buffer and
+     * change its position, mark and byte order, but must not keep a
+     * reference to it. When the stream is parallel, the decoded records are
+     * split into batches of increasing size.
+     *
+     * <p>
+     * If the underlying channel throws an {@link IOException} during the
+     * stream traversal, it will be rethrown as {@link UncheckedIOException}.
+     * The channel content length must be divisible by the record size,
+     * otherwise an {@code UncheckedIOException} wrapping an
+     * {@link java.io.EOFException} is thrown when the incomplete record is
+     * reached.
+     *
+     * <p>
+     * When the returned {@code StreamEx} is closed the channel is closed as
+     * well. If the channel {@code close()} method throws an
+     * {@code IOException}, it will be rethrown as {@link UncheckedIOException}.
+     *
+     * @param <T> the type of the stream elements
+     * @param channel the channel to read the records from
+     * @param recordSize the size of every record in bytes
+     * @param decoder a <a href="package-summary.html#NonInterference">non-interfering
+     *        </a>, <a href="package-summary.html#Statelessness">stateless</a>
+     *        function which creates a stream element from the record bytes
+     * @return the new stream
+     * @throws IllegalArgumentException if recordSize is not positive
+     * @since 0.7.4
+     */
+    public static <T> StreamEx<T> ofRecords(ReadableByteChannel channel, int recordSize,
+            Function<? super ByteBuffer, ? extends T> decoder) {
+        if (recordSize <= 0)
+            throw new IllegalArgumentException("recordSize must be positive: " + recordSize);
+        return of(new ChannelSpliterator.OfRecords<T>(channel, recordSize, decoder)).onClose(
+            ChannelSpliterator.closer(channel));
+    }
+
     /**
      * Returns a sequential {@code StreamEx} with keySet of given {@link Map} as
      * its source.
@@ -0,0 +1,142 @@
+/*
+ * Copyright 2015, 2020 StreamEx contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package one.util.streamex;
+
+import java.util.Objects;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Stream;
+
+import static one.util.streamex.VerSpec.VER_SPEC;
+
+/**
+ * Bridges between the streams and the reactive
+ * {@code java.util.concurrent.Flow} API.
+ *
+ * <p>
+ * The Flow API appears in Java 9 while this library is compiled for Java 8,
+ * so the Flow types cannot appear in the method signatures. The publisher is
+ * returned as the type the caller assigns it to (which must be
+ * {@code Flow.Publisher} or its supertype) and accepted as {@code Object}:
+ *
+ * <pre>{@code
+ * Flow.Publisher<String> publisher = StreamExFlow.toPublisher(stream);
+ * StreamEx<String> received = StreamExFlow.ofPublisher(publisher, 16);
+ * }</pre>
+ *
+ * <p>
+ * All the methods of this class throw {@link UnsupportedOperationException}
+ * when the library runs on Java 8.
+ *
+ * @author Tagir Valeev
+ * @since 0.7.4
+ */
+public final class StreamExFlow {
+    private StreamExFlow() {
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * Returns a {@code Flow.Publisher} which emits the elements of given
+     * stream to its subscriber in the {@link ForkJoinPool#commonPool()}.
+     *
+     * <p>
+     * This is a <a href="package-summary.html#StreamOps">terminal</a>
+     * operation on the supplied stream which is performed like
+     * {@link #toPublisher(Stream, Executor)}.
+     *
+     * @param <T> the type of stream elements
+     * @param <P> the type of the result, {@code Flow.Publisher<T>} or its
+     *        supertype
+     * @param stream the stream to publish
+     * @return the {@code Flow.Publisher} of the stream elements
+     * @throws UnsupportedOperationException if the library runs on Java 8
+     * @see #toPublisher(Stream, Executor)
+     */
+    public static <T, P> P toPublisher(Stream<T> stream) {
+        return toPublisher(stream, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Returns a {@code Flow.Publisher} which emits the elements of given
+     * stream to its subscriber in the tasks of the supplied executor.
+     *
+     * <p>
+     * This is a <a href="package-summary.html#StreamOps">terminal</a>
+     * operation on the supplied stream. The elements are pulled from the
+     * stream one by one only as far as the demand signalled via
+     * {@code Flow.Subscription.request(long)} allows, so the stream of any
+     * length is published in constant memory. The publisher accepts only one
+     * subscriber, the subsequent subscribers are signalled with
+     * {@link IllegalStateException}.
+     *
+     * <p>
+     * The stream is closed when all its elements are emitted, when it fails
+     * (the exception is signalled via {@code Flow.Subscriber.onError}) or when
+     * the subscription is cancelled.
+     *
+     * @param <T> the type of stream elements
+     * @param <P> the type of the result, {@code Flow.Publisher<T>} or its
+     *        supertype
+     * @param stream the stream to publish
+     * @param executor the executor to emit the elements in
+     * @return the {@code Flow.Publisher} of the stream elements
+     * @throws UnsupportedOperationException if the library runs on Java 8
+     * @see #toPublisher(Stream)
+     */
+    @SuppressWarnings("unchecked")
+    public static <T, P> P toPublisher(Stream<T> stream, Executor executor) {
+        Objects.requireNonNull(stream);
+        Objects.requireNonNull(executor);
+        return (P) VER_SPEC.toPublisher(stream, executor);
+    }
+
+    /**
+     * Returns a sequential, ordered {@link StreamEx} of the elements published
+     * by given {@code Flow.Publisher}.
+     *
+     * <p>
+     * The publisher is subscribed when the stream traversal starts. The stream
+     * requests {@code prefetch} elements and then requests more in batches as
+     * the elements are consumed, so no more than {@code prefetch} elements are
+     * buffered at once and the fast publisher cannot overflow the slow stream
+     * consumer. The stream waits for the elements while the buffer is empty.
+     * The stream ends when the publisher completes; the error signalled by the
+     * publisher is rethrown by the terminal operation (checked exceptions are
+     * wrapped into {@link IllegalStateException}). If the thread which
+     * traverses the stream is interrupted while waiting, the subscription is
+     * cancelled, the stream ends and the interrupted status of the thread is
+     * preserved.
+     *
+     * <p>
+     * The subscription is cancelled when the stream is closed, so it's
+     * recommended to close the stream which may be not consumed completely
+     * (e.g. using try-with-resources).
+     *
+     * @param <T> the type of published elements
+     * @param publisher the {@code Flow.Publisher<? extends T>} to subscribe to
+     * @param prefetch the maximal number of the requested elements which are
+     *        not consumed yet
+     * @return the new stream
+     * @throws IllegalArgumentException if publisher is not a
+     *         {@code Flow.Publisher} or prefetch is zero or negative
+     * @throws UnsupportedOperationException if the library runs on Java 8
+     */
+    public static <T> StreamEx<T> ofPublisher(Object publisher, int prefetch) {
+        Objects.requireNonNull(publisher);
+        return VER_SPEC.ofPublisher(publisher, prefetch);
+    }
+}
@@ -0,0 +1,194 @@
+/*
+ * Copyright 2015, 2020 StreamEx contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package one.util.streamex;
+
+import java.util.Spliterator;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+import java.util.function.LongConsumer;
+
+/**
+ * A spliterator which traverses the elements pushed by a reactive publisher.
+ * This is the engine of the reactive subscriber which doesn't depend on the
+ * subscriber API itself: the adapter forwards the subscriber signals to the
+ * corresponding methods.
+ *
+ * <p>
+ * The publisher is subscribed on the first traversal. The spliterator
+ * requests {@code prefetch} elements, then requests the next batch every time
+ * three quarters of the previous batch are consumed, so no more than
+ * {@code prefetch} elements are ever outstanding. The pushed elements are
+ * stored in the single-producer single-consumer ring buffer of
+ * {@code prefetch} capacity (rounded up to the power of two); the consumer
+ * parks while it's empty.
+ *
+ * @author Tagir Valeev
+ */
+/* package */final class SubscriberSpliterator<T> implements Spliterator<T> {
+    private final Consumer<? super SubscriberSpliterator<T>> subscribe;
+    private final Object[] buffer;
+    private final int mask;
+    private final int prefetch;
+    private final int limit;
+    // index of the next element to take (written by consumer only)
+    private final AtomicLong head = new AtomicLong();
+    // index of the next element to put (written by producer only)
+    private final AtomicLong tail = new AtomicLong();
+    private volatile Thread waitingConsumer;
+    private volatile LongConsumer request;
+    private volatile Runnable cancel;
+    private volatile boolean done, closed;
+    // written before done
+    private Throwable error;
+    // accessed by consumer only
+    private boolean subscribed, finished;
+    private int consumed;
+
+    SubscriberSpliterator(int prefetch, Consumer<? super SubscriberSpliterator<T>> subscribe) {
+        if (prefetch <= 0)
+            throw new IllegalArgumentException("prefetch must be positive: " + prefetch);
+        this.subscribe = subscribe;
+        this.prefetch = prefetch;
+        this.limit = prefetch - (prefetch >> 2);
+        int capacity = Integer.highestOneBit(Math.min(prefetch, 1 << 30) * 2 - 1);
+        this.buffer = new Object[capacity];
+        this.mask = capacity - 1;
+    }
+
+    void onSubscribe(LongConsumer request, Runnable cancel) {
+        if (this.cancel != null) {
+            // only one subscription is allowed
+            cancel.run();
+            return;
+        }
+        this.request = request;
+        this.cancel = cancel;
+        if (closed)
+            cancel.run();
+        else
+            request.accept(prefetch);
+    }
+
+    void onNext(T element) {
+        if (done)
+            return;
+        long t = tail.get();
+        if (t - head.get() >= buffer.length) {
+            onError(new IllegalStateException("More elements are pushed than requested"));
+            cancel.run();
+            return;
+        }
+        buffer[(int) t & mask] = element;
+        tail.set(t + 1);
+        wakeUp();
+    }
+
+    void onError(Throwable t) {
+        error = t;
+        done = true;
+        wakeUp();
+    }
+
+    void onComplete() {
+        done = true;
+        wakeUp();
+    }
+
+    private void wakeUp() {
+        Thread consumer = waitingConsumer;
+        if (consumer != null)
+            LockSupport.unpark(consumer);
+    }
+
+    void close() {
+        closed = true;
+        Runnable c = cancel;
+        if (c != null)
+            c.run();
+    }
+
+    @SuppressWarnings("unchecked")
+    private boolean next(Consumer<? super T> action) {
+        if (finished)
+            return false;
+        if (!subscribed) {
+            subscribed = true;
+            subscribe.accept(this);
+        }
+        long h = head.get();
+        while (h == tail.get()) {
+            if (done && h == tail.get()) {
+                finished = true;
+                Throwable t = error;
+                if (t instanceof RuntimeException)
+                    throw (RuntimeException) t;
+                if (t instanceof Error)
+                    throw (Error) t;
+                if (t != null)
+                    throw new IllegalStateException(t);
+                return false;
+            }
+            waitingConsumer = Thread.currentThread();
+            if (h == tail.get() && !done)
+                LockSupport.park(this);
+            waitingConsumer = null;
+            if (Thread.currentThread().isInterrupted()) {
+                // the interrupted status is preserved
+                finished = true;
+                close();
+                return false;
+            }
+        }
+        int index = (int) h & mask;
+        T element = (T) buffer[index];
+        buffer[index] = null;
+        head.set(h + 1);
+        if (++consumed == limit) {
+            consumed = 0;
+            request.accept(limit);
+        }
+        action.accept(element);
+        return true;
+    }
+
+    @Override
+    public boolean tryAdvance(Consumer<? super T> action) {
+        return next(action);
+    }
+
+    @Override
+    public void forEachRemaining(Consumer<? super T> action) {
+        while (next(action)) {
+            // continue
+        }
+    }
+
+    @Override
+    public Spliterator<T> trySplit() {
+        return null;
+    }
+
+    @Override
+    public long estimateSize() {
+        return finished ? 0 : Long.MAX_VALUE;
+    }
+
+    @Override
+    public int characteristics() {
+        return ORDERED | NONNULL;
+    }
+}
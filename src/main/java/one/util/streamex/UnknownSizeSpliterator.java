@@ -16,37 +16,100 @@
 
 package one.util.streamex;
 
+import java.time.Duration;
 import java.util.Iterator;
 import java.util.PrimitiveIterator;
 import java.util.Spliterator;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.function.Consumer;
 import java.util.function.DoubleConsumer;
 import java.util.function.IntConsumer;
 import java.util.function.LongConsumer;
 
+/**
+ * Spliterators over iterators of unknown size. Splitting copies the next
+ * batch of elements into an array. By default every next batch is bigger by
+ * {@link #BATCH_UNIT} than the previous one. In the adaptive mode the batch
+ * size is derived from the measured processing time of the previous batches,
+ * so every batch takes about the target time to process.
+ *
+ * @author Tagir Valeev
+ */
 /* package */abstract class UnknownSizeSpliterator<T, S extends UnknownSizeSpliterator<? extends T, S, I>, I extends Iterator<? extends T>>
         implements Spliterator<T> {
     static final int BATCH_UNIT = 1 << 10; // batch array size increment
     static final int MAX_BATCH = 1 << 25; // max batch array size;
 
+    /**
+     * Collects the processing time of the batches shared by all the splits of
+     * the adaptive spliterator.
+     */
+    static final class BatchCost {
+        private final long targetNanos;
+        private final LongAdder nanos = new LongAdder();
+        private final LongAdder count = new LongAdder();
+
+        BatchCost(long targetNanos) {
+            this.targetNanos = targetNanos;
+        }
+
+        static BatchCost of(Duration batchTime) {
+            if (batchTime.isNegative() || batchTime.isZero())
+                throw new IllegalArgumentException("batchTime must be positive: " + batchTime);
+            long nanos;
+            try {
+                nanos = batchTime.toNanos();
+            } catch (ArithmeticException e) {
+                nanos = Long.MAX_VALUE;
+            }
+            return new BatchCost(nanos);
+        }
+
+        void record(int n, long elapsed) {
+            if (n > 0) {
+                count.add(n);
+                nanos.add(elapsed);
+            }
+        }
+
+        int nextBatch(int prevBatch) {
+            long n = count.sum();
+            if (n == 0) {
+                // nothing is measured yet: start small and double
+                return Math.min(Math.max(prevBatch * 2, 1), MAX_BATCH);
+            }
+            long perElement = Math.max(nanos.sum() / n, 1);
+            return (int) Math.max(Math.min(targetNanos / perElement, MAX_BATCH), 1);
+        }
+    }
+
     I it;
     int index, fence;
     long est = Long.MAX_VALUE;
+    BatchCost cost;
 
     UnknownSizeSpliterator(I iterator) {
         this.it = iterator;
     }
 
+    UnknownSizeSpliterator(I iterator, BatchCost cost) {
+        this.it = iterator;
+        this.cost = cost;
+    }
+
     UnknownSizeSpliterator(int index, int fence) {
         this.index = index;
         this.fence = fence;
     }
 
     int getN() {
+        if (cost != null)
+            return cost.nextBatch(fence);
         return Math.min(fence + BATCH_UNIT, MAX_BATCH);
     }
 
     S correctSize(S prefix) {
+        prefix.cost = cost;
         if (this.it != null)
             prefix.est = Long.MAX_VALUE - 1;
         else {
@@ -73,6 +136,10 @@ import java.util.function.LongConsumer;
             super(iterator);
         }
 
+        USOfRef(Iterator<? extends T> iterator, BatchCost cost) {
+            super(iterator, cost);
+        }
+
         USOfRef(Object[] array, int index, int fence) {
             super(index, fence);
             this.array = array;
@@ -106,11 +173,14 @@ import java.util.function.LongConsumer;
             else {
                 Object[] a = array;
                 int i = index, hi = fence;
+                long start = cost == null ? 0 : System.nanoTime();
                 while (i < hi) {
                     @SuppressWarnings("unchecked")
                     T t = (T) a[i++];
                     action.accept(t);
                 }
+                if (cost != null)
+                    cost.record(hi - index, System.nanoTime() - start);
             }
             index = fence;
             est = 0;
@@ -128,7 +198,14 @@ import java.util.function.LongConsumer;
             } else if (index < fence) {
                 @SuppressWarnings("unchecked")
                 T t = (T) array[index++];
-                action.accept(t);
+                if (cost == null)
+                    action.accept(t);
+                else {
+                    // calibrate on the short-circuiting traversal as well
+                    long start = System.nanoTime();
+                    action.accept(t);
+                    cost.record(1, System.nanoTime() - start);
+                }
                 return true;
             }
             est = 0;
@@ -144,6 +221,10 @@ import java.util.function.LongConsumer;
             super(iterator);
         }
 
+        USOfInt(PrimitiveIterator.OfInt iterator, BatchCost cost) {
+            super(iterator, cost);
+        }
+
         USOfInt(int[] array, int index, int fence) {
             super(index, fence);
             this.array = array;
@@ -177,9 +258,12 @@ import java.util.function.LongConsumer;
             else {
                 int[] a = array;
                 int i = index, hi = fence;
+                long start = cost == null ? 0 : System.nanoTime();
                 while (i < hi) {
                     action.accept(a[i++]);
                 }
+                if (cost != null)
+                    cost.record(hi - index, System.nanoTime() - start);
             }
             index = fence;
             est = 0;
@@ -195,7 +279,13 @@ import java.util.function.LongConsumer;
                 it = null;
                 index = fence;
             } else if (index < fence) {
-                action.accept(array[index++]);
+                if (cost == null)
+                    action.accept(array[index++]);
+                else {
+                    long start = System.nanoTime();
+                    action.accept(array[index++]);
+                    cost.record(1, System.nanoTime() - start);
+                }
                 return true;
             }
             est = 0;
@@ -211,6 +301,10 @@ import java.util.function.LongConsumer;
             super(iterator);
         }
 
+        USOfLong(PrimitiveIterator.OfLong iterator, BatchCost cost) {
+            super(iterator, cost);
+        }
+
         USOfLong(long[] array, int index, int fence) {
             super(index, fence);
             this.array = array;
@@ -244,9 +338,12 @@ import java.util.function.LongConsumer;
             else {
                 long[] a = array;
                 int i = index, hi = fence;
+                long start = cost == null ? 0 : System.nanoTime();
                 while (i < hi) {
                     action.accept(a[i++]);
                 }
+                if (cost != null)
+                    cost.record(hi - index, System.nanoTime() - start);
             }
             index = fence;
             est = 0;
@@ -262,7 +359,13 @@ import java.util.function.LongConsumer;
                 it = null;
                 index = fence;
             } else if (index < fence) {
-                action.accept(array[index++]);
+                if (cost == null)
+                    action.accept(array[index++]);
+                else {
+                    long start = System.nanoTime();
+                    action.accept(array[index++]);
+                    cost.record(1, System.nanoTime() - start);
+                }
                 return true;
             }
             est = 0;
@@ -278,6 +381,10 @@ import java.util.function.LongConsumer;
             super(iterator);
         }
 
+        USOfDouble(PrimitiveIterator.OfDouble iterator, BatchCost cost) {
+            super(iterator, cost);
+        }
+
         USOfDouble(double[] array, int index, int fence) {
             super(index, fence);
             this.array = array;
@@ -311,9 +418,12 @@ import java.util.function.LongConsumer;
             else {
                 double[] a = array;
                 int i = index, hi = fence;
+                long start = cost == null ? 0 : System.nanoTime();
                 while (i < hi) {
                     action.accept(a[i++]);
                 }
+                if (cost != null)
+                    cost.record(hi - index, System.nanoTime() - start);
             }
             index = fence;
             est = 0;
@@ -329,7 +439,13 @@ import java.util.function.LongConsumer;
                 it = null;
                 index = fence;
             } else if (index < fence) {
-                action.accept(array[index++]);
+                if (cost == null)
+                    action.accept(array[index++]);
+                else {
+                    long start = System.nanoTime();
+                    action.accept(array[index++]);
+                    cost.record(1, System.nanoTime() - start);
+                }
                 return true;
             }
             est = 0;
@@ -17,16 +17,23 @@ package one.util.streamex;
 
 import java.nio.CharBuffer;
 import java.util.Spliterator;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 import java.util.function.DoublePredicate;
 import java.util.function.IntPredicate;
 import java.util.function.LongPredicate;
 import java.util.function.Predicate;
 import java.util.stream.IntStream;
+import java.util.stream.Stream;
 
 /**
  * @author Tagir Valeev
  */
 /* package */ class VersionSpecific {
+    static final String FLOW_UNSUPPORTED = "The Flow API requires Java 9 or later";
 
     <T, S extends AbstractStreamEx<T, S>> S callWhile(AbstractStreamEx<T, S> stream, Predicate<? super T> predicate, boolean drop) {
         Spliterator<T> spltr = stream.spliterator();
@@ -47,6 +54,72 @@ import java.util.stream.IntStream;
         return stream.delegate(new TakeDrop.TDOfDouble(stream.spliterator(), drop, false, predicate));
     }
 
+    /**
+     * Returns an executor which runs the tasks in virtual threads (where
+     * available), at most {@code maxConcurrency} tasks at once.
+     *
+     * <p>
+     * Before Java 21 the bounded pool of daemon platform threads is used; the
+     * idle threads terminate, so the pool needs no shutdown.
+     */
+    Executor virtualExecutor(int maxConcurrency) {
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(maxConcurrency, maxConcurrency, 1, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), task -> {
+                    Thread thread = new Thread(task, "StreamEx-worker");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    /**
+     * Returns the shared executor which runs every task in its own thread
+     * (virtual where available), so the long-running tasks never wait for
+     * each other.
+     *
+     * <p>
+     * Before Java 21 the unbounded pool of daemon platform threads is used:
+     * the threads are reused by the subsequent tasks and the idle ones
+     * terminate.
+     */
+    Executor sharedExecutor() {
+        return SharedPool.EXECUTOR;
+    }
+
+    private static final class SharedPool {
+        static final Executor EXECUTOR = new ThreadPoolExecutor(0, Integer.MAX_VALUE, 1, TimeUnit.SECONDS,
+                new SynchronousQueue<>(), task -> {
+                    Thread thread = new Thread(task, "StreamEx-shared");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    /**
+     * Returns the {@code Flow.Publisher} of the stream elements. The Flow API
+     * appears in Java 9, so it's unsupported before.
+     */
+    Object toPublisher(Stream<?> stream, Executor executor) {
+        throw new UnsupportedOperationException(FLOW_UNSUPPORTED);
+    }
+
+    <T> StreamEx<T> ofPublisher(Object publisher, int prefetch) {
+        throw new UnsupportedOperationException(FLOW_UNSUPPORTED);
+    }
+
+    /**
+     * Returns the recorder of the terminal operation which is about to be
+     * performed on the given stream, or null if the operation is not
+     * recorded. The operations are recorded as JFR events which appear in
+     * Java 11, so nothing is recorded before.
+     *
+     * @param sequential whether the operation runs in the current thread
+     */
+    OperationRecorder startOperation(BaseStreamEx<?, ?, ?, ?> stream, boolean sequential) {
+        return null;
+    }
+
     IntStream ofChars(CharSequence seq) {
         // In JDK 8 there's only default chars() method which uses
         // IteratorSpliterator
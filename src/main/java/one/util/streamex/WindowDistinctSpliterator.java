@@ -0,0 +1,157 @@
+/*
+ * Copyright 2015, 2020 StreamEx contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package one.util.streamex;
+
+import java.time.Clock;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+import static one.util.streamex.Internals.Box;
+
+/**
+ * A spliterator which skips the elements having the same key as one of the
+ * recently emitted elements. Only the keys of the window are stored, so the
+ * memory is bounded even for the infinite source. The decision for every
+ * element depends on the previous ones, so this spliterator doesn't split.
+ *
+ * @author Tagir Valeev
+ */
+/* package */abstract class WindowDistinctSpliterator<T, K> extends Box<T> implements Spliterator<T> {
+    private final Spliterator<T> source;
+    private final Function<? super T, ? extends K> keyExtractor;
+
+    WindowDistinctSpliterator(Spliterator<T> source, Function<? super T, ? extends K> keyExtractor) {
+        this.source = source;
+        this.keyExtractor = keyExtractor;
+    }
+
+    /**
+     * Returns true and remembers the key if it's not in the window.
+     */
+    abstract boolean add(K key);
+
+    @Override
+    public boolean tryAdvance(Consumer<? super T> action) {
+        while (source.tryAdvance(this)) {
+            if (add(keyExtractor.apply(a))) {
+                T t = a;
+                a = null;
+                action.accept(t);
+                return true;
+            }
+        }
+        a = null;
+        return false;
+    }
+
+    @Override
+    public void forEachRemaining(Consumer<? super T> action) {
+        source.forEachRemaining(t -> {
+            if (add(keyExtractor.apply(t)))
+                action.accept(t);
+        });
+    }
+
+    @Override
+    public Spliterator<T> trySplit() {
+        return null;
+    }
+
+    @Override
+    public long estimateSize() {
+        return source.estimateSize();
+    }
+
+    @Override
+    public int characteristics() {
+        return source.characteristics() & (NONNULL | CONCURRENT | IMMUTABLE | ORDERED | SORTED | DISTINCT);
+    }
+
+    @Override
+    public Comparator<? super T> getComparator() {
+        return source.getComparator();
+    }
+
+    /**
+     * Remembers the keys of the last {@code windowSize} emitted elements in
+     * the ring buffer indexed by the hash set.
+     */
+    static final class OfCount<T, K> extends WindowDistinctSpliterator<T, K> {
+        private final Set<K> index = new HashSet<>();
+        private final int windowSize;
+        // grows up to the window size, then the oldest key is overwritten
+        private Object[] ring;
+        private int pos;
+
+        OfCount(Spliterator<T> source, Function<? super T, ? extends K> keyExtractor, int windowSize) {
+            super(source, keyExtractor);
+            this.windowSize = windowSize;
+            this.ring = new Object[Math.min(windowSize, 16)];
+        }
+
+        @SuppressWarnings("unchecked")
+        @Override
+        boolean add(K key) {
+            if (!index.add(key))
+                return false;
+            if (pos == ring.length) {
+                if (ring.length < windowSize)
+                    ring = Arrays.copyOf(ring, (int) Math.min(ring.length * 2L, windowSize));
+                else
+                    pos = 0;
+            }
+            if (index.size() > windowSize)
+                index.remove((K) ring[pos]);
+            ring[pos++] = key;
+            return true;
+        }
+    }
+
+    /**
+     * Remembers the keys emitted within the horizon in the insertion order,
+     * so the expired keys are removed from the head.
+     */
+    static final class OfTime<T, K> extends WindowDistinctSpliterator<T, K> {
+        private final Map<K, Long> emitted = new LinkedHashMap<>();
+        private final long horizonMillis;
+        private final Clock clock;
+
+        OfTime(Spliterator<T> source, Function<? super T, ? extends K> keyExtractor, long horizonMillis,
+                Clock clock) {
+            super(source, keyExtractor);
+            this.horizonMillis = horizonMillis;
+            this.clock = clock;
+        }
+
+        @Override
+        boolean add(K key) {
+            long now = clock.millis();
+            Iterator<Long> it = emitted.values().iterator();
+            while (it.hasNext() && now - it.next() >= horizonMillis) {
+                it.remove();
+            }
+            return emitted.putIfAbsent(key, now) == null;
+        }
+    }
+}
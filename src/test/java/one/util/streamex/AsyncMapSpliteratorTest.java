@@ -0,0 +1,37 @@
+/*
+ * Copyright 2015, 2020 StreamEx contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package one.util.streamex;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import org.junit.Test;
+
+import static one.util.streamex.TestHelpers.checkSpliterator;
+
+public class AsyncMapSpliteratorTest {
+    @Test
+    public void testSpliterator() {
+        for (int size : new int[] { 0, 1, 10, 1000 }) {
+            List<Integer> input = IntStreamEx.range(size).boxed().toList();
+            List<String> expected = StreamEx.of(input).map(String::valueOf).toList();
+            for (int maxInFlight : new int[] { 1, 3, 100 }) {
+                checkSpliterator(size + "/" + maxInFlight, expected, () -> new AsyncMapSpliterator<Integer, String>(
+                        input.spliterator(), x -> CompletableFuture.completedFuture(String.valueOf(x)), maxInFlight));
+            }
+        }
+    }
+}
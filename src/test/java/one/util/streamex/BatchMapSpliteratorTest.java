@@ -0,0 +1,82 @@
+/*
+ * Copyright 2015, 2020 StreamEx contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package one.util.streamex;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+import static one.util.streamex.TestHelpers.checkSpliterator;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author Tagir Valeev
+ */
+public class BatchMapSpliteratorTest {
+    @Test
+    public void testSpliterator() {
+        List<Integer> input = IntStreamEx.range(100).boxed().toList();
+        List<Integer> squares = StreamEx.of(input).map(x -> x * x).toList();
+        for (int batchSize : new int[] { 1, 7, 100, 1000 }) {
+            checkSpliterator("map " + batchSize, squares, () -> new BatchMapSpliterator<Integer, Integer>(input
+                    .spliterator(), list -> StreamEx.of(list).map(x -> x * x).toList(), batchSize, true));
+            checkSpliterator("flatMap " + batchSize, StreamEx.of(input).filter(x -> x % 2 == 0).toList(),
+                () -> new BatchMapSpliterator<Integer, Integer>(input.spliterator(), list -> StreamEx.of(list).filter(
+                    x -> x % 2 == 0).toList(), batchSize, false));
+        }
+        checkSpliterator("empty", Collections.emptyList(), () -> new BatchMapSpliterator<Integer, Integer>(input
+                .spliterator(), list -> Collections.emptyList(), 3, false));
+    }
+
+    @Test
+    public void testBatches() {
+        List<Integer> input = IntStreamEx.range(100).boxed().toList();
+        List<Integer> sizes = new ArrayList<>();
+        BatchMapSpliterator<Integer, Integer> spliterator = new BatchMapSpliterator<>(input.spliterator(),
+                list -> {
+                    sizes.add(list.size());
+                    return list;
+                }, 30, true);
+        assertTrue(spliterator.hasCharacteristics(Spliterator.SIZED));
+        assertTrue(spliterator.tryAdvance(x -> assertEquals(0, (int) x)));
+        assertEquals(99, spliterator.estimateSize());
+        // cannot split while the batch results are pending
+        assertNull(spliterator.trySplit());
+        AtomicInteger count = new AtomicInteger();
+        spliterator.forEachRemaining(x -> count.incrementAndGet());
+        assertEquals(99, count.get());
+        assertEquals(StreamEx.of(30, 30, 30, 10).toList(), sizes);
+        assertFalse(new BatchMapSpliterator<>(input.spliterator(), list -> list, 30, false).hasCharacteristics(
+            Spliterator.SIZED));
+    }
+
+    @Test
+    public void testSizeMismatch() {
+        List<Integer> input = IntStreamEx.range(10).boxed().toList();
+        BatchMapSpliterator<Integer, Integer> spliterator = new BatchMapSpliterator<>(input.spliterator(),
+                list -> list.subList(1, list.size()), 5, true);
+        IllegalStateException ex = assertThrows(IllegalStateException.class, () -> spliterator.tryAdvance(x -> {}));
+        assertEquals("The mapper returned 4 results for 5 elements", ex.getMessage());
+    }
+}
@@ -0,0 +1,125 @@
+/*
+ * Copyright 2015, 2020 StreamEx contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package one.util.streamex;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+import static one.util.streamex.Internals.NONE;
+import static one.util.streamex.TestHelpers.checkSpliterator;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author Tagir Valeev
+ */
+public class CacheMapSpliteratorTest {
+    @Test
+    public void testSpliterator() {
+        List<Integer> input = IntStreamEx.range(1000).map(x -> x % 17).boxed().toList();
+        List<String> expected = StreamEx.of(input).map(String::valueOf).toList();
+        for (boolean shared : new boolean[] { false, true }) {
+            checkSpliterator("ref", expected, () -> new CacheMapSpliterator.OfRef<>(input.spliterator(),
+                    String::valueOf, CacheMapSpliterator.objCache(5, shared), null));
+            checkSpliterator("int", expected, () -> new CacheMapSpliterator.OfInt<>(IntStreamEx.of(input)
+                    .spliterator(), String::valueOf, CacheMapSpliterator.longKeyCache(5, shared), null));
+            checkSpliterator("long", expected, () -> new CacheMapSpliterator.OfLong<>(IntStreamEx.of(input)
+                    .asLongStream().spliterator(), String::valueOf, CacheMapSpliterator.longKeyCache(5, shared),
+                    new CacheStatistics()));
+        }
+        checkSpliterator("double", Arrays.asList("1.0", null, "1.0"), () -> new CacheMapSpliterator.OfDouble<>(
+                DoubleStreamEx.of(1, -1, 1).spliterator(), x -> x < 0 ? null : String.valueOf(x), CacheMapSpliterator
+                        .longKeyCache(1, false), null));
+    }
+
+    @Test
+    public void testLruCache() {
+        CacheMapSpliterator.LruCache cache = new CacheMapSpliterator.LruCache(2);
+        cache.store("a", 1);
+        cache.store("b", 2);
+        assertEquals(1, cache.lookup("a"));
+        cache.store("c", 3);
+        // "b" is the least recently used
+        assertSame(NONE, cache.lookup("b"));
+        assertEquals(1, cache.lookup("a"));
+        assertEquals(3, cache.lookup("c"));
+        cache.store(null, 4);
+        assertEquals(4, cache.lookup(null));
+    }
+
+    @Test
+    public void testClockCache() {
+        CacheMapSpliterator.ClockCache cache = new CacheMapSpliterator.ClockCache(3);
+        cache.store(1, "a");
+        cache.store(2, "b");
+        cache.store(3, "c");
+        assertEquals("a", cache.lookup(1));
+        cache.store(4, "d");
+        // 1 was accessed, so 2 is evicted
+        assertSame(NONE, cache.lookup(2));
+        assertEquals("a", cache.lookup(1));
+        assertEquals("c", cache.lookup(3));
+        assertEquals("d", cache.lookup(4));
+
+        // the index is consistent after many evictions with colliding keys
+        Random r = new Random(1);
+        for (int capacity : new int[] { 1, 2, 7, 100, 1000 }) {
+            CacheMapSpliterator.ClockCache clock = new CacheMapSpliterator.ClockCache(capacity);
+            Map<Long, Object> stored = new HashMap<>();
+            for (int i = 0; i < 10000; i++) {
+                long key = r.nextInt(capacity * 3) * 1024L;
+                Object value = clock.lookup(key);
+                if (value == NONE) {
+                    value = "v" + key;
+                    clock.store(key, value);
+                    stored.put(key, value);
+                }
+                assertEquals(stored.get(key), value);
+                assertEquals("v" + key, value);
+            }
+            int present = 0;
+            for (long key : stored.keySet()) {
+                if (clock.lookup(key) != NONE)
+                    present++;
+            }
+            assertEquals(Math.min(capacity, stored.size()), present);
+        }
+    }
+
+    @Test
+    public void testShared() {
+        assertTrue(CacheMapSpliterator.stripes(1) == 1);
+        assertTrue(CacheMapSpliterator.stripes(1000) >= 4);
+        AtomicInteger calls = new AtomicInteger();
+        CacheStatistics statistics = new CacheStatistics();
+        List<Integer> result = StreamEx.of(new CacheMapSpliterator.OfRef<>(IntStreamEx.range(100000).map(x -> x % 10)
+                .boxed().spliterator(), x -> {
+                    calls.incrementAndGet();
+                    return x * 2;
+                }, CacheMapSpliterator.objCache(1000, true), statistics)).parallel().toList();
+        assertEquals(IntStreamEx.range(100000).map(x -> x % 10 * 2).boxed().toList(), result);
+        assertTrue(calls.get() < 1000);
+        assertEquals(calls.get(), statistics.getMissCount());
+        assertEquals(100000, statistics.getHitCount() + statistics.getMissCount());
+    }
+}
@@ -0,0 +1,107 @@
+/*
+ * Copyright 2015, 2020 StreamEx contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package one.util.streamex;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import org.junit.Test;
+
+import static one.util.streamex.TestHelpers.checkSpliterator;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author Tagir Valeev
+ */
+public class CachedSourceTest {
+    @Test
+    public void testSpliterator() {
+        for (int size : new int[] { 0, 1, 10, 1023, 1024, 1025, 3000 }) {
+            List<Integer> input = IntStreamEx.range(size).boxed().toList();
+            CachedSource.OfRef<Integer> sized = new CachedSource.OfRef<>(input.spliterator(),
+                    StreamContext.SEQUENTIAL);
+            checkSpliterator("sized " + size, input, sized::cached);
+            CachedSource.OfRef<Integer> unsized = new CachedSource.OfRef<>(input.stream().filter(x -> true)
+                    .spliterator(), StreamContext.SEQUENTIAL);
+            checkSpliterator("unsized " + size, input, unsized::cached);
+            CachedSource.OfInt ints = new CachedSource.OfInt(IntStreamEx.range(size).spliterator(),
+                    StreamContext.SEQUENTIAL);
+            checkSpliterator("int " + size, input, ints::cached);
+        }
+        CachedSource.OfLong longs = new CachedSource.OfLong(LongStreamEx.range(2000).spliterator(),
+                StreamContext.SEQUENTIAL);
+        checkSpliterator("long", LongStreamEx.range(2000).boxed().toList(), longs::cached);
+        CachedSource.OfDouble doubles = new CachedSource.OfDouble(DoubleStreamEx.of(1, 2, 3).spliterator(),
+                StreamContext.SEQUENTIAL);
+        checkSpliterator("double", Arrays.asList(1.0, 2.0, 3.0), doubles::cached);
+    }
+
+    @Test
+    public void testSegments() {
+        CachedSource.OfInt sized = new CachedSource.OfInt(IntStreamEx.range(1500).spliterator(),
+                StreamContext.SEQUENTIAL);
+        Spliterator.OfInt spliterator = sized.cached();
+        assertTrue(spliterator.hasCharacteristics(CachedSource.CHARACTERISTICS));
+        assertEquals(1500, spliterator.estimateSize());
+        // the last segment of the sized source has the exact length
+        assertEquals(CachedSource.SEGMENT_SIZE, ((int[]) sized.segments[0]).length);
+        assertEquals(1500 - CachedSource.SEGMENT_SIZE, ((int[]) sized.segments[1]).length);
+        CachedSource.OfInt unsized = new CachedSource.OfInt(IntStreamEx.range(1500).filter(x -> true).spliterator(),
+                StreamContext.SEQUENTIAL);
+        unsized.cached();
+        assertEquals(CachedSource.SEGMENT_SIZE, ((int[]) unsized.segments[1]).length);
+    }
+
+    @Test
+    public void testReadOnce() {
+        AtomicInteger reads = new AtomicInteger();
+        AtomicInteger closes = new AtomicInteger();
+        Spliterator<Integer> source = IntStreamEx.range(100).boxed().peek(x -> reads.incrementAndGet())
+                .spliterator();
+        Supplier<StreamEx<Integer>> cache = new CachedSource.OfRef<>(source, StreamContext.SEQUENTIAL.onClose(
+            closes::incrementAndGet));
+        StreamEx<Integer> stream = cache.get();
+        assertEquals(0, reads.get());
+        assertEquals(4950, (int) stream.reduce(0, Integer::sum));
+        assertEquals(100, reads.get());
+        assertEquals(1, closes.get());
+        assertEquals(4950, (int) cache.get().parallel().reduce(0, Integer::sum));
+        assertEquals(100, reads.get());
+        assertEquals(1, closes.get());
+    }
+
+    @Test
+    public void testFailure() {
+        AtomicInteger reads = new AtomicInteger();
+        AtomicInteger closes = new AtomicInteger();
+        Spliterator<Integer> source = IntStreamEx.range(100).boxed().peek(x -> {
+            if (reads.incrementAndGet() == 50)
+                throw new IllegalArgumentException("fail");
+        }).spliterator();
+        Supplier<StreamEx<Integer>> cache = new CachedSource.OfRef<>(source, StreamContext.SEQUENTIAL.onClose(
+            closes::incrementAndGet));
+        assertThrows(IllegalArgumentException.class, () -> cache.get().toList());
+        IllegalStateException ex = assertThrows(IllegalStateException.class, () -> cache.get().count());
+        assertEquals("fail", ex.getCause().getMessage());
+        assertEquals(1, closes.get());
+        assertEquals(50, reads.get());
+    }
+}
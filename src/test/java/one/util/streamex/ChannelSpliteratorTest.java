@@ -0,0 +1,115 @@
+/*
+ * Copyright 2015, 2020 StreamEx contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package one.util.streamex;
+
+import java.io.ByteArrayInputStream;
+import java.io.EOFException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.util.List;
+
+import org.junit.Test;
+
+import static one.util.streamex.TestHelpers.checkSpliterator;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+public class ChannelSpliteratorTest {
+    private static ReadableByteChannel channel(ByteBuffer buf) {
+        return Channels.newChannel(new ByteArrayInputStream(buf.array(), 0, buf.position()));
+    }
+
+    @Test
+    public void testIntSpliterator() {
+        for (int size : new int[] { 0, 1, 5, 2049 }) {
+            List<Integer> input = IntStreamEx.range(size).map(x -> x * 31).boxed().toList();
+            ByteBuffer buf = ByteBuffer.allocate(size * Integer.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            input.forEach(buf::putInt);
+            checkSpliterator(String.valueOf(size), input, () -> new ChannelSpliterator.OfInt(channel(buf),
+                    ByteOrder.LITTLE_ENDIAN, Integer.BYTES));
+        }
+    }
+
+    @Test
+    public void testByteSpliterator() {
+        for (int size : new int[] { 0, 1, 8193 }) {
+            List<Integer> input = IntStreamEx.range(size).map(x -> x & 0xFF).boxed().toList();
+            ByteBuffer buf = ByteBuffer.allocate(size);
+            input.forEach(b -> buf.put(b.byteValue()));
+            checkSpliterator(String.valueOf(size), input, () -> new ChannelSpliterator.OfInt(channel(buf),
+                    ByteOrder.BIG_ENDIAN, Byte.BYTES));
+        }
+    }
+
+    @Test
+    public void testLongSpliterator() {
+        for (int size : new int[] { 0, 1, 1025 }) {
+            List<Long> input = LongStreamEx.range(size).map(x -> x << 33).boxed().toList();
+            ByteBuffer buf = ByteBuffer.allocate(size * Long.BYTES);
+            input.forEach(buf::putLong);
+            checkSpliterator(String.valueOf(size), input, () -> new ChannelSpliterator.OfLong(channel(buf),
+                    ByteOrder.BIG_ENDIAN));
+        }
+    }
+
+    @Test
+    public void testDoubleSpliterator() {
+        for (int size : new int[] { 0, 1, 1025 }) {
+            List<Double> input = LongStreamEx.range(size).asDoubleStream().map(Math::sqrt).boxed().toList();
+            ByteBuffer buf = ByteBuffer.allocate(size * Double.BYTES);
+            input.forEach(buf::putDouble);
+            checkSpliterator(String.valueOf(size), input, () -> new ChannelSpliterator.OfDouble(channel(buf),
+                    ByteOrder.BIG_ENDIAN));
+        }
+    }
+
+    @Test
+    public void testRecordSpliterator() {
+        for (int size : new int[] { 0, 1, 1000 }) {
+            List<String> input = IntStreamEx.range(size).mapToObj(x -> x + ":" + x * 2).toList();
+            ByteBuffer buf = ByteBuffer.allocate(size * 12);
+            IntStreamEx.range(size).forEach(x -> buf.putInt(x).putLong(x * 2L));
+            checkSpliterator(String.valueOf(size), input, () -> new ChannelSpliterator.OfRecords<>(channel(buf), 12,
+                    b -> b.getInt() + ":" + b.getLong()));
+        }
+        // record bigger than the default buffer
+        int recordSize = ChannelSpliterator.BUFFER_SIZE * 3 / 2;
+        ByteBuffer buf = ByteBuffer.allocate(recordSize * 3);
+        for (int i = 0; i < recordSize * 3; i++) {
+            buf.put((byte) (i / recordSize));
+        }
+        checkSpliterator("big", IntStreamEx.range(3).boxed().toList(), () -> new ChannelSpliterator.OfRecords<>(
+                channel(buf), recordSize, b -> {
+                    assertEquals(recordSize, b.remaining());
+                    return (int) b.get(recordSize / 2);
+                }));
+    }
+
+    @Test
+    public void testTruncated() {
+        ByteBuffer buf = ByteBuffer.allocate(10);
+        buf.position(10);
+        ChannelSpliterator.OfLong spliterator = new ChannelSpliterator.OfLong(channel(buf), ByteOrder.BIG_ENDIAN);
+        assertTrue(spliterator.tryAdvance((long x) -> assertEquals(0, x)));
+        UncheckedIOException ex = assertThrows(UncheckedIOException.class, () -> spliterator.tryAdvance(
+            (long x) -> {}));
+        assertTrue(ex.getCause() instanceof EOFException);
+    }
+}
@@ -0,0 +1,72 @@
+/*
+ * Copyright 2015, 2020 StreamEx contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package one.util.streamex;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.stream.IntStream;
+
+import org.junit.Test;
+
+import static one.util.streamex.TestHelpers.checkSpliterator;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author Tagir Valeev
+ */
+public class CheckpointSpliteratorTest {
+    @Test
+    public void testSpliterator() {
+        List<Integer> input = IntStreamEx.range(100).boxed().toList();
+        StageStatistics stats = new StageStatistics();
+        checkSpliterator("ref", input, () -> CheckpointSpliterator.wrap(input.spliterator(), stats.stage("ref")));
+        checkSpliterator("int", input, () -> CheckpointSpliterator.wrap(IntStream.range(0, 100).spliterator(), stats
+                .stage("int")));
+        checkSpliterator("long", LongStreamEx.range(100).boxed().toList(), () -> CheckpointSpliterator.wrap(
+            LongStreamEx.range(100).spliterator(), stats.stage("long")));
+        checkSpliterator("double", DoubleStreamEx.of(1.0, 2.0, 3.0).boxed().toList(), () -> CheckpointSpliterator
+                .wrap(DoubleStreamEx.of(1.0, 2.0, 3.0).spliterator(), stats.stage("double")));
+        assertEquals(Arrays.asList("ref", "int", "long", "double"), stats.getStages());
+    }
+
+    @Test
+    public void testSplits() {
+        StageStatistics stats = new StageStatistics();
+        Spliterator<Integer> spliterator = CheckpointSpliterator.wrap(IntStreamEx.range(100).boxed().toList()
+                .spliterator(), stats.stage("source"));
+        Spliterator<Integer> prefix = spliterator.trySplit();
+        Spliterator<Integer> prefixPrefix = prefix.trySplit();
+        List<Integer> result = new ArrayList<>();
+        prefixPrefix.forEachRemaining(result::add);
+        prefix.tryAdvance(result::add);
+        prefix.forEachRemaining(result::add);
+        spliterator.forEachRemaining(result::add);
+        assertEquals(IntStreamEx.range(100).boxed().toList(), result);
+        assertEquals(100, stats.getElementCount("source"));
+        List<String> paths = new ArrayList<>();
+        long count = 0;
+        for (StageStatistics.Split split : stats.getSplits("source")) {
+            paths.add(split.getPath());
+            count += split.getElementCount();
+            assertTrue(split.getNanos() >= 0);
+        }
+        assertEquals(Arrays.asList("00", "01", "1"), paths);
+        assertEquals(100, count);
+    }
+}
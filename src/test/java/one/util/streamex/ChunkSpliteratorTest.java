@@ -0,0 +1,89 @@
+/*
+ * Copyright 2015, 2020 StreamEx contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package one.util.streamex;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.function.Function;
+import java.util.stream.StreamSupport;
+
+import org.junit.Test;
+
+import static one.util.streamex.TestHelpers.checkSpliterator;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author Tagir Valeev
+ */
+public class ChunkSpliteratorTest {
+    private static <T, R> Spliterator<R> map(Spliterator<T> spliterator, Function<T, R> mapper) {
+        return StreamSupport.stream(spliterator, false).map(mapper).spliterator();
+    }
+
+    private static List<List<Integer>> expected(int size, int chunkSize) {
+        return StreamEx.ofSubLists(IntStreamEx.range(size).boxed().toList(), chunkSize).toList();
+    }
+
+    @Test
+    public void testSpliterator() {
+        for (int size : new int[] { 0, 1, 10, 99, 100, 1000 }) {
+            List<Integer> input = IntStreamEx.range(size).boxed().toList();
+            for (int chunkSize : new int[] { 1, 3, 10, 64, 2000 }) {
+                List<List<Integer>> expected = expected(size, chunkSize);
+                String msg = size + "/" + chunkSize;
+                checkSpliterator("sized " + msg, expected, () -> new ChunkSpliterator.OfRef<>(input.spliterator(),
+                        null, chunkSize));
+                checkSpliterator("unsized " + msg, expected, () -> new ChunkSpliterator.OfRef<>(input.stream()
+                        .filter(x -> true).spliterator(), null, chunkSize));
+                checkSpliterator("int " + msg, expected, () -> map(new ChunkSpliterator.OfInt(IntStreamEx.range(
+                    size).spliterator(), null, chunkSize), a -> IntStreamEx.of(a).boxed().toList()));
+            }
+        }
+        List<List<Long>> longs = Arrays.asList(Arrays.asList(0L, 1L), Arrays.asList(2L));
+        checkSpliterator("long", longs, () -> map(new ChunkSpliterator.OfLong(LongStreamEx.range(3).spliterator(),
+                null, 2), a -> LongStreamEx.of(a).boxed().toList()));
+        List<List<Double>> doubles = Arrays.asList(Arrays.asList(1.0, 2.0), Arrays.asList(3.0));
+        checkSpliterator("double", doubles, () -> map(new ChunkSpliterator.OfDouble(DoubleStreamEx.of(1, 2, 3)
+                .spliterator(), null, 2), a -> DoubleStreamEx.of(a).boxed().toList()));
+    }
+
+    @Test
+    public void testAlignedSplit() {
+        List<Integer> input = IntStreamEx.range(100).boxed().toList();
+        Spliterator<List<Integer>> spliterator = new ChunkSpliterator.OfRef<>(input.spliterator(), null, 7);
+        assertTrue(spliterator.hasCharacteristics(Spliterator.SIZED | Spliterator.SUBSIZED));
+        assertEquals(15, spliterator.estimateSize());
+        Spliterator<List<Integer>> prefix = spliterator.trySplit();
+        // 50 elements are split off and aligned to 56
+        assertEquals(8, prefix.estimateSize());
+        assertEquals(7, spliterator.estimateSize());
+        List<List<Integer>> chunks = new ArrayList<>();
+        prefix.forEachRemaining(chunks::add);
+        assertEquals(expected(56, 7), chunks);
+        assertTrue(spliterator.tryAdvance(chunk -> assertEquals(Arrays.asList(56, 57, 58, 59, 60, 61, 62), chunk)));
+
+        Spliterator<List<Integer>> unsized = new ChunkSpliterator.OfRef<>(input.stream().filter(x -> true)
+                .spliterator(), null, 7);
+        assertFalse(unsized.hasCharacteristics(Spliterator.SIZED));
+        // all the chunks fit into the first batch
+        assertEquals(15, unsized.trySplit().estimateSize());
+        assertEquals(null, unsized.trySplit());
+    }
+}
@@ -0,0 +1,106 @@
+/*
+ * Copyright 2015, 2020 StreamEx contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package one.util.streamex;
+
+import java.time.Duration;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import org.junit.Test;
+
+import static one.util.streamex.Internals.CancelException;
+import static one.util.streamex.TestHelpers.checkSpliterator;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author Tagir Valeev
+ */
+public class DeadlineSpliteratorTest {
+    private static <T, S extends Spliterator<T>> S forever(S source) {
+        return DeadlineSpliterator.wrap(source, ChronoUnit.FOREVER.getDuration(), null);
+    }
+
+    @Test
+    public void testSpliterator() {
+        List<Integer> input = IntStreamEx.range(100).boxed().toList();
+        checkSpliterator("ref", input, () -> forever(input.spliterator()));
+        checkSpliterator("int", input, () -> forever(IntStream.range(0, 100).spliterator()));
+        checkSpliterator("long", LongStreamEx.range(100).boxed().toList(),
+            () -> forever(LongStreamEx.range(100).spliterator()));
+        checkSpliterator("double", DoubleStreamEx.of(1.0, 2.0, 3.0).boxed().toList(),
+            () -> forever(DoubleStreamEx.of(1.0, 2.0, 3.0).spliterator()));
+        Spliterator<Integer> spliterator = forever(input.spliterator());
+        assertFalse(spliterator.hasCharacteristics(Spliterator.SIZED));
+        assertTrue(spliterator.hasCharacteristics(Spliterator.ORDERED));
+        assertEquals(100, spliterator.estimateSize());
+    }
+
+    @Test
+    public void testExpired() throws InterruptedException {
+        AtomicInteger expired = new AtomicInteger();
+        List<Integer> input = IntStreamEx.range(100).boxed().toList();
+        Spliterator<Integer> spliterator = DeadlineSpliterator.wrap(input.spliterator(), Duration.ofMillis(200),
+            expired::incrementAndGet);
+        Spliterator<Integer> prefix = spliterator.trySplit();
+        List<Integer> result = new ArrayList<>();
+        assertTrue(prefix.tryAdvance(result::add));
+        Thread.sleep(300);
+        assertEquals(0, expired.get());
+        assertFalse(prefix.tryAdvance(result::add));
+        assertEquals(1, expired.get());
+        spliterator.forEachRemaining(result::add);
+        prefix.forEachRemaining(result::add);
+        assertEquals(1, expired.get());
+        assertEquals(1, result.size());
+        assertEquals(0, spliterator.estimateSize());
+        assertNull(spliterator.trySplit());
+
+        // downstream cancellation is not swallowed
+        Spliterator<Integer> notExpired = forever(input.spliterator());
+        assertThrows(CancelException.class, () -> notExpired.forEachRemaining(x -> {
+            throw new CancelException();
+        }));
+
+        assertThrows(IllegalArgumentException.class, () -> DeadlineSpliterator.wrap(input.spliterator(),
+            Duration.ZERO, null));
+    }
+
+    @Test
+    public void testClockStartsOnTraversal() throws InterruptedException {
+        AtomicInteger expired = new AtomicInteger();
+        List<Integer> input = IntStreamEx.range(100).boxed().toList();
+        Spliterator<Integer> spliterator = DeadlineSpliterator.wrap(input.spliterator(), Duration.ofMillis(200),
+            expired::incrementAndGet);
+        Thread.sleep(300);
+        List<Integer> result = new ArrayList<>();
+        spliterator.forEachRemaining(result::add);
+        assertEquals(input, result);
+        assertEquals(0, expired.get());
+
+        StreamEx<Integer> stream = StreamEx.of(input).withDeadline(Duration.ofMillis(200), expired::incrementAndGet);
+        Thread.sleep(300);
+        assertEquals(input, stream.toList());
+        assertEquals(0, expired.get());
+    }
+}
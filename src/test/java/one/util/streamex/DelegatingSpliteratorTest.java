@@ -0,0 +1,113 @@
+/*
+ * Copyright 2015, 2020 StreamEx contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package one.util.streamex;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.stream.IntStream;
+
+import org.junit.Test;
+
+import static one.util.streamex.TestHelpers.checkSpliterator;
+import static org.junit.Assert.assertEquals;
+
+/**
+ * @author Tagir Valeev
+ */
+public class DelegatingSpliteratorTest {
+    static class PathHooks extends DelegatingSpliterator.Hooks {
+        final List<String> events = new ArrayList<>();
+
+        @Override
+        boolean canSplit(Spliterator<?> source, int depth) {
+            events.add("canSplit:" + depth);
+            return true;
+        }
+
+        @Override
+        DelegatingSpliterator.Hooks split(String path, Spliterator<?> prefix, Spliterator<?> source) {
+            events.add("split:" + path);
+            return this;
+        }
+
+        @Override
+        void start(String path) {
+            events.add("start:" + path);
+        }
+    }
+
+    @Test
+    public void testSpliterator() {
+        List<Integer> input = IntStreamEx.range(100).boxed().toList();
+        DelegatingSpliterator.Hooks hooks = new DelegatingSpliterator.Hooks() {
+            // no additional behavior
+        };
+        checkSpliterator("ref", input, () -> DelegatingSpliterator.wrap(input.spliterator(), hooks));
+        checkSpliterator("int", input, () -> DelegatingSpliterator.wrap(IntStream.range(0, 100).spliterator(),
+            hooks));
+        checkSpliterator("long", LongStreamEx.range(100).boxed().toList(), () -> DelegatingSpliterator.wrap(
+            LongStreamEx.range(100).spliterator(), hooks));
+        checkSpliterator("double", DoubleStreamEx.of(1.0, 2.0, 3.0).boxed().toList(), () -> DelegatingSpliterator
+                .wrap(DoubleStreamEx.of(1.0, 2.0, 3.0).spliterator(), hooks));
+
+        DelegatingSpliterator.Hooks splitOnly = new DelegatingSpliterator.Hooks() {
+            @Override
+            boolean tracksTraversal() {
+                return false;
+            }
+        };
+        checkSpliterator("ref split only", input, () -> DelegatingSpliterator.wrap(input.spliterator(), splitOnly));
+        checkSpliterator("int split only", input, () -> DelegatingSpliterator.wrap(IntStream.range(0, 100)
+                .spliterator(), splitOnly));
+        checkSpliterator("long split only", LongStreamEx.range(100).boxed().toList(), () -> DelegatingSpliterator
+                .wrap(LongStreamEx.range(100).spliterator(), splitOnly));
+        checkSpliterator("double split only", DoubleStreamEx.of(1.0, 2.0, 3.0).boxed().toList(),
+            () -> DelegatingSpliterator.wrap(DoubleStreamEx.of(1.0, 2.0, 3.0).spliterator(), splitOnly));
+    }
+
+    @Test
+    public void testPath() {
+        PathHooks hooks = new PathHooks();
+        Spliterator<Integer> spliterator = DelegatingSpliterator.wrap(IntStreamEx.range(100).boxed().toList()
+                .spliterator(), hooks);
+        Spliterator<Integer> prefix = spliterator.trySplit();
+        prefix.trySplit().tryAdvance(x -> {});
+        prefix.tryAdvance(x -> {});
+        spliterator.forEachRemaining(x -> {});
+        assertEquals(Arrays.asList("canSplit:0", "split:", "canSplit:1", "split:0", "start:00", "start:01",
+            "start:1"), hooks.events);
+    }
+
+    @Test
+    public void testSplitOnly() {
+        PathHooks hooks = new PathHooks() {
+            @Override
+            boolean tracksTraversal() {
+                return false;
+            }
+        };
+        Spliterator<Integer> spliterator = DelegatingSpliterator.wrap(IntStreamEx.range(100).boxed().toList()
+                .spliterator(), hooks);
+        Spliterator<Integer> prefix = spliterator.trySplit();
+        prefix.trySplit().tryAdvance(x -> {});
+        prefix.tryAdvance(x -> {});
+        spliterator.forEachRemaining(x -> {});
+        // the traversal hooks are not called
+        assertEquals(Arrays.asList("canSplit:0", "split:", "canSplit:1", "split:0"), hooks.events);
+    }
+}
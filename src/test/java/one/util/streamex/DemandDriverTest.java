@@ -0,0 +1,111 @@
+/*
+ * Copyright 2015, 2020 StreamEx contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package one.util.streamex;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Stream;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author Tagir Valeev
+ */
+public class DemandDriverTest {
+    private static class Recorder {
+        final List<Integer> elements = new ArrayList<>();
+        final AtomicReference<Throwable> error = new AtomicReference<>();
+        final AtomicInteger closed = new AtomicInteger();
+        boolean completed;
+        DemandDriver<Integer> driver;
+
+        Recorder(Stream<Integer> stream) {
+            driver = new DemandDriver<>(stream.spliterator(), closed::incrementAndGet, Runnable::run,
+                    elements::add, error::set, () -> completed = true);
+        }
+    }
+
+    @Test
+    public void testDemand() {
+        AtomicInteger pulled = new AtomicInteger();
+        Recorder r = new Recorder(IntStreamEx.range(10).boxed().peek(x -> pulled.incrementAndGet()));
+        r.driver.request(3);
+        assertEquals(StreamEx.of(0, 1, 2).toList(), r.elements);
+        assertEquals(3, pulled.get());
+        assertFalse(r.completed);
+        r.driver.request(Long.MAX_VALUE);
+        r.driver.request(Long.MAX_VALUE);
+        assertEquals(IntStreamEx.range(10).boxed().toList(), r.elements);
+        assertTrue(r.completed);
+        assertEquals(1, r.closed.get());
+        assertNull(r.error.get());
+    }
+
+    @Test
+    public void testReentrantRequest() {
+        List<Integer> elements = new ArrayList<>();
+        AtomicReference<DemandDriver<Integer>> driver = new AtomicReference<>();
+        driver.set(new DemandDriver<>(IntStreamEx.range(100000).boxed().spliterator(), () -> {}, Runnable::run,
+                x -> {
+                    elements.add(x);
+                    driver.get().request(1);
+                }, Throwable::printStackTrace, () -> {}));
+        driver.get().request(1);
+        assertEquals(100000, elements.size());
+    }
+
+    @Test
+    public void testCancel() {
+        Recorder r = new Recorder(StreamEx.iterate(0, x -> x + 1));
+        r.driver.request(2);
+        r.driver.cancel();
+        r.driver.request(2);
+        assertEquals(StreamEx.of(0, 1).toList(), r.elements);
+        assertFalse(r.completed);
+        assertNull(r.error.get());
+        assertEquals(1, r.closed.get());
+    }
+
+    @Test
+    public void testErrors() {
+        Recorder r = new Recorder(IntStreamEx.range(10).boxed());
+        r.driver.request(0);
+        assertTrue(r.error.get() instanceof IllegalArgumentException);
+        assertTrue(r.elements.isEmpty());
+        assertEquals(1, r.closed.get());
+
+        r = new Recorder(StreamEx.of(1, 2, 0).map(x -> 2 / x));
+        r.driver.request(10);
+        assertEquals(StreamEx.of(2, 1).toList(), r.elements);
+        assertTrue(r.error.get() instanceof ArithmeticException);
+        assertFalse(r.completed);
+
+        AtomicReference<Throwable> error = new AtomicReference<>();
+        DemandDriver<Integer> driver = new DemandDriver<>(StreamEx.of(1).spliterator(), () -> {}, task -> {
+            throw new RejectedExecutionException();
+        }, x -> {}, error::set, () -> {});
+        driver.request(1);
+        assertTrue(error.get() instanceof RejectedExecutionException);
+    }
+}
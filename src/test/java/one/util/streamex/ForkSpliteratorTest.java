@@ -0,0 +1,141 @@
+/*
+ * Copyright 2015, 2020 StreamEx contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package one.util.streamex;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author Tagir Valeev
+ */
+public class ForkSpliteratorTest {
+    private static final int MAX_BUFFERED = (ForkSpliterator.BUFFER_BATCHES + 2) * ForkSpliterator.BATCH_SIZE;
+
+    @SafeVarargs
+    private static <T> void fork(StreamEx<T> stream, Consumer<? super StreamEx<T>>... branches) {
+        ForkSpliterator.fork(stream.spliterator(), Arrays.asList(branches));
+    }
+
+    @Test
+    public void testFork() {
+        for (int size : new int[] { 0, 1, 1023, 1024, 1025, 10000 }) {
+            List<Integer> input = IntStreamEx.range(size).boxed().toList();
+            AtomicReference<Long> sum = new AtomicReference<>();
+            AtomicReference<List<Integer>> list = new AtomicReference<>();
+            AtomicReference<List<Integer>> parallel = new AtomicReference<>();
+            fork(StreamEx.of(input).filter(x -> true), s -> sum.set(s.mapToLong(x -> x).sum()), s -> list.set(s
+                    .toList()), s -> parallel.set(s.parallel().map(x -> x).toList()));
+            assertEquals((long) size * (size - 1) / 2, (long) sum.get());
+            assertEquals(input, list.get());
+            assertEquals(input, parallel.get());
+        }
+        AtomicReference<List<String>> nulls = new AtomicReference<>();
+        fork(StreamEx.of("a", null, "b"), s -> nulls.set(s.toList()));
+        assertEquals(Arrays.asList("a", null, "b"), nulls.get());
+    }
+
+    @Test
+    public void testShortCircuit() {
+        AtomicInteger reads = new AtomicInteger();
+        AtomicReference<Optional<Integer>> first = new AtomicReference<>();
+        AtomicReference<List<Integer>> limited = new AtomicReference<>();
+        fork(StreamEx.iterate(0, x -> x + 1).peek(x -> reads.incrementAndGet()), s -> first.set(s.findFirst()),
+            s -> limited.set(s.limit(5000).toList()));
+        assertEquals(Optional.of(0), first.get());
+        assertEquals(IntStreamEx.range(5000).boxed().toList(), limited.get());
+        // the last batch taken by the limited branch is only partially used
+        assertTrue(reads.get() <= 5000 + ForkSpliterator.BATCH_SIZE + MAX_BUFFERED);
+        // branches which ignore the stream
+        fork(StreamEx.iterate(0, x -> x + 1), s -> {}, s -> {});
+        fork(StreamEx.iterate(0, x -> x + 1));
+    }
+
+    @Test
+    public void testBackPressure() throws InterruptedException {
+        AtomicInteger reads = new AtomicInteger();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicReference<Long> count = new AtomicReference<>();
+        Thread thread = new Thread(() -> fork(IntStreamEx.range(100000).boxed().peek(x -> reads.incrementAndGet()),
+            s -> count.set(s.count()), s -> s.forEach(x -> {
+                started.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    throw new IllegalStateException(e);
+                }
+            })));
+        thread.start();
+        started.await();
+        Thread.sleep(100);
+        assertTrue(reads.get() <= MAX_BUFFERED);
+        assertNull(count.get());
+        release.countDown();
+        thread.join();
+        assertEquals(100000, reads.get());
+        assertEquals(100000L, (long) count.get());
+    }
+
+    @Test
+    public void testFailure() {
+        AtomicBoolean completed = new AtomicBoolean();
+        IllegalArgumentException ex = assertThrows(IllegalArgumentException.class, () -> fork(StreamEx.iterate(0,
+            x -> x + 1), s -> s.forEach(x -> {
+                if (x == 3000)
+                    throw new IllegalArgumentException("branch");
+            }), s -> {
+                s.forEach(x -> {});
+                completed.set(true);
+            }));
+        assertEquals("branch", ex.getMessage());
+        assertFalse(completed.get());
+
+        ex = assertThrows(IllegalArgumentException.class, () -> fork(IntStreamEx.range(10000).boxed().peek(x -> {
+            if (x == 5000)
+                throw new IllegalArgumentException("source");
+        }), s -> {
+            s.forEach(x -> {});
+            completed.set(true);
+        }));
+        assertEquals("source", ex.getMessage());
+        assertFalse(completed.get());
+
+        // the failing branch is not the first one
+        ex = assertThrows(IllegalArgumentException.class, () -> fork(StreamEx.iterate(0, x -> x + 1), s -> s
+                .forEach(x -> {}), s -> s.forEach(x -> {
+                    if (x == 3000)
+                        throw new IllegalArgumentException("branch");
+                })));
+        assertEquals("branch", ex.getMessage());
+        assertEquals(0, ex.getSuppressed().length);
+
+        assertThrows(NullPointerException.class, () -> fork(StreamEx.of(1), s -> {}, null));
+    }
+}
@@ -73,4 +73,34 @@ public class InternalsTest {
         assertNotEquals(boxOneTwo, boxOneOne);
         assertEquals(boxTwoOne, boxOneOne);
     }
+
+    @Test
+    public void testJoiningAccumulator() {
+        Joining.Accumulator acc1 = new Joining.Accumulator();
+        Joining.Accumulator acc2 = new Joining.Accumulator();
+        assertTrue(acc1.isEmpty());
+        assertEquals("[]", acc1.join(", ", "[", "]"));
+        for (int i = 0; i < 100; i++) {
+            acc1.add(String.valueOf(i));
+        }
+        for (int i = 100; i < 2000; i++) {
+            acc2.add(new StringBuilder(String.valueOf(i)));
+        }
+        acc1.addAll(new Joining.Accumulator());
+        acc1.addAll(acc2);
+        acc1.add("x");
+        String expected = IntStreamEx.range(2000).mapToObj(String::valueOf).append("x").joining(", ", "[", "]");
+        assertFalse(acc1.isEmpty());
+        assertEquals(expected, acc1.join(", ", "[", "]"));
+        assertEquals(expected.length() - 2, acc1.length(", "));
+        assertEquals(expected, StreamEx.of(acc1.iterator()).joining(", ", "[", "]"));
+
+        Joining.Accumulator acc3 = new Joining.Accumulator();
+        acc3.builder(",").append(1);
+        acc3.builder(",").append(2);
+        Joining.Accumulator acc4 = new Joining.Accumulator();
+        acc4.builder(",").append(3);
+        acc3.addAll(acc4);
+        assertEquals("1,2;3", acc3.join(";", "", ""));
+    }
 }
@@ -0,0 +1,86 @@
+/*
+ * Copyright 2015, 2020 StreamEx contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package one.util.streamex;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.stream.IntStream;
+
+import org.junit.Test;
+
+import static one.util.streamex.TestHelpers.checkSpliterator;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author Tagir Valeev
+ */
+public class PolicySpliteratorTest {
+    private static <T> void splitAll(Spliterator<T> spliterator, List<Long> leaves) {
+        Spliterator<T> prefix = spliterator.trySplit();
+        if (prefix != null) {
+            splitAll(prefix, leaves);
+            splitAll(spliterator, leaves);
+        } else {
+            leaves.add(spliterator.estimateSize());
+        }
+    }
+
+    private static List<Long> leaves(SplitPolicy policy, int size) {
+        List<Long> leaves = new ArrayList<>();
+        splitAll(PolicySpliterator.wrap(IntStreamEx.range(size).boxed().toList().spliterator(), policy), leaves);
+        return leaves;
+    }
+
+    @Test
+    public void testSpliterator() {
+        List<Integer> input = IntStreamEx.range(100).boxed().toList();
+        checkSpliterator("ref", input, () -> PolicySpliterator.wrap(input.spliterator(), SplitPolicy.maxDepth(3)));
+        checkSpliterator("ref", input, () -> PolicySpliterator.wrap(input.spliterator(), SplitPolicy.minLeafSize(
+            7)));
+        checkSpliterator("int", input, () -> PolicySpliterator.wrap(IntStream.range(0, 100).spliterator(),
+                SplitPolicy.chunks(5)));
+        checkSpliterator("long", LongStreamEx.range(100).boxed().toList(), () -> PolicySpliterator.wrap(
+            LongStreamEx.range(100).spliterator(), SplitPolicy.maxDepth(1)));
+        checkSpliterator("double", DoubleStreamEx.of(1.0, 2.0, 3.0).boxed().toList(), () -> PolicySpliterator.wrap(
+            DoubleStreamEx.of(1.0, 2.0, 3.0).spliterator(), SplitPolicy.minLeafSize(1)));
+    }
+
+    @Test
+    public void testPolicy() {
+        assertEquals(1, leaves(SplitPolicy.maxDepth(0), 1000).size());
+        assertEquals(4, leaves(SplitPolicy.maxDepth(2), 1000).size());
+        assertEquals(8, leaves(SplitPolicy.chunks(5), 1000).size());
+        assertEquals(4, leaves(SplitPolicy.chunks(4), 1000).size());
+        assertEquals(1, leaves(SplitPolicy.chunks(1), 1000).size());
+        List<Long> leaves = leaves(SplitPolicy.minLeafSize(100), 1000);
+        assertEquals(8, leaves.size());
+        assertTrue(leaves.stream().allMatch(size -> size >= 100));
+        assertEquals(2, leaves(SplitPolicy.minLeafSize(100).withMaxDepth(1), 1000).size());
+        assertEquals(2, leaves(SplitPolicy.maxDepth(5).withMinLeafSize(300), 1000).size());
+        assertNull(PolicySpliterator.wrap(new ArrayList<>().spliterator(), SplitPolicy.minLeafSize(1))
+                .trySplit());
+
+        assertThrows(IllegalArgumentException.class, () -> SplitPolicy.minLeafSize(0));
+        assertThrows(IllegalArgumentException.class, () -> SplitPolicy.maxDepth(-1));
+        assertThrows(IllegalArgumentException.class, () -> SplitPolicy.chunks(0));
+        assertEquals("SplitPolicy[minLeafSize=10, maxDepth=2]", SplitPolicy.minLeafSize(10).withMaxDepth(2)
+                .toString());
+    }
+}
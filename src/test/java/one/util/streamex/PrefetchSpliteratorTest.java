@@ -0,0 +1,161 @@
+/*
+ * Copyright 2015, 2020 StreamEx contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package one.util.streamex;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.Test;
+
+import static one.util.streamex.TestHelpers.checkSpliterator;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author Tagir Valeev
+ */
+public class PrefetchSpliteratorTest {
+    @Test
+    public void testSpliterator() {
+        List<Integer> input = IntStreamEx.range(100).boxed().toList();
+        // the buffer is big enough to drain the source, so no producer waits
+        checkSpliterator("prefetch", input, () -> new PrefetchSpliterator<>(input.spliterator(), 128));
+        List<String> nulls = Arrays.asList("a", null, "b", null);
+        checkSpliterator("nulls", nulls, () -> new PrefetchSpliterator<>(nulls.spliterator(), 4));
+        checkSpliterator("empty", Collections.emptyList(), () -> new PrefetchSpliterator<>(Collections.emptyList()
+                .spliterator(), 1));
+    }
+
+    @Test
+    public void testSpliteratorProperties() {
+        List<Integer> input = IntStreamEx.range(100).boxed().toList();
+        PrefetchSpliterator<Integer> spliterator = new PrefetchSpliterator<>(input.spliterator(), 10);
+        assertTrue(spliterator.hasCharacteristics(Spliterator.SIZED));
+        assertTrue(spliterator.hasCharacteristics(Spliterator.ORDERED));
+        assertFalse(spliterator.hasCharacteristics(Spliterator.SUBSIZED));
+        assertNull(spliterator.trySplit());
+        assertEquals(100, spliterator.estimateSize());
+        assertTrue(spliterator.tryAdvance(x -> assertEquals(0, (int) x)));
+        assertEquals(99, spliterator.estimateSize());
+        AtomicInteger sum = new AtomicInteger();
+        spliterator.forEachRemaining(sum::addAndGet);
+        assertEquals(4950, sum.get());
+        assertEquals(0, spliterator.estimateSize());
+        assertFalse(spliterator.tryAdvance(x -> {}));
+    }
+
+    @Test
+    public void testBackPressure() {
+        AtomicInteger produced = new AtomicInteger();
+        PrefetchSpliterator<Integer> spliterator = new PrefetchSpliterator<>(IntStreamEx.range(10000).boxed().peek(
+            x -> produced.incrementAndGet()).spliterator(), 10);
+        AtomicInteger consumed = new AtomicInteger();
+        spliterator.forEachRemaining(x -> {
+            // 16 in the buffer and one waiting to be put
+            assertTrue(produced.get() - consumed.incrementAndGet() <= 17);
+        });
+        assertEquals(10000, consumed.get());
+    }
+
+    @Test
+    public void testException() {
+        PrefetchSpliterator<Integer> spliterator = new PrefetchSpliterator<>(IntStreamEx.range(100).boxed().peek(
+            x -> {
+                if (x == 50)
+                    throw new IllegalStateException("50");
+            }).spliterator(), 10);
+        AtomicInteger count = new AtomicInteger();
+        IllegalStateException ex = assertThrows(IllegalStateException.class, () -> spliterator.forEachRemaining(
+            x -> count.incrementAndGet()));
+        assertEquals("50", ex.getMessage());
+        assertEquals(50, count.get());
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <E extends Throwable> void sneakyThrow(Throwable t) throws E {
+        throw (E) t;
+    }
+
+    @Test
+    public void testCheckedException() {
+        IOException failure = new IOException("50");
+        PrefetchSpliterator<Integer> spliterator = new PrefetchSpliterator<>(IntStreamEx.range(100).boxed().peek(
+            x -> {
+                if (x == 50)
+                    sneakyThrow(failure);
+            }).spliterator(), 10);
+        AtomicInteger count = new AtomicInteger();
+        IllegalStateException ex = assertThrows(IllegalStateException.class, () -> spliterator.forEachRemaining(
+            x -> count.incrementAndGet()));
+        assertSame(failure, ex.getCause());
+        assertEquals(50, count.get());
+    }
+
+    @Test
+    public void testInterruptedConsumer() {
+        CountDownLatch latch = new CountDownLatch(1);
+        PrefetchSpliterator<Integer> spliterator = new PrefetchSpliterator<>(StreamEx.generate(() -> {
+            try {
+                latch.await();
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+            return 1;
+        }).spliterator(), 10);
+        Thread.currentThread().interrupt();
+        try {
+            assertFalse(spliterator.tryAdvance(x -> {}));
+            assertTrue(Thread.interrupted());
+        } finally {
+            latch.countDown();
+        }
+        assertFalse(spliterator.tryAdvance(x -> {}));
+    }
+
+    @Test
+    public void testInterruptedProducer() {
+        AtomicReference<Thread> producer = new AtomicReference<>();
+        PrefetchSpliterator<Integer> spliterator = new PrefetchSpliterator<>(IntStreamEx.range(1000).boxed().peek(
+            x -> producer.set(Thread.currentThread())).spliterator(), 4);
+        assertTrue(spliterator.tryAdvance(x -> assertEquals(0, (int) x)));
+        // the producer waits for the buffer space
+        producer.get().interrupt();
+        IllegalStateException ex = assertThrows(IllegalStateException.class, () -> spliterator.forEachRemaining(
+            x -> {}));
+        assertEquals("The prefetching thread was interrupted", ex.getMessage());
+    }
+
+    @Test
+    public void testClose() throws InterruptedException {
+        AtomicInteger produced = new AtomicInteger();
+        PrefetchSpliterator<Integer> spliterator = new PrefetchSpliterator<>(StreamEx.generate(
+            produced::incrementAndGet).spliterator(), 10);
+        assertTrue(spliterator.tryAdvance(x -> assertEquals(1, (int) x)));
+        spliterator.close();
+        TestHelpers.waitUntilStopped(produced);
+        assertTrue(produced.get() <= 18);
+    }
+}
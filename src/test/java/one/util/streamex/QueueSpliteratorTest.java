@@ -0,0 +1,158 @@
+/*
+ * Copyright 2015, 2020 StreamEx contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package one.util.streamex;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+import static one.util.streamex.TestHelpers.checkSpliterator;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author Tagir Valeev
+ */
+public class QueueSpliteratorTest {
+    private static BlockingQueue<Integer> queue(int size, int end) {
+        BlockingQueue<Integer> queue = new ArrayBlockingQueue<>(size + 2);
+        IntStreamEx.range(size).boxed().forEach(queue::add);
+        queue.add(end);
+        return queue;
+    }
+
+    @Test
+    public void testSpliterator() {
+        List<Integer> input = IntStreamEx.range(5000).boxed().toList();
+        checkSpliterator("end", input, () -> new QueueSpliterator<>(queue(5000, -1), x -> x < 0, null));
+        checkSpliterator("timeout", input, () -> new QueueSpliterator<>(queue(4999, 4999), x -> false,
+                Duration.ZERO));
+        checkSpliterator("empty", new ArrayList<>(), () -> new QueueSpliterator<>(queue(0, -1), x -> x < 0,
+                null));
+    }
+
+    @Test
+    public void testBatches() {
+        AtomicInteger takes = new AtomicInteger();
+        BlockingQueue<Integer> queue = new LinkedBlockingQueue<Integer>() {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            public Integer take() throws InterruptedException {
+                takes.incrementAndGet();
+                return super.take();
+            }
+        };
+        IntStreamEx.range(5000).boxed().forEach(queue::add);
+        queue.add(-1);
+        queue.add(10);
+        AtomicInteger sum = new AtomicInteger();
+        new QueueSpliterator<>(queue, x -> x < 0, null).forEachRemaining(sum::addAndGet);
+        assertEquals(4999 * 5000 / 2, sum.get());
+        // waits for the first element of every batch only
+        assertEquals(5, takes.get());
+        // the elements after the end marker are not taken
+        assertEquals(Collections.singletonList(10), new ArrayList<>(queue));
+    }
+
+    @Test
+    public void testSeveralConsumers() throws InterruptedException {
+        BlockingQueue<Integer> queue = new LinkedBlockingQueue<>();
+        AtomicInteger sum = new AtomicInteger();
+        List<Thread> consumers = new ArrayList<>();
+        for (int i = 0; i < 2; i++) {
+            Thread consumer = new Thread(() -> sum.addAndGet(StreamEx.ofQueue(queue, x -> x < 0).mapToInt(x -> x)
+                    .sum()));
+            consumer.start();
+            consumers.add(consumer);
+        }
+        IntStreamEx.range(5000).boxed().forEach(queue::add);
+        // every consumer must take its own marker
+        queue.add(-1);
+        queue.add(-1);
+        for (Thread consumer : consumers) {
+            consumer.join(10000);
+            assertFalse(consumer.isAlive());
+        }
+        assertEquals(4999 * 5000 / 2, sum.get());
+        assertTrue(queue.isEmpty());
+
+        // one consumer after another
+        IntStreamEx.range(5000).boxed().forEach(queue::add);
+        queue.add(-1);
+        queue.add(-1);
+        assertEquals(5000, StreamEx.ofQueue(queue, x -> x < 0).count());
+        assertEquals(0, StreamEx.ofQueue(queue, x -> x < 0).count());
+        assertTrue(queue.isEmpty());
+    }
+
+    @Test
+    public void testShortCircuit() {
+        BlockingQueue<Integer> queue = queue(100, -1);
+        assertEquals(IntStreamEx.range(10).boxed().toList(), StreamEx.ofQueue(queue, x -> x < 0).limit(10)
+                .toList());
+        assertEquals(91, queue.size());
+        assertEquals(10, (int) queue.peek());
+        assertEquals(Integer.valueOf(10), StreamEx.ofQueue(queue, x -> x < 0).findFirst().orElse(null));
+        assertEquals(90, queue.size());
+    }
+
+    @Test
+    public void testEnd() throws InterruptedException {
+        BlockingQueue<Integer> queue = new LinkedBlockingQueue<>();
+        QueueSpliterator<Integer> spliterator = new QueueSpliterator<>(queue, x -> x < 0, Duration.ofSeconds(10));
+        Thread producer = new Thread(() -> {
+            for (int i = 0; i < 3; i++) {
+                try {
+                    Thread.sleep(20);
+                } catch (InterruptedException e) {
+                    throw new IllegalStateException(e);
+                }
+                queue.add(i);
+            }
+            queue.add(-1);
+        });
+        producer.start();
+        List<Integer> result = new ArrayList<>();
+        spliterator.forEachRemaining(result::add);
+        producer.join();
+        assertEquals(StreamEx.of(0, 1, 2).toList(), result);
+        assertEquals(0, spliterator.estimateSize());
+        assertNull(spliterator.trySplit());
+        assertFalse(spliterator.tryAdvance(result::add));
+
+        QueueSpliterator<Integer> timeout = new QueueSpliterator<>(queue, x -> false, Duration.ofMillis(20));
+        assertFalse(timeout.tryAdvance(result::add));
+
+        Thread.currentThread().interrupt();
+        QueueSpliterator<Integer> interrupted = new QueueSpliterator<>(queue, x -> false, null);
+        assertFalse(interrupted.tryAdvance(result::add));
+        assertTrue(Thread.interrupted());
+
+        assertThrows(IllegalArgumentException.class, () -> new QueueSpliterator<>(queue, x -> false, Duration
+                .ofMillis(-1)));
+    }
+}
@@ -0,0 +1,118 @@
+/*
+ * Copyright 2015, 2020 StreamEx contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package one.util.streamex;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.stream.IntStream;
+
+import org.junit.Test;
+
+import static one.util.streamex.Internals.CancelException;
+import static one.util.streamex.TestHelpers.checkSpliterator;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThrows;
+
+/**
+ * @author Tagir Valeev
+ */
+public class RecordingSpliteratorTest {
+    static class TestRecorder extends OperationRecorder {
+        final List<String> events = Collections.synchronizedList(new ArrayList<>());
+
+        @Override
+        void split(String path, long prefixSize, long suffixSize) {
+            events.add("split[" + path + "]: " + prefixSize + "+" + suffixSize);
+        }
+
+        @Override
+        void cancelled(String path, long elements) {
+            events.add("cancelled[" + path + "]: " + elements);
+        }
+
+        @Override
+        void finish() {
+            events.add("finish");
+        }
+    }
+
+    @Test
+    public void testSpliterator() {
+        List<Integer> input = IntStreamEx.range(100).boxed().toList();
+        checkSpliterator("ref", input, () -> RecordingSpliterator.wrap(input.spliterator(), new TestRecorder()));
+        checkSpliterator("int", input, () -> RecordingSpliterator.wrap(IntStream.range(0, 100).spliterator(),
+            new TestRecorder()));
+        checkSpliterator("long", LongStreamEx.range(100).boxed().toList(), () -> RecordingSpliterator.wrap(
+            LongStreamEx.range(100).spliterator(), new TestRecorder()));
+        checkSpliterator("double", DoubleStreamEx.of(1.0, 2.0, 3.0).boxed().toList(), () -> RecordingSpliterator
+                .wrap(DoubleStreamEx.of(1.0, 2.0, 3.0).spliterator(), new TestRecorder()));
+    }
+
+    @Test
+    public void testRecording() {
+        TestRecorder recorder = new TestRecorder();
+        Spliterator<Integer> spliterator = RecordingSpliterator.wrap(IntStreamEx.range(100).boxed().toList()
+                .spliterator(), recorder);
+        Spliterator<Integer> prefix = spliterator.trySplit();
+        Spliterator<Integer> prefixPrefix = prefix.trySplit();
+        List<Integer> result = new ArrayList<>();
+        prefixPrefix.forEachRemaining(result::add);
+        prefix.tryAdvance(result::add);
+        assertEquals(26, recorder.getElementCount());
+        assertThrows(CancelException.class, () -> prefix.forEachRemaining(x -> {
+            if (x == 30)
+                throw new CancelException();
+            result.add(x);
+        }));
+        // the element which caused the cancellation is counted
+        assertEquals(31, recorder.getElementCount());
+        spliterator.forEachRemaining(result::add);
+        assertEquals(80, result.size());
+        assertEquals(81, recorder.getElementCount());
+        assertEquals(Arrays.asList("split[]: 50+50", "split[0]: 25+25", "cancelled[01]: 6"), recorder.events);
+
+        TestRecorder single = new TestRecorder();
+        Spliterator.OfInt ints = RecordingSpliterator.wrap(IntStream.range(0, 10).spliterator(), single);
+        assertThrows(CancelException.class, () -> ints.tryAdvance((int x) -> {
+            throw new CancelException();
+        }));
+        assertEquals(Collections.singletonList("cancelled[]: 1"), single.events);
+        assertEquals(1, single.getElementCount());
+    }
+
+    @Test
+    public void testOperationCancelled() {
+        TestRecorder recorder = new TestRecorder();
+        recorder.addElements(10);
+        recorder.operationCancelled();
+        assertEquals(Collections.singletonList("cancelled[]: 10"), recorder.events);
+
+        // the whole operation cancellation is not recorded after the split one
+        TestRecorder splits = new TestRecorder();
+        Spliterator<Integer> spliterator = RecordingSpliterator.wrap(IntStreamEx.range(100).boxed().toList()
+                .spliterator(), splits);
+        Spliterator<Integer> prefix = spliterator.trySplit();
+        assertThrows(CancelException.class, () -> prefix.forEachRemaining(x -> {
+            if (x == 9)
+                throw new CancelException();
+        }));
+        splits.operationCancelled();
+        assertEquals(Arrays.asList("split[]: 50+50", "cancelled[0]: 10"), splits.events);
+    }
+}
@@ -15,7 +15,19 @@
  */
 package one.util.streamex;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
 import java.util.Spliterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
 
 import org.junit.FixMethodOrder;
 import org.junit.Test;
@@ -24,7 +36,9 @@ import org.junit.runners.MethodSorters;
 import static java.util.Arrays.asList;
 import static one.util.streamex.TestHelpers.streamEx;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
 
 /**
  * @author Tagir Valeev
@@ -39,8 +53,8 @@ public class StreamExInternalTest {
 
     @Test
     public void testDropWhile() {
-        // Test that in JDK9 operation is propagated to JDK dropWhile method.
-        boolean hasDropWhile = VerSpec.VER_SPEC.getClass().getSimpleName().equals("Java9Specific");
+        // Test that in JDK9+ operation is propagated to JDK dropWhile method.
+        boolean hasDropWhile = VerSpec.VER_SPEC.getClass() != VersionSpecific.class;
         Spliterator<String> spliterator = StreamEx.of("aaa", "b", "cccc").dropWhile(x -> x.length() > 1).spliterator();
         assertEquals(hasDropWhile, !spliterator.getClass().getSimpleName().equals("TDOfRef"));
     }
@@ -49,4 +63,79 @@ public class StreamExInternalTest {
     public void testSplit() {
         assertEquals(CharSpliterator.class, StreamEx.split("a#a", "\\#").spliterator().getClass());
     }
+
+    @Test
+    public void testDefaultSequentialThreshold() {
+        long oldThreshold = StreamContext.defaultSequentialThreshold;
+        StreamContext.defaultSequentialThreshold = 100;
+        try {
+            Set<Thread> threads = ConcurrentHashMap.newKeySet();
+            List<Integer> small = IntStreamEx.range(10).boxed().toList();
+            assertEquals(small, StreamEx.of(small).parallel().peek(x -> threads.add(Thread.currentThread()))
+                    .toList());
+            assertEquals(small, StreamEx.of(small).map(x -> x).parallel().peek(x -> threads.add(Thread
+                    .currentThread())).toList());
+            assertEquals(Collections.singleton(Thread.currentThread()), threads);
+            assertFalse(StreamContext.PARALLEL.isSmall(IntStreamEx.range(100).spliterator()));
+            assertTrue(StreamContext.PARALLEL.isSmall(IntStreamEx.range(99).spliterator()));
+            assertFalse(StreamContext.PARALLEL.sequentialThreshold(0).isSmall(IntStreamEx.range(99).spliterator()));
+        } finally {
+            StreamContext.defaultSequentialThreshold = oldThreshold;
+        }
+    }
+
+    @Test
+    public void testJfrEvents() throws IOException {
+        Path file = Files.createTempFile("streamex", ".jfr");
+        List<RecordedEvent> events;
+        List<Integer> input = IntStreamEx.range(1000).boxed().toList();
+        try {
+            try (Recording recording = new Recording()) {
+                recording.enable("one.util.streamex.TerminalOperation");
+                recording.enable("one.util.streamex.Split");
+                recording.enable("one.util.streamex.Cancellation");
+                recording.start();
+                assertEquals(input, StreamEx.of(input).parallel().map(x -> x * 2).map(x -> x / 2).toList());
+                assertTrue(StreamEx.of(input).anyMatch(x -> x == 5));
+                IntStreamEx.range(500).forEach(x -> {});
+                recording.stop();
+                recording.dump(file);
+            }
+            events = RecordingFile.readAllEvents(file);
+        } finally {
+            Files.delete(file);
+        }
+        if (VerSpec.VER_SPEC.getClass() == VersionSpecific.class) {
+            // JFR events are recorded since Java 11
+            assertTrue(events.isEmpty());
+            return;
+        }
+        RecordedEvent toList = StreamEx.of(events).findFirst(e -> e.getEventType().getName().equals(
+            "one.util.streamex.TerminalOperation") && "toList".equals(e.getString("operation"))).get();
+        assertEquals("StreamEx", toList.getString("streamType"));
+        assertTrue(toList.getBoolean("parallel"));
+        assertEquals(ForkJoinPool.getCommonPoolParallelism(), toList.getInt("parallelism"));
+        assertEquals("commonPool", toList.getString("forkJoinPool"));
+        assertEquals(1000, toList.getLong("elementCount"));
+        assertFalse(toList.getBoolean("shortCircuited"));
+        assertTrue(StreamEx.of(events).anyMatch(e -> e.getEventType().getName().equals("one.util.streamex.Split")
+            && "toList".equals(e.getString("operation")) && "".equals(e.getString("path"))));
+
+        RecordedEvent anyMatch = StreamEx.of(events).findFirst(e -> e.getEventType().getName().equals(
+            "one.util.streamex.TerminalOperation") && "anyMatch".equals(e.getString("operation"))).get();
+        assertFalse(anyMatch.getBoolean("parallel"));
+        assertEquals(1, anyMatch.getInt("parallelism"));
+        assertEquals(6, anyMatch.getLong("elementCount"));
+        assertTrue(anyMatch.getBoolean("shortCircuited"));
+        assertTrue(StreamEx.of(events).anyMatch(e -> e.getEventType().getName().equals(
+            "one.util.streamex.Cancellation") && "anyMatch".equals(e.getString("operation")) && e.getLong(
+                "elementCount") == 6));
+
+        // the sequential forEach bypasses the stream pipeline, but is recorded as well
+        RecordedEvent forEach = StreamEx.of(events).findFirst(e -> e.getEventType().getName().equals(
+            "one.util.streamex.TerminalOperation") && "forEach".equals(e.getString("operation"))).get();
+        assertEquals("IntStreamEx", forEach.getString("streamType"));
+        assertEquals(500, forEach.getLong("elementCount"));
+        assertFalse(forEach.getBoolean("shortCircuited"));
+    }
 }
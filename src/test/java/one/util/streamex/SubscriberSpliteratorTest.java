@@ -0,0 +1,131 @@
+/*
+ * Copyright 2015, 2020 StreamEx contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package one.util.streamex;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.Test;
+
+import static one.util.streamex.TestHelpers.checkSpliterator;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author Tagir Valeev
+ */
+public class SubscriberSpliteratorTest {
+    /**
+     * Synchronous publisher which pushes the elements inside the request call
+     */
+    private static class IteratorPublisher {
+        final Iterator<Integer> iterator;
+        final AtomicLong requested = new AtomicLong();
+        final AtomicLong maxRequested = new AtomicLong();
+        final AtomicBoolean cancelled = new AtomicBoolean();
+        SubscriberSpliterator<Integer> subscriber;
+        boolean emitting;
+
+        IteratorPublisher(Iterator<Integer> iterator) {
+            this.iterator = iterator;
+        }
+
+        SubscriberSpliterator<Integer> spliterator(int prefetch) {
+            return new SubscriberSpliterator<>(prefetch, s -> {
+                subscriber = s;
+                s.onSubscribe(this::request, () -> cancelled.set(true));
+            });
+        }
+
+        void request(long n) {
+            maxRequested.accumulateAndGet(requested.addAndGet(n), Math::max);
+            if (emitting)
+                return;
+            emitting = true;
+            while (requested.get() > 0 && !cancelled.get()) {
+                if (!iterator.hasNext()) {
+                    subscriber.onComplete();
+                    break;
+                }
+                requested.decrementAndGet();
+                subscriber.onNext(iterator.next());
+            }
+            emitting = false;
+        }
+    }
+
+    @Test
+    public void testSpliterator() {
+        List<Integer> input = IntStreamEx.range(100).boxed().toList();
+        checkSpliterator("publisher", input, () -> new IteratorPublisher(input.iterator()).spliterator(7));
+        checkSpliterator("one", input, () -> new IteratorPublisher(input.iterator()).spliterator(1));
+        checkSpliterator("empty", new ArrayList<>(), () -> new IteratorPublisher(new ArrayList<Integer>()
+                .iterator()).spliterator(10));
+        assertThrows(IllegalArgumentException.class, () -> new SubscriberSpliterator<>(0, s -> {}));
+    }
+
+    @Test
+    public void testDemand() {
+        IteratorPublisher publisher = new IteratorPublisher(IntStreamEx.range(1000).boxed().iterator());
+        SubscriberSpliterator<Integer> spliterator = publisher.spliterator(16);
+        assertEquals(0, publisher.maxRequested.get());
+        List<Integer> result = new ArrayList<>();
+        spliterator.forEachRemaining(result::add);
+        assertEquals(IntStreamEx.range(1000).boxed().toList(), result);
+        assertEquals(16, publisher.maxRequested.get());
+
+        publisher = new IteratorPublisher(StreamEx.iterate(0, x -> x + 1).iterator());
+        spliterator = publisher.spliterator(16);
+        assertTrue(spliterator.tryAdvance(x -> assertEquals(0, (int) x)));
+        assertFalse(publisher.cancelled.get());
+        spliterator.close();
+        assertTrue(publisher.cancelled.get());
+    }
+
+    @Test
+    public void testErrors() {
+        SubscriberSpliterator<Integer> spliterator = new SubscriberSpliterator<>(10, s -> {
+            s.onSubscribe(n -> {
+                s.onNext(1);
+                s.onError(new IllegalArgumentException("test"));
+            }, () -> {});
+        });
+        List<Integer> result = new ArrayList<>();
+        IllegalArgumentException iae = assertThrows(IllegalArgumentException.class, () -> spliterator
+                .forEachRemaining(result::add));
+        assertEquals("test", iae.getMessage());
+        assertEquals(StreamEx.of(1).toList(), result);
+
+        SubscriberSpliterator<Integer> checked = new SubscriberSpliterator<>(10, s -> s.onSubscribe(n -> s.onError(
+            new IOException()), () -> {}));
+        IllegalStateException ise = assertThrows(IllegalStateException.class, () -> checked.tryAdvance(x -> {}));
+        assertTrue(ise.getCause() instanceof IOException);
+
+        AtomicBoolean cancelled = new AtomicBoolean();
+        SubscriberSpliterator<Integer> overflow = new SubscriberSpliterator<>(2, s -> s.onSubscribe(n -> {
+            for (int i = 0; i < 3; i++)
+                s.onNext(i);
+        }, () -> cancelled.set(true)));
+        assertThrows(IllegalStateException.class, () -> overflow.forEachRemaining(x -> {}));
+        assertTrue(cancelled.get());
+    }
+}
@@ -193,6 +193,16 @@ public class TestHelpers {
         }
     }
 
+    public static void waitUntilStopped(AtomicInteger counter) throws InterruptedException {
+        for (int i = 0; i < 100; i++) {
+            int prev = counter.get();
+            Thread.sleep(50);
+            if (counter.get() == prev)
+                return;
+        }
+        fail("The counter is still updated: " + counter.get());
+    }
+
     public static <T> void streamEx(Supplier<Stream<T>> base, Consumer<StreamExSupplier<T>> consumer) {
         for (StreamExSupplier<T> supplier : StreamEx.of(Mode.values()).map(mode -> new StreamExSupplier<>(base, mode))) {
             withMessage(supplier.toString(), () -> consumer.accept(supplier));
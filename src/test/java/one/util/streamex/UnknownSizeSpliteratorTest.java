@@ -16,6 +16,8 @@
 
 package one.util.streamex;
 
+import java.time.Duration;
+import java.time.temporal.ChronoUnit;
 import java.util.List;
 import java.util.Spliterator;
 import java.util.Spliterators;
@@ -26,6 +28,7 @@ import org.junit.Test;
 
 import static one.util.streamex.TestHelpers.checkSpliterator;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThrows;
 import static org.junit.Assert.assertTrue;
 
 public class UnknownSizeSpliteratorTest {
@@ -94,4 +97,82 @@ public class UnknownSizeSpliteratorTest {
         assertEquals(12497500, StreamSupport.stream(new UnknownSizeSpliterator.USOfRef<>(input.iterator()), true)
                 .mapToInt(x -> x).sum());
     }
+
+    private static int batchSize(Spliterator<?> spliterator) {
+        return ((UnknownSizeSpliterator<?, ?, ?>) spliterator).fence;
+    }
+
+    private static int countByAdvance(Spliterator<?> spliterator) {
+        int count = 0;
+        while (spliterator.tryAdvance(x -> {}))
+            count++;
+        return count;
+    }
+
+    @Test
+    public void testAdaptiveSpliterator() {
+        for (int size : new int[] { 1, 5, 100, 1000, 2049 }) {
+            List<Integer> input = IntStreamEx.range(size).boxed().toList();
+            checkSpliterator(String.valueOf(size), input, () -> new UnknownSizeSpliterator.USOfRef<>(input.iterator(),
+                    new UnknownSizeSpliterator.BatchCost(1000)));
+            int[] ints = IntStreamEx.range(size).toArray();
+            checkSpliterator(String.valueOf(size), input, () -> new UnknownSizeSpliterator.USOfInt(Spliterators
+                    .iterator(Spliterators.spliterator(ints, 0)), new UnknownSizeSpliterator.BatchCost(1000)));
+        }
+    }
+
+    @Test
+    public void testBatchCost() {
+        UnknownSizeSpliterator.BatchCost cost = new UnknownSizeSpliterator.BatchCost(1_000_000);
+        assertEquals(1, cost.nextBatch(0));
+        assertEquals(2, cost.nextBatch(1));
+        assertEquals(UnknownSizeSpliterator.MAX_BATCH, cost.nextBatch(UnknownSizeSpliterator.MAX_BATCH));
+        cost.record(0, 100);
+        assertEquals(4, cost.nextBatch(2));
+        cost.record(10, 10_000); // 1000ns per element
+        assertEquals(1000, cost.nextBatch(2));
+        cost.record(10, 190_000); // 10000ns per element on average
+        assertEquals(100, cost.nextBatch(1000));
+        cost.record(1, 1_000_000_000);
+        assertEquals(1, cost.nextBatch(100));
+        cost = new UnknownSizeSpliterator.BatchCost(Long.MAX_VALUE);
+        cost.record(10, 0);
+        assertEquals(UnknownSizeSpliterator.MAX_BATCH, cost.nextBatch(1));
+
+        cost = UnknownSizeSpliterator.BatchCost.of(ChronoUnit.FOREVER.getDuration());
+        cost.record(1, 1);
+        assertEquals(UnknownSizeSpliterator.MAX_BATCH, cost.nextBatch(1));
+        assertThrows(IllegalArgumentException.class, () -> UnknownSizeSpliterator.BatchCost.of(Duration.ZERO));
+        assertThrows(IllegalArgumentException.class, () -> UnknownSizeSpliterator.BatchCost.of(Duration.ofMillis(-1)));
+    }
+
+    @Test
+    public void testAdaptiveSplit() {
+        List<Integer> input = IntStreamEx.range(1000).boxed().toList();
+        UnknownSizeSpliterator.BatchCost cost = new UnknownSizeSpliterator.BatchCost(1_000_000);
+        Spliterator<Integer> spliterator = new UnknownSizeSpliterator.USOfRef<>(input.iterator(), cost);
+        // the batches are not traversed, so nothing is measured
+        assertEquals(1, batchSize(spliterator.trySplit()));
+        assertEquals(2, batchSize(spliterator.trySplit()));
+        cost.record(10, 100_000); // 10000ns per element
+        assertEquals(100, batchSize(spliterator.trySplit()));
+        assertEquals(897, countByAdvance(spliterator));
+    }
+
+    @Test
+    public void testAdaptiveAdvance() {
+        List<Integer> input = IntStreamEx.range(1000).boxed().toList();
+        UnknownSizeSpliterator.BatchCost cost = new UnknownSizeSpliterator.BatchCost(1_000_000);
+        Spliterator<Integer> spliterator = new UnknownSizeSpliterator.USOfRef<>(input.iterator(), cost);
+        Spliterator<Integer> prefix = spliterator.trySplit();
+        // the short-circuiting traversal uses tryAdvance only
+        assertTrue(prefix.tryAdvance(x -> {
+            long start = System.nanoTime();
+            while (System.nanoTime() - start < 200_000) {
+                // spin: 200000ns per element
+            }
+        }));
+        // without the measurement the batch size would be doubled
+        assertTrue(cost.nextBatch(1000) <= 5);
+    }
 }
@@ -0,0 +1,94 @@
+/*
+ * Copyright 2015, 2020 StreamEx contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package one.util.streamex;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Function;
+
+import org.junit.Test;
+
+import static one.util.streamex.TestHelpers.checkSpliterator;
+import static org.junit.Assert.assertEquals;
+
+/**
+ * @author Tagir Valeev
+ */
+public class WindowDistinctSpliteratorTest {
+    static final class ManualClock extends Clock {
+        long millis;
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public long millis() {
+            return millis;
+        }
+
+        @Override
+        public Instant instant() {
+            return Instant.ofEpochMilli(millis);
+        }
+    }
+
+    private static List<Integer> expected(List<Integer> input, int windowSize) {
+        List<Integer> result = new ArrayList<>();
+        for (Integer x : input) {
+            if (!result.subList(Math.max(0, result.size() - windowSize), result.size()).contains(x))
+                result.add(x);
+        }
+        return result;
+    }
+
+    @Test
+    public void testSpliterator() {
+        Random r = new Random(1);
+        List<Integer> input = IntStreamEx.of(r, 2000, 0, 50).boxed().toList();
+        for (int windowSize : new int[] { 1, 2, 10, 16, 17, 49, 50, 100 }) {
+            List<Integer> expected = expected(input, windowSize);
+            checkSpliterator("window " + windowSize, expected, () -> new WindowDistinctSpliterator.OfCount<>(input
+                    .spliterator(), Function.identity(), windowSize));
+        }
+        List<Integer> nulls = StreamEx.of(1, null, 2, null, 1, 3, null).toList();
+        checkSpliterator("nulls", StreamEx.of(1, null, 2, 1, 3, null).toList(),
+            () -> new WindowDistinctSpliterator.OfCount<>(nulls.spliterator(), Function.identity(), 2));
+    }
+
+    @Test
+    public void testTime() {
+        ManualClock clock = new ManualClock();
+        List<String> result = new ArrayList<>();
+        WindowDistinctSpliterator.OfTime<String, Object> spliterator = new WindowDistinctSpliterator.OfTime<>(
+                StreamEx.of("a", "b", "a", "c", "b", "a", "b", "a").peek(x -> clock.millis += 10).spliterator(),
+                Function.identity(), 30, clock);
+        spliterator.forEachRemaining(result::add);
+        // a:10, b:20, a:30 (skipped), c:40, b:50 (after 30ms), a:60, b:70 (skipped), a:80 (skipped)
+        assertEquals(StreamEx.of("a", "b", "c", "b", "a").toList(), result);
+    }
+}
@@ -0,0 +1,303 @@
+/*
+ * Copyright 2015, 2020 StreamEx contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package one.util.streamex.api;
+
+import java.util.AbstractMap.SimpleEntry;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.FixMethodOrder;
+import org.junit.Test;
+import org.junit.runners.MethodSorters;
+
+import one.util.streamex.DoubleStreamEx;
+import one.util.streamex.EntryStream;
+import one.util.streamex.IntStreamEx;
+import one.util.streamex.LongStreamEx;
+import one.util.streamex.MoreCollectors;
+import one.util.streamex.StreamEx;
+
+import static one.util.streamex.TestHelpers.waitUntilStopped;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author Tagir Valeev
+ */
+@FixMethodOrder(MethodSorters.NAME_ASCENDING)
+public class CustomExecutorTest {
+    ExecutorService executor;
+    final Set<Thread> threads = ConcurrentHashMap.newKeySet();
+
+    private void checkThread(Object element) {
+        if (!threads.contains(Thread.currentThread()))
+            throw new IllegalStateException("Not inside executor (element: " + element + ")");
+    }
+
+    @Before
+    public void setUp() {
+        executor = Executors.newFixedThreadPool(3, r -> {
+            Thread thread = new Thread(r);
+            threads.add(thread);
+            return thread;
+        });
+    }
+
+    @After
+    public void tearDown() throws InterruptedException {
+        assertEquals(Collections.emptyList(), executor.shutdownNow());
+        assertTrue(executor.awaitTermination(1, TimeUnit.SECONDS));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testCheckThreadParallel() {
+        StreamEx.of("a", "b").parallel().peek(this::checkThread).joining();
+    }
+
+    @Test
+    public void testForkJoinPool() {
+        ForkJoinPool pool = new ForkJoinPool(2);
+        try {
+            assertEquals(Arrays.asList(1, 2), StreamEx.of("a", "bb").parallel((Executor) pool)
+                    .peek(x -> assertTrue(Thread.currentThread() instanceof ForkJoinWorkerThread)).map(String::length)
+                    .toList());
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void testStreamEx() {
+        StreamEx.of("a", "b", "c").parallel(executor).forEach(this::checkThread);
+        assertTrue(StreamEx.of("a").parallel(executor).isParallel());
+        assertFalse(StreamEx.of("a").parallel(executor).sequential().isParallel());
+        assertEquals(Arrays.asList(1, 2), StreamEx.of("a", "bb").parallel(executor).peek(this::checkThread).map(
+            String::length).toList());
+        assertEquals("a", StreamEx.of("a").parallel(executor).peek(this::checkThread).findAny().get());
+        assertEquals("a", StreamEx.of("a", "b").parallel(executor).peek(this::checkThread).findFirst().get());
+        assertTrue(StreamEx.of("a", "b").parallel(executor).peek(this::checkThread).anyMatch("a"::equals));
+        assertFalse(StreamEx.of("a", "b").parallel(executor).peek(this::checkThread).allMatch("a"::equals));
+        assertFalse(StreamEx.of("a", "b").parallel(executor).peek(this::checkThread).noneMatch("a"::equals));
+        assertEquals(Arrays.asList("b", "c"), StreamEx.of("a", "b", "c").parallel(executor).peek(this::checkThread)
+                .skip(1).collect(Collectors.toList()));
+        assertEquals(6, StreamEx.of("a", "bb", "ccc").parallel(executor).peek(this::checkThread).collect(
+            StringBuilder::new, StringBuilder::append, StringBuilder::append).length());
+        assertArrayEquals(new String[] { "a", "b", "c" }, StreamEx.of("a", "b", "c").parallel(executor).peek(
+            this::checkThread).toArray(String[]::new));
+        assertEquals(1000, IntStreamEx.constant(1, 1000).boxed().parallel(executor).peek(this::checkThread).foldLeft(
+            0, Integer::sum).intValue());
+        assertEquals(2, StreamEx.of("aa", "bbb", "cccc").parallel(executor).peek(this::checkThread).filter(
+            x -> x.length() > 2).count());
+        assertEquals("bbbcccc", StreamEx.of("aa", "bbb", "cccc").parallel(executor).peek(this::checkThread).filter(
+            x -> x.length() > 2).reduce(String::concat).get());
+        assertEquals(7, (int) StreamEx.of("aa", "bbb", "cccc").parallel(executor).peek(this::checkThread).filter(
+            x -> x.length() > 2).reduce(0, (x, s) -> x + s.length(), Integer::sum));
+        assertEquals(Collections.singletonMap(1, 3L), StreamEx.of(1, 1, 1).parallel(executor).peek(
+            this::checkThread).runLengths().toMap());
+        List<Integer> input = IntStreamEx.range(10000).boxed().toList();
+        List<Integer> res = new ArrayList<>();
+        StreamEx.of(input).parallel(executor).peek(this::checkThread).forEachOrdered(res::add);
+        assertEquals(input, res);
+        assertEquals(input, StreamEx.of(input).parallel(executor).peek(this::checkThread).toList());
+        assertEquals(StreamEx.of(input).joining(","), StreamEx.of(input).parallel(executor).peek(this::checkThread)
+                .joining(","));
+    }
+
+    @Test
+    public void testEntryStream() {
+        EntryStream.of("a", 1).parallel(executor).forEach(this::checkThread);
+        assertEquals(Integer.valueOf(1), EntryStream.of("a", 1).parallel(executor).peek(this::checkThread).toMap()
+                .get("a"));
+        assertEquals(2, EntryStream.of("a", 1, "b", 2, "c", 3).parallel(executor).peek(this::checkThread)
+                .filterValues(v -> v > 1).count());
+        Map<String, Integer> map = EntryStream.of("a", 1, "b", 2, "c", 3).parallel(executor).peek(this::checkThread)
+                .filterValues(v -> v > 1).toMap();
+        assertEquals(EntryStream.of("b", 2, "c", 3).toMap(), map);
+        assertEquals(new SimpleEntry<>("abc", 6), EntryStream.of("a", 1, "b", 2, "c", 3).parallel(executor).peek(
+            this::checkThread).reduce(
+            (e1, e2) -> new SimpleEntry<>(e1.getKey() + e2.getKey(), e1.getValue() + e2.getValue())).orElse(null));
+    }
+
+    @Test
+    public void testIntStreamEx() {
+        IntStreamEx.range(0, 4).parallel(executor).forEach(this::checkThread);
+        assertTrue(IntStreamEx.range(0, 4).parallel(executor).isParallel());
+        assertEquals(6, IntStreamEx.range(0, 4).parallel(executor).peek(this::checkThread).sum());
+        assertEquals(3, IntStreamEx.range(0, 4).parallel(executor).peek(this::checkThread).max().getAsInt());
+        assertEquals(1.5, IntStreamEx.range(0, 4).parallel(executor).peek(this::checkThread).average()
+                .getAsDouble(), 0.000001);
+        assertFalse(IntStreamEx.empty().parallel(executor).average().isPresent());
+        assertArrayEquals(new int[] { 1, 2, 3 }, IntStreamEx.range(0, 5).parallel(executor).peek(this::checkThread)
+                .skip(1).limit(3).toArray());
+        assertArrayEquals(IntStreamEx.range(10000).toArray(), IntStreamEx.range(10000).parallel(executor).peek(
+            this::checkThread).toArray());
+        assertEquals(6, IntStreamEx.of(1, 2, 3).parallel(executor).peek(this::checkThread).reduce(Integer::sum)
+                .getAsInt());
+        assertEquals(6, IntStreamEx.of(1, 2, 3).parallel(executor).peek(this::checkThread).reduce(1, (a, b) -> a * b));
+        assertTrue(IntStreamEx.of(1, 2, 3).parallel(executor).peek(this::checkThread).anyMatch(x -> x == 2));
+        assertFalse(IntStreamEx.of(1, 2, 3).parallel(executor).peek(this::checkThread).allMatch(x -> x == 2));
+        assertEquals(2, IntStreamEx.of(1, 2, 3).parallel(executor).peek(this::checkThread).atLeast(2).count());
+        assertEquals(2, IntStreamEx.of(1, 2, 3).parallel(executor).peek(this::checkThread).findAny(x -> x % 2 == 0)
+                .getAsInt());
+        assertEquals(2, IntStreamEx.of(1, 2, 3).parallel(executor).peek(this::checkThread).findFirst(x -> x % 2 == 0)
+                .getAsInt());
+        List<Integer> res = new ArrayList<>();
+        IntStreamEx.range(1000).parallel(executor).peek(this::checkThread).map(x -> x * 2).forEachOrdered(res::add);
+        assertEquals(IntStreamEx.range(1000).map(x -> x * 2).boxed().toList(), res);
+    }
+
+    @Test
+    public void testLongStreamEx() {
+        assertEquals(999999000000L, IntStreamEx.range(1000000).parallel(executor).peek(this::checkThread)
+                .asLongStream().map(x -> x * 2).sum());
+        assertEquals(1.5, LongStreamEx.range(0, 4).parallel(executor).peek(this::checkThread).average()
+                .getAsDouble(), 0.000001);
+        assertArrayEquals(new long[] { 1, 2, 3 }, LongStreamEx.range(0, 5).parallel(executor).peek(
+            this::checkThread).skip(1).limit(3).toArray());
+        assertEquals(6, LongStreamEx.of(1, 2, 3).parallel(executor).peek(this::checkThread).reduce(Long::sum)
+                .getAsLong());
+        assertTrue(LongStreamEx.of(1, 2, 3).parallel(executor).peek(this::checkThread).has(1));
+        assertEquals(2, LongStreamEx.of(1, 2, 3).parallel(executor).peek(this::checkThread).findFirst(
+            x -> x % 2 == 0).getAsLong());
+        List<Long> res = new ArrayList<>();
+        LongStreamEx.of(1, 5, 10, Integer.MAX_VALUE).parallel(executor).peek(this::checkThread).map(x -> x * 2)
+                .forEachOrdered(res::add);
+        assertEquals(Arrays.asList(2L, 10L, 20L, Integer.MAX_VALUE * 2L), res);
+    }
+
+    @Test
+    public void testDoubleStreamEx() {
+        assertEquals(6, IntStreamEx.range(0, 4).asDoubleStream().parallel(executor).peek(this::checkThread).sum(), 0);
+        assertEquals(1.0, DoubleStreamEx.constant(0.1, 10).parallel(executor).sum(), 0.0);
+        assertEquals(1.5, IntStreamEx.range(0, 4).asDoubleStream().parallel(executor).peek(this::checkThread)
+                .average().getAsDouble(), 0.000001);
+        assertArrayEquals(new double[] { 1, 2, 3 }, IntStreamEx.range(0, 5).asDoubleStream().skip(1).limit(3)
+                .parallel(executor).peek(this::checkThread).toArray(), 0.0);
+        assertEquals(6.0, DoubleStreamEx.of(1.0, 2.0, 3.0).parallel(executor).peek(this::checkThread).reduce(
+            Double::sum).getAsDouble(), 0.0);
+        assertFalse(DoubleStreamEx.of(1, 2, 3).parallel(executor).peek(this::checkThread).noneMatch(x -> x == 2));
+        assertEquals(2.0, DoubleStreamEx.of(1, 2, 3).parallel(executor).peek(this::checkThread).findAny(
+            x -> x % 2 == 0).getAsDouble(), 0.0);
+        List<Double> res = new ArrayList<>();
+        DoubleStreamEx.of(1.0, 2.0, 3.5, 4.5).parallel(executor).peek(this::checkThread).map(x -> x * 2)
+                .forEachOrdered(res::add);
+        assertEquals(Arrays.asList(2.0, 4.0, 7.0, 9.0), res);
+    }
+
+    @Test
+    public void testForEachOrderedStreaming() {
+        // the leaf at the head of the order passes the elements straight to
+        // the action instead of buffering them
+        List<String> events = Collections.synchronizedList(new ArrayList<>());
+        StreamEx.of(IntStreamEx.range(10000).boxed().toList()).parallel(executor).peek(x -> events.add("read " + x))
+                .forEachOrdered(x -> events.add("act " + x));
+        assertTrue(events.indexOf("act 0") < events.indexOf("read 1"));
+        assertEquals(IntStreamEx.range(10000).mapToObj(x -> "act " + x).toList(), StreamEx.of(events).filter(
+            e -> e.startsWith("act")).toList());
+        events.clear();
+        IntStreamEx.range(10000).parallel(executor).peek(x -> events.add("read " + x)).forEachOrdered(
+            x -> events.add("act " + x));
+        assertTrue(events.indexOf("act 0") < events.indexOf("read 1"));
+        assertEquals(IntStreamEx.range(10000).mapToObj(x -> "act " + x).toList(), StreamEx.of(events).filter(
+            e -> e.startsWith("act")).toList());
+    }
+
+    @Test
+    public void testShortCircuit() {
+        AtomicInteger counter = new AtomicInteger(0);
+        assertEquals(Optional.empty(), IntStreamEx.range(0, 10000).boxed().parallel(executor).peek(this::checkThread)
+                .peek(t -> counter.incrementAndGet()).collect(MoreCollectors.onlyOne()));
+        assertTrue(counter.get() < 10000);
+        counter.set(0);
+        assertTrue(IntStreamEx.range(0, 10000).parallel(executor).peek(t -> counter.incrementAndGet()).anyMatch(
+            x -> x == 0));
+        assertTrue(counter.get() < 10000);
+    }
+
+    @Test
+    public void testAsync() throws Exception {
+        List<Integer> input = IntStreamEx.range(10000).boxed().toList();
+        assertEquals(input, StreamEx.of(input).parallel(executor).peek(this::checkThread).toListAsync().get());
+        assertEquals(49995000, (int) StreamEx.of(input).parallel(executor).peek(this::checkThread).reduceAsync(0,
+            Integer::sum).get());
+        assertEquals(Optional.of(9999), StreamEx.of(input).parallel(executor).peek(this::checkThread).reduceAsync(
+            Integer::max).get());
+        assertEquals(new HashSet<>(input), StreamEx.of(input).parallel(executor).peek(this::checkThread).collectAsync(
+            Collectors.toSet()).get());
+        AtomicInteger count = new AtomicInteger();
+        StreamEx.of(input).parallel(executor).forEachAsync(x -> {
+            checkThread(x);
+            count.incrementAndGet();
+        }).get();
+        assertEquals(10000, count.get());
+        // runs in the executor even if small
+        assertEquals(Arrays.asList(1, 2), StreamEx.of(1, 2).parallel(executor).sequentialThreshold(10).peek(
+            this::checkThread).toListAsync().get());
+        assertArrayEquals(IntStreamEx.range(10000).toArray(), IntStreamEx.range(10000).parallel(executor).peek(
+            this::checkThread).toArrayAsync().get());
+        assertEquals(49995000L, (long) LongStreamEx.range(10000).parallel(executor).peek(this::checkThread)
+                .reduceAsync(0, Long::sum).get());
+        assertEquals(9999.0, IntStreamEx.range(10000).asDoubleStream().parallel(executor).peek(this::checkThread)
+                .reduceAsync(Math::max).get().getAsDouble(), 0.0);
+
+        CompletableFuture<List<Integer>> failed = StreamEx.of(input).parallel(executor).peek(x -> {
+            if (x == 5000)
+                throw new IllegalArgumentException("5000");
+        }).toListAsync();
+        ExecutionException ex = assertThrows(ExecutionException.class, failed::get);
+        assertTrue(ex.getCause() instanceof IllegalArgumentException);
+        assertEquals("5000", ex.getCause().getMessage());
+    }
+
+    @Test
+    public void testAsyncCancel() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        AtomicInteger count = new AtomicInteger();
+        CompletableFuture<Void> future = IntStreamEx.range(Integer.MAX_VALUE).parallel(executor).forEachAsync(x -> {
+            checkThread(x);
+            started.countDown();
+            count.incrementAndGet();
+        });
+        started.await();
+        assertTrue(future.cancel(true));
+        waitUntilStopped(count);
+        assertTrue(count.get() < Integer.MAX_VALUE);
+        assertTrue(future.isCancelled());
+    }
+}
@@ -26,6 +26,10 @@ import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ForkJoinPool;
 import java.util.concurrent.ForkJoinWorkerThread;
 import java.util.concurrent.atomic.AtomicInteger;
@@ -42,11 +46,14 @@ import one.util.streamex.EntryStream;
 import one.util.streamex.IntStreamEx;
 import one.util.streamex.LongStreamEx;
 import one.util.streamex.MoreCollectors;
+import one.util.streamex.SplitPolicy;
 import one.util.streamex.StreamEx;
 
+import static one.util.streamex.TestHelpers.waitUntilStopped;
 import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThrows;
 import static org.junit.Assert.assertTrue;
 
 /**
@@ -322,4 +329,89 @@ public class CustomPoolTest {
             this::checkThread).peek(t -> counter.incrementAndGet()).collect(MoreCollectors.onlyOne()));
         assertTrue(counter.get() < 10000);
     }
+
+    @Test
+    public void testSplitPolicy() {
+        List<Integer> input = IntStreamEx.range(10000).boxed().toList();
+        Set<Thread> threads = ConcurrentHashMap.newKeySet();
+        assertEquals(input, StreamEx.of(input).parallel(pool, SplitPolicy.maxDepth(0)).peek(this::checkThread).peek(
+            x -> threads.add(Thread.currentThread())).toList());
+        assertEquals(1, threads.size());
+        assertEquals(input, StreamEx.of(input).map(x -> x).parallel(pool, SplitPolicy.minLeafSize(1000)).peek(
+            this::checkThread).toList());
+        assertTrue(StreamEx.of(input).parallel(pool, SplitPolicy.chunks(2)).isParallel());
+        assertFalse(StreamEx.of(input).parallel(pool, SplitPolicy.chunks(2)).sequential().isParallel());
+        assertEquals(49995000, IntStreamEx.range(10000).parallel(pool, SplitPolicy.chunks(3)).peek(
+            this::checkThread).sum());
+        assertEquals(49995000L, LongStreamEx.range(10000).parallel(pool, SplitPolicy.maxDepth(1)).peek(
+            this::checkThread).sum());
+        assertEquals(49995000.0, LongStreamEx.range(10000).asDoubleStream().parallel(pool, SplitPolicy.minLeafSize(
+            100)).peek(this::checkThread).sum(), 0.0);
+        assertEquals(EntryStream.of(1, 2, 3, 4).toMap(), EntryStream.of(1, 2, 3, 4).parallel(pool, SplitPolicy
+                .maxDepth(1)).peek(this::checkThread).toMap());
+    }
+
+    @Test
+    public void testSequentialThreshold() {
+        Thread caller = Thread.currentThread();
+        List<Integer> small = IntStreamEx.range(10).boxed().toList();
+        List<Integer> large = IntStreamEx.range(1000).boxed().toList();
+        assertEquals(small, StreamEx.of(small).parallel(pool).sequentialThreshold(100).peek(
+            x -> assertEquals(caller, Thread.currentThread())).toList());
+        assertEquals(small, StreamEx.of(small).sequentialThreshold(100).parallel(pool).map(x -> x).peek(
+            x -> assertEquals(caller, Thread.currentThread())).toList());
+        assertEquals(small, StreamEx.of(small).sequentialThreshold(100).map(x -> x).parallel(pool).peek(
+            x -> assertEquals(caller, Thread.currentThread())).toList());
+        assertEquals(small, StreamEx.of(small).map(x -> x).parallel(pool).sequentialThreshold(100).peek(
+            x -> assertEquals(caller, Thread.currentThread())).toList());
+        assertTrue(StreamEx.of(small).parallel(pool).sequentialThreshold(100).isParallel());
+        assertEquals(Optional.of(3), StreamEx.of(small).parallel(pool).sequentialThreshold(100).peek(
+            x -> assertEquals(caller, Thread.currentThread())).skip(3).collect(MoreCollectors.first()));
+        assertEquals(45, IntStreamEx.range(10).parallel(pool).sequentialThreshold(100).peek(
+            x -> assertEquals(caller, Thread.currentThread())).sum());
+        assertEquals(45L, LongStreamEx.range(10).parallel(pool).sequentialThreshold(100).peek(
+            x -> assertEquals(caller, Thread.currentThread())).sum());
+        List<Double> res = new ArrayList<>();
+        DoubleStreamEx.of(1, 2, 3).parallel(pool).sequentialThreshold(100).peek(
+            x -> assertEquals(caller, Thread.currentThread())).forEachOrdered(res::add);
+        assertEquals(Arrays.asList(1.0, 2.0, 3.0), res);
+
+        assertEquals(large, StreamEx.of(large).parallel(pool).sequentialThreshold(100).peek(this::checkThread)
+                .toList());
+        // size is unknown after filter
+        assertEquals(small, StreamEx.of(small).filter(x -> true).parallel(pool).sequentialThreshold(100).peek(
+            this::checkThread).toList());
+        assertEquals(small, StreamEx.of(small).parallel(pool).sequentialThreshold(0).peek(this::checkThread)
+                .toList());
+        assertThrows(IllegalArgumentException.class, () -> StreamEx.of(small).sequentialThreshold(-1));
+    }
+
+    @Test
+    public void testAsync() throws Exception {
+        List<Integer> input = IntStreamEx.range(10000).boxed().toList();
+        assertEquals(input, StreamEx.of(input).parallel(pool).peek(this::checkThread).toListAsync().get());
+        assertEquals(input, StreamEx.of(input).parallel(pool).peek(this::checkThread).collectAsync(Collectors
+                .toList()).get());
+        assertEquals(49995000, (int) StreamEx.of(input).parallel(pool).peek(this::checkThread).reduceAsync(0,
+            Integer::sum).get());
+        assertEquals(49995000, (int) IntStreamEx.range(10000).parallel(pool).peek(this::checkThread).reduceAsync(0,
+            Integer::sum).get());
+        assertEquals(EntryStream.of(1, 2, 3, 4).toMap(), EntryStream.of(1, 2, 3, 4).parallel(pool).peek(
+            this::checkThread).collectAsync(Collectors.toMap(Entry::getKey, Entry::getValue)).get());
+    }
+
+    @Test
+    public void testAsyncCancel() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        AtomicInteger count = new AtomicInteger();
+        CompletableFuture<Void> future = StreamEx.iterate(0, x -> x + 1).parallel(pool).forEachAsync(x -> {
+            checkThread(x);
+            started.countDown();
+            count.incrementAndGet();
+        });
+        started.await();
+        assertTrue(future.cancel(true));
+        waitUntilStopped(count);
+        assertTrue(future.isCancelled());
+    }
 }
@@ -15,7 +15,13 @@
  */
 package one.util.streamex.api;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 import java.nio.DoubleBuffer;
+import java.nio.channels.Channels;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Comparator;
@@ -28,6 +34,8 @@ import java.util.Random;
 import java.util.Scanner;
 import java.util.Spliterator;
 import java.util.Spliterators;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.DoubleBinaryOperator;
@@ -57,6 +65,7 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertThrows;
 import static org.junit.Assert.assertTrue;
 
 /**
@@ -539,4 +548,92 @@ public class DoubleStreamExTest {
                 .toArray(), 0.0);
         assertEquals(0L, IntStreamEx.empty().intersperse(1).count());
     }
+
+    @Test
+    public void testWriteTo() {
+        for (ByteOrder order : new ByteOrder[] { ByteOrder.BIG_ENDIAN, ByteOrder.LITTLE_ENDIAN }) {
+            streamEx(() -> IntStreamEx.range(2000).boxed(), s -> {
+                ByteArrayOutputStream baos = new ByteArrayOutputStream();
+                s.get().mapToDouble(x -> x / 3.0).writeTo(Channels.newChannel(baos), order, 100);
+                DoubleBuffer buf = ByteBuffer.wrap(baos.toByteArray()).order(order).asDoubleBuffer();
+                assertArrayEquals(IntStreamEx.range(2000).asDoubleStream().map(x -> x / 3.0).toArray(),
+                    DoubleStreamEx.of(buf).toArray(), 0.0);
+            });
+        }
+    }
+
+    @Test
+    public void testInto() {
+        DoubleBuffer buf = DoubleBuffer.allocate(5);
+        assertSame(buf, DoubleStreamEx.of(1.5, 2.5, 3.5).parallel().into(buf));
+        buf.flip();
+        assertArrayEquals(new double[] { 1.5, 2.5, 3.5 }, DoubleStreamEx.of(buf).toArray(), 0.0);
+    }
+
+    @Test
+    public void testOfDoubles() {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        DoubleStreamEx.of(new Random(1), 5000).writeTo(Channels.newChannel(baos), ByteOrder.LITTLE_ENDIAN, 8192);
+        assertArrayEquals(DoubleStreamEx.of(new Random(1), 5000).toArray(), DoubleStreamEx.ofDoubles(Channels
+                .newChannel(new ByteArrayInputStream(baos.toByteArray())), ByteOrder.LITTLE_ENDIAN).parallel()
+                .toArray(), 0.0);
+    }
+
+    @Test
+    public void testOfSized() {
+        double[] input = LongStreamEx.range(1000).asDoubleStream().toArray();
+        Supplier<OfDouble> iterator = () -> DoubleStreamEx.of(input).iterator();
+        Spliterator.OfDouble spliterator = DoubleStreamEx.ofSized(iterator.get(), 1000).spliterator();
+        assertTrue(spliterator.hasCharacteristics(Spliterator.SIZED));
+        assertEquals(1000, spliterator.getExactSizeIfKnown());
+        assertArrayEquals(input, DoubleStreamEx.ofSized(iterator.get(), 1000).parallel().toArray(), 0.0);
+        assertThrows(IllegalArgumentException.class, () -> DoubleStreamEx.ofSized(iterator.get(), -1));
+    }
+
+    @Test
+    public void testOfAdaptive() {
+        double[] input = LongStreamEx.range(1000).asDoubleStream().toArray();
+        Supplier<OfDouble> iterator = () -> DoubleStreamEx.of(input).iterator();
+        assertArrayEquals(input, DoubleStreamEx.ofAdaptive(iterator.get(), Duration.ofMillis(1)).toArray(), 0.0);
+        assertEquals(499500.0, DoubleStreamEx.ofAdaptive(iterator.get(), Duration.ofMillis(1)).parallel().sum(), 0.0);
+        assertArrayEquals(input, DoubleStreamEx.ofAdaptive(iterator.get(), Duration.ofNanos(1)).parallel()
+                .toArray(), 0.0);
+        assertThrows(IllegalArgumentException.class, () -> DoubleStreamEx.ofAdaptive(iterator.get(),
+            Duration.ofSeconds(-1)));
+    }
+
+    @Test
+    public void testWithDeadline() {
+        assertEquals(6.0, DoubleStreamEx.of(1, 2, 3).parallel().withDeadline(Duration.ofDays(1)).sum(), 0.0);
+        assertFalse(DoubleStreamEx.generate(() -> 1).withDeadline(Duration.ofMillis(20)).anyMatch(x -> x == 2));
+    }
+
+    @Test
+    public void testOfQueue() {
+        BlockingQueue<Double> queue = new LinkedBlockingQueue<>(Arrays.asList(1.0, 2.0, 3.0, -1.0));
+        assertArrayEquals(new double[] { 1, 2, 3 }, DoubleStreamEx.ofQueue(queue, x -> x < 0).toArray(), 0.0);
+        queue.addAll(Arrays.asList(1.0, 2.0, 3.0));
+        assertArrayEquals(new double[] { 1, 2, 3 }, DoubleStreamEx.ofQueue(queue, x -> false, Duration.ZERO)
+                .toArray(), 0.0);
+    }
+
+    @Test
+    public void testChunked() {
+        assertEquals(Arrays.asList("[1.0, 2.0]", "[3.0]"), DoubleStreamEx.of(1, 2, 3).parallel().chunked(2).map(
+            Arrays::toString).toList());
+        assertThrows(IllegalArgumentException.class, () -> DoubleStreamEx.of(1).chunked(0));
+    }
+
+    @Test
+    public void testCache() {
+        Supplier<DoubleStreamEx> cache = DoubleStreamEx.of(1.5, 2.5, 3.5).cache();
+        assertEquals(7.5, cache.get().sum(), 0.0);
+        assertArrayEquals(new double[] { 1.5, 2.5, 3.5 }, cache.get().parallel().toArray(), 0.0);
+    }
+
+    @Test
+    public void testMapToObjCached() {
+        assertEquals(Arrays.asList("0.0", "-0.0", "NaN", "0.0"), DoubleStreamEx.of(0.0, -0.0, Double.NaN, 0.0)
+                .mapToObjCached(String::valueOf, 10).toList());
+    }
 }
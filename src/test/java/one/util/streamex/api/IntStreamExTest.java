@@ -16,16 +16,25 @@
 package one.util.streamex.api;
 
 import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.io.UncheckedIOException;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 import java.nio.IntBuffer;
+import java.nio.channels.Channels;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.BitSet;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashSet;
+import java.util.IntSummaryStatistics;
 import java.util.List;
 import java.util.Map;
 import java.util.OptionalInt;
@@ -34,6 +43,10 @@ import java.util.Random;
 import java.util.Scanner;
 import java.util.Spliterator;
 import java.util.Spliterators;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Function;
@@ -51,7 +64,11 @@ import org.junit.FixMethodOrder;
 import org.junit.Test;
 import org.junit.runners.MethodSorters;
 
+import one.util.streamex.CacheStatistics;
+import one.util.streamex.DoubleStreamEx;
 import one.util.streamex.IntStreamEx;
+import one.util.streamex.LongStreamEx;
+import one.util.streamex.StageStatistics;
 import one.util.streamex.StreamEx;
 
 import static one.util.streamex.TestHelpers.checkSpliterator;
@@ -802,4 +819,216 @@ public class IntStreamExTest {
                 .toArray());
         assertEquals(0L, IntStreamEx.empty().intersperse(1).count());
     }
+
+    @Test
+    public void testWriteTo() {
+        for (ByteOrder order : new ByteOrder[] { ByteOrder.BIG_ENDIAN, ByteOrder.LITTLE_ENDIAN }) {
+            for (int bufferSize : new int[] { 4, 7, 100, 8192 }) {
+                intStreamEx(() -> IntStreamEx.range(-500, 1500), s -> {
+                    ByteArrayOutputStream baos = new ByteArrayOutputStream();
+                    s.writeTo(Channels.newChannel(baos), order, bufferSize);
+                    IntBuffer buf = ByteBuffer.wrap(baos.toByteArray()).order(order).asIntBuffer();
+                    assertArrayEquals(IntStreamEx.range(-500, 1500).toArray(), IntStreamEx.of(buf).toArray());
+                });
+            }
+        }
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        IntStreamEx.empty().writeTo(Channels.newChannel(baos), ByteOrder.BIG_ENDIAN, 4);
+        assertEquals(0, baos.size());
+        assertThrows(IllegalArgumentException.class, () -> IntStreamEx.of(1).writeTo(Channels.newChannel(baos),
+            ByteOrder.BIG_ENDIAN, 3));
+        assertThrows(UncheckedIOException.class, () -> IntStreamEx.range(100).writeTo(Channels.newChannel(
+            new OutputStream() {
+                @Override
+                public void write(int b) throws IOException {
+                    throw new IOException();
+                }
+            }), ByteOrder.BIG_ENDIAN, 16));
+    }
+
+    @Test
+    public void testInto() {
+        intStreamEx(() -> IntStreamEx.range(1000), s -> {
+            IntBuffer buf = IntBuffer.allocate(1002);
+            buf.put(-1);
+            assertSame(buf, s.into(buf));
+            assertEquals(1001, buf.position());
+            buf.flip();
+            assertArrayEquals(IntStreamEx.range(-1, 1000).toArray(), IntStreamEx.of(buf).toArray());
+        });
+        assertThrows(BufferOverflowException.class, () -> IntStreamEx.range(10).into(IntBuffer.allocate(9)));
+    }
+
+    @Test
+    public void testOfBytes() {
+        byte[] data = new byte[20000];
+        new Random(1).nextBytes(data);
+        int[] expected = IntStreamEx.of(data).map(b -> b & 0xFF).toArray();
+        assertArrayEquals(expected, IntStreamEx.ofBytes(new ByteArrayInputStream(data)).toArray());
+        // the same unsigned values as of(InputStream) produces
+        assertArrayEquals(IntStreamEx.of(new ByteArrayInputStream(data)).toArray(), IntStreamEx.ofBytes(
+            new ByteArrayInputStream(data)).toArray());
+        assertArrayEquals(expected, IntStreamEx.ofBytes(Channels.newChannel(new ByteArrayInputStream(data)))
+                .parallel().toArray());
+        assertEquals(IntStreamEx.of(expected).sum(), IntStreamEx.ofBytes(new ByteArrayInputStream(data)).parallel()
+                .unordered().sum());
+        assertArrayEquals(new int[] {0, 127, 128, 255}, IntStreamEx.ofBytes(new ByteArrayInputStream(new byte[] {0,
+                127, -128, -1})).toArray());
+        assertEquals(0, IntStreamEx.ofBytes(new ByteArrayInputStream(new byte[0])).count());
+        AtomicBoolean closed = new AtomicBoolean();
+        InputStream is = new ByteArrayInputStream(EVEN_BYTES) {
+            @Override
+            public void close() {
+                closed.set(true);
+            }
+        };
+        try (IntStreamEx s = IntStreamEx.ofBytes(is)) {
+            assertEquals(OptionalInt.of(6), s.findFirst(x -> x > 5));
+        }
+        assertTrue(closed.get());
+        IntStreamEx stream = IntStreamEx.ofBytes(new InputStream() {
+            @Override
+            public int read() throws IOException {
+                throw new IOException();
+            }
+
+            @Override
+            public void close() throws IOException {
+                throw new IOException();
+            }
+        });
+        assertThrows(UncheckedIOException.class, stream::count);
+        assertThrows(UncheckedIOException.class, stream::close);
+    }
+
+    @Test
+    public void testOfInts() {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        IntStreamEx.range(-1000, 10000).writeTo(Channels.newChannel(baos), ByteOrder.LITTLE_ENDIAN, 1000);
+        intStreamEx(() -> IntStreamEx.ofInts(Channels.newChannel(new ByteArrayInputStream(baos.toByteArray())),
+            ByteOrder.LITTLE_ENDIAN), s -> assertArrayEquals(IntStreamEx.range(-1000, 10000).toArray(), s.toArray()));
+        UncheckedIOException ex = assertThrows(UncheckedIOException.class, () -> IntStreamEx.ofInts(Channels.newChannel(
+            new ByteArrayInputStream(EVEN_BYTES)), ByteOrder.BIG_ENDIAN).toArray());
+        assertTrue(ex.getCause() instanceof EOFException);
+    }
+
+    @Test
+    public void testOfSized() {
+        int[] input = IntStreamEx.range(1000).toArray();
+        Supplier<OfInt> iterator = () -> IntStreamEx.of(input).iterator();
+        Spliterator.OfInt spliterator = IntStreamEx.ofSized(iterator.get(), 1000).spliterator();
+        assertTrue(spliterator.hasCharacteristics(Spliterator.SIZED));
+        assertEquals(1000, spliterator.getExactSizeIfKnown());
+        assertArrayEquals(input, IntStreamEx.ofSized(iterator.get(), 1000).parallel().toArray());
+        assertThrows(IllegalArgumentException.class, () -> IntStreamEx.ofSized(iterator.get(), -1));
+    }
+
+    @Test
+    public void testOfAdaptive() {
+        int[] input = IntStreamEx.range(1000).toArray();
+        Supplier<OfInt> iterator = () -> IntStreamEx.of(input).iterator();
+        assertArrayEquals(input, IntStreamEx.ofAdaptive(iterator.get(), Duration.ofMillis(1)).toArray());
+        assertEquals(499500, IntStreamEx.ofAdaptive(iterator.get(), Duration.ofMillis(1)).parallel().sum());
+        assertArrayEquals(input, IntStreamEx.ofAdaptive(iterator.get(), Duration.ofNanos(1)).parallel().toArray());
+        assertThrows(IllegalArgumentException.class, () -> IntStreamEx.ofAdaptive(iterator.get(),
+            Duration.ofSeconds(-1)));
+    }
+
+    @Test
+    public void testAsyncTerminals() throws Exception {
+        int[] input = IntStreamEx.range(1000).toArray();
+        assertArrayEquals(input, IntStreamEx.of(input).toArrayAsync().get());
+        assertArrayEquals(input, IntStreamEx.of(input).parallel().toArrayAsync().get());
+        assertEquals(499500, (int) IntStreamEx.of(input).parallel().reduceAsync(0, Integer::sum).get());
+        assertEquals(OptionalInt.of(999), IntStreamEx.of(input).parallel().reduceAsync(Math::max).get());
+        assertEquals(OptionalInt.empty(), IntStreamEx.empty().reduceAsync(Math::max).get());
+        AtomicInteger sum = new AtomicInteger();
+        IntStreamEx.of(input).parallel().forEachAsync(sum::addAndGet).join();
+        assertEquals(499500, sum.get());
+        CompletableFuture<int[]> failed = IntStreamEx.of(input).map(x -> 1 / (x - 500)).toArrayAsync();
+        assertTrue(assertThrows(ExecutionException.class, failed::get).getCause() instanceof ArithmeticException);
+    }
+
+    @Test
+    public void testWithDeadline() {
+        assertEquals(499500, IntStreamEx.range(1000).parallel().withDeadline(Duration.ofDays(1)).sum());
+        AtomicBoolean expired = new AtomicBoolean();
+        assertFalse(IntStreamEx.iterate(0, x -> x + 1).withDeadline(Duration.ofMillis(20), () -> expired.set(true))
+                .anyMatch(x -> x < 0));
+        assertTrue(expired.get());
+    }
+
+    @Test
+    public void testOfQueue() {
+        BlockingQueue<Integer> queue = new LinkedBlockingQueue<>(Arrays.asList(1, 2, 3, -1));
+        assertArrayEquals(new int[] { 1, 2, 3 }, IntStreamEx.ofQueue(queue, x -> x < 0).toArray());
+        queue.addAll(Arrays.asList(1, 2, 3));
+        assertArrayEquals(new int[] { 1, 2, 3 }, IntStreamEx.ofQueue(queue, x -> false, Duration.ZERO)
+                .toArray());
+    }
+
+    @Test
+    public void testChunked() {
+        assertEquals(Arrays.asList("[0, 1, 2]", "[3, 4, 5]", "[6]"), IntStreamEx.range(7).parallel().chunked(3).map(
+            Arrays::toString).toList());
+        assertEquals(1000, IntStreamEx.range(10000).filter(x -> x % 2 == 0).parallel().chunked(5).count());
+        assertThrows(IllegalArgumentException.class, () -> IntStreamEx.of(1).chunked(0));
+    }
+
+    @Test
+    public void testCache() {
+        AtomicInteger reads = new AtomicInteger();
+        Supplier<IntStreamEx> cache = IntStreamEx.range(10000).filter(x -> x % 3 != 0).peek(
+            x -> reads.incrementAndGet()).cache();
+        assertEquals(0, reads.get());
+        // compute the statistics, then normalize against them
+        IntSummaryStatistics stats = cache.get().summaryStatistics();
+        assertEquals(6666, reads.get());
+        double[] normalized = cache.get().parallel().asDoubleStream().map(x -> (x - stats.getMin()) / (stats
+                .getMax() - stats.getMin())).toArray();
+        assertEquals(6666, normalized.length);
+        assertEquals(0.0, normalized[0], 0.0);
+        assertEquals(1.0, normalized[6665], 0.0);
+        assertEquals(6666, reads.get());
+        assertArrayEquals(IntStreamEx.range(10000).filter(x -> x % 3 != 0).toArray(), cache.get().parallel()
+                .toArray());
+        assertEquals(0, IntStreamEx.empty().cache().get().count());
+    }
+
+    @Test
+    public void testMapToObjCached() {
+        AtomicInteger calls = new AtomicInteger();
+        CacheStatistics stats = new CacheStatistics();
+        List<String> result = IntStreamEx.range(10000).map(x -> x % 100 - 50).mapToObjCached(x -> {
+            calls.incrementAndGet();
+            return String.valueOf(x);
+        }, 100, false, stats).toList();
+        assertEquals(IntStreamEx.range(10000).mapToObj(x -> String.valueOf(x % 100 - 50)).toList(), result);
+        assertEquals(100, calls.get());
+        assertEquals(9900, stats.getHitCount());
+        assertEquals(100, stats.getMissCount());
+        assertEquals(IntStreamEx.range(1000).mapToObj(x -> x % 7).toList(), IntStreamEx.range(1000).parallel()
+                .mapToObjCached(x -> x % 7, 3).toList());
+        // the cache grows on demand, so the huge capacity allocates nothing up front
+        assertEquals(IntStreamEx.range(1000).boxed().toList(), IntStreamEx.range(1000).parallel().mapToObjCached(
+            x -> x, Integer.MAX_VALUE).toList());
+        assertEquals(IntStreamEx.range(1000).boxed().toList(), IntStreamEx.range(1000).parallel().mapToObjCached(
+            x -> x, Integer.MAX_VALUE, true, new CacheStatistics()).toList());
+        assertThrows(IllegalArgumentException.class, () -> IntStreamEx.of(1).mapToObjCached(x -> x, -1));
+    }
+
+    @Test
+    public void testInstrument() {
+        StageStatistics stats = new StageStatistics();
+        assertEquals(2500, IntStreamEx.range(10000).parallel().instrument(stats).checkpoint("source").filter(
+            x -> x % 4 == 0).checkpoint("filtered").boxed().toList().size());
+        assertEquals(10000, stats.getElementCount("source"));
+        assertEquals(2500, stats.getElementCount("filtered"));
+        assertEquals(Arrays.asList(0L, 1L), LongStreamEx.range(2).instrument(stats).checkpoint("long").boxed()
+                .toList());
+        assertEquals(Arrays.asList(0.0, 1.0), DoubleStreamEx.of(0.0, 1.0).instrument(stats).checkpoint("double")
+                .boxed().toList());
+        assertEquals(Arrays.asList("source", "filtered", "long", "double"), stats.getStages());
+        assertEquals(2, stats.getElementCount("double"));
+    }
 }
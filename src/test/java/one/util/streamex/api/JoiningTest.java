@@ -15,11 +15,16 @@
  */
 package one.util.streamex.api;
 
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.Locale;
 import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 import java.util.stream.Stream;
@@ -305,4 +310,62 @@ public class JoiningTest {
         checkShortCircuitCollector("maxElements", "one, two, three...", 4, input::stream, Joining.with(", ").maxElements(3).cutBeforeDelimiter());
         checkShortCircuitCollector("maxElements", "one, two, three, four", 4, input::stream, Joining.with(", ").maxElements(4).cutBeforeDelimiter());
     }
+
+    @Test
+    public void testTo() {
+        List<String> input = Arrays.asList("one", "two", "three", "four", "five", "six", "seven", "eight", "nine",
+            "ten", "\ud801\udc14\ud801\udc2f", "a\u0300\u0301b");
+        List<UnaryOperator<Joining>> cuts = Arrays.asList(Joining::cutAnywhere, Joining::cutAtCodePoint,
+            Joining::cutAtGrapheme, Joining::cutAtWord, Joining::cutBeforeDelimiter, Joining::cutAfterDelimiter);
+        List<Joining> joinings = Arrays.asList(Joining.with(", "), Joining.with(", ").wrap("[", "]"), Joining.with(
+            ", ").wrap("<<", ">>").ellipsis("~~~~~~"));
+        for (Joining joining : joinings) {
+            String expected = StreamEx.of(input).collect(joining);
+            assertEquals(expected, StreamEx.of(input).collect(joining.to(new StringBuilder())).toString());
+            assertEquals(expected, StreamEx.of(input).parallel().collect(joining.to(new StringBuilder())).toString());
+            assertEquals(expected, input.stream().collect(joining.to(new StringBuilder())).toString());
+            for (int i = 0; i < expected.length() + 5; i++) {
+                for (UnaryOperator<Joining> cut : cuts) {
+                    for (Joining limited : Arrays.asList(joining.maxChars(i), joining.maxCodePoints(i), joining
+                            .maxGraphemes(i), joining.maxElements(i))) {
+                        Joining j = cut.apply(limited);
+                        String exp = StreamEx.of(input).collect(j);
+                        String msg = exp + "/" + i;
+                        assertEquals(msg, exp, StreamEx.of(input).collect(j.to(new StringBuilder())).toString());
+                        assertEquals(msg, exp, StreamEx.of(input).parallel().collect(j.to(new StringBuilder()))
+                                .toString());
+                        assertEquals(msg, exp, input.stream().collect(j.to(new StringBuilder())).toString());
+                    }
+                }
+            }
+        }
+        assertEquals("0, 1, 2...", StreamEx.iterate(0, x -> x + 1).map(String::valueOf).collect(
+            Joining.with(", ").maxChars(10).cutBeforeDelimiter().to(new StringWriter())).toString());
+    }
+
+    @Test
+    public void testToLarge() {
+        String expected = IntStreamEx.range(100000).joining(",");
+        streamEx(() -> IntStreamEx.range(100000).mapToObj(String::valueOf), s -> assertEquals(expected, s.get()
+                .collect(Joining.with(",").to(new StringWriter())).toString()));
+    }
+
+    @Test(expected = UncheckedIOException.class)
+    public void testToFailure() {
+        Writer writer = new Writer() {
+            @Override
+            public void write(char[] cbuf, int off, int len) throws IOException {
+                throw new IOException("Test");
+            }
+
+            @Override
+            public void flush() {
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+        StreamEx.of("a", "b").collect(Joining.with(",").to(writer));
+    }
 }
@@ -15,7 +15,14 @@
  */
 package one.util.streamex.api;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 import java.nio.LongBuffer;
+import java.nio.channels.Channels;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Comparator;
@@ -28,6 +35,8 @@ import java.util.Random;
 import java.util.Scanner;
 import java.util.Spliterator;
 import java.util.Spliterators;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Function;
@@ -633,4 +642,103 @@ public class LongStreamExTest {
                           LongStreamEx.of(1, 10, 100, 1000).intersperse(0).toArray());
         assertEquals(0L, IntStreamEx.empty().intersperse(1).count());
     }
+
+    @Test
+    public void testWriteTo() {
+        for (ByteOrder order : new ByteOrder[] { ByteOrder.BIG_ENDIAN, ByteOrder.LITTLE_ENDIAN }) {
+            for (int bufferSize : new int[] { 8, 15, 100, 8192 }) {
+                longStreamEx(() -> LongStreamEx.range(-500, 1500).map(x -> x * 10_000_000_000L), s -> {
+                    ByteArrayOutputStream baos = new ByteArrayOutputStream();
+                    s.writeTo(Channels.newChannel(baos), order, bufferSize);
+                    LongBuffer buf = ByteBuffer.wrap(baos.toByteArray()).order(order).asLongBuffer();
+                    assertArrayEquals(LongStreamEx.range(-500, 1500).map(x -> x * 10_000_000_000L).toArray(),
+                        LongStreamEx.of(buf).toArray());
+                });
+            }
+        }
+        assertThrows(IllegalArgumentException.class, () -> LongStreamEx.of(1).writeTo(Channels.newChannel(
+            new ByteArrayOutputStream()), ByteOrder.BIG_ENDIAN, 7));
+    }
+
+    @Test
+    public void testInto() {
+        longStreamEx(() -> LongStreamEx.range(1000), s -> {
+            LongBuffer buf = LongBuffer.allocate(1000);
+            assertSame(buf, s.into(buf));
+            assertEquals(1000, buf.position());
+            buf.flip();
+            assertArrayEquals(LongStreamEx.range(1000).toArray(), LongStreamEx.of(buf).toArray());
+        });
+        assertThrows(BufferOverflowException.class, () -> LongStreamEx.range(10).into(LongBuffer.allocate(9)));
+    }
+
+    @Test
+    public void testOfLongs() {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        LongStreamEx.range(5000).map(x -> x * x * x * x).writeTo(Channels.newChannel(baos), ByteOrder.BIG_ENDIAN, 64);
+        longStreamEx(() -> LongStreamEx.ofLongs(Channels.newChannel(new ByteArrayInputStream(baos.toByteArray())),
+            ByteOrder.BIG_ENDIAN), s -> assertArrayEquals(LongStreamEx.range(5000).map(x -> x * x * x * x).toArray(),
+                s.toArray()));
+    }
+
+    @Test
+    public void testOfSized() {
+        long[] input = LongStreamEx.range(1000).toArray();
+        Supplier<OfLong> iterator = () -> LongStreamEx.of(input).iterator();
+        Spliterator.OfLong spliterator = LongStreamEx.ofSized(iterator.get(), 1000).spliterator();
+        assertTrue(spliterator.hasCharacteristics(Spliterator.SIZED));
+        assertEquals(1000, spliterator.getExactSizeIfKnown());
+        assertArrayEquals(input, LongStreamEx.ofSized(iterator.get(), 1000).parallel().toArray());
+        assertThrows(IllegalArgumentException.class, () -> LongStreamEx.ofSized(iterator.get(), -1));
+    }
+
+    @Test
+    public void testOfAdaptive() {
+        long[] input = LongStreamEx.range(1000).toArray();
+        Supplier<OfLong> iterator = () -> LongStreamEx.of(input).iterator();
+        assertArrayEquals(input, LongStreamEx.ofAdaptive(iterator.get(), Duration.ofMillis(1)).toArray());
+        assertEquals(499500, LongStreamEx.ofAdaptive(iterator.get(), Duration.ofMillis(1)).parallel().sum());
+        assertArrayEquals(input, LongStreamEx.ofAdaptive(iterator.get(), Duration.ofNanos(1)).parallel().toArray());
+        assertThrows(IllegalArgumentException.class, () -> LongStreamEx.ofAdaptive(iterator.get(),
+            Duration.ofSeconds(-1)));
+    }
+
+    @Test
+    public void testWithDeadline() {
+        assertEquals(499500, LongStreamEx.range(1000).withDeadline(Duration.ofDays(1)).sum());
+        assertFalse(LongStreamEx.generate(() -> 1).parallel().withDeadline(Duration.ofMillis(20)).anyMatch(
+            x -> x == 2));
+    }
+
+    @Test
+    public void testOfQueue() {
+        BlockingQueue<Long> queue = new LinkedBlockingQueue<>(Arrays.asList(1L, 2L, 3L, -1L));
+        assertArrayEquals(new long[] { 1, 2, 3 }, LongStreamEx.ofQueue(queue, x -> x < 0).toArray());
+        queue.addAll(Arrays.asList(1L, 2L, 3L));
+        assertArrayEquals(new long[] { 1, 2, 3 }, LongStreamEx.ofQueue(queue, x -> false, Duration.ZERO)
+                .toArray());
+    }
+
+    @Test
+    public void testChunked() {
+        assertEquals(Arrays.asList("[0, 1, 2]", "[3, 4, 5]", "[6]"), LongStreamEx.range(7).parallel().chunked(3).map(
+            Arrays::toString).toList());
+        assertThrows(IllegalArgumentException.class, () -> LongStreamEx.of(1).chunked(0));
+    }
+
+    @Test
+    public void testCache() {
+        Supplier<LongStreamEx> cache = LongStreamEx.range(3000).parallel().cache();
+        assertTrue(cache.get().isParallel());
+        assertEquals(4498500, cache.get().sum());
+        assertArrayEquals(LongStreamEx.range(3000).toArray(), cache.get().toArray());
+    }
+
+    @Test
+    public void testMapToObjCached() {
+        assertEquals(Arrays.asList("1", "2", "1", "2"), LongStreamEx.of(1, 2, 1, 2).mapToObjCached(String::valueOf, 1)
+                .toList());
+        assertEquals(LongStreamEx.range(1000).mapToObj(x -> x % 10).toList(), LongStreamEx.range(1000).parallel()
+                .mapToObjCached(x -> x % 10, 10).toList());
+    }
 }
@@ -1150,4 +1150,32 @@ public class MoreCollectorsTest {
             checkCollectorEmpty("#" + i, Collections.emptySet(), intersector.get());
         }
     }
+
+    @Test
+    public void testTeeing() {
+        List<Integer> ints = asList(1, 3, 5, 7, 9, 10, 8, 6, 4, 2, 3, 7, 11);
+        checkCollector("teeing", asList(76, 11, 1), ints::stream, MoreCollectors.teeing(Collectors.summingInt(
+            x -> x), Collectors.reducing(Integer.MIN_VALUE, Math::max), Collectors.reducing(Integer.MAX_VALUE,
+                Math::min)));
+        Collector<Integer, ?, Optional<Integer>> firstEven = MoreCollectors.filtering(x -> x % 2 == 0, MoreCollectors
+                .first());
+        Collector<Integer, ?, Optional<Integer>> firstOdd = MoreCollectors.filtering(x -> x % 2 != 0, MoreCollectors
+                .first());
+        checkShortCircuitCollector("teeing-short", asList(Optional.of(10), Optional.of(1)), 6, ints::stream,
+            MoreCollectors.teeing(firstEven, firstOdd));
+        checkShortCircuitCollector("combining-short", asList(Optional.of(1), Optional.of(10), Optional.of(1)), 6,
+            ints::stream, MoreCollectors.combining(asList(firstOdd, firstEven, MoreCollectors.first())));
+        // not every collector is short-circuiting
+        checkCollector("teeing-mixed", asList(Optional.of(1), Optional.of(11)), ints::stream, MoreCollectors.teeing(
+            MoreCollectors.first(), MoreCollectors.last()));
+        checkCollectorEmpty("teeing-empty", asList(0L, Optional.empty()), MoreCollectors.<Integer, Object>teeing(
+            Collectors.counting(), MoreCollectors.first()));
+        assertEquals(Collections.emptyList(), StreamEx.of(1, 2, 3).collect(MoreCollectors.combining(Collections
+                .<Collector<Integer, ?, Integer>>emptyList())));
+
+        Collector<Integer, ?, List<Set<Integer>>> sets = MoreCollectors.teeing(Collectors.toSet(), Collectors.toSet());
+        assertEquals(EnumSet.of(Characteristics.UNORDERED), sets.characteristics());
+        assertThrows(NullPointerException.class, () -> MoreCollectors.combining(null));
+        assertThrows(NullPointerException.class, () -> MoreCollectors.teeing(Collectors.toSet(), null));
+    }
 }
@@ -0,0 +1,211 @@
+/*
+ * Copyright 2015, 2020 StreamEx contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package one.util.streamex.api;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.SubmissionPublisher;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Stream;
+
+import org.junit.Test;
+
+import one.util.streamex.IntStreamEx;
+import one.util.streamex.StreamEx;
+import one.util.streamex.StreamExFlow;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author Tagir Valeev
+ */
+public class StreamExFlowTest {
+    // the Flow API is unsupported when the tests run with Java 8 classes
+    private static final boolean SUPPORTED = isSupported();
+
+    private static boolean isSupported() {
+        try {
+            StreamExFlow.toPublisher(Stream.empty());
+            return true;
+        } catch (UnsupportedOperationException e) {
+            return false;
+        }
+    }
+
+    @Test
+    public void testUnsupported() {
+        if (SUPPORTED) {
+            assertThrows(IllegalArgumentException.class, () -> StreamExFlow.ofPublisher("publisher", 1));
+            return;
+        }
+        assertThrows(UnsupportedOperationException.class, () -> StreamExFlow.toPublisher(Stream.of(1),
+            ForkJoinPool.commonPool()));
+        assertThrows(UnsupportedOperationException.class, () -> StreamExFlow.ofPublisher(new Object(), 1));
+    }
+
+    @Test
+    public void testToPublisher() throws InterruptedException {
+        AtomicInteger pulled = new AtomicInteger();
+        AtomicInteger closed = new AtomicInteger();
+        if (!SUPPORTED)
+            return;
+        Flow.Publisher<Integer> publisher = StreamExFlow.toPublisher(IntStreamEx.range(1000).boxed().peek(
+            x -> pulled.incrementAndGet()).onClose(closed::incrementAndGet));
+        List<Integer> result = new ArrayList<>();
+        CountDownLatch done = new CountDownLatch(1);
+        publisher.subscribe(new Flow.Subscriber<Integer>() {
+            private Flow.Subscription subscription;
+
+            @Override
+            public void onSubscribe(Flow.Subscription subscription) {
+                this.subscription = subscription;
+                subscription.request(10);
+            }
+
+            @Override
+            public void onNext(Integer item) {
+                result.add(item);
+                // no more than requested is pulled from the stream
+                assertTrue(pulled.get() <= (result.size() + 9) / 10 * 10);
+                if (result.size() % 10 == 0)
+                    subscription.request(10);
+            }
+
+            @Override
+            public void onError(Throwable throwable) {
+                done.countDown();
+            }
+
+            @Override
+            public void onComplete() {
+                done.countDown();
+            }
+        });
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+        assertEquals(IntStreamEx.range(1000).boxed().toList(), result);
+        assertEquals(1, closed.get());
+
+        AtomicReference<Throwable> error = new AtomicReference<>();
+        CountDownLatch cancelled = new CountDownLatch(1);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        Flow.Publisher<Integer> infinite = StreamExFlow.toPublisher(StreamEx.iterate(0, x -> x + 1).onClose(
+            cancelled::countDown), executor);
+        infinite.subscribe(new Flow.Subscriber<Integer>() {
+            private Flow.Subscription subscription;
+
+            @Override
+            public void onSubscribe(Flow.Subscription subscription) {
+                this.subscription = subscription;
+                subscription.request(Long.MAX_VALUE);
+            }
+
+            @Override
+            public void onNext(Integer item) {
+                if (item == 100)
+                    subscription.cancel();
+            }
+
+            @Override
+            public void onError(Throwable throwable) {
+                error.set(throwable);
+            }
+
+            @Override
+            public void onComplete() {
+                error.set(new AssertionError());
+            }
+        });
+        assertTrue(cancelled.await(10, TimeUnit.SECONDS));
+        assertNull(error.get());
+        infinite.subscribe(new Flow.Subscriber<Integer>() {
+            @Override
+            public void onSubscribe(Flow.Subscription subscription) {
+                subscription.request(1);
+            }
+
+            @Override
+            public void onNext(Integer item) {
+                error.set(new AssertionError());
+            }
+
+            @Override
+            public void onError(Throwable throwable) {
+                error.set(throwable);
+            }
+
+            @Override
+            public void onComplete() {
+                error.set(new AssertionError());
+            }
+        });
+        assertTrue(error.get() instanceof IllegalStateException);
+        executor.shutdown();
+    }
+
+    @Test
+    public void testOfPublisher() throws InterruptedException {
+        if (!SUPPORTED)
+            return;
+        SubmissionPublisher<Integer> publisher = new SubmissionPublisher<>(ForkJoinPool.commonPool(), 4);
+        StreamEx<Integer> stream = StreamExFlow.ofPublisher(publisher, 8);
+        Thread producer = new Thread(() -> {
+            // the stream subscribes when the traversal starts
+            while (!publisher.hasSubscribers()) {
+                Thread.yield();
+            }
+            IntStreamEx.range(1000).boxed().forEach(publisher::submit);
+            publisher.close();
+        });
+        producer.start();
+        assertEquals(IntStreamEx.range(0, 1000, 2).boxed().toList(), stream.groupRuns((a, b) -> a / 2 == b / 2)
+                .map(run -> run.get(0)).toList());
+        producer.join();
+
+        SubmissionPublisher<Integer> infinite = new SubmissionPublisher<>(ForkJoinPool.commonPool(), 4);
+        Thread infiniteProducer = new Thread(() -> {
+            try {
+                for (int i = 0; !infinite.isClosed(); i++) {
+                    // blocks while the stream buffer is full
+                    infinite.submit(i);
+                }
+            } catch (IllegalStateException e) {
+                // closed
+            }
+        });
+        infiniteProducer.start();
+        try (StreamEx<Integer> s = StreamExFlow.ofPublisher(infinite, 16)) {
+            assertEquals(3, s.limit(3).toList().size());
+        }
+        for (int i = 0; i < 100 && infinite.hasSubscribers(); i++) {
+            Thread.sleep(50);
+        }
+        assertFalse(infinite.hasSubscribers());
+        infinite.close();
+        infiniteProducer.join();
+        assertThrows(IllegalArgumentException.class, () -> StreamExFlow.ofPublisher(infinite, 0));
+    }
+}
@@ -16,13 +16,19 @@
 package one.util.streamex.api;
 
 import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.IOException;
 import java.io.Reader;
 import java.io.StringReader;
+import java.io.StringWriter;
 import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
+import java.time.Clock;
+import java.time.Duration;
 import java.util.AbstractList;
 import java.util.AbstractMap;
 import java.util.ArrayDeque;
@@ -50,15 +56,27 @@ import java.util.SortedMap;
 import java.util.Spliterator;
 import java.util.TreeSet;
 import java.util.Vector;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.Exchanger;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
 import java.util.function.BiFunction;
 import java.util.function.BinaryOperator;
 import java.util.function.Consumer;
@@ -80,10 +98,12 @@ import org.junit.Test;
 import org.junit.rules.TemporaryFolder;
 import org.junit.runners.MethodSorters;
 
+import one.util.streamex.CacheStatistics;
 import one.util.streamex.EntryStream;
 import one.util.streamex.IntStreamEx;
 import one.util.streamex.Joining;
 import one.util.streamex.MoreCollectors;
+import one.util.streamex.StageStatistics;
 import one.util.streamex.StreamEx;
 import one.util.streamex.TestHelpers.Point;
 
@@ -95,6 +115,7 @@ import static one.util.streamex.TestHelpers.emptySpliteratorWithExactSize;
 import static one.util.streamex.TestHelpers.emptyStreamEx;
 import static one.util.streamex.TestHelpers.repeat;
 import static one.util.streamex.TestHelpers.streamEx;
+import static one.util.streamex.TestHelpers.waitUntilStopped;
 import static one.util.streamex.TestHelpers.withRandom;
 import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
@@ -2286,4 +2307,463 @@ public class StreamExTest {
             assertEquals((Integer) 0, s.get().reduceWithZero(0, 1, (a, b) -> a * b));
         });
     }
+
+    @Test
+    public void testOfRecords() {
+        ByteBuffer buf = ByteBuffer.allocate(3000 * 10);
+        for (int i = 0; i < 3000; i++) {
+            buf.putShort((short) i).putLong(i * 1000L);
+        }
+        streamEx(() -> StreamEx.ofRecords(Channels.newChannel(new ByteArrayInputStream(buf.array())), 10,
+            b -> b.getShort() + "/" + b.getLong()), s -> assertEquals(IntStreamEx.range(3000).mapToObj(
+                i -> i + "/" + i * 1000L).toList(), s.get().toList()));
+        assertThrows(IllegalArgumentException.class, () -> StreamEx.ofRecords(Channels.newChannel(
+            new ByteArrayInputStream(buf.array())), 0, b -> b));
+    }
+
+    @Test
+    public void testJoiningTo() {
+        assertEquals("1, 2, 3", StreamEx.of(1, 2, 3).joiningTo(new StringWriter(), ", ").toString());
+        assertEquals("", StreamEx.empty().joiningTo(new StringBuilder(), ", ").toString());
+        streamEx(() -> IntStreamEx.range(10000).boxed(), s -> assertEquals(s.get().joining("|"), s.get().joiningTo(
+            new StringBuilder(), "|").toString()));
+    }
+
+    @Test
+    public void testMapAsync() throws InterruptedException {
+        List<Integer> input = IntStreamEx.range(200).boxed().toList();
+        List<Integer> expected = StreamEx.of(input).map(x -> x * 2).toList();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            AtomicInteger inFlight = new AtomicInteger(), maxInFlight = new AtomicInteger();
+            streamEx(input::stream, s -> {
+                maxInFlight.set(0);
+                assertEquals(expected, s.get().mapAsync(x -> {
+                    maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+                    try {
+                        Thread.sleep(ThreadLocalRandom.current().nextInt(2));
+                    } catch (InterruptedException e) {
+                        throw new RuntimeException(e);
+                    }
+                    inFlight.decrementAndGet();
+                    return x * 2;
+                }, 4, executor).toList());
+                assertTrue(maxInFlight.get() <= 4);
+            });
+            streamEx(input::stream, s -> assertEquals(expected, s.get().mapAsync(
+                x -> CompletableFuture.supplyAsync(() -> x * 2, executor), 3).toList()));
+            assertEquals(Arrays.asList(0, 2), StreamEx.of(input).mapAsync(x -> x * 2, 10, executor).limit(2)
+                    .toList());
+
+            IllegalStateException ex = assertThrows(IllegalStateException.class, () -> StreamEx.of(1, 2, 3)
+                    .mapAsync(x -> {
+                        if (x == 2)
+                            throw new IllegalStateException("test");
+                        return x;
+                    }, 2, executor).toList());
+            assertEquals("test", ex.getMessage());
+
+            CompletableFuture<Integer> never = new CompletableFuture<>();
+            try (StreamEx<Integer> s = StreamEx.of(1, 2, 3).mapAsync(x -> x == 1 ? CompletableFuture
+                    .completedFuture(x) : never, 3)) {
+                assertEquals(1, (int) s.findFirst().get());
+            }
+            assertTrue(never.isCancelled());
+            assertThrows(CancellationException.class, () -> never.join());
+        } finally {
+            executor.shutdown();
+            assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+        }
+        assertThrows(IllegalArgumentException.class, () -> StreamEx.of(1).mapAsync(CompletableFuture::completedFuture,
+            0));
+    }
+
+    @Test
+    public void testParallelVirtual() {
+        List<Integer> input = IntStreamEx.range(1000).boxed().toList();
+        Thread caller = Thread.currentThread();
+        Set<Thread> threads = ConcurrentHashMap.newKeySet();
+        Supplier<StreamEx<Integer>> s = () -> StreamEx.of(input).parallelVirtual(8).peek(x -> threads.add(Thread
+                .currentThread()));
+        assertTrue(s.get().isParallel());
+        assertEquals(input, s.get().toList());
+        assertFalse(threads.contains(caller));
+        assertFalse(threads.isEmpty());
+        assertEquals(input, s.get().sorted().toList());
+        assertArrayEquals(input.toArray(new Integer[0]), s.get().toArray(Integer[]::new));
+        assertEquals(499500, (int) s.get().reduce(0, Integer::sum));
+        assertEquals(499500, (int) s.get().reduce(Integer::sum).get());
+        assertEquals(1000, s.get().count());
+        assertEquals(500, s.get().filter(x -> x % 2 == 0).count());
+        assertTrue(s.get().anyMatch(x -> x == 999));
+        assertFalse(s.get().anyMatch(x -> x == 1000));
+        assertTrue(s.get().allMatch(x -> x < 1000));
+        assertFalse(s.get().allMatch(x -> x < 999));
+        assertEquals(500, (int) s.get().findFirst(x -> x >= 500).get());
+        assertTrue(s.get().findAny(x -> x % 7 == 6).get() % 7 == 6);
+        assertFalse(s.get().findFirst(x -> x < 0).isPresent());
+        assertEquals(input.subList(0, 10), s.get().collect(MoreCollectors.head(10)));
+        assertEquals(StreamEx.of(input).joining(","), s.get().map(String::valueOf).joining(","));
+        assertEquals(Optional.of(0), s.get().collect(MoreCollectors.first()));
+        List<Integer> ordered = new ArrayList<>();
+        s.get().forEachOrdered(ordered::add);
+        assertEquals(input, ordered);
+        AtomicInteger sum = new AtomicInteger();
+        s.get().forEach(sum::addAndGet);
+        assertEquals(499500, sum.get());
+        assertEquals(input, s.get().sequential().toList());
+        assertEquals(input, StreamEx.of(input).parallelVirtual(1).toList());
+        assertThrows(IllegalArgumentException.class, () -> StreamEx.of(input).parallelVirtual(0));
+        IllegalStateException ex = assertThrows(IllegalStateException.class, () -> s.get().peek(x -> {
+            if (x == 500)
+                throw new IllegalStateException("test");
+        }).toList());
+        assertEquals("test", ex.getMessage());
+    }
+
+    @Test
+    public void testMapBlocking() {
+        List<Integer> input = IntStreamEx.range(100).boxed().toList();
+        streamEx(input::stream, s -> assertEquals(StreamEx.of(input).map(x -> x * 2).toList(), s.get().mapBlocking(
+            x -> x * 2).toList()));
+        streamEx(input::stream, s -> assertEquals(input, s.get().mapBlocking(x -> x, 1).toList()));
+        List<Integer> peeked = new ArrayList<>();
+        assertEquals(input, StreamEx.of(input).peekBlocking(peeked::add).toList());
+        assertEquals(input, peeked);
+        assertThrows(IllegalArgumentException.class, () -> StreamEx.of(input).mapBlocking(x -> x, 0));
+        assertThrows(IllegalArgumentException.class, () -> StreamEx.of(input).peekBlocking(x -> {}, 0));
+
+        // every call waits for the others, so the pool must compensate the
+        // blocked workers to finish
+        ForkJoinPool pool = new ForkJoinPool(2);
+        try {
+            CountDownLatch latch = new CountDownLatch(4);
+            assertEquals(Arrays.asList(true, true, true, true), IntStreamEx.range(4).boxed().parallel(pool)
+                    .mapBlocking(x -> {
+                        latch.countDown();
+                        try {
+                            return latch.await(10, TimeUnit.SECONDS);
+                        } catch (InterruptedException e) {
+                            throw new RuntimeException(e);
+                        }
+                    }).toList());
+            CountDownLatch peekLatch = new CountDownLatch(4);
+            assertEquals(4, IntStreamEx.range(4).boxed().parallel(pool).peekBlocking(x -> {
+                peekLatch.countDown();
+                try {
+                    assertTrue(peekLatch.await(10, TimeUnit.SECONDS));
+                } catch (InterruptedException e) {
+                    throw new RuntimeException(e);
+                }
+            }, 3).toList().size());
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void testOfSized() {
+        List<Integer> input = IntStreamEx.range(1000).boxed().toList();
+        StreamEx<Integer> stream = StreamEx.ofSized(input.iterator(), 1000);
+        Spliterator<Integer> spliterator = stream.spliterator();
+        assertTrue(spliterator.hasCharacteristics(Spliterator.SIZED));
+        assertTrue(spliterator.hasCharacteristics(Spliterator.ORDERED));
+        assertEquals(1000, spliterator.getExactSizeIfKnown());
+        assertEquals(input, StreamEx.ofSized(input.iterator(), 1000).toList());
+        assertEquals(input, StreamEx.ofSized(input.iterator(), 1000).parallel().toList());
+        assertEquals(0, StreamEx.ofSized(Collections.emptyIterator(), 0).count());
+        assertThrows(IllegalArgumentException.class, () -> StreamEx.ofSized(input.iterator(), -1));
+    }
+
+    @Test
+    public void testOfAdaptive() {
+        List<Integer> input = IntStreamEx.range(10000).boxed().toList();
+        assertEquals(input, StreamEx.ofAdaptive(input.iterator(), Duration.ofMillis(1)).toList());
+        assertEquals(input, StreamEx.ofAdaptive(input.iterator(), Duration.ofMillis(1)).parallel().toList());
+        assertEquals(input, StreamEx.ofAdaptive(input.iterator(), Duration.ofNanos(1)).parallel().toList());
+        assertEquals(input.size(), StreamEx.ofAdaptive(input.iterator(), Duration.ofMillis(1)).parallel().map(x -> {
+            if (x % 1000 == 0)
+                Thread.yield();
+            return x * 2;
+        }).toList().size());
+        assertThrows(IllegalArgumentException.class, () -> StreamEx.ofAdaptive(input.iterator(), Duration.ZERO));
+    }
+
+    @Test
+    public void testAsyncTerminals() throws Exception {
+        List<Integer> input = IntStreamEx.range(1000).boxed().toList();
+        assertEquals(input, StreamEx.of(input).toListAsync().get());
+        assertEquals(input, StreamEx.of(input).parallel().toListAsync().get());
+        assertEquals("0,1,2", StreamEx.of(input).limit(3).map(String::valueOf).collectAsync(Collectors.joining(","))
+                .get());
+        assertEquals(499500, (int) StreamEx.of(input).parallel().reduceAsync(0, Integer::sum).get());
+        assertEquals(Optional.empty(), StreamEx.<Integer>empty().reduceAsync(Integer::sum).get());
+        AtomicInteger sum = new AtomicInteger();
+        StreamEx.of(input).parallel().forEachAsync(sum::addAndGet).join();
+        assertEquals(499500, sum.get());
+        assertEquals(Collections.singletonMap(1, 2), EntryStream.of(1, 2).collectAsync(Collectors.toMap(
+            Entry::getKey, Entry::getValue)).get());
+
+        CompletableFuture<Optional<Integer>> failed = StreamEx.of(input).map(x -> 1 / (x - 500)).reduceAsync(
+            Integer::sum);
+        assertTrue(assertThrows(ExecutionException.class, failed::get).getCause() instanceof ArithmeticException);
+
+        CountDownLatch started = new CountDownLatch(1);
+        AtomicInteger count = new AtomicInteger();
+        CompletableFuture<Void> future = StreamEx.generate(() -> 1).forEachAsync(x -> {
+            started.countDown();
+            count.incrementAndGet();
+        });
+        started.await();
+        assertTrue(future.cancel(false));
+        waitUntilStopped(count);
+    }
+
+    @Test
+    public void testWithDeadline() {
+        List<Integer> input = IntStreamEx.range(1000).boxed().toList();
+        AtomicBoolean expired = new AtomicBoolean();
+        assertEquals(input, StreamEx.of(input).withDeadline(Duration.ofDays(1), () -> expired.set(true)).toList());
+        assertEquals(input, StreamEx.of(input).parallel().withDeadline(Duration.ofDays(1)).toList());
+        assertFalse(expired.get());
+
+        List<Integer> partial = StreamEx.iterate(0, x -> x + 1).withDeadline(Duration.ofMillis(50),
+            () -> expired.set(true)).peek(x -> LockSupport.parkNanos(1_000_000)).toList();
+        assertTrue(expired.get());
+        assertEquals(IntStreamEx.range(partial.size()).boxed().toList(), partial);
+
+        expired.set(false);
+        assertFalse(StreamEx.generate(() -> 1).parallel().withDeadline(Duration.ofMillis(50), () -> expired.set(
+            true)).anyMatch(x -> x == 2));
+        assertTrue(expired.get());
+        assertFalse(EntryStream.generate(() -> 1, () -> 2).withDeadline(Duration.ofMillis(10)).findAny(
+            e -> e.getKey() == 2).isPresent());
+        assertThrows(IllegalArgumentException.class, () -> StreamEx.of(input).withDeadline(Duration.ofMillis(-1)));
+    }
+
+    @Test
+    public void testPrefetch() throws InterruptedException {
+        Thread caller = Thread.currentThread();
+        List<String> lines = IntStreamEx.range(1000).mapToObj(String::valueOf).toList();
+        Set<Thread> producers = ConcurrentHashMap.newKeySet();
+        try (StreamEx<String> stream = StreamEx.ofLines(new StringReader(String.join("\n", lines))).peek(
+            x -> producers.add(Thread.currentThread())).prefetch(16)) {
+            assertEquals(lines, stream.peek(x -> assertSame(caller, Thread.currentThread())).toList());
+        }
+        assertEquals(1, producers.size());
+        assertFalse(producers.contains(caller));
+        assertEquals(Arrays.asList(0, 2, 4), IntStreamEx.range(3).boxed().prefetch(1).map(x -> x * 2).parallel()
+                .toList());
+        assertEquals(EntryStream.of(1, 2).toMap(), EntryStream.of(1, 2).prefetch(1).toMap());
+
+        AtomicInteger produced = new AtomicInteger();
+        try (StreamEx<Integer> stream = StreamEx.generate(produced::incrementAndGet).prefetch(10)) {
+            assertEquals(Optional.of(1), stream.findFirst());
+        }
+        waitUntilStopped(produced);
+        assertThrows(IllegalArgumentException.class, () -> StreamEx.of(1).prefetch(0));
+    }
+
+    @Test
+    public void testOfQueue() {
+        BlockingQueue<String> queue = new LinkedBlockingQueue<>(asList("a", "b", "c", "", "d"));
+        assertEquals(asList("a", "b", "c"), StreamEx.ofQueue(queue, String::isEmpty).toList());
+        // the elements after the end marker are not taken
+        assertEquals(asList("d"), new ArrayList<>(queue));
+        queue.clear();
+        queue.addAll(asList("a", "b", "c"));
+        assertEquals("a,b,c", StreamEx.ofQueue(queue, x -> false, Duration.ZERO).parallel().joining(","));
+        assertEquals(0, StreamEx.ofQueue(queue, x -> false, Duration.ofMillis(10)).count());
+        assertThrows(IllegalArgumentException.class, () -> StreamEx.ofQueue(queue, x -> false, Duration.ofMillis(
+            -1)));
+    }
+
+    @Test
+    public void testChunked() {
+        List<Integer> input = IntStreamEx.range(1000).boxed().toList();
+        List<List<Integer>> expected = StreamEx.ofSubLists(input, 7).toList();
+        streamEx(input::stream, s -> assertEquals(expected, s.get().chunked(7).toList()));
+        streamEx(input::stream, s -> assertEquals(expected, s.get().filter(x -> true).chunked(7).toList()));
+        assertEquals(expected.subList(0, 142), StreamEx.iterate(0, x -> x + 1).chunked(7).limit(142).toList());
+        assertEquals(Collections.emptyList(), StreamEx.empty().chunked(1).toList());
+        assertEquals(Collections.singletonList(input), StreamEx.of(input).parallel().chunked(2000).toList());
+        assertThrows(IllegalArgumentException.class, () -> StreamEx.of(1).chunked(0));
+    }
+
+    @Test
+    public void testMapBatched() {
+        List<Integer> input = IntStreamEx.range(1000).boxed().toList();
+        AtomicInteger calls = new AtomicInteger();
+        Function<List<Integer>, List<String>> lookup = keys -> {
+            calls.incrementAndGet();
+            return StreamEx.of(keys).map(String::valueOf).toList();
+        };
+        assertEquals(StreamEx.of(input).map(String::valueOf).toList(), StreamEx.of(input).mapBatched(lookup, 100)
+                .toList());
+        assertEquals(10, calls.get());
+        streamEx(input::stream, s -> assertEquals(StreamEx.of(input).map(String::valueOf).toList(), s.get()
+                .mapBatched(lookup, 16).toList()));
+        streamEx(input::stream, s -> assertEquals(1000, s.get().mapBatched(lookup, 16).count()));
+        streamEx(input::stream, s -> assertEquals(IntStreamEx.range(0, 1000, 10).boxed().toList(), s.get()
+                .flatMapBatched(keys -> StreamEx.of(keys).filter(x -> x % 10 == 0).toSet(), 30).sorted().toList()));
+        assertEquals(Optional.of("0"), StreamEx.iterate(0, x -> x + 1).mapBatched(lookup, 10).findFirst());
+        assertThrows(IllegalArgumentException.class, () -> StreamEx.of(1).mapBatched(lookup, 0));
+        assertThrows(IllegalStateException.class, () -> StreamEx.of(1, 2).mapBatched(keys -> keys.subList(0, 1), 2)
+                .toList());
+    }
+
+    @Test
+    public void testCache() {
+        AtomicInteger reads = new AtomicInteger();
+        AtomicInteger closes = new AtomicInteger();
+        Supplier<StreamEx<String>> cache = IntStreamEx.range(5000).mapToObj(String::valueOf).peek(
+            x -> reads.incrementAndGet()).onClose(closes::incrementAndGet).cache();
+        assertEquals(0, reads.get());
+        StreamEx<String> stream = cache.get();
+        assertEquals(0, reads.get());
+        assertEquals(5000, stream.count());
+        assertEquals(5000, reads.get());
+        assertEquals(1, closes.get());
+        List<String> expected = IntStreamEx.range(5000).mapToObj(String::valueOf).toList();
+        assertEquals(expected, cache.get().toList());
+        assertEquals(expected, cache.get().parallel().toList());
+        assertEquals(Optional.of("4999"), cache.get().parallel().skip(4999).findFirst());
+        assertEquals(5000, reads.get());
+        assertTrue(cache.get().spliterator().hasCharacteristics(Spliterator.SIZED | Spliterator.SUBSIZED));
+        // the original close handler is not inherited
+        cache.get().close();
+        assertEquals(1, closes.get());
+
+        assertTrue(StreamEx.of(1, 2, 3).parallel().cache().get().isParallel());
+        ForkJoinPool pool = new ForkJoinPool(2);
+        try {
+            Supplier<StreamEx<Integer>> pooled = IntStreamEx.range(1000).boxed().parallel(pool).cache();
+            assertEquals(Collections.singleton(pool), pooled.get().map(x -> ForkJoinTask.getPool()).toSet());
+            assertEquals(Collections.singleton(pool), pooled.get().map(x -> ForkJoinTask.getPool()).toSet());
+        } finally {
+            pool.shutdown();
+        }
+        // the sequential threshold applies to the cached streams
+        Supplier<StreamEx<Integer>> small = StreamEx.of(IntStreamEx.range(2000).boxed().toList()).parallel()
+                .sequentialThreshold(100000).cache();
+        assertEquals(Collections.singleton(Thread.currentThread()), small.get().map(x -> Thread.currentThread())
+                .toSet());
+        assertEquals(Collections.singleton(Thread.currentThread()), small.get().map(x -> Thread.currentThread())
+                .toSet());
+        assertEquals(Arrays.asList(1, null, 3), StreamEx.of(1, null, 3).filter(x -> true).cache().get().toList());
+        assertEquals(0, StreamEx.empty().cache().get().count());
+    }
+
+    @Test
+    public void testFork() {
+        List<String> input = IntStreamEx.range(10000).mapToObj(String::valueOf).toList();
+        AtomicReference<Map<Integer, Long>> lengths = new AtomicReference<>();
+        AtomicReference<Optional<String>> first = new AtomicReference<>();
+        AtomicReference<String> joined = new AtomicReference<>();
+        StreamEx.of(input).fork(s -> lengths.set(s.groupingBy(String::length, Collectors.counting())), s -> first
+                .set(s.findFirst(x -> x.endsWith("7"))), s -> joined.set(s.parallel().limit(5).joining(",")));
+        assertEquals(EntryStream.of(1, 10L, 2, 90L, 3, 900L, 4, 9000L).toMap(), lengths.get());
+        assertEquals(Optional.of("7"), first.get());
+        assertEquals("0,1,2,3,4", joined.get());
+        assertThrows(IllegalStateException.class, () -> StreamEx.of(input).fork(s -> s.forEach(x -> {
+            throw new IllegalStateException();
+        })));
+    }
+
+    @Test
+    public void testMapCached() {
+        List<String> input = IntStreamEx.range(10000).mapToObj(x -> "k" + x % 50).toList();
+        AtomicInteger calls = new AtomicInteger();
+        Function<String, Integer> expensive = key -> {
+            calls.incrementAndGet();
+            return key.length();
+        };
+        assertEquals(StreamEx.of(input).map(String::length).toList(), StreamEx.of(input).mapCached(expensive, 100)
+                .toList());
+        assertEquals(50, calls.get());
+        // the cache is too small for cyclic keys
+        calls.set(0);
+        assertEquals(10000, StreamEx.of(input).mapCached(expensive, 49).toList().size());
+        assertEquals(10000, calls.get());
+
+        streamEx(input::stream, s -> assertEquals(StreamEx.of(input).map(String::length).toList(), s.get()
+                .mapCached(expensive, 10).toList()));
+        CacheStatistics stats = new CacheStatistics();
+        assertEquals(10000, StreamEx.of(input).parallel().mapCached(expensive, 100, true, stats).toList().size());
+        assertEquals(10000, stats.getHitCount() + stats.getMissCount());
+        assertTrue(stats.getMissCount() >= 50);
+        assertEquals("CacheStatistics[hits=" + stats.getHitCount() + ", misses=" + stats.getMissCount() + "]",
+            stats.toString());
+        assertEquals(Arrays.asList(null, "a", null), StreamEx.of(null, "a", null).mapCached(x -> x, 1).toList());
+        assertThrows(IllegalArgumentException.class, () -> StreamEx.of(1).mapCached(x -> x, 0));
+        assertThrows(NullPointerException.class, () -> StreamEx.of(1).mapCached(x -> x, 1, true, null));
+    }
+
+    @Test
+    public void testDistinctWithin() {
+        assertEquals(Arrays.asList(1, 2, 1, 3, 2), StreamEx.of(1, 2, 1, 1, 3, 3, 2).distinctWithin(1).toList());
+        assertEquals(Arrays.asList(1, 2, 3, 1), StreamEx.of(1, 2, 1, 3, 2, 1).distinctWithin(2).toList());
+        assertEquals(Arrays.asList("a", "bb"), StreamEx.of("a", "bb", "b", "cc", "c").distinctWithin(String::length,
+            2).toList());
+        assertEquals(Arrays.asList("a", "bb", "cc"), StreamEx.of("a", "bb", "b", "cc", "c").distinctWithin(
+            String::length, 1).distinctWithin(x -> x.charAt(0), 10).toList());
+        // infinite stream with bounded number of keys
+        assertEquals(IntStreamEx.range(100).boxed().toList(), StreamEx.iterate(0, x -> x + 1).map(x -> x % 100)
+                .distinctWithin(100).limit(100).toList());
+        List<Integer> input = IntStreamEx.range(10000).map(x -> x % 7).boxed().toList();
+        streamEx(input::stream, s -> assertEquals(Arrays.asList(0, 1, 2, 3, 4, 5, 6), s.get().distinctWithin(7)
+                .toList()));
+        assertEquals(input, StreamEx.of(input).parallel().distinctWithin(6).toList());
+        assertEquals(Arrays.asList("a", "b"), StreamEx.of("a", "b", "a", "b").distinctWithin(Function.identity(),
+            Duration.ofDays(1), Clock.systemUTC()).toList());
+        assertThrows(IllegalArgumentException.class, () -> StreamEx.of(1).distinctWithin(0));
+        assertThrows(IllegalArgumentException.class, () -> StreamEx.of(1).distinctWithin(x -> x, Duration.ZERO, Clock
+                .systemUTC()));
+    }
+
+    @Test
+    public void testInstrument() {
+        StageStatistics stats = new StageStatistics();
+        List<String> result = StreamEx.of("a", "bb", "ccc", "dd", "e").instrument(stats).checkpoint("source")
+                .filter(s -> s.length() < 3).checkpoint("filtered").map(String::toUpperCase).checkpoint("mapped")
+                .toList();
+        assertEquals(Arrays.asList("A", "BB", "DD", "E"), result);
+        assertEquals(Arrays.asList("source", "filtered", "mapped"), stats.getStages());
+        assertEquals(5, stats.getElementCount("source"));
+        assertEquals(4, stats.getElementCount("filtered"));
+        assertEquals(4, stats.getElementCount("mapped"));
+        assertEquals("", stats.getSplits("mapped").get(0).getPath());
+        assertTrue(stats.getNanos("mapped") >= stats.getStageNanos("mapped"));
+        assertTrue(stats.getStageNanos("source") >= 0);
+        assertTrue(stats.toString(), stats.toString().startsWith("StageStatistics[source: out=5, nanos="));
+        assertTrue(stats.toString(), stats.toString().contains("filtered: in=5, out=4, nanos="));
+
+        // short-circuiting
+        StageStatistics limited = new StageStatistics();
+        assertEquals(Optional.of(3), StreamEx.iterate(1, x -> x + 1).instrument(limited).checkpoint("source")
+                .findFirst(x -> x > 2));
+        assertEquals(3, limited.getElementCount("source"));
+
+        // parallel
+        StageStatistics parallel = new StageStatistics();
+        List<Integer> input = IntStreamEx.range(10000).boxed().toList();
+        assertEquals(input, StreamEx.of(input).parallel().instrument(parallel).checkpoint("source").map(x -> x * 2)
+                .checkpoint("doubled").map(x -> x / 2).toList());
+        assertEquals(10000, parallel.getElementCount("source"));
+        assertEquals(10000, parallel.getElementCount("doubled"));
+        List<StageStatistics.Split> splits = parallel.getSplits("source");
+        assertEquals(splits.size(), parallel.getSplits("doubled").size());
+        Set<String> paths = StreamEx.of(splits).map(StageStatistics.Split::getPath).toSet();
+        assertEquals(splits.size(), paths.size());
+        assertTrue(StreamEx.of(paths).allMatch(path -> path.matches("[01]*")));
+
+        // not instrumented
+        assertEquals(Arrays.asList(1, 2), StreamEx.of(1, 2).checkpoint("ignored").toList());
+        StageStatistics late = new StageStatistics();
+        assertEquals(Arrays.asList(1, 2), StreamEx.of(1, 2).checkpoint("ignored").instrument(late).toList());
+        assertTrue(late.getStages().isEmpty());
+        assertEquals("StageStatistics[]", late.toString());
+        assertThrows(IllegalArgumentException.class, () -> late.getElementCount("ignored"));
+        assertThrows(NullPointerException.class, () -> StreamEx.of(1).instrument(null));
+    }
 }